@@ -0,0 +1,13 @@
+-- ========================================
+-- 已有库升级：热点博客分片点赞数按归并 ID 幂等写回
+-- 在新版本上线之前执行一次；按 data.sql 新建的库已包含该表，不需要执行
+-- ========================================
+
+CREATE TABLE IF NOT EXISTS blog_thumb_fold
+(
+    foldId     bigint primary key comment '归并 ID，与 Redis 中的待写回值对应',
+    blogId     bigint                             not null,
+    delta      bigint                             not null comment '写回的点赞数变化',
+    createTime datetime default CURRENT_TIMESTAMP not null comment '写回时间',
+    INDEX idx_createTime (createTime)
+);
@@ -45,6 +45,18 @@ create table if not exists thumb
     createTime datetime default CURRENT_TIMESTAMP not null comment '创建时间'
 );
 create unique index idx_userId_blogId on thumb (userId, blogId);
+-- 按博客统计点赞记录数（增量对账校验 blog.thumbCount）
+create index idx_blogId on thumb (blogId);
+
+-- 热点博客分片点赞数写回记录，同一次归并只写回一次，保留一天
+create table if not exists blog_thumb_fold
+(
+    foldId     bigint primary key comment '归并 ID，与 Redis 中的待写回值对应',
+    blogId     bigint                             not null,
+    delta      bigint                             not null comment '写回的点赞数变化',
+    createTime datetime default CURRENT_TIMESTAMP not null comment '写回时间'
+);
+create index idx_createTime on blog_thumb_fold (createTime);
 
 -- 管理员用户（系统内置）
 INSERT INTO users (
@@ -0,0 +1,9 @@
+-- ========================================
+-- 已有库升级：点赞通知按 (接收者, 博客, 类型) 聚合为一条记录
+-- 在 notification_system.sql 建表之后、聚合通知上线之前执行一次；新建的库已包含这些列，不需要执行
+-- ========================================
+
+ALTER TABLE `notifications`
+    ADD COLUMN `aggregate_key` VARCHAR(128) NULL COMMENT '聚合键：类型:资源类型:资源ID:接收者ID，非聚合通知为NULL' AFTER `extra_data`,
+    ADD COLUMN `actor_count` INT NOT NULL DEFAULT 1 COMMENT '聚合通知去重后的触发者数（近似值）' AFTER `aggregate_key`,
+    ADD UNIQUE KEY `uk_aggregate_key` (`aggregate_key`);
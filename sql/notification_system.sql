@@ -13,9 +13,12 @@ CREATE TABLE `notifications` (
     `is_read` TINYINT(1) NOT NULL DEFAULT 0 COMMENT '是否已读：0-未读，1-已读',
     `read_time` DATETIME NULL COMMENT '阅读时间',
     `extra_data` JSON NULL COMMENT '额外数据（如博客标题、用户头像等）',
+    `aggregate_key` VARCHAR(128) NULL COMMENT '聚合键：类型:资源类型:资源ID:接收者ID，非聚合通知为NULL',
+    `actor_count` INT NOT NULL DEFAULT 1 COMMENT '聚合通知去重后的触发者数（近似值）',
     `create_time` DATETIME NOT NULL DEFAULT CURRENT_TIMESTAMP COMMENT '创建时间',
     `update_time` DATETIME NOT NULL DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP COMMENT '更新时间',
     PRIMARY KEY (`id`),
+    UNIQUE KEY `uk_aggregate_key` (`aggregate_key`),
     INDEX `idx_user_id_create_time` (`user_id`, `create_time` DESC),
     INDEX `idx_user_id_is_read` (`user_id`, `is_read`),
     INDEX `idx_type_create_time` (`type`, `create_time` DESC),
@@ -79,4 +82,6 @@ CREATE INDEX `idx_notifications_user_time` ON `notifications` (`user_id`, `creat
 CREATE INDEX `idx_notifications_user_read_time` ON `notifications` (`user_id`, `is_read`, `create_time` DESC);
 
 -- 复合索引：关联ID + 关联类型（用于查询特定资源的通知）
-CREATE INDEX `idx_notifications_related` ON `notifications` (`related_id`, `related_type`); 
\ No newline at end of file
+CREATE INDEX `idx_notifications_related` ON `notifications` (`related_id`, `related_type`);
+
+-- 已有库升级见 notification_aggregate_migration.sql
@@ -0,0 +1,50 @@
+package com.ince.gigalike.config;
+
+import com.ince.gigalike.manage.cache.CacheInvalidationBus;
+import com.ince.gigalike.manage.cache.InvalidationTransport;
+import com.ince.gigalike.manage.cache.RedisInvalidationTransport;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+
+import java.time.Duration;
+import java.util.UUID;
+
+/**
+ * 本地缓存跨节点失效配置
+ * 通过 Redis 发布订阅在各节点之间广播失效的 key
+ */
+@Configuration
+public class CacheInvalidationConfig {
+
+    @Value("${cache.invalidation.channel:cache:invalidation}")
+    private String channel;
+
+    @Value("${cache.invalidation.max-batch-size:256}")
+    private int maxBatchSize;
+
+    @Value("${cache.invalidation.flush-interval-ms:5}")
+    private long flushIntervalMs;
+
+    @Bean
+    public RedisMessageListenerContainer redisMessageListenerContainer(RedisConnectionFactory connectionFactory) {
+        RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+        container.setConnectionFactory(connectionFactory);
+        return container;
+    }
+
+    @Bean
+    public InvalidationTransport invalidationTransport(RedisTemplate<String, Object> redisTemplate,
+                                                       RedisMessageListenerContainer redisMessageListenerContainer) {
+        return new RedisInvalidationTransport(redisTemplate, redisMessageListenerContainer, channel);
+    }
+
+    @Bean(initMethod = "start", destroyMethod = "close")
+    public CacheInvalidationBus cacheInvalidationBus(InvalidationTransport invalidationTransport) {
+        return new CacheInvalidationBus(invalidationTransport, UUID.randomUUID().toString(),
+                maxBatchSize, Duration.ofMillis(flushIntervalMs));
+    }
+}
@@ -0,0 +1,41 @@
+package com.ince.gigalike.config;
+
+import com.ince.gigalike.manage.lock.KeyedLock;
+import com.ince.gigalike.manage.lock.RedisLeaseKeyedLock;
+import com.ince.gigalike.manage.lock.StripedKeyedLock;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.core.RedisTemplate;
+
+import java.time.Duration;
+
+/**
+ * 点赞用户锁配置
+ * local：单机分段锁；redis：分段锁 + Redis 租约，多节点部署时使用
+ */
+@Configuration
+public class KeyedLockConfig {
+
+    @Value("${thumb.lock.type:local}")
+    private String type;
+
+    @Value("${thumb.lock.stripes:1024}")
+    private int stripes;
+
+    @Value("${thumb.lock.lease-ms:10000}")
+    private long leaseMs;
+
+    @Value("${thumb.lock.wait-ms:3000}")
+    private long waitMs;
+
+    @Bean
+    public KeyedLock thumbUserLock(RedisTemplate<String, Object> redisTemplate) {
+        StripedKeyedLock localLock = new StripedKeyedLock(stripes);
+        if ("redis".equalsIgnoreCase(type)) {
+            return new RedisLeaseKeyedLock(redisTemplate, localLock, "thumb:user",
+                    Duration.ofMillis(leaseMs), Duration.ofMillis(waitMs));
+        }
+        return localLock;
+    }
+}
@@ -0,0 +1,77 @@
+package com.ince.gigalike.config;
+
+import com.ince.gigalike.manage.cache.CacheInvalidationBus;
+import com.ince.gigalike.manage.cache.MultiLevelCache;
+import com.ince.gigalike.manage.cache.TopK;
+import com.ince.gigalike.mapper.BlogMapper;
+import com.ince.gigalike.mapper.TopicMapper;
+import com.ince.gigalike.mapper.UserMapper;
+import com.ince.gigalike.model.entity.Blog;
+import com.ince.gigalike.model.entity.Topic;
+import com.ince.gigalike.model.entity.User;
+import com.ince.gigalike.model.vo.UserVO;
+import org.springframework.beans.BeanUtils;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.core.RedisTemplate;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * 多级缓存配置
+ * 博客详情页的热点读取：博客实体、作者信息、博客话题列表
+ */
+@Configuration
+public class MultiLevelCacheConfig {
+
+    /**
+     * 数据源中不存在的 ID 的空值缓存时间
+     */
+    private static final Duration NULL_TTL = Duration.ofSeconds(30);
+
+    /**
+     * 博客实体，点赞数写库后主动删除，本地缓存时间较短
+     */
+    @Bean
+    public MultiLevelCache<Long, Blog> blogCache(RedisTemplate<String, Object> redisTemplate,
+                                                 TopK hotKeyDetector,
+                                                 CacheInvalidationBus cacheInvalidationBus,
+                                                 BlogMapper blogMapper) {
+        return new MultiLevelCache<>("blog", 1000, Duration.ofSeconds(30), Duration.ofMinutes(1), NULL_TTL,
+                redisTemplate, hotKeyDetector, cacheInvalidationBus, blogMapper::selectById);
+    }
+
+    /**
+     * 作者信息，用户修改资料时主动删除
+     */
+    @Bean
+    public MultiLevelCache<Long, UserVO> userVOCache(RedisTemplate<String, Object> redisTemplate,
+                                                     TopK hotKeyDetector,
+                                                     CacheInvalidationBus cacheInvalidationBus,
+                                                     UserMapper userMapper) {
+        return new MultiLevelCache<>("user", 1000, Duration.ofMinutes(5), Duration.ofMinutes(30), NULL_TTL,
+                redisTemplate, hotKeyDetector, cacheInvalidationBus, userId -> {
+                    User user = userMapper.selectById(userId);
+                    if (user == null) {
+                        return null;
+                    }
+                    UserVO userVO = new UserVO();
+                    BeanUtils.copyProperties(user, userVO);
+                    return userVO;
+                });
+    }
+
+    /**
+     * 博客的话题列表，修改博客话题时主动删除
+     * 只缓存话题本身，是否关注等与登录用户相关的字段在读取后再计算
+     */
+    @Bean
+    public MultiLevelCache<Long, List<Topic>> blogTopicsCache(RedisTemplate<String, Object> redisTemplate,
+                                                              TopK hotKeyDetector,
+                                                              CacheInvalidationBus cacheInvalidationBus,
+                                                              TopicMapper topicMapper) {
+        return new MultiLevelCache<>("blogTopics", 1000, Duration.ofMinutes(5), Duration.ofMinutes(30), NULL_TTL,
+                redisTemplate, hotKeyDetector, cacheInvalidationBus, topicMapper::selectTopicsByBlogId);
+    }
+}
@@ -0,0 +1,47 @@
+package com.ince.gigalike.config;
+
+import com.ince.gigalike.listener.notification.msg.NotificationEvent;
+import org.apache.pulsar.client.api.BatchReceivePolicy;
+import org.apache.pulsar.client.api.DeadLetterPolicy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.pulsar.annotation.PulsarListenerConsumerBuilderCustomizer;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 通知消费者配置：批量接收策略与死信队列
+ */
+@Configuration
+public class NotificationConsumerConfig {
+
+    /**
+     * 攒够 max-messages 条或等待 timeout-ms 后交给批量监听方法，
+     * 通知要实时推送，等待时间比点赞事件短得多
+     */
+    @Bean
+    public PulsarListenerConsumerBuilderCustomizer<NotificationEvent> notificationBatchReceiveCustomizer(
+            @Value("${notification.consumer.batch-max-messages:500}") int maxMessages,
+            @Value("${notification.consumer.batch-max-bytes:1048576}") int maxBytes,
+            @Value("${notification.consumer.batch-timeout-ms:100}") int timeoutMs) {
+        return consumerBuilder -> consumerBuilder.batchReceivePolicy(
+                BatchReceivePolicy.builder()
+                        .maxNumMessages(maxMessages)
+                        .maxNumBytes(maxBytes)
+                        .timeout(timeoutMs, TimeUnit.MILLISECONDS)
+                        .build()
+        );
+    }
+
+    /**
+     * 逐条重试后仍然失败的通知消息，重投超过次数后进入死信主题
+     */
+    @Bean
+    public DeadLetterPolicy notificationDeadLetterPolicy() {
+        return DeadLetterPolicy.builder()
+                .maxRedeliverCount(3)
+                .deadLetterTopic("notification-dlq-topic")
+                .build();
+    }
+}
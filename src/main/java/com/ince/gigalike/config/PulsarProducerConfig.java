@@ -0,0 +1,102 @@
+package com.ince.gigalike.config;
+
+import com.ince.gigalike.constant.ThumbConstant;
+import com.ince.gigalike.listener.notification.msg.NotificationEvent;
+import com.ince.gigalike.listener.thumb.msg.ThumbEvent;
+import com.ince.gigalike.listener.thumb.msg.ThumbEventEnvelope;
+import com.ince.gigalike.manage.mq.ProducerMetrics;
+import com.ince.gigalike.manage.mq.ProducerSettings;
+import com.ince.gigalike.manage.notification.NotificationEventPublisher;
+import com.ince.gigalike.manage.thumb.ThumbEventEnvelopeBuffer;
+import com.ince.gigalike.manage.thumb.ThumbEventPublisher;
+import org.apache.pulsar.client.api.CompressionType;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.pulsar.core.ProducerBuilderCustomizer;
+import org.springframework.pulsar.core.PulsarTemplate;
+
+import java.time.Duration;
+
+/**
+ * Pulsar 生产者配置：点赞与通知主题的批量发送、压缩、信封与发送统计
+ * 生产者定制器不注册为 Bean，避免被自动配置应用到所有主题的生产者上
+ */
+@Configuration
+public class PulsarProducerConfig {
+
+    @Value("${thumb.mq.producer.batching-max-publish-delay-ms:5}")
+    private long thumbBatchingMaxPublishDelayMs;
+
+    @Value("${thumb.mq.producer.batching-max-messages:500}")
+    private int thumbBatchingMaxMessages;
+
+    @Value("${thumb.mq.producer.compression:LZ4}")
+    private CompressionType thumbCompression;
+
+    @Value("${notification.mq.producer.batching-max-publish-delay-ms:20}")
+    private long notificationBatchingMaxPublishDelayMs;
+
+    @Value("${notification.mq.producer.batching-max-messages:1000}")
+    private int notificationBatchingMaxMessages;
+
+    @Value("${notification.mq.producer.compression:ZSTD}")
+    private CompressionType notificationCompression;
+
+    @Bean
+    public ProducerMetrics thumbProducerMetrics() {
+        return new ProducerMetrics("thumb");
+    }
+
+    @Bean
+    public ProducerMetrics notificationProducerMetrics() {
+        return new ProducerMetrics("notification");
+    }
+
+    /**
+     * 信封模式，开启后点赞事件合并发送到 thumb-envelope-topic
+     */
+    @Bean(initMethod = "start", destroyMethod = "close")
+    @ConditionalOnProperty(name = "thumb.mq.envelope.enabled", havingValue = "true")
+    public ThumbEventEnvelopeBuffer thumbEventEnvelopeBuffer(PulsarTemplate<ThumbEventEnvelope> envelopeTemplate,
+                                                             ProducerMetrics thumbProducerMetrics,
+                                                             @Value("${thumb.mq.envelope.max-events:500}") int maxEvents,
+                                                             @Value("${thumb.mq.envelope.max-delay-ms:20}") long maxDelayMs,
+                                                             @Value("${thumb.mq.envelope.buckets:256}") int buckets) {
+        ProducerBuilderCustomizer<ThumbEventEnvelope> customizer = thumbSettings().toCustomizer();
+        return new ThumbEventEnvelopeBuffer(maxEvents, Duration.ofMillis(maxDelayMs), buckets, (key, envelope) -> {
+            long start = System.nanoTime();
+            return thumbProducerMetrics.record(start, envelope.getEvents().size(), envelopeTemplate.newMessage(envelope)
+                    .withTopic(ThumbConstant.THUMB_ENVELOPE_TOPIC)
+                    .withMessageCustomizer(message -> message.key(key))
+                    .withProducerCustomizer(customizer)
+                    .sendAsync());
+        });
+    }
+
+    @Bean
+    public ThumbEventPublisher thumbEventPublisher(PulsarTemplate<ThumbEvent> pulsarTemplate,
+                                                   ProducerMetrics thumbProducerMetrics,
+                                                   ObjectProvider<ThumbEventEnvelopeBuffer> envelopeBuffer) {
+        return new ThumbEventPublisher(pulsarTemplate, thumbSettings().toCustomizer(), thumbProducerMetrics,
+                envelopeBuffer.getIfAvailable());
+    }
+
+    @Bean
+    public NotificationEventPublisher notificationEventPublisher(PulsarTemplate<NotificationEvent> pulsarTemplate,
+                                                                 ProducerMetrics notificationProducerMetrics) {
+        ProducerSettings settings = new ProducerSettings(Duration.ofMillis(notificationBatchingMaxPublishDelayMs),
+                notificationBatchingMaxMessages, notificationCompression, false);
+        return new NotificationEventPublisher(pulsarTemplate, settings.toCustomizer(), notificationProducerMetrics);
+    }
+
+    /**
+     * 点赞主题按 key 分批，配合 Key_Shared 订阅
+     */
+    private ProducerSettings thumbSettings() {
+        return new ProducerSettings(Duration.ofMillis(thumbBatchingMaxPublishDelayMs), thumbBatchingMaxMessages,
+                thumbCompression, true);
+    }
+}
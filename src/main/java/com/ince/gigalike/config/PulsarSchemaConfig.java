@@ -0,0 +1,26 @@
+package com.ince.gigalike.config;
+
+import com.ince.gigalike.listener.thumb.msg.ThumbEvent;
+import com.ince.gigalike.listener.thumb.msg.ThumbEventSchema;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.pulsar.core.DefaultSchemaResolver;
+import org.springframework.pulsar.core.SchemaResolver;
+
+/**
+ * Pulsar 自定义 Schema 配置
+ * ThumbEvent 的生产与消费都通过 SchemaResolver 使用 {@link ThumbEventSchema}，监听器不再指定 schemaType
+ */
+@Configuration
+public class PulsarSchemaConfig {
+
+    /**
+     * @param writeFormat 生产者写入格式；消费者始终同时支持 JSON 与二进制
+     */
+    @Bean
+    public SchemaResolver.SchemaResolverCustomizer<DefaultSchemaResolver> thumbEventSchemaCustomizer(
+            @Value("${thumb.mq.schema.write-format:JSON}") ThumbEventSchema.Format writeFormat) {
+        return resolver -> resolver.addCustomSchemaMapping(ThumbEvent.class, new ThumbEventSchema(writeFormat));
+    }
+}
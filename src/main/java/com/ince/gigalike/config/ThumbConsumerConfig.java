@@ -1,14 +1,22 @@
 package com.ince.gigalike.config;
 
+import com.ince.gigalike.constant.ThumbConstant;
+import com.ince.gigalike.manage.thumb.RedisProcessedEventStore;
+import com.ince.gigalike.manage.thumb.ThumbEventDeduplicator;
 import org.apache.pulsar.client.api.BatchReceivePolicy;
 import org.apache.pulsar.client.api.ConsumerBuilder;
 import org.apache.pulsar.client.api.DeadLetterPolicy;
 import org.apache.pulsar.client.api.RedeliveryBackoff;
 import org.apache.pulsar.client.impl.MultiplierRedeliveryBackoff;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.core.RedisTemplate;
 import org.springframework.pulsar.annotation.PulsarListenerConsumerBuilderCustomizer;
+import org.springframework.pulsar.core.PulsarTopic;
 
+import java.time.Duration;
 import java.util.concurrent.TimeUnit;
 
 /**
@@ -63,5 +71,47 @@ public class ThumbConsumerConfig<T> implements PulsarListenerConsumerBuilderCust
                 .build();
     }
 
+    /**
+     * 信封消息的 schema 与单条事件不同，使用单独的死信主题
+     */
+    @Bean
+    @ConditionalOnProperty(name = "thumb.mq.envelope.enabled", havingValue = "true")
+    public DeadLetterPolicy envelopeDeadLetterPolicy() {
+        return DeadLetterPolicy.builder()
+                .maxRedeliverCount(3)
+                .deadLetterTopic("thumb-envelope-dlq-topic")
+                .build();
+    }
+
+    /**
+     * 点赞事件分区主题，启动时由 PulsarAdministration 创建
+     * 配合消息 key 与 Key_Shared 订阅，同一 (userId, blogId) 的事件有序，消费者可以横向扩展
+     */
+    @Bean
+    public PulsarTopic thumbTopic(@Value("${thumb.mq.partitions:8}") int partitions) {
+        return PulsarTopic.builder(ThumbConstant.THUMB_TOPIC)
+                .numberOfPartitions(partitions)
+                .build();
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "thumb.mq.envelope.enabled", havingValue = "true")
+    public PulsarTopic thumbEnvelopeTopic(@Value("${thumb.mq.partitions:8}") int partitions) {
+        return PulsarTopic.builder(ThumbConstant.THUMB_ENVELOPE_TOPIC)
+                .numberOfPartitions(partitions)
+                .build();
+    }
+
+    /**
+     * 点赞事件去重窗口：Redis 按时间窗口分桶的已处理 ID 集合 + 本地布隆过滤器
+     */
+    @Bean
+    public ThumbEventDeduplicator thumbEventDeduplicator(RedisTemplate<String, Object> redisTemplate,
+                                                         @Value("${thumb.dedup.window-minutes:60}") long windowMinutes,
+                                                         @Value("${thumb.dedup.expected-events:1000000}") long expectedEvents,
+                                                         @Value("${thumb.dedup.fpp:0.001}") double fpp) {
+        Duration window = Duration.ofMinutes(windowMinutes);
+        return new ThumbEventDeduplicator(new RedisProcessedEventStore(redisTemplate, window), expectedEvents, fpp, window);
+    }
 
 }
@@ -0,0 +1,35 @@
+package com.ince.gigalike.config;
+
+import com.ince.gigalike.manage.thumb.ThumbBatchWriter;
+import com.ince.gigalike.manage.thumb.ThumbWriteBehindBuffer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+/**
+ * 点赞异步写库（write-behind）配置
+ * thumb.write-mode = write-behind 时，ThumbServiceImpl 只同步更新 Redis，数据库由缓冲区批量写入；
+ * 同步写库模式下不创建缓冲区，也不启动刷新线程
+ */
+@Configuration
+public class ThumbWriteBehindConfig {
+
+    @Value("${thumb.write-behind.max-delay-ms:200}")
+    private long maxDelayMs;
+
+    @Value("${thumb.write-behind.max-batch-size:500}")
+    private int maxBatchSize;
+
+    @Value("${thumb.write-behind.stripe-capacity:4096}")
+    private int stripeCapacity;
+
+    @Bean(initMethod = "start", destroyMethod = "close")
+    @ConditionalOnProperty(name = "thumb.write-mode", havingValue = "write-behind")
+    public ThumbWriteBehindBuffer thumbWriteBehindBuffer(ThumbBatchWriter thumbBatchWriter) {
+        return new ThumbWriteBehindBuffer(Runtime.getRuntime().availableProcessors(), stripeCapacity,
+                maxBatchSize, Duration.ofMillis(maxDelayMs), thumbBatchWriter, ThumbBatchWriter::isRetryable);
+    }
+}
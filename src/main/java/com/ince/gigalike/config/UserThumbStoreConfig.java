@@ -0,0 +1,42 @@
+package com.ince.gigalike.config;
+
+import com.ince.gigalike.manage.thumb.BucketedUserThumbStore;
+import com.ince.gigalike.manage.thumb.ExpiringUserThumbStore;
+import com.ince.gigalike.manage.thumb.HashUserThumbStore;
+import com.ince.gigalike.manage.thumb.UserThumbStore;
+import com.ince.gigalike.mapper.ThumbMapper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.core.RedisTemplate;
+
+import java.time.Duration;
+
+/**
+ * 用户点赞状态 Redis 布局配置
+ * hash：每个用户一个哈希；bucketed：每个用户按线性哈希分成多个小哈希，旧数据写入时迁移
+ * ttl-hours 大于 0 时冷用户点赞数据过期淘汰，再次访问时从数据库加载
+ */
+@Configuration
+public class UserThumbStoreConfig {
+
+    @Value("${thumb.redis.layout:hash}")
+    private String layout;
+
+    @Value("${thumb.redis.bucket-max-load:48}")
+    private int bucketMaxLoad;
+
+    @Value("${thumb.redis.ttl-hours:0}")
+    private long ttlHours;
+
+    @Bean
+    public UserThumbStore userThumbStore(RedisTemplate<String, Object> redisTemplate, ThumbMapper thumbMapper) {
+        UserThumbStore store = "bucketed".equalsIgnoreCase(layout)
+                ? new BucketedUserThumbStore(redisTemplate, bucketMaxLoad)
+                : new HashUserThumbStore(redisTemplate);
+        if (ttlHours > 0) {
+            return new ExpiringUserThumbStore(store, redisTemplate, thumbMapper::selectBlogIdsByUserId, Duration.ofHours(ttlHours));
+        }
+        return store;
+    }
+}
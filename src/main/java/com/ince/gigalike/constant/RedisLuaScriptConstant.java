@@ -3,6 +3,8 @@ package com.ince.gigalike.constant;
 import org.springframework.data.redis.core.script.DefaultRedisScript;
 import org.springframework.data.redis.core.script.RedisScript;
 
+import java.util.List;
+
 public class RedisLuaScriptConstant {
   
     /**  
@@ -72,48 +74,473 @@ public class RedisLuaScriptConstant {
             return 1  -- 返回 1 表示成功  
             """, Long.class);
 
+    /**
+     * 点赞事件 outbox 公共函数：KEYS[3] 存在时把点赞事件追加到 outbox 流，与点赞状态在同一个脚本内原子写入
+     * 流字段：e 事件 ID、u 用户 ID、b 博客 ID、t 类型（1 点赞 / -1 取消点赞）、ts 事件时间（毫秒）
+     * ARGV[base]     -- 用户 ID
+     * ARGV[base + 1] -- 事件 ID
+     * ARGV[base + 2] -- 事件时间
+     */
+    private static final String THUMB_OUTBOX_LIB = """
+        local function appendOutbox(type, blogId, base)
+            if KEYS[3] then
+                redis.call('XADD', KEYS[3], '*', 'e', ARGV[base + 1], 'u', ARGV[base], 'b', blogId, 't', type, 'ts', ARGV[base + 2])
+            end
+        end
+        """;
+
     /**
      * 点赞 Lua 脚本
      * KEYS[1]       -- 用户点赞状态键
+     * KEYS[2]       -- 用户点赞数据已加载标记键（取消点赞脚本使用）
+     * KEYS[3]       -- outbox 流键，可选
      * ARGV[1]       -- 博客 ID
+     * ARGV[2..4]    -- 用户 ID、事件 ID、事件时间，写 outbox 时传入
      * 返回:
      * -1: 已点赞
      * 1: 操作成功
      */
-    public static final RedisScript<Long> THUMB_SCRIPT_MQ = new DefaultRedisScript<>("""  
-                local userThumbKey = KEYS[1]  
-                local blogId = ARGV[1]  
-          
-                -- 判断是否已经点赞  
-                if redis.call("HEXISTS", userThumbKey, blogId) == 1 then  
-                    return -1  
-                end  
-          
-                -- 添加点赞记录  
-                redis.call("HSET", userThumbKey, blogId, 1)  
-                return 1  
+    public static final RedisScript<Long> THUMB_SCRIPT_MQ = new DefaultRedisScript<>(THUMB_OUTBOX_LIB + """
+        local userThumbKey = KEYS[1]
+        local blogId = ARGV[1]
+
+        -- 判断是否已经点赞
+        if redis.call("HEXISTS", userThumbKey, blogId) == 1 then
+            return -1
+        end
+
+        -- 添加点赞记录
+        redis.call("HSET", userThumbKey, blogId, 1)
+        appendOutbox(1, blogId, 2)
+        return 1
         """, Long.class);
 
     /**
-     * 取消点赞 Lua 脚本
-     * KEYS[1]       -- 用户点赞状态键
+     * 取消点赞 Lua 脚本，参数同上
+     * 删除最后一个字段时 Redis 会连同哈希一起删除，此时写入已加载标记（已存在时不改动），
+     * 对账据此区分"点赞全部取消"与"Redis 数据丢失"
+     * 返回:
+     * -1: 未点赞
+     * 1: 操作成功
+     */
+    public static final RedisScript<Long> UNTHUMB_SCRIPT_MQ = new DefaultRedisScript<>(THUMB_OUTBOX_LIB + """
+        local userThumbKey = KEYS[1]
+        local blogId = ARGV[1]
+
+        -- 判断是否已点赞
+        if redis.call("HEXISTS", userThumbKey, blogId) == 0 then
+            return -1
+        end
+
+        -- 删除点赞记录，哈希被清空时标记点赞数据完整
+        redis.call("HDEL", userThumbKey, blogId)
+        if redis.call("EXISTS", userThumbKey) == 0 then
+            redis.call("SET", KEYS[2], 1, "NX")
+        end
+        appendOutbox(-1, blogId, 2)
+        return 1
+        """, Long.class);
+
+    /**
+     * 释放分布式锁 Lua 脚本，令牌一致才删除
+     * KEYS[1]       -- 锁键
+     * ARGV[1]       -- 加锁时写入的令牌
+     * 返回:
+     * 0: 锁已过期或被其他节点持有
+     * 1: 释放成功
+     */
+    public static final RedisScript<Long> UNLOCK_SCRIPT = new DefaultRedisScript<>("""
+        if redis.call("GET", KEYS[1]) == ARGV[1] then
+            return redis.call("DEL", KEYS[1])
+        end
+        return 0
+        """, Long.class);
+
+    /**
+     * 热点博客分片计数 Lua 脚本
+     * KEYS[1]       -- 分片计数键
+     * KEYS[2]       -- 分片博客集合键
+     * ARGV[1]       -- 点赞数变化
+     * ARGV[2]       -- 博客 ID
+     * 返回: 分片计数的新值
+     */
+    public static final RedisScript<Long> THUMB_COUNT_SHARD_INCR_SCRIPT = new DefaultRedisScript<>("""
+        redis.call("SADD", KEYS[2], ARGV[2])
+        return redis.call("INCRBY", KEYS[1], ARGV[1])
+        """, Long.class);
+
+    /**
+     * 热点博客分片计数归并 Lua 脚本：把所有分片累加到待写回键并清空分片，同时写入本次归并 ID；
+     * 上一次归并尚未确认（归并 ID 键仍存在）时不归并新的分片，原样返回待写回值，由调用方按原归并 ID 重试写库
+     * KEYS[1..n]    -- 分片计数键
+     * KEYS[n+1]     -- 待写回键
+     * KEYS[n+2]     -- 归并 ID 键
+     * KEYS[n+3]     -- 分片博客集合键
      * ARGV[1]       -- 博客 ID
+     * ARGV[2]       -- 本次归并 ID
+     * 返回: 待写回的点赞数；没有任何变化时把博客移出集合
+     */
+    public static final RedisScript<Long> THUMB_COUNT_SHARD_FOLD_SCRIPT = new DefaultRedisScript<>("""
+        local n = #KEYS - 3
+        local pendingKey = KEYS[n + 1]
+        local foldKey = KEYS[n + 2]
+        if redis.call("EXISTS", foldKey) == 1 then
+            return tonumber(redis.call("GET", pendingKey) or 0)
+        end
+        local moved = 0
+        local touched = false
+        for i = 1, n do
+            local value = redis.call("GET", KEYS[i])
+            if value then
+                touched = true
+                moved = moved + tonumber(value)
+                redis.call("DEL", KEYS[i])
+            end
+        end
+        local pending = tonumber(redis.call("GET", pendingKey) or 0) + moved
+        if pending ~= 0 then
+            redis.call("SET", pendingKey, pending)
+            redis.call("SET", foldKey, ARGV[2])
+        else
+            redis.call("DEL", pendingKey)
+            if not touched then
+                redis.call("SREM", KEYS[n + 3], ARGV[1])
+            end
+        end
+        return pending
+        """, Long.class);
+
+    /**
+     * 热点博客分片计数写库后确认：归并 ID 一致才删除待写回值与归并 ID
+     * KEYS[1]       -- 待写回键
+     * KEYS[2]       -- 归并 ID 键
+     * ARGV[1]       -- 归并 ID
+     * 返回:
+     * 0: 归并 ID 不一致，未删除
+     * 1: 确认成功
+     */
+    public static final RedisScript<Long> THUMB_COUNT_FOLD_ACK_SCRIPT = new DefaultRedisScript<>("""
+        if redis.call("GET", KEYS[2]) ~= ARGV[1] then
+            return 0
+        end
+        redis.call("DEL", KEYS[1], KEYS[2])
+        return 1
+        """, Long.class);
+
+    /**
+     * 点赞事件去重查询 Lua 脚本：事件 ID 是否出现在当前或上一个时间窗口的已处理集合中
+     * KEYS[1]       -- 当前窗口集合键
+     * KEYS[2]       -- 上一个窗口集合键
+     * ARGV[1..n]    -- 事件 ID
+     * 返回: 与 ARGV 一一对应，1 已处理，0 未处理
+     */
+    public static final RedisScript<List> THUMB_EVENT_SEEN_SCRIPT = new DefaultRedisScript<>("""
+        local result = {}
+        for i = 1, #ARGV do
+            if redis.call("SISMEMBER", KEYS[1], ARGV[i]) == 1 or redis.call("SISMEMBER", KEYS[2], ARGV[i]) == 1 then
+                result[i] = 1
+            else
+                result[i] = 0
+            end
+        end
+        return result
+        """, List.class);
+
+    /**
+     * 点赞事件标记已处理 Lua 脚本
+     * KEYS[1]       -- 当前窗口集合键
+     * ARGV[1]       -- 集合过期时间（秒）
+     * ARGV[2..n]    -- 事件 ID
+     * 返回: 新加入的 ID 数
+     */
+    public static final RedisScript<Long> THUMB_EVENT_MARK_SCRIPT = new DefaultRedisScript<>("""
+        local added = redis.call("SADD", KEYS[1], unpack(ARGV, 2))
+        redis.call("EXPIRE", KEYS[1], ARGV[1])
+        return added
+        """, Long.class);
+
+    /**
+     * 续期租约 Lua 脚本，令牌一致才续期
+     * KEYS[1]       -- 租约键
+     * ARGV[1]       -- 加锁时写入的令牌
+     * ARGV[2]       -- 新的租约时长（毫秒）
+     * 返回:
+     * 0: 租约已过期或被其他节点持有
+     * 1: 续期成功
+     */
+    public static final RedisScript<Long> LEASE_RENEW_SCRIPT = new DefaultRedisScript<>("""
+        if redis.call("GET", KEYS[1]) == ARGV[1] then
+            return redis.call("PEXPIRE", KEYS[1], ARGV[2])
+        end
+        return 0
+        """, Long.class);
+
+    /**
+     * 用数据库中的点赞记录重建用户点赞哈希，哈希或已加载标记已存在时不写入，避免覆盖期间发生的点赞 / 取消点赞
+     * KEYS[1]       -- 用户点赞状态键
+     * KEYS[2]       -- 用户点赞数据已加载标记键
+     * ARGV[1..n]    -- 博客 ID
+     * 返回:
+     * 0: 哈希或标记已存在，未写入
+     * 1: 重建成功
+     */
+    public static final RedisScript<Long> THUMB_REHYDRATE_SCRIPT = new DefaultRedisScript<>("""
+        if redis.call("EXISTS", KEYS[1]) == 1 or redis.call("EXISTS", KEYS[2]) == 1 then
+            return 0
+        end
+        for i = 1, #ARGV do
+            redis.call("HSET", KEYS[1], ARGV[i], 1)
+        end
+        return 1
+        """, Long.class);
+
+    /**
+     * 分桶点赞哈希公共函数：用户点赞分散到 thumb:{userId}:{bucket}，用线性哈希逐个分裂桶，
+     * 让每个桶保持在 listpack 编码；旧布局 thumb:{userId} 在写入时整体迁移。
+     * 桶号取博客 ID 十进制末 6 位（Lua 数字无法精确表示 64 位 ID），
+     * 分裂过的用户在 0 号桶保存 L（level）、p（下一个分裂的桶）、c（点赞总数）。
+     * KEYS[1]       -- 用户点赞键前缀 thumb:{userId}，同时是旧布局的键
+     */
+    private static final String BUCKETED_THUMB_LIB = """
+        local prefix = KEYS[1]
+        local bucket0 = prefix .. ':0'
+
+        local function hashOf(blogId)
+            return tonumber(string.sub(blogId, -6))
+        end
+
+        local function bucketKey(bucket)
+            return prefix .. ':' .. string.format('%d', bucket)
+        end
+
+        local function loadState()
+            local meta = redis.call('HMGET', bucket0, 'L', 'p', 'c')
+            if meta[1] then
+                return tonumber(meta[1]), tonumber(meta[2]), tonumber(meta[3])
+            end
+            return 0, 0, nil
+        end
+
+        local function bucketOf(blogId, level, split)
+            local h = hashOf(blogId)
+            local n = 2 ^ level
+            local bucket = h % n
+            if bucket < split then
+                bucket = h % (2 * n)
+            end
+            return bucket
+        end
+
+        local function isMeta(field)
+            return field == 'L' or field == 'p' or field == 'c'
+        end
+
+        -- 给 [0, buckets) 内的桶设置过期时间
+        local function expireBuckets(buckets, ttl)
+            for bucket = 0, buckets - 1 do
+                redis.call('PEXPIRE', bucketKey(bucket), ttl)
+            end
+        end
+
+        -- 分裂 split 指向的桶，末 6 位对 2n 取模不等于 split 的记录移到 split + n，新桶沿用 0 号桶的过期时间
+        local function splitBucket(level, split, count)
+            local n = 2 ^ level
+            local from = bucketKey(split)
+            local to = bucketKey(split + n)
+            local entries = redis.call('HGETALL', from)
+            for i = 1, #entries, 2 do
+                local field = entries[i]
+                if not isMeta(field) and hashOf(field) % (2 * n) ~= split then
+                    redis.call('HSET', to, field, entries[i + 1])
+                    redis.call('HDEL', from, field)
+                end
+            end
+            local ttl = redis.call('PTTL', bucket0)
+            if ttl > 0 then
+                redis.call('PEXPIRE', to, ttl)
+            end
+            split = split + 1
+            if split == n then
+                level = level + 1
+                split = 0
+            end
+            redis.call('HSET', bucket0, 'L', level, 'p', split, 'c', count)
+        end
+
+        -- 插入一条点赞，平均每桶点赞数超过 maxLoad 时分裂一个桶；已存在时返回 false
+        local function insert(blogId, maxLoad)
+            local level, split, count = loadState()
+            if redis.call('HSETNX', bucketKey(bucketOf(blogId, level, split)), blogId, 1) == 0 then
+                return false
+            end
+            if count then
+                count = redis.call('HINCRBY', bucket0, 'c', 1)
+            else
+                count = redis.call('HLEN', bucket0)
+            end
+            if count > maxLoad * (2 ^ level + split) then
+                splitBucket(level, split, count)
+            end
+            return true
+        end
+
+        local function migrateLegacy(maxLoad)
+            if redis.call('EXISTS', prefix) == 0 then
+                return
+            end
+            local ttl = redis.call('PTTL', prefix)
+            local entries = redis.call('HGETALL', prefix)
+            for i = 1, #entries, 2 do
+                insert(entries[i], maxLoad)
+            end
+            redis.call('DEL', prefix)
+            if ttl > 0 then
+                local level, split = loadState()
+                expireBuckets(2 ^ level + split, ttl)
+            end
+        end
+        """;
+
+    /**
+     * 分桶布局点赞 Lua 脚本
+     * KEYS[1]       -- 用户点赞键前缀
+     * KEYS[2]       -- 用户点赞数据已加载标记键（取消点赞脚本使用）
+     * KEYS[3]       -- outbox 流键，可选
+     * ARGV[1]       -- 每桶平均点赞数上限
+     * ARGV[2]       -- 博客 ID
+     * ARGV[3..5]    -- 用户 ID、事件 ID、事件时间，写 outbox 时传入
      * 返回:
      * -1: 已点赞
      * 1: 操作成功
      */
-    public static final RedisScript<Long> UNTHUMB_SCRIPT_MQ = new DefaultRedisScript<>("""  
-        local userThumbKey = KEYS[1]  
-        local blogId = ARGV[1]  
-          
-        -- 判断是否已点赞  
-        if redis.call("HEXISTS", userThumbKey, blogId) == 0 then  
-            return -1  
-        end  
-          
-        -- 删除点赞记录  
-        redis.call("HDEL", userThumbKey, blogId)  
-        return 1  
+    public static final RedisScript<Long> BUCKETED_THUMB_SCRIPT = new DefaultRedisScript<>(BUCKETED_THUMB_LIB + THUMB_OUTBOX_LIB + """
+        local maxLoad = tonumber(ARGV[1])
+        migrateLegacy(maxLoad)
+        if insert(ARGV[2], maxLoad) then
+            appendOutbox(1, ARGV[2], 3)
+            return 1
+        end
+        return -1
+        """, Long.class);
+
+    /**
+     * 分桶布局取消点赞 Lua 脚本，参数同上
+     * 未分裂的用户删除最后一条点赞时 0 号桶随之删除，此时写入已加载标记（已存在时不改动）；
+     * 分裂过的用户 0 号桶保存元数据，始终存在
+     * 返回:
+     * -1: 未点赞
+     * 1: 操作成功
+     */
+    public static final RedisScript<Long> BUCKETED_UNTHUMB_SCRIPT = new DefaultRedisScript<>(BUCKETED_THUMB_LIB + THUMB_OUTBOX_LIB + """
+        migrateLegacy(tonumber(ARGV[1]))
+        local level, split, count = loadState()
+        if redis.call('HDEL', bucketKey(bucketOf(ARGV[2], level, split)), ARGV[2]) == 0 then
+            return -1
+        end
+        if count then
+            redis.call('HINCRBY', bucket0, 'c', -1)
+        elseif redis.call('EXISTS', bucket0) == 0 then
+            redis.call('SET', KEYS[2], 1, 'NX')
+        end
+        appendOutbox(-1, ARGV[2], 3)
+        return 1
+        """, Long.class);
+
+    /**
+     * 分桶布局批量查询是否点赞，未迁移的旧布局键同时查询
+     * KEYS[1]       -- 用户点赞键前缀
+     * ARGV[1..n]    -- 博客 ID
+     * 返回: 与 ARGV 一一对应，1 已点赞，0 未点赞
+     */
+    public static final RedisScript<List> BUCKETED_THUMB_CONTAINS_SCRIPT = new DefaultRedisScript<>(BUCKETED_THUMB_LIB + """
+        local legacy = redis.call('EXISTS', prefix) == 1
+        local level, split = loadState()
+        local result = {}
+        for i = 1, #ARGV do
+            local found = redis.call('HEXISTS', bucketKey(bucketOf(ARGV[i], level, split)), ARGV[i])
+            if found == 0 and legacy then
+                found = redis.call('HEXISTS', prefix, ARGV[i])
+            end
+            result[i] = found
+        end
+        return result
+        """, List.class);
+
+    /**
+     * 把旧布局 thumb:{userId} 迁移到分桶布局
+     * KEYS[1]       -- 用户点赞键前缀
+     * ARGV[1]       -- 每桶平均点赞数上限
+     * 返回: 迁移后的桶数
+     */
+    public static final RedisScript<Long> BUCKETED_THUMB_MIGRATE_SCRIPT = new DefaultRedisScript<>(BUCKETED_THUMB_LIB + """
+        migrateLegacy(tonumber(ARGV[1]))
+        local level, split = loadState()
+        return 2 ^ level + split
+        """, Long.class);
+
+    /**
+     * 设置分桶布局全部桶（以及未迁移的旧布局键）的过期时间
+     * KEYS[1]       -- 用户点赞键前缀
+     * ARGV[1]       -- 过期时间（毫秒）
+     * 返回: 桶数
+     */
+    public static final RedisScript<Long> BUCKETED_THUMB_EXPIRE_SCRIPT = new DefaultRedisScript<>(BUCKETED_THUMB_LIB + """
+        redis.call('PEXPIRE', prefix, ARGV[1])
+        local level, split = loadState()
+        expireBuckets(2 ^ level + split, ARGV[1])
+        return 2 ^ level + split
+        """, Long.class);
+
+    /**
+     * 用数据库中的点赞记录重建分桶布局，任何布局的数据或已加载标记已存在时不写入
+     * KEYS[1]       -- 用户点赞键前缀
+     * KEYS[2]       -- 用户点赞数据已加载标记键
+     * ARGV[1]       -- 每桶平均点赞数上限
+     * ARGV[2..n]    -- 博客 ID
+     * 返回:
+     * 0: 点赞数据或标记已存在，未写入
+     * 1: 重建成功
+     */
+    public static final RedisScript<Long> BUCKETED_THUMB_REHYDRATE_SCRIPT = new DefaultRedisScript<>(BUCKETED_THUMB_LIB + """
+        if redis.call('EXISTS', prefix) == 1 or redis.call('EXISTS', bucket0) == 1 or redis.call('EXISTS', KEYS[2]) == 1 then
+            return 0
+        end
+        local maxLoad = tonumber(ARGV[1])
+        for i = 2, #ARGV do
+            insert(ARGV[i], maxLoad)
+        end
+        return 1
+        """, Long.class);
+
+    /**
+     * 时间片字段写库后确认删除：字段值与读取时一致才删除，不会删掉读取之后新写入的增量
+     * KEYS[1]       -- 时间片键
+     * ARGV          -- 用户 ID、博客 ID、读取时的值，三个一组
+     * 返回: 删除的字段数
+     */
+    public static final RedisScript<Long> THUMB_SLICE_ACK_SCRIPT = new DefaultRedisScript<>("""
+        local deleted = 0
+        for i = 1, #ARGV, 3 do
+            local field = ARGV[i] .. ':' .. ARGV[i + 1]
+            if redis.call('HGET', KEYS[1], field) == ARGV[i + 2] then
+                deleted = deleted + redis.call('HDEL', KEYS[1], field)
+            end
+        end
+        return deleted
+        """, Long.class);
+
+    /**
+     * outbox 流确认并裁剪：XACK 本批事件，删除本批最后一条及之前的全部事件
+     * KEYS[1]       -- outbox 流键
+     * ARGV[1]       -- 消费组
+     * ARGV[2..n]    -- 本批事件的流 ID，升序
+     * 返回: 确认的事件数
+     */
+    public static final RedisScript<Long> THUMB_OUTBOX_ACK_SCRIPT = new DefaultRedisScript<>("""
+        local acked = redis.call('XACK', KEYS[1], ARGV[1], unpack(ARGV, 2))
+        redis.call('XTRIM', KEYS[1], 'MINID', ARGV[#ARGV])
+        redis.call('XDEL', KEYS[1], ARGV[#ARGV])
+        return acked
         """, Long.class);
 
 }
@@ -4,14 +4,118 @@ public interface ThumbConstant {
 
     String USER_THUMB_KEY_PREFIX = "thumb:";
 
+    /**
+     * 点赞增量时间片：thumb:temp:{时间片起点的 epoch 秒}
+     */
     String TEMP_THUMB_KEY_PREFIX = "thumb:temp:%s";
 
+    /**
+     * 最后一个已同步到数据库的时间片
+     */
+    String THUMB_SLICE_WATERMARK_KEY = "thumb:slice:watermark";
+
+    /**
+     * 时间片同步租约，同一时刻只有一个节点执行
+     */
+    String THUMB_SLICE_LOCK_KEY = "thumb:slice:lock";
+
+    /**
+     * 点赞事件 outbox 流，按用户 ID 分片：thumb:outbox:{shard}
+     */
+    String THUMB_OUTBOX_KEY = "thumb:outbox:%d";
+
+    /**
+     * outbox 流转发租约，同一时刻只有一个节点转发一个流：thumb:outbox:{shard}:lease
+     */
+    String THUMB_OUTBOX_LEASE_KEY = "thumb:outbox:%d:lease";
+
     /**
      * 如果用户某个点赞信息已在本地缓存，用户此时取消点赞，如果不处理本地缓存，就会导致本地缓存和redis数据不一致，但是又不能直接从本地缓存删除，濒危他毕竟是超级热点数据。
      * 所以我们约定，当值为0时，代表当前未点赞。
      */
     Long UN_THUMB_CONSTANT = 0L;
 
+    /**
+     * 热点博客点赞数分片计数 key：blog:thumbcount:{blogId}:{shard}
+     */
+    String BLOG_THUMB_COUNT_SHARD_KEY = "blog:thumbcount:%d:%d";
+
+    /**
+     * 已转移到 Redis、等待写回数据库的点赞数：blog:thumbcount:{blogId}:pending
+     */
+    String BLOG_THUMB_COUNT_PENDING_KEY = "blog:thumbcount:%d:pending";
+
+    /**
+     * 待写回点赞数对应的归并 ID，写库确认后与待写回值一起删除：blog:thumbcount:{blogId}:fold
+     */
+    String BLOG_THUMB_COUNT_FOLD_KEY = "blog:thumbcount:%d:fold";
+
+    /**
+     * 分片计数写回任务租约
+     */
+    String BLOG_THUMB_COUNT_LOCK_KEY = "blog:thumbcount:reconcile:lock";
+
+    /**
+     * 存在分片计数的博客 ID 集合
+     */
+    String BLOG_THUMB_COUNT_HOT_SET_KEY = "blog:thumbcount:hot";
+
+    /**
+     * 点赞事件主题（分区主题），消息 key 为 {userId}:{blogId}
+     */
+    String THUMB_TOPIC = "thumb-topic";
+
+    /**
+     * 点赞事件信封主题（分区主题），消息 key 为 (userId, blogId) 的哈希桶号
+     */
+    String THUMB_ENVELOPE_TOPIC = "thumb-envelope-topic";
+
+    /**
+     * 已处理的点赞事件 ID 集合，按时间窗口分桶：thumb:event:seen:{window}
+     */
+    String THUMB_EVENT_SEEN_KEY = "thumb:event:seen:%d";
+
+    /**
+     * 点赞对账任务的分片计划与进度：thumb:reconcile:{runId}
+     */
+    String THUMB_RECONCILE_RUN_KEY = "thumb:reconcile:%s";
+
+    /**
+     * 点赞对账分片租约：thumb:reconcile:{runId}:lease:{shard}
+     */
+    String THUMB_RECONCILE_LEASE_KEY = "thumb:reconcile:%s:lease:%d";
+
+    /**
+     * 有点赞变化的用户 ID 集合，按时间桶划分：thumb:dirty:user:{bucket}
+     */
+    String THUMB_DIRTY_USER_KEY = "thumb:dirty:user:%d";
+
+    /**
+     * 有点赞变化的博客 ID 集合，按时间桶划分：thumb:dirty:blog:{bucket}
+     */
+    String THUMB_DIRTY_BLOG_KEY = "thumb:dirty:blog:%d";
+
+    /**
+     * 增量对账已处理完的最后一个时间桶
+     */
+    String THUMB_DIRTY_WATERMARK_KEY = "thumb:dirty:watermark";
+
+    /**
+     * 增量对账租约，同一时刻只有一个节点执行
+     */
+    String THUMB_DIRTY_LOCK_KEY = "thumb:dirty:lock";
+
+    /**
+     * 用户点赞数据已从数据库加载到 Redis 的标记：thumb:loaded:{userId}，存在时 Redis 中该用户的点赞数据是完整的。
+     * 淘汰冷数据时随加载写入，过期后下次访问时重新加载；取消最后一个点赞时由脚本写入（已存在时不改动）
+     */
+    String THUMB_LOADED_KEY = "thumb:loaded:%d";
+
+    /**
+     * 聚合点赞通知的点赞者 HyperLogLog：notification:likers:{aggregateKey}
+     */
+    String NOTIFICATION_LIKERS_KEY = "notification:likers:%s";
+
 
 
 }
@@ -0,0 +1,76 @@
+package com.ince.gigalike.controller;
+
+import com.ince.gigalike.annotation.AuthCheck;
+import com.ince.gigalike.common.BaseResponse;
+import com.ince.gigalike.manage.cache.CacheManager;
+import com.ince.gigalike.manage.cache.Item;
+import com.ince.gigalike.manage.cache.MultiLevelCache;
+import com.ince.gigalike.utils.ResultUtils;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 缓存监控控制器
+ */
+@RestController
+@RequestMapping("/cache/monitor")
+@RequiredArgsConstructor
+@Tag(name = "缓存监控", description = "热Key探测与本地缓存监控接口")
+public class CacheMonitorController {
+
+    private final CacheManager cacheManager;
+
+    private final List<MultiLevelCache<?, ?>> multiLevelCaches;
+
+    /**
+     * 热 Key 探测统计
+     */
+    @GetMapping("/hotkey/stats")
+    @AuthCheck(roles = {"admin"})
+    @Operation(summary = "获取热Key探测统计", description = "包含访问总数、热Key数量以及衰减耗时")
+    public BaseResponse<Map<String, Object>> getHotKeyStats() {
+        return ResultUtils.success(cacheManager.getHotKeyStats());
+    }
+
+    /**
+     * 当前热 Key 列表
+     */
+    @GetMapping("/hotkey/list")
+    @AuthCheck(roles = {"admin"})
+    @Operation(summary = "获取热Key列表", description = "按访问次数降序返回当前TopK热Key")
+    public BaseResponse<List<Item>> getHotKeys() {
+        return ResultUtils.success(cacheManager.getHotKeys());
+    }
+
+    /**
+     * 本地缓存跨节点失效统计
+     */
+    @GetMapping("/invalidation/stats")
+    @AuthCheck(roles = {"admin"})
+    @Operation(summary = "获取缓存失效总线统计", description = "包含发送、合并、接收的失效消息与 key 数量")
+    public BaseResponse<Map<String, Object>> getInvalidationStats() {
+        return ResultUtils.success(cacheManager.getInvalidationStats());
+    }
+
+    /**
+     * 多级缓存各级命中统计
+     */
+    @GetMapping("/multilevel/stats")
+    @AuthCheck(roles = {"admin"})
+    @Operation(summary = "获取多级缓存统计", description = "按缓存名称返回本地缓存、Redis的命中与未命中次数")
+    public BaseResponse<Map<String, Map<String, Object>>> getMultiLevelCacheStats() {
+        Map<String, Map<String, Object>> stats = new LinkedHashMap<>();
+        for (MultiLevelCache<?, ?> cache : multiLevelCaches) {
+            stats.put(cache.getName(), cache.getStats());
+        }
+        return ResultUtils.success(stats);
+    }
+}
@@ -0,0 +1,113 @@
+package com.ince.gigalike.controller;
+
+import com.ince.gigalike.annotation.AuthCheck;
+import com.ince.gigalike.common.BaseResponse;
+import com.ince.gigalike.manage.mq.ProducerMetrics;
+import com.ince.gigalike.manage.thumb.ThumbDirtyReconciler;
+import com.ince.gigalike.manage.thumb.ThumbEventDeduplicator;
+import com.ince.gigalike.manage.notification.NotificationAggregator;
+import com.ince.gigalike.manage.notification.NotificationPushThrottler;
+import com.ince.gigalike.manage.thumb.ThumbOutboxRelay;
+import com.ince.gigalike.manage.thumb.ThumbSliceSyncer;
+import com.ince.gigalike.utils.ResultUtils;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 消息队列监控控制器
+ */
+@RestController
+@RequestMapping("/mq/monitor")
+@RequiredArgsConstructor
+@Tag(name = "消息队列监控", description = "Pulsar 生产者发送、消费去重、增量对账、时间片同步、outbox 转发与通知合并统计接口")
+public class MqMonitorController {
+
+    private final List<ProducerMetrics> producerMetrics;
+
+    private final ThumbEventDeduplicator thumbEventDeduplicator;
+
+    private final ThumbDirtyReconciler thumbDirtyReconciler;
+
+    private final ThumbSliceSyncer thumbSliceSyncer;
+
+    private final ThumbOutboxRelay thumbOutboxRelay;
+
+    private final NotificationAggregator notificationAggregator;
+
+    private final NotificationPushThrottler notificationPushThrottler;
+
+    /**
+     * 各主题生产者的发送统计
+     */
+    @GetMapping("/producer/stats")
+    @AuthCheck(roles = {"admin"})
+    @Operation(summary = "获取生产者发送统计", description = "按主题返回发送延迟、客户端批次大小、每条消息携带的事件数")
+    public BaseResponse<Map<String, Map<String, Object>>> getProducerStats() {
+        Map<String, Map<String, Object>> stats = new LinkedHashMap<>();
+        for (ProducerMetrics metrics : producerMetrics) {
+            stats.put(metrics.getName(), metrics.getStats());
+        }
+        return ResultUtils.success(stats);
+    }
+
+    /**
+     * 点赞事件消费去重统计
+     */
+    @GetMapping("/consumer/dedup/stats")
+    @AuthCheck(roles = {"admin"})
+    @Operation(summary = "获取点赞事件去重统计", description = "返回检查的事件数、被过滤的重复事件数、本地布隆过滤器命中数")
+    public BaseResponse<Map<String, Object>> getDedupStats() {
+        return ResultUtils.success(thumbEventDeduplicator.getStats());
+    }
+
+    /**
+     * 点赞增量对账统计
+     */
+    @GetMapping("/reconcile/dirty/stats")
+    @AuthCheck(roles = {"admin"})
+    @Operation(summary = "获取点赞增量对账统计", description = "返回水位线延迟、待对账的用户与博客数、已修复的点赞记录数与博客点赞数")
+    public BaseResponse<Map<String, Object>> getDirtyReconcileStats() {
+        return ResultUtils.success(thumbDirtyReconciler.getStats());
+    }
+
+    /**
+     * 点赞时间片同步统计
+     */
+    @GetMapping("/slice/stats")
+    @AuthCheck(roles = {"admin"})
+    @Operation(summary = "获取点赞时间片同步统计", description = "返回同步延迟、待同步的时间片数、已同步的字段数与失败的块数")
+    public BaseResponse<Map<String, Object>> getSliceSyncStats() {
+        return ResultUtils.success(thumbSliceSyncer.getStats());
+    }
+
+    /**
+     * 点赞事件 outbox 转发统计
+     */
+    @GetMapping("/outbox/stats")
+    @AuthCheck(roles = {"admin"})
+    @Operation(summary = "获取点赞事件 outbox 转发统计", description = "返回未确认事件数、最早未确认事件的等待时间、已转发事件数与失败批次数")
+    public BaseResponse<Map<String, Object>> getOutboxStats() {
+        return ResultUtils.success(thumbOutboxRelay.getStats());
+    }
+
+    /**
+     * 点赞通知合并与推送限频统计
+     */
+    @GetMapping("/notification/aggregate/stats")
+    @AuthCheck(roles = {"admin"})
+    @Operation(summary = "获取通知合并与推送统计", description = "返回打开的合并窗口数、收到的点赞通知数、写入的窗口数，以及推送、延后与被合并的推送数")
+    public BaseResponse<Map<String, Object>> getNotificationAggregateStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("aggregate", notificationAggregator.getStats());
+        stats.put("push", notificationPushThrottler.getStats());
+        return ResultUtils.success(stats);
+    }
+}
@@ -0,0 +1,27 @@
+package com.ince.gigalike.job;
+
+import com.ince.gigalike.manage.thumb.ShardedThumbCounter;
+import jakarta.annotation.Resource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * 定时把热点博客的 Redis 分片点赞数写回数据库
+ */
+@Component
+@Slf4j
+public class ShardedThumbCountReconcileJob {
+
+    @Resource
+    private ShardedThumbCounter shardedThumbCounter;
+
+    @Scheduled(fixedDelayString = "${thumb.counter.reconcile-interval-ms:10000}")
+    public void run() {
+        try {
+            shardedThumbCounter.reconcile();
+        } catch (Exception e) {
+            log.error("热点博客分片点赞数写回失败，下一轮重试", e);
+        }
+    }
+}
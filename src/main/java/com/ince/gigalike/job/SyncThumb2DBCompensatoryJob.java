@@ -1,47 +1,27 @@
 package com.ince.gigalike.job;
 
-import cn.hutool.core.collection.CollUtil;
-import cn.hutool.core.util.ObjUtil;
-import com.ince.gigalike.constant.ThumbConstant;
-import com.ince.gigalike.utils.RedisKeyUtil;
+import com.ince.gigalike.manage.thumb.ThumbSliceSyncer;
 import jakarta.annotation.Resource;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.data.redis.core.RedisTemplate;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
 
-import java.util.HashSet;
-import java.util.Set;
-
 /**
- * 定时将 Redis 中的临时点赞数据同步到数据库的补偿措施  
- *  
- */  
+ * 定时将 Redis 中的临时点赞数据同步到数据库的补偿措施：同步水位线之前残留的时间片
+ */
 @Component
 @Slf4j
 public class SyncThumb2DBCompensatoryJob {
-  
+
     @Resource
-    private RedisTemplate<String, Object> redisTemplate;
-  
-    @Resource  
-    private SyncThumb2DBJob syncThumb2DBJob;  
-  
-//    @Scheduled(cron = "0 0 2 * * *")
-    /*public void run() {
-        log.info("开始补偿数据");
-        Set<String> thumbKeys = redisTemplate.keys(RedisKeyUtil.getTempThumbKey("") + "*");
-        Set<String> needHandleDataSet = new HashSet<>();
-        thumbKeys.stream().filter(ObjUtil::isNotNull).forEach(thumbKey -> needHandleDataSet.add(thumbKey.replace(ThumbConstant.TEMP_THUMB_KEY_PREFIX.formatted(""), "")));
+    private ThumbSliceSyncer thumbSliceSyncer;
 
-        if (CollUtil.isEmpty(needHandleDataSet)) {
-            log.info("没有需要补偿的临时数据");
-            return;
-        }
-        // 补偿数据
-        for (String date : needHandleDataSet) {
-            syncThumb2DBJob.syncThumb2DBByDate(date);
+    @Scheduled(cron = "${thumb.slice.compensate-cron:0 */10 * * * ?}")
+    public void run() {
+        try {
+            thumbSliceSyncer.compensate();
+        } catch (Exception e) {
+            log.error("点赞时间片补偿同步失败", e);
         }
-        log.info("临时数据补偿完成");
-    }*/
+    }
 }
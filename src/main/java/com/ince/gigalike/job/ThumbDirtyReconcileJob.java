@@ -0,0 +1,27 @@
+package com.ince.gigalike.job;
+
+import com.ince.gigalike.manage.thumb.ThumbDirtyReconciler;
+import jakarta.annotation.Resource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * 定时增量对账有点赞变化的用户与博客
+ */
+@Component
+@Slf4j
+public class ThumbDirtyReconcileJob {
+
+    @Resource
+    private ThumbDirtyReconciler thumbDirtyReconciler;
+
+    @Scheduled(fixedDelayString = "${thumb.dirty.reconcile-interval-ms:180000}")
+    public void run() {
+        try {
+            thumbDirtyReconciler.tick();
+        } catch (Exception e) {
+            log.error("增量点赞对账失败，下一轮重试", e);
+        }
+    }
+}
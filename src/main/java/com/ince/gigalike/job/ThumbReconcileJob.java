@@ -1,93 +1,61 @@
 package com.ince.gigalike.job;
 
-import com.google.common.collect.Sets;
-import com.ince.gigalike.constant.ThumbConstant;
-import com.ince.gigalike.listener.thumb.msg.ThumbEvent;
-import com.ince.gigalike.model.entity.Thumb;
-import com.ince.gigalike.service.ThumbService;
+import com.ince.gigalike.manage.thumb.ThumbReconciler;
+import jakarta.annotation.PreDestroy;
 import jakarta.annotation.Resource;
 import lombok.extern.slf4j.Slf4j;
-import org.apache.pulsar.client.api.PulsarClientException;
-import org.springframework.data.redis.core.Cursor;
-import org.springframework.data.redis.core.RedisTemplate;
-import org.springframework.data.redis.core.ScanOptions;
-import org.springframework.pulsar.core.PulsarTemplate;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
-import java.time.LocalDateTime;
-import java.util.ArrayList;
-import java.util.HashSet;
-import java.util.Optional;
-import java.util.Set;
-import java.util.stream.Collectors;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.Map;
 
 @Service
 @Slf4j
-public class ThumbReconcileJob {  
+public class ThumbReconcileJob {
+
     @Resource
-    private RedisTemplate<String, Object> redisTemplate;
-  
-    @Resource  
-    private ThumbService thumbService;
-  
-    @Resource  
-    private PulsarTemplate<ThumbEvent> pulsarTemplate;
-  
-    /**  
-     * 定时任务入口（每天凌晨2点执行）  
-     */  
-    @Scheduled(cron = "0 0 2 * * ?")
-    public void run() {  
-        long startTime = System.currentTimeMillis();  
-  
-        // 1. 获取该分片下的所有用户ID  
-        Set<Long> userIds = new HashSet<>();
-        String pattern = ThumbConstant.USER_THUMB_KEY_PREFIX + "*";
-        try (Cursor<String> cursor = redisTemplate.scan(ScanOptions.scanOptions().match(pattern).count(1000).build())) {
-            while (cursor.hasNext()) {  
-                String key = cursor.next();  
-                Long userId = Long.valueOf(key.replace(ThumbConstant.USER_THUMB_KEY_PREFIX, ""));  
-                userIds.add(userId);  
-            }  
-        }  
-  
-        // 2. 逐用户比对  
-        userIds.forEach(userId -> {  
-            Set<Long> redisBlogIds = redisTemplate.opsForHash().keys(ThumbConstant.USER_THUMB_KEY_PREFIX + userId).stream().map(obj -> Long.valueOf(obj.toString())).collect(Collectors.toSet());
-            Set<Long> mysqlBlogIds = Optional.ofNullable(thumbService.lambdaQuery()
-                            .eq(Thumb::getUserId, userId)
-                            .list()  
-                    ).orElse(new ArrayList<>())
-                    .stream()  
-                    .map(Thumb::getBlogId)  
-                    .collect(Collectors.toSet());  
-  
-            // 3. 计算差异（Redis有但MySQL无）  
-            Set<Long> diffBlogIds = Sets.difference(redisBlogIds, mysqlBlogIds);
-  
-            // 4. 发送补偿事件  
-            sendCompensationEvents(userId, diffBlogIds);  
-        });  
-  
-        log.info("对账任务完成，耗时 {}ms", System.currentTimeMillis() - startTime);  
-    }  
-  
-    /**  
-     * 发送补偿事件到Pulsar  
-     */  
-    private void sendCompensationEvents(Long userId, Set<Long> blogIds) {  
-        blogIds.forEach(blogId -> {  
-            ThumbEvent thumbEvent = new ThumbEvent(userId, blogId, ThumbEvent.EventType.INCR, LocalDateTime.now());
-            try {
-                pulsarTemplate.sendAsync("thumb-topic", thumbEvent)
-                        .exceptionally(ex -> {
-                            log.error("补偿事件发送失败: userId={}, blogId={}", userId, blogId, ex);
-                            return null;
-                        });
-            } catch (PulsarClientException e) {
-                throw new RuntimeException(e);
-            }
-        });  
-    }  
+    private ThumbReconciler thumbReconciler;
+
+    /**
+     * 正在执行的对账线程
+     */
+    private volatile Thread worker;
+
+    /**
+     * 定时任务入口（默认每天凌晨2点执行）
+     * 以日期作为 runId，所有节点协作完成同一次对账，当天重复触发时从检查点继续。
+     * 对账最长执行数小时，放到独立线程执行，不占用调度线程，其他定时任务照常运行；上一次对账未结束时跳过
+     */
+    @Scheduled(cron = "${thumb.reconcile.cron:0 0 2 * * ?}")
+    public synchronized void run() {
+        if (worker != null && worker.isAlive()) {
+            log.warn("上一次对账仍在执行，跳过本次触发");
+            return;
+        }
+        String runId = LocalDate.now().format(DateTimeFormatter.BASIC_ISO_DATE);
+        worker = Thread.ofVirtual().name("thumb-reconcile-job").start(() -> reconcile(runId));
+    }
+
+    private void reconcile(String runId) {
+        long startTime = System.currentTimeMillis();
+        try {
+            Map<String, Object> stats = thumbReconciler.reconcile(runId);
+            log.info("对账任务完成，runId: {}，耗时 {}ms，统计: {}", runId, System.currentTimeMillis() - startTime, stats);
+        } catch (Exception e) {
+            log.error("对账任务失败，runId: {}", runId, e);
+        }
+    }
+
+    /**
+     * 停机时中断对账，进度已保存在检查点，下次执行时继续
+     */
+    @PreDestroy
+    public void stop() {
+        Thread current = worker;
+        if (current != null) {
+            current.interrupt();
+        }
+    }
 }
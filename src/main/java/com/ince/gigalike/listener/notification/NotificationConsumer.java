@@ -1,6 +1,7 @@
 package com.ince.gigalike.listener.notification;
 
 import com.ince.gigalike.listener.notification.msg.NotificationEvent;
+import com.ince.gigalike.manage.notification.NotificationAggregator;
 import com.ince.gigalike.service.NotificationService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -8,8 +9,12 @@ import org.apache.pulsar.client.api.Message;
 import org.apache.pulsar.client.api.SubscriptionType;
 import org.apache.pulsar.common.schema.SchemaType;
 import org.springframework.pulsar.annotation.PulsarListener;
+import org.springframework.pulsar.listener.PulsarBatchListenerFailedException;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
 
 /**
  * 通知消息消费者
@@ -18,33 +23,100 @@ import org.springframework.transaction.annotation.Transactional;
 @RequiredArgsConstructor
 @Slf4j
 public class NotificationConsumer {
-    
+
     private final NotificationService notificationService;
-    
+
+    private final NotificationAggregator notificationAggregator;
+
+    private final TransactionTemplate transactionTemplate;
+
     /**
-     * 处理通知事件
+     * 批量处理通知事件：一批消息一个事务，发送者一次查询，通知多行插入，提交后推送。
+     * 整批失败时逐条重试，每条一个事务；某条仍然失败时确认它之前的消息，
+     * 它和之后的消息 nack 重投，超过重试次数进入死信主题，不会拖累整批反复重投。
+     * 点赞通知在事务提交后才进入合并窗口，进入失败只记录日志，不会让已提交的消息重试
      */
     @PulsarListener(
             subscriptionName = "notification-subscription",
             topics = "notification-topic",
             schemaType = SchemaType.JSON,
-            subscriptionType = SubscriptionType.Shared
+            batch = true,
+            // 引用批量接收策略
+            consumerCustomizer = "notificationBatchReceiveCustomizer",
+            // 引用 NACK 重试策略
+            negativeAckRedeliveryBackoff = "negativeAckRedeliveryBackoff",
+            subscriptionType = SubscriptionType.Shared,
+            // 引用死信队列策略
+            deadLetterPolicy = "notificationDeadLetterPolicy"
     )
-    @Transactional(rollbackFor = Exception.class)
-    public void processNotification(Message<NotificationEvent> message) {
+    public void processNotifications(List<Message<NotificationEvent>> messages) {
+        List<Message<NotificationEvent>> valid = new ArrayList<>(messages.size());
+        for (Message<NotificationEvent> message : messages) {
+            if (message.getValue() == null) {
+                log.warn("跳过空通知事件：messageId={}", message.getMessageId());
+                continue;
+            }
+            valid.add(message);
+        }
+
+        List<NotificationEvent> likes = null;
         try {
-            NotificationEvent event = message.getValue();
-            log.info("收到通知事件：userId={}, type={}, relatedId={}", 
-                    event.getUserId(), event.getType(), event.getRelatedId());
-            
-            // 创建通知
-            notificationService.createNotification(event);
-            
-            log.info("通知处理成功：messageId={}", message.getMessageId());
-            
+            likes = transactionTemplate.execute(status -> apply(valid.stream().map(Message::getValue).toList()));
         } catch (Exception e) {
-            log.error("处理通知事件失败：messageId={}", message.getMessageId(), e);
-            throw e; // 重新抛出异常，触发重试机制
+            log.warn("整批处理通知事件失败，逐条重试：{} 条", valid.size(), e);
+        }
+        if (likes != null) {
+            offer(likes);
+            return;
+        }
+
+        for (Message<NotificationEvent> message : valid) {
+            List<NotificationEvent> committed;
+            try {
+                committed = transactionTemplate.execute(status -> apply(List.of(message.getValue())));
+            } catch (Exception e) {
+                log.error("处理通知事件失败：messageId={}", message.getMessageId(), e);
+                throw new PulsarBatchListenerFailedException("处理通知事件失败", e, message);
+            }
+            offer(committed);
+        }
+    }
+
+    /**
+     * 直接创建非点赞通知，需要在事务内调用
+     *
+     * @return 提交后进入合并窗口的点赞通知
+     */
+    private List<NotificationEvent> apply(List<NotificationEvent> events) {
+        List<NotificationEvent> direct = new ArrayList<>(events.size());
+        List<NotificationEvent> likes = new ArrayList<>();
+        for (NotificationEvent event : events) {
+            if (notificationAggregator.accepts(event)) {
+                likes.add(event);
+            } else {
+                direct.add(event);
+            }
+        }
+
+        if (!direct.isEmpty()) {
+            notificationService.createNotifications(direct);
+        }
+
+        log.info("通知处理成功：{} 条消息，直接创建 {} 条，合并点赞 {} 条", events.size(), direct.size(), likes.size());
+        return likes;
+    }
+
+    /**
+     * 事务提交后把点赞通知放入合并窗口，回滚重投时不会重复计数；
+     * 单条失败（查询博客、绕过合并直接写库出错）只丢失这条点赞通知，不向上抛出
+     */
+    private void offer(List<NotificationEvent> likes) {
+        for (NotificationEvent event : likes) {
+            try {
+                notificationAggregator.offer(event);
+            } catch (Exception e) {
+                log.error("点赞通知进入合并窗口失败：senderId={}, blogId={}", event.getSenderId(), event.getRelatedId(), e);
+            }
         }
     }
-} 
\ No newline at end of file
+}
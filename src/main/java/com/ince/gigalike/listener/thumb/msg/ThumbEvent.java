@@ -14,6 +14,11 @@ import java.time.LocalDateTime;
 @AllArgsConstructor
 public class ThumbEvent implements Serializable {
       
+    /**
+     * 全局唯一的事件 ID，点赞 / 取消点赞时生成，消费端据此去重
+     */
+    private Long eventId;
+
     /**  
      * 用户ID  
      */  
@@ -33,6 +38,15 @@ public class ThumbEvent implements Serializable {
      * 事件发生时间  
      */  
     private LocalDateTime eventTime;
+
+    /**
+     * 生产者内递增的序号，由 ThumbEventPublisher 在发送时填写
+     */
+    private Long sequence;
+
+    public ThumbEvent(Long userId, Long blogId, EventType type, LocalDateTime eventTime) {
+        this(null, userId, blogId, type, eventTime, null);
+    }
       
     /**  
      * 事件类型枚举  
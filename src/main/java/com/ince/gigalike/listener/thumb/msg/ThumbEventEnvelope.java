@@ -0,0 +1,19 @@
+package com.ince.gigalike.listener.thumb.msg;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.util.List;
+
+/**
+ * 点赞事件信封，一条消息按发送顺序携带多个点赞事件
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ThumbEventEnvelope implements Serializable {
+
+    private List<ThumbEvent> events;
+}
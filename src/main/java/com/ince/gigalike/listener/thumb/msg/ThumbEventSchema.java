@@ -0,0 +1,133 @@
+package com.ince.gigalike.listener.thumb.msg;
+
+import org.apache.pulsar.client.api.Schema;
+import org.apache.pulsar.client.api.SchemaSerializationException;
+import org.apache.pulsar.common.schema.SchemaInfo;
+import org.apache.pulsar.common.schema.SchemaType;
+
+import java.nio.ByteBuffer;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.temporal.ChronoUnit;
+
+/**
+ * ThumbEvent 的定长二进制编码，42 字节，编解码不经过反射
+ * <pre>
+ * 0      魔数 0xB2（JSON 以 '{' 开头，据此区分两种格式）
+ * 1-8    eventId，0 表示为空
+ * 9-16   userId
+ * 17-24  blogId
+ * 25     操作：1 点赞，2 取消点赞
+ * 26-33  事件时间，epoch 微秒（按系统时区换算），Long.MIN_VALUE 表示为空
+ * 34-41  生产者序号，0 表示为空
+ * </pre>
+ * 魔数 0xB1 为不带 eventId 的第一版（34 字节），仍可解码。
+ * 迁移期间解码同时支持二进制与原来的 JSON 消息；编码格式由 writeFormat 决定，
+ * 先让所有消费者升级到本 Schema，再把生产者切换到二进制。
+ * Schema 类型声明为 BYTES，可以与主题上已注册的 JSON Schema 共存。
+ */
+public class ThumbEventSchema implements Schema<ThumbEvent> {
+
+    public enum Format {
+        JSON,
+        BINARY
+    }
+
+    static final byte MAGIC = (byte) 0xB2;
+
+    static final int ENCODED_SIZE = 42;
+
+    static final byte MAGIC_V1 = (byte) 0xB1;
+
+    static final int ENCODED_SIZE_V1 = 34;
+
+    private static final byte ACTION_INCR = 1;
+    private static final byte ACTION_DECR = 2;
+
+    private static final long NULL_TIME = Long.MIN_VALUE;
+
+    private static final ZoneId ZONE = ZoneId.systemDefault();
+
+    private static final SchemaInfo SCHEMA_INFO = SchemaInfo.builder()
+            .name("ThumbEventBinary")
+            .type(SchemaType.BYTES)
+            .schema(new byte[0])
+            .build();
+
+    private final Format writeFormat;
+    private final Schema<ThumbEvent> jsonSchema = Schema.JSON(ThumbEvent.class);
+
+    public ThumbEventSchema(Format writeFormat) {
+        this.writeFormat = writeFormat;
+    }
+
+    @Override
+    public byte[] encode(ThumbEvent event) {
+        if (writeFormat == Format.JSON) {
+            return jsonSchema.encode(event);
+        }
+        if (event.getUserId() == null || event.getBlogId() == null || event.getType() == null) {
+            throw new SchemaSerializationException("userId, blogId and type are required: " + event);
+        }
+        return ByteBuffer.allocate(ENCODED_SIZE)
+                .put(MAGIC)
+                .putLong(event.getEventId() == null ? 0 : event.getEventId())
+                .putLong(event.getUserId())
+                .putLong(event.getBlogId())
+                .put(event.getType() == ThumbEvent.EventType.INCR ? ACTION_INCR : ACTION_DECR)
+                .putLong(toEpochMicros(event.getEventTime()))
+                .putLong(event.getSequence() == null ? 0 : event.getSequence())
+                .array();
+    }
+
+    @Override
+    public ThumbEvent decode(byte[] bytes) {
+        if (bytes.length == 0 || (bytes[0] != MAGIC && bytes[0] != MAGIC_V1)) {
+            return jsonSchema.decode(bytes);
+        }
+        boolean v1 = bytes[0] == MAGIC_V1;
+        int expectedSize = v1 ? ENCODED_SIZE_V1 : ENCODED_SIZE;
+        if (bytes.length != expectedSize) {
+            throw new SchemaSerializationException("invalid binary ThumbEvent length: " + bytes.length);
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(bytes, 1, expectedSize - 1);
+        long eventId = v1 ? 0 : buffer.getLong();
+        long userId = buffer.getLong();
+        long blogId = buffer.getLong();
+        byte action = buffer.get();
+        long micros = buffer.getLong();
+        long sequence = buffer.getLong();
+        ThumbEvent.EventType type = switch (action) {
+            case ACTION_INCR -> ThumbEvent.EventType.INCR;
+            case ACTION_DECR -> ThumbEvent.EventType.DECR;
+            default -> throw new SchemaSerializationException("invalid binary ThumbEvent action: " + action);
+        };
+        return new ThumbEvent(eventId == 0 ? null : eventId, userId, blogId, type, fromEpochMicros(micros),
+                sequence == 0 ? null : sequence);
+    }
+
+    @Override
+    public SchemaInfo getSchemaInfo() {
+        return SCHEMA_INFO;
+    }
+
+    @Override
+    public Schema<ThumbEvent> clone() {
+        return new ThumbEventSchema(writeFormat);
+    }
+
+    static long toEpochMicros(LocalDateTime time) {
+        if (time == null) {
+            return NULL_TIME;
+        }
+        return ChronoUnit.MICROS.between(Instant.EPOCH, time.atZone(ZONE).toInstant());
+    }
+
+    static LocalDateTime fromEpochMicros(long micros) {
+        if (micros == NULL_TIME) {
+            return null;
+        }
+        return LocalDateTime.ofInstant(Instant.EPOCH.plus(micros, ChronoUnit.MICROS), ZONE);
+    }
+}
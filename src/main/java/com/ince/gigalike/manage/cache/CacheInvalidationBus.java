@@ -0,0 +1,189 @@
+package com.ince.gigalike.manage.cache;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+/**
+ * 跨节点的本地缓存失效总线
+ * <p>
+ * 写操作调用 {@link #invalidate(String)} 只是把 key 放入待发送集合，同一个 key 在一个发送周期内
+ * 只会发送一次；后台线程每隔 flushInterval 或待发送 key 达到 maxBatchSize 时批量广播。
+ * 其他节点收到后删除本地缓存，下次读取回源 Redis；发送节点自己的消息会被忽略，
+ * 因为写入方已经同步更新了自己的本地缓存。
+ */
+@Slf4j
+public class CacheInvalidationBus implements AutoCloseable {
+
+    private final InvalidationTransport transport;
+    private final String nodeId;
+    private final int maxBatchSize;
+    private final Duration flushInterval;
+
+    private final Set<String> pending = ConcurrentHashMap.newKeySet();
+    private final AtomicBoolean flushRequested = new AtomicBoolean();
+    private final List<Consumer<Collection<String>>> listeners = new CopyOnWriteArrayList<>();
+    private volatile ScheduledExecutorService scheduler;
+
+    private final LongAdder invalidatedKeys = new LongAdder();
+    private final LongAdder coalescedKeys = new LongAdder();
+    private final LongAdder publishedMessages = new LongAdder();
+    private final LongAdder publishedKeys = new LongAdder();
+    private final LongAdder publishFailures = new LongAdder();
+    private final LongAdder receivedMessages = new LongAdder();
+    private final LongAdder receivedKeys = new LongAdder();
+
+    public CacheInvalidationBus(InvalidationTransport transport, String nodeId, int maxBatchSize, Duration flushInterval) {
+        if (maxBatchSize <= 0) {
+            throw new IllegalArgumentException("maxBatchSize must be positive");
+        }
+        this.transport = transport;
+        this.nodeId = nodeId;
+        this.maxBatchSize = maxBatchSize;
+        this.flushInterval = flushInterval;
+        transport.subscribe(this::onMessage);
+    }
+
+    /**
+     * 启动后台发送线程
+     */
+    public synchronized void start() {
+        if (scheduler != null) {
+            return;
+        }
+        scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "cache-invalidation-bus");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long intervalMicros = flushInterval.toNanos() / 1000;
+        scheduler.scheduleWithFixedDelay(this::flushQuietly, intervalMicros, intervalMicros, TimeUnit.MICROSECONDS);
+    }
+
+    /**
+     * 注册本地失效回调，收到其他节点的消息时调用
+     */
+    public void addListener(Consumer<Collection<String>> listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * 通知其他节点失效 key，异步批量发送
+     */
+    public void invalidate(String key) {
+        invalidatedKeys.increment();
+        if (!pending.add(key)) {
+            coalescedKeys.increment();
+            return;
+        }
+        ScheduledExecutorService current = scheduler;
+        if (current != null && pending.size() >= maxBatchSize && flushRequested.compareAndSet(false, true)) {
+            current.execute(this::flushQuietly);
+        }
+    }
+
+    /**
+     * 立即发送所有待发送的 key，每条消息最多 maxBatchSize 个
+     */
+    public synchronized void flush() {
+        flushRequested.set(false);
+        List<String> batch = new ArrayList<>(Math.min(pending.size(), maxBatchSize));
+        Iterator<String> iterator = pending.iterator();
+        while (iterator.hasNext()) {
+            batch.add(iterator.next());
+            iterator.remove();
+            if (batch.size() == maxBatchSize) {
+                send(batch);
+                batch = new ArrayList<>(maxBatchSize);
+            }
+        }
+        if (!batch.isEmpty()) {
+            send(batch);
+        }
+    }
+
+    private void send(List<String> keys) {
+        try {
+            transport.publish(new InvalidationMessage(nodeId, keys));
+            publishedMessages.increment();
+            publishedKeys.add(keys.size());
+        } catch (Exception e) {
+            // 发送失败不影响写请求，其他节点的本地缓存由过期时间兜底
+            publishFailures.increment();
+            log.error("发送缓存失效消息失败，key 数量: {}", keys.size(), e);
+        }
+    }
+
+    private void flushQuietly() {
+        try {
+            flush();
+        } catch (Exception e) {
+            log.error("缓存失效消息发送线程异常", e);
+        }
+    }
+
+    private void onMessage(InvalidationMessage message) {
+        if (nodeId.equals(message.getNodeId()) || message.getKeys() == null) {
+            return;
+        }
+        receivedMessages.increment();
+        receivedKeys.add(message.getKeys().size());
+        for (Consumer<Collection<String>> listener : listeners) {
+            listener.accept(message.getKeys());
+        }
+    }
+
+    public String getNodeId() {
+        return nodeId;
+    }
+
+    /**
+     * 失效总线统计，coalescedKeys 为发送前被合并掉的重复 key 数
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("nodeId", nodeId);
+        stats.put("pendingKeys", pending.size());
+        stats.put("invalidatedKeys", invalidatedKeys.sum());
+        stats.put("coalescedKeys", coalescedKeys.sum());
+        stats.put("publishedMessages", publishedMessages.sum());
+        stats.put("publishedKeys", publishedKeys.sum());
+        stats.put("publishFailures", publishFailures.sum());
+        stats.put("receivedMessages", receivedMessages.sum());
+        stats.put("receivedKeys", receivedKeys.sum());
+        return stats;
+    }
+
+    @Override
+    public void close() {
+        ScheduledExecutorService current;
+        synchronized (this) {
+            current = scheduler;
+            scheduler = null;
+        }
+        if (current != null) {
+            current.shutdown();
+            try {
+                current.awaitTermination(1, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        flushQuietly();
+    }
+}
@@ -0,0 +1,16 @@
+package com.ince.gigalike.manage.cache;
+
+/**
+ * 多级缓存的数据源加载器，通常为数据库查询
+ *
+ * @param <K> key 类型
+ * @param <V> value 类型
+ */
+@FunctionalInterface
+public interface CacheLoader<K, V> {
+
+    /**
+     * 加载数据，不存在时返回 null
+     */
+    V load(K key);
+}
@@ -4,12 +4,20 @@ import com.github.benmanes.caffeine.cache.Cache;
 import com.github.benmanes.caffeine.cache.Caffeine;
 import jakarta.annotation.Resource;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.data.redis.core.RedisTemplate;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
 @Component
 @Slf4j
@@ -20,6 +28,31 @@ public class CacheManager {
     @Resource
     private RedisTemplate<String, Object> redisTemplate;
 
+    @Resource
+    private CacheInvalidationBus cacheInvalidationBus;
+
+    // 热 key 探测参数，k 可配置到数千
+    @Value("${hotkey.top-k:100}")
+    private int topK;
+
+    @Value("${hotkey.width:100000}")
+    private int width;
+
+    @Value("${hotkey.depth:5}")
+    private int depth;
+
+    @Value("${hotkey.decay:0.92}")
+    private double decay;
+
+    @Value("${hotkey.min-count:10}")
+    private int minCount;
+
+    // 衰减耗时统计
+    private final AtomicLong fadingCount = new AtomicLong();
+    private final AtomicLong fadingTotalNanos = new AtomicLong();
+    private volatile long fadingLastNanos;
+    private volatile long fadingMaxNanos;
+
     // 辅助方法：构造复合 key
     private String buildCacheKey(String hashKey, String key) {
         return hashKey + ":" + key;
@@ -62,44 +95,122 @@ public class CacheManager {
         return redisValue;
     }
 
+    /**
+     * 批量查询同一个 hash 下的多个 key：先查本地缓存，未命中的 key 用一次 HMGET 从 Redis 获取
+     *
+     * @return key -> value，不存在的 key 不在结果中
+     */
+    public Map<String, Object> getAll(String hashKey, Collection<String> keys) {
+        Map<String, Object> result = new HashMap<>(keys.size() * 2);
+        List<Object> misses = new ArrayList<>();
+        for (String key : keys) {
+            Object value = localCache.getIfPresent(buildCacheKey(hashKey, key));
+            if (value != null) {
+                hotKeyDetector.add(key, 1);
+                result.put(key, value);
+            } else {
+                misses.add(key);
+            }
+        }
+        if (misses.isEmpty()) {
+            return result;
+        }
+
+        List<Object> redisValues = redisTemplate.opsForHash().multiGet(hashKey, misses);
+        for (int i = 0; i < misses.size(); i++) {
+            Object redisValue = redisValues.get(i);
+            if (redisValue == null) {
+                continue;
+            }
+            String key = (String) misses.get(i);
+            result.put(key, redisValue);
+            if (hotKeyDetector.add(key, 1).isHotKey()) {
+                localCache.put(buildCacheKey(hashKey, key), redisValue);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 更新本节点的本地缓存（仅当已缓存时），并通知其他节点失效该 key
+     */
     public void putIfPresent(String hashKey, String key, Object value) {
         String compositeKey = buildCacheKey(hashKey, key);
         Object object = localCache.getIfPresent(compositeKey);
-        if (object == null) {
-            return;
+        if (object != null) {
+            localCache.put(compositeKey, value);
         }
-        localCache.put(compositeKey, value);
+        cacheInvalidationBus.invalidate(compositeKey);
     }
 
     // 定时清理过期的热 Key 检测数据
     @Scheduled(fixedRate = 20, timeUnit = TimeUnit.SECONDS)
     public void cleanHotKeys() {
+        long start = System.nanoTime();
         hotKeyDetector.fading();
+        long elapsed = System.nanoTime() - start;
+
+        fadingCount.incrementAndGet();
+        fadingTotalNanos.addAndGet(elapsed);
+        fadingLastNanos = elapsed;
+        fadingMaxNanos = Math.max(fadingMaxNanos, elapsed);
+    }
+
+    /**
+     * 热 Key 探测统计信息，包含衰减耗时
+     */
+    public Map<String, Object> getHotKeyStats() {
+        long count = fadingCount.get();
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("total", hotKeyDetector.total());
+        stats.put("hotKeyCount", hotKeyDetector.list().size());
+        stats.put("fadingCount", count);
+        stats.put("fadingLastMicros", TimeUnit.NANOSECONDS.toMicros(fadingLastNanos));
+        stats.put("fadingMaxMicros", TimeUnit.NANOSECONDS.toMicros(fadingMaxNanos));
+        stats.put("fadingAvgMicros", count == 0 ? 0 : TimeUnit.NANOSECONDS.toMicros(fadingTotalNanos.get() / count));
+        return stats;
+    }
+
+    /**
+     * 跨节点失效总线统计
+     */
+    public Map<String, Object> getInvalidationStats() {
+        return cacheInvalidationBus.getStats();
+    }
+
+    /**
+     * 当前 TopK 热 Key 列表
+     */
+    public List<Item> getHotKeys() {
+        return hotKeyDetector.list();
     }
 
 
     @Bean
     public TopK getHotKeyDetector() {
-        hotKeyDetector = new HeavyKeeper(
-                // 监控 Top 100 Key  
-                100,
-                // 宽度  
-                100000,
-                // 深度  
-                5,
-                // 衰减系数  
-                0.92,
-                // 最小出现 10 次才记录  
-                10
+        hotKeyDetector = new ConcurrentHeavyKeeper(
+                // 监控 Top K Key，默认 100
+                topK,
+                // 宽度
+                width,
+                // 深度
+                depth,
+                // 衰减系数
+                decay,
+                // 最小出现次数，默认 10 次才记录
+                minCount
         );
         return hotKeyDetector;
     }
 
     @Bean
     public Cache<String, Object> localCache() {
-        return localCache = Caffeine.newBuilder()
+        localCache = Caffeine.newBuilder()
                 .maximumSize(1000)
                 .expireAfterWrite(5, TimeUnit.MINUTES)
                 .build();
+        // 其他节点写入后删除本节点的旧值
+        cacheInvalidationBus.addListener(localCache::invalidateAll);
+        return localCache;
     }
 }
@@ -0,0 +1,311 @@
+package com.ince.gigalike.manage.cache;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 无锁版 HeavyKeeper
+ * <p>
+ * 与 {@link HeavyKeeper} 算法一致，区别在于并发实现：
+ * 1. 桶使用 long[] 紧凑存储（指纹 24 位 | 纪元 16 位 | 计数 24 位），通过 VarHandle CAS 更新，不再对每个桶加锁；
+ * 2. 哈希见 {@link SketchHash}，直接读取 String 的字符，不再分配 key.getBytes()；
+ * 3. 衰减概率使用 ThreadLocalRandom，总数使用按线程分片的 LongAdder；
+ * 4. 未进入 TopK 的 key 返回共享的 AddResult，不产生额外对象；
+ * 5. fading 只推进纪元，桶在下次被访问时按错过的纪元数补齐减半，不再全量扫描。
+ */
+public class ConcurrentHeavyKeeper implements TopK {
+    private static final int LOOKUP_TABLE_SIZE = 256;
+    private static final VarHandle BUCKETS = MethodHandles.arrayElementVarHandle(long[].class);
+    private static final AddResult NOT_HOT = new AddResult(null, false, null);
+
+    private static final int COUNT_BITS = 24;
+    private static final int EPOCH_BITS = 16;
+    private static final int MAX_COUNT = (1 << COUNT_BITS) - 1;
+    private static final int FINGERPRINT_MASK = (1 << 24) - 1;
+    private static final int EPOCH_MASK = (1 << EPOCH_BITS) - 1;
+    /**
+     * 纪元只保存 16 位，会回绕。每次 fading 顺带规整一小段桶，
+     * 保证每个桶在回绕前（半个纪元周期内）至少被规整一次。
+     */
+    private static final int SWEEP_PERIOD = 1 << (EPOCH_BITS - 1);
+
+    private final int width;
+    private final int depth;
+    private final int minCount;
+    private final double[] lookupTable;
+    // 第 i 行第 j 列的桶位于 buckets[i * width + j]
+    private final long[] buckets;
+    private final LongAdder total;
+
+    // 衰减纪元，每次 fading 加一
+    private volatile int epoch;
+    private final int sweepStep;
+    private int sweepCursor;
+
+    private final ReentrantLock heapLock;
+    private final IndexedMinHeap minHeap;
+    // 已进入 TopK 的 key 及其最近一次写入堆的计数（高 32 位纪元，低 32 位计数），支持无锁判断是否为热 key
+    private final Map<String, Long> hotKeys;
+    private final BlockingQueue<Item> expelledQueue;
+    // 堆满时的准入门槛（堆顶计数），堆未满时为 0
+    private volatile int admitThreshold;
+
+    public ConcurrentHeavyKeeper(int k, int width, int depth, double decay, int minCount) {
+        this.width = width;
+        this.depth = depth;
+        this.minCount = minCount;
+
+        this.lookupTable = new double[LOOKUP_TABLE_SIZE];
+        for (int i = 0; i < LOOKUP_TABLE_SIZE; i++) {
+            lookupTable[i] = Math.pow(decay, i);
+        }
+
+        this.buckets = new long[depth * width];
+        this.total = new LongAdder();
+        this.sweepStep = buckets.length / SWEEP_PERIOD + 1;
+
+        this.heapLock = new ReentrantLock();
+        this.minHeap = new IndexedMinHeap(k);
+        this.hotKeys = new ConcurrentHashMap<>();
+        this.expelledQueue = new LinkedBlockingQueue<>();
+    }
+
+    @Override
+    public AddResult add(String key, int increment) {
+        long hash = SketchHash.hash64(key);
+        int itemFingerprint = SketchHash.fingerprint(hash) & FINGERPRINT_MASK;
+        int maxCount = 0;
+
+        for (int i = 0; i < depth; i++) {
+            int bucketIndex = i * width + SketchHash.bucket(hash, i, width);
+            maxCount = Math.max(maxCount, addToBucket(bucketIndex, itemFingerprint, increment));
+        }
+
+        total.add(increment);
+
+        if (maxCount < minCount) {
+            return NOT_HOT;
+        }
+        return updateHeap(key, maxCount);
+    }
+
+    /**
+     * CAS 更新单个桶，返回该桶中当前 key 的计数（桶被其他 key 占据时返回 0）。
+     * 纪元在每次重试时、读取桶之后重新读取：fading 先推进纪元再规整桶，
+     * 读到已规整的桶时一定也能读到新纪元，不会用旧纪元计算或写回
+     */
+    private int addToBucket(int bucketIndex, int itemFingerprint, int increment) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        while (true) {
+            long current = (long) BUCKETS.getVolatile(buckets, bucketIndex);
+            int currentEpoch = epoch;
+            int count = fadedCount(current, currentEpoch);
+            int result;
+            long next;
+
+            if (count == 0 || fingerprint(current) == itemFingerprint) {
+                result = Math.min(count + Math.min(increment, MAX_COUNT), MAX_COUNT);
+                next = pack(itemFingerprint, currentEpoch, result);
+            } else {
+                int remaining = count;
+                int j = 0;
+                for (; j < increment; j++) {
+                    double decay = lookupTable[Math.min(remaining, LOOKUP_TABLE_SIZE - 1)];
+                    if (random.nextDouble() < decay && --remaining == 0) {
+                        break;
+                    }
+                }
+                if (remaining == count) {
+                    // 没有发生衰减，无需写回
+                    return 0;
+                }
+                if (remaining == 0) {
+                    // 原 key 被衰减为 0，当前 key 占据该桶
+                    result = Math.min(increment - j, MAX_COUNT);
+                    next = pack(itemFingerprint, currentEpoch, result);
+                } else {
+                    result = 0;
+                    next = pack(fingerprint(current), currentEpoch, remaining);
+                }
+            }
+
+            if (BUCKETS.compareAndSet(buckets, bucketIndex, current, next)) {
+                return result;
+            }
+        }
+    }
+
+    private AddResult updateHeap(String key, int count) {
+        Long existing = hotKeys.get(key);
+        if (existing != null) {
+            // 已是热 key：只在拿到锁时顺带刷新计数，拿不到说明有其他线程正在维护堆，直接返回即可
+            if (fadedHotCount(existing, epoch) < count && heapLock.tryLock()) {
+                try {
+                    refresh(key, count);
+                } finally {
+                    heapLock.unlock();
+                }
+            }
+            return new AddResult(null, true, key);
+        }
+        // 堆已满且计数达不到门槛，无需加锁
+        if (count < admitThreshold) {
+            return NOT_HOT;
+        }
+
+        heapLock.lock();
+        try {
+            if (minHeap.contains(key)) {
+                refresh(key, count);
+                return new AddResult(null, true, key);
+            }
+            if (minHeap.isFull() && count < minHeap.minCount()) {
+                return NOT_HOT;
+            }
+            String expelled = null;
+            if (minHeap.isFull()) {
+                expelled = minHeap.poll();
+                hotKeys.remove(expelled);
+                expelledQueue.offer(new Item(expelled, count));
+            }
+            minHeap.put(key, count);
+            hotKeys.put(key, packHot(epoch, count));
+            updateAdmitThreshold();
+            return new AddResult(expelled, true, key);
+        } finally {
+            heapLock.unlock();
+        }
+    }
+
+    /**
+     * 刷新已在堆中的 key 的计数，调用方需持有 heapLock
+     */
+    private void refresh(String key, int count) {
+        Long existing = hotKeys.get(key);
+        int currentEpoch = epoch;
+        if (existing == null || fadedHotCount(existing, currentEpoch) >= count) {
+            return;
+        }
+        minHeap.put(key, count);
+        hotKeys.put(key, packHot(currentEpoch, count));
+        updateAdmitThreshold();
+    }
+
+    private void updateAdmitThreshold() {
+        admitThreshold = minHeap.isFull() ? minHeap.minCount() : 0;
+    }
+
+    @Override
+    public List<Item> list() {
+        heapLock.lock();
+        try {
+            return minHeap.toList();
+        } finally {
+            heapLock.unlock();
+        }
+    }
+
+    @Override
+    public BlockingQueue<Item> expelled() {
+        return expelledQueue;
+    }
+
+    /**
+     * 衰减：推进纪元，桶和堆中的计数在读取时按纪元差减半。
+     * 除推进纪元外只规整 sweepStep 个桶（防止 16 位纪元回绕），不再全量扫描。
+     */
+    @Override
+    public void fading() {
+        heapLock.lock();
+        try {
+            int currentEpoch = epoch + 1;
+            epoch = currentEpoch;
+            minHeap.advanceEpoch();
+            updateAdmitThreshold();
+            sweep(currentEpoch);
+        } finally {
+            heapLock.unlock();
+        }
+
+        long sum = total.sumThenReset();
+        total.add(sum >> 1);
+    }
+
+    /**
+     * 规整一段桶：补齐衰减并写入当前纪元
+     */
+    private void sweep(int currentEpoch) {
+        for (int n = 0; n < sweepStep; n++) {
+            int i = sweepCursor;
+            sweepCursor = i + 1 == buckets.length ? 0 : i + 1;
+            long current;
+            long next;
+            do {
+                current = (long) BUCKETS.getVolatile(buckets, i);
+                next = pack(fingerprint(current), currentEpoch, fadedCount(current, currentEpoch));
+            } while (current != next && !BUCKETS.compareAndSet(buckets, i, current, next));
+        }
+    }
+
+    /**
+     * key 在各行桶中的计数（按当前纪元补齐衰减）取最大值，只读不更新桶
+     */
+    int estimate(String key) {
+        long hash = SketchHash.hash64(key);
+        int itemFingerprint = SketchHash.fingerprint(hash) & FINGERPRINT_MASK;
+        int maxCount = 0;
+        for (int i = 0; i < depth; i++) {
+            long bucket = (long) BUCKETS.getVolatile(buckets, i * width + SketchHash.bucket(hash, i, width));
+            if (fingerprint(bucket) == itemFingerprint) {
+                maxCount = Math.max(maxCount, fadedCount(bucket, epoch));
+            }
+        }
+        return maxCount;
+    }
+
+    @Override
+    public long total() {
+        return total.sum();
+    }
+
+    static long pack(int fingerprint, int epoch, int count) {
+        return ((long) fingerprint << (EPOCH_BITS + COUNT_BITS))
+                | ((long) (epoch & EPOCH_MASK) << COUNT_BITS)
+                | count;
+    }
+
+    private static int fingerprint(long bucket) {
+        return (int) (bucket >>> (EPOCH_BITS + COUNT_BITS));
+    }
+
+    /**
+     * 按错过的纪元数补齐减半后的计数。
+     * 纪元差按 16 位有符号数解释，桶的纪元比 currentEpoch 新时视为未错过纪元，不会被当成错过 65535 个纪元而清零
+     */
+    static int fadedCount(long bucket, int currentEpoch) {
+        int count = (int) bucket & MAX_COUNT;
+        int shift = Integer.SIZE - EPOCH_BITS;
+        int elapsed = Math.max(0, ((currentEpoch - (int) (bucket >>> COUNT_BITS)) << shift) >> shift);
+        return elapsed >= COUNT_BITS ? 0 : count >> elapsed;
+    }
+
+    static long packHot(int epoch, int count) {
+        return ((long) epoch << 32) | count;
+    }
+
+    /**
+     * 热 key 计数按纪元差减半；记录的纪元比 currentEpoch 新时（其他线程已按新纪元刷新）不减半，避免负数位移
+     */
+    static int fadedHotCount(long hot, int currentEpoch) {
+        int elapsed = Math.max(0, currentEpoch - (int) (hot >>> 32));
+        return elapsed >= Integer.SIZE ? 0 : (int) hot >> elapsed;
+    }
+}
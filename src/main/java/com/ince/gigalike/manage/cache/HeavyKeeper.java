@@ -1,11 +1,9 @@
 package com.ince.gigalike.manage.cache;
 
-import cn.hutool.core.util.HashUtil;
-import lombok.Data;
-
 import java.util.*;
 import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicInteger;
 
 public class HeavyKeeper implements TopK {
     private static final int LOOKUP_TABLE_SIZE = 256;
@@ -14,11 +12,13 @@ public class HeavyKeeper implements TopK {
     private final int depth;
     private final double[] lookupTable;
     private final Bucket[][] buckets;
-    private final PriorityQueue<Node> minHeap;
+    private final IndexedMinHeap minHeap;
     private final BlockingQueue<Item> expelledQueue;
     private final Random random;
     private long total;
     private final int minCount;
+    // 衰减纪元，每次 fading 加一
+    private final AtomicInteger epoch;
 
     public HeavyKeeper(int k, int width, int depth, double decay, int minCount) {
         this.k = k;
@@ -38,23 +38,26 @@ public class HeavyKeeper implements TopK {
             }
         }
 
-        this.minHeap = new PriorityQueue<>(Comparator.comparingInt(n -> n.count));
+        this.minHeap = new IndexedMinHeap(k);
         this.expelledQueue = new LinkedBlockingQueue<>();
         this.random = new Random();
         this.total = 0;
+        this.epoch = new AtomicInteger();
     }
 
     @Override
     public AddResult add(String key, int increment) {
-        byte[] keyBytes = key.getBytes();
-        long itemFingerprint = hash(keyBytes);
+        long hash = SketchHash.hash64(key);
+        long itemFingerprint = SketchHash.fingerprint(hash);
+        int currentEpoch = epoch.get();
         int maxCount = 0;
 
         for (int i = 0; i < depth; i++) {
-            int bucketNumber = Math.abs(hash(keyBytes)) % width;
+            int bucketNumber = SketchHash.bucket(hash, i, width);
             Bucket bucket = buckets[i][bucketNumber];
 
             synchronized (bucket) {
+                bucket.catchUp(currentEpoch);
                 if (bucket.count == 0) {
                     bucket.fingerprint = itemFingerprint;
                     bucket.count = increment;
@@ -88,30 +91,20 @@ public class HeavyKeeper implements TopK {
         }
 
         synchronized (minHeap) {
-            boolean isHot = false;
+            if (minHeap.contains(key)) {
+                minHeap.put(key, maxCount);
+                return new AddResult(null, true, key);
+            }
+            if (minHeap.isFull() && maxCount < minHeap.minCount()) {
+                return new AddResult(null, false, key);
+            }
             String expelled = null;
-
-            Optional<Node> existing = minHeap.stream()
-                    .filter(n -> n.key.equals(key))
-                    .findFirst();
-
-            if (existing.isPresent()) {
-                minHeap.remove(existing.get());
-                minHeap.add(new Node(key, maxCount));
-                isHot = true;
-            } else {
-                if (minHeap.size() < k || maxCount >= Objects.requireNonNull(minHeap.peek()).count) {
-                    Node newNode = new Node(key, maxCount);
-                    if (minHeap.size() >= k) {
-                        expelled = minHeap.poll().key;
-                        expelledQueue.offer(new Item(expelled, maxCount));
-                    }
-                    minHeap.add(newNode);
-                    isHot = true;
-                }
+            if (minHeap.isFull()) {
+                expelled = minHeap.poll();
+                expelledQueue.offer(new Item(expelled, maxCount));
             }
-
-            return new AddResult(expelled, isHot, key);
+            minHeap.put(key, maxCount);
+            return new AddResult(expelled, true, key);
         }
     }
 
@@ -119,12 +112,7 @@ public class HeavyKeeper implements TopK {
     @Override
     public List<Item> list() {
         synchronized (minHeap) {
-            List<Item> result = new ArrayList<>(minHeap.size());
-            for (Node node : minHeap) {
-                result.add(new Item(node.key, node.count));
-            }
-            result.sort((a, b) -> Integer.compare(b.count(), a.count()));
-            return result;
+            return minHeap.toList();
         }
     }
 
@@ -133,23 +121,15 @@ public class HeavyKeeper implements TopK {
         return expelledQueue;
     }
 
+    /**
+     * 衰减：只推进纪元，桶在下次被访问时再补齐减半
+     */
     @Override
     public void fading() {
-        for (Bucket[] row : buckets) {
-            for (Bucket bucket : row) {
-                synchronized (bucket) {
-                    bucket.count = bucket.count >> 1;
-                }
-            }
-        }
+        epoch.incrementAndGet();
 
         synchronized (minHeap) {
-            PriorityQueue<Node> newHeap = new PriorityQueue<>(Comparator.comparingInt(n -> n.count));
-            for (Node node : minHeap) {
-                newHeap.add(new Node(node.key, node.count >> 1));
-            }
-            minHeap.clear();
-            minHeap.addAll(newHeap);
+            minHeap.advanceEpoch();
         }
 
         total = total >> 1;
@@ -163,19 +143,18 @@ public class HeavyKeeper implements TopK {
     private static class Bucket {
         long fingerprint;
         int count;
-    }
-
-    private static class Node {
-        final String key;
-        final int count;
-
-        Node(String key, int count) {
-            this.key = key;
-            this.count = count;
+        // 最后一次访问时的纪元
+        int epoch;
+
+        /**
+         * 补齐自上次访问以来错过的衰减，每错过一个纪元计数减半
+         */
+        void catchUp(int currentEpoch) {
+            int elapsed = currentEpoch - epoch;
+            if (elapsed > 0) {
+                count = elapsed >= Integer.SIZE ? 0 : count >> elapsed;
+                epoch = currentEpoch;
+            }
         }
     }
-
-    private static int hash(byte[] data) {
-        return HashUtil.murmur32(data);
-    }
 }
@@ -0,0 +1,165 @@
+package com.ince.gigalike.manage.cache;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 带索引的最小堆，用于维护 TopK
+ * key -> 节点的映射让查找为 O(1)，节点记录自己在堆中的下标，更新、插入、弹出均为 O(log k)
+ * <p>
+ * 衰减采用纪元（epoch）方式：节点记录写入时的纪元，有效计数 = count >> (当前纪元 - 节点纪元)。
+ * 所有节点同时减半不改变大小关系，因此推进纪元是 O(1) 的，且无需重建堆。
+ * 非线程安全，由调用方加锁
+ */
+class IndexedMinHeap {
+
+    private final Node[] heap;
+    private final Map<String, Node> index;
+    private int size;
+    private int epoch;
+
+    IndexedMinHeap(int capacity) {
+        this.heap = new Node[capacity];
+        this.index = new HashMap<>(capacity * 4 / 3 + 1);
+    }
+
+    int size() {
+        return size;
+    }
+
+    boolean isFull() {
+        return size >= heap.length;
+    }
+
+    boolean contains(String key) {
+        return index.containsKey(key);
+    }
+
+    /**
+     * 堆顶（最小）计数，堆为空时返回 0
+     */
+    int minCount() {
+        return size == 0 ? 0 : effective(heap[0]);
+    }
+
+    /**
+     * 插入或更新 key 的计数，插入时堆不能已满
+     */
+    void put(String key, int count) {
+        Node node = index.get(key);
+        if (node != null) {
+            int old = effective(node);
+            node.count = count;
+            node.epoch = epoch;
+            if (count < old) {
+                siftUp(node.pos);
+            } else if (count > old) {
+                siftDown(node.pos);
+            }
+            return;
+        }
+        if (isFull()) {
+            throw new IllegalStateException("heap is full");
+        }
+        node = new Node(key, count, epoch);
+        index.put(key, node);
+        node.pos = size;
+        heap[size++] = node;
+        siftUp(node.pos);
+    }
+
+    /**
+     * 弹出计数最小的 key，堆为空时返回 null
+     */
+    String poll() {
+        if (size == 0) {
+            return null;
+        }
+        Node min = heap[0];
+        Node last = heap[--size];
+        heap[size] = null;
+        if (size > 0) {
+            place(last, 0);
+            siftDown(0);
+        }
+        index.remove(min.key);
+        return min.key;
+    }
+
+    /**
+     * 推进纪元，所有计数在读取时减半
+     */
+    void advanceEpoch() {
+        epoch++;
+    }
+
+    /**
+     * 按计数降序返回堆中所有 key
+     */
+    List<Item> toList() {
+        List<Item> result = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            result.add(new Item(heap[i].key, effective(heap[i])));
+        }
+        result.sort((a, b) -> Integer.compare(b.count(), a.count()));
+        return result;
+    }
+
+    private int effective(Node node) {
+        int elapsed = epoch - node.epoch;
+        return elapsed >= Integer.SIZE ? 0 : node.count >> elapsed;
+    }
+
+    private void siftUp(int pos) {
+        Node node = heap[pos];
+        int count = effective(node);
+        while (pos > 0) {
+            int parent = (pos - 1) >>> 1;
+            if (effective(heap[parent]) <= count) {
+                break;
+            }
+            place(heap[parent], pos);
+            pos = parent;
+        }
+        place(node, pos);
+    }
+
+    private void siftDown(int pos) {
+        Node node = heap[pos];
+        int count = effective(node);
+        int half = size >>> 1;
+        while (pos < half) {
+            int child = 2 * pos + 1;
+            int right = child + 1;
+            if (right < size && effective(heap[right]) < effective(heap[child])) {
+                child = right;
+            }
+            if (count <= effective(heap[child])) {
+                break;
+            }
+            place(heap[child], pos);
+            pos = child;
+        }
+        place(node, pos);
+    }
+
+    private void place(Node node, int pos) {
+        heap[pos] = node;
+        node.pos = pos;
+    }
+
+    private static class Node {
+        final String key;
+        int count;
+        int epoch;
+        int pos;
+
+        Node(String key, int count, int epoch) {
+            this.key = key;
+            this.count = count;
+            this.epoch = epoch;
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package com.ince.gigalike.manage.cache;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.util.List;
+
+/**
+ * 本地缓存失效消息，一条消息携带一批已合并去重的 key
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class InvalidationMessage implements Serializable {
+
+    /**
+     * 发送节点ID，节点收到自己发出的消息时忽略
+     */
+    private String nodeId;
+
+    /**
+     * 需要失效的本地缓存 key
+     */
+    private List<String> keys;
+}
@@ -0,0 +1,19 @@
+package com.ince.gigalike.manage.cache;
+
+import java.util.function.Consumer;
+
+/**
+ * 失效消息的传输通道，生产环境使用 Redis 发布订阅，测试使用进程内实现
+ */
+public interface InvalidationTransport {
+
+    /**
+     * 广播失效消息到所有节点（包括自己）
+     */
+    void publish(InvalidationMessage message);
+
+    /**
+     * 订阅失效消息
+     */
+    void subscribe(Consumer<InvalidationMessage> subscriber);
+}
@@ -0,0 +1,191 @@
+package com.ince.gigalike.manage.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 多级缓存：本地缓存（Caffeine）-> Redis -> 数据源
+ * <p>
+ * 只有被 HeavyKeeper 判定为热 key 的数据才会进入本地缓存，避免冷数据挤占本地内存；
+ * Redis 作为二级缓存对所有数据生效。每一级都有命中 / 未命中计数。
+ * <p>
+ * 数据源中不存在的 key 在 Redis 中写入空值标记，过期时间为 nullTtl，不存在的 ID 不会每次都查询数据源；
+ * 空值标记不进入本地缓存，数据写入后由 {@link #evict} 删除。
+ * <p>
+ * 删除缓存时通过 {@link CacheInvalidationBus} 广播，其他节点收到后删除各自的本地缓存，
+ * 不必等到本地缓存过期。
+ *
+ * @param <K> key 类型
+ * @param <V> value 类型
+ */
+@Slf4j
+public class MultiLevelCache<K, V> {
+
+    /**
+     * Redis 中的空值标记
+     */
+    static final String NULL_VALUE = "__null__";
+
+    private final String name;
+    private final Cache<String, Object> localCache;
+    private final RedisTemplate<String, Object> redisTemplate;
+    private final TopK hotKeyDetector;
+    private final CacheInvalidationBus invalidationBus;
+    private final Duration redisTtl;
+    private final Duration nullTtl;
+    private final CacheLoader<K, V> loader;
+
+    private final LongAdder localHits = new LongAdder();
+    private final LongAdder localMisses = new LongAdder();
+    private final LongAdder redisHits = new LongAdder();
+    private final LongAdder redisMisses = new LongAdder();
+    private final LongAdder nullHits = new LongAdder();
+    private final LongAdder loads = new LongAdder();
+    private final LongAdder loadNulls = new LongAdder();
+
+    public MultiLevelCache(String name, long localMaximumSize, Duration localTtl, Duration redisTtl, Duration nullTtl,
+                    RedisTemplate<String, Object> redisTemplate, TopK hotKeyDetector,
+                    CacheInvalidationBus invalidationBus, CacheLoader<K, V> loader) {
+        this.name = name;
+        this.localCache = Caffeine.newBuilder()
+                .maximumSize(localMaximumSize)
+                .expireAfterWrite(localTtl)
+                .build();
+        this.redisTemplate = redisTemplate;
+        this.hotKeyDetector = hotKeyDetector;
+        this.invalidationBus = invalidationBus;
+        this.redisTtl = redisTtl;
+        this.nullTtl = nullTtl;
+        this.loader = loader;
+        // 其他节点删除缓存后删除本节点的本地缓存，总线上的 key 属于所有缓存，只取本缓存的
+        String prefix = buildCacheKeyPrefix();
+        invalidationBus.addListener(keys -> localCache.invalidateAll(
+                keys.stream().filter(key -> key.startsWith(prefix)).toList()));
+    }
+
+    /**
+     * 依次查询本地缓存、Redis、数据源，数据不存在时返回 null
+     */
+    @SuppressWarnings("unchecked")
+    public V get(K key) {
+        String cacheKey = buildCacheKey(key);
+
+        // 1. 本地缓存
+        Object value = localCache.getIfPresent(cacheKey);
+        if (value != null) {
+            localHits.increment();
+            hotKeyDetector.add(cacheKey, 1);
+            return (V) value;
+        }
+        localMisses.increment();
+
+        // 2. Redis
+        value = redisTemplate.opsForValue().get(cacheKey);
+        if (NULL_VALUE.equals(value)) {
+            nullHits.increment();
+            return null;
+        }
+        if (value != null) {
+            redisHits.increment();
+        } else {
+            redisMisses.increment();
+            // 3. 数据源
+            loads.increment();
+            value = loader.load(key);
+            if (value == null) {
+                loadNulls.increment();
+                redisTemplate.opsForValue().set(cacheKey, NULL_VALUE, nullTtl);
+                return null;
+            }
+            redisTemplate.opsForValue().set(cacheKey, value, redisTtl);
+        }
+
+        // 4. 热 key 才放入本地缓存
+        if (hotKeyDetector.add(cacheKey, 1).isHotKey()) {
+            localCache.put(cacheKey, value);
+        }
+        return (V) value;
+    }
+
+    /**
+     * 数据变更后删除各级缓存
+     */
+    public void evict(K key) {
+        String cacheKey = buildCacheKey(key);
+        localCache.invalidate(cacheKey);
+        redisTemplate.delete(cacheKey);
+        invalidationBus.invalidate(cacheKey);
+    }
+
+    /**
+     * 批量删除各级缓存，Redis 一次 DEL
+     */
+    public void evictAll(Collection<K> keys) {
+        if (keys.isEmpty()) {
+            return;
+        }
+        List<String> cacheKeys = keys.stream().map(this::buildCacheKey).toList();
+        localCache.invalidateAll(cacheKeys);
+        redisTemplate.delete(cacheKeys);
+        cacheKeys.forEach(invalidationBus::invalidate);
+    }
+
+    /**
+     * 在事务内调用时等事务提交后再删除，避免提交前有读请求把旧数据重新加载进缓存；不在事务内时立即删除
+     */
+    public void evictAfterCommit(Collection<K> keys) {
+        if (keys.isEmpty()) {
+            return;
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            List<K> pending = List.copyOf(keys);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    evictAll(pending);
+                }
+            });
+        } else {
+            evictAll(keys);
+        }
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * 各级命中 / 未命中统计
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("localSize", localCache.estimatedSize());
+        stats.put("localHits", localHits.sum());
+        stats.put("localMisses", localMisses.sum());
+        stats.put("redisHits", redisHits.sum());
+        stats.put("redisMisses", redisMisses.sum());
+        stats.put("nullHits", nullHits.sum());
+        stats.put("loads", loads.sum());
+        stats.put("loadNulls", loadNulls.sum());
+        return stats;
+    }
+
+    private String buildCacheKey(K key) {
+        return buildCacheKeyPrefix() + key;
+    }
+
+    private String buildCacheKeyPrefix() {
+        return "cache:" + name + ":";
+    }
+}
@@ -0,0 +1,54 @@
+package com.ince.gigalike.manage.cache;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * 基于 Redis 发布订阅的失效消息通道
+ * 发布订阅不持久化，节点离线期间错过的消息由本地缓存的过期时间兜底
+ */
+@Slf4j
+public class RedisInvalidationTransport implements InvalidationTransport, MessageListener {
+
+    private final RedisTemplate<String, Object> redisTemplate;
+    private final String channel;
+    private final List<Consumer<InvalidationMessage>> subscribers = new CopyOnWriteArrayList<>();
+
+    public RedisInvalidationTransport(RedisTemplate<String, Object> redisTemplate,
+                                      RedisMessageListenerContainer listenerContainer,
+                                      String channel) {
+        this.redisTemplate = redisTemplate;
+        this.channel = channel;
+        listenerContainer.addMessageListener(this, new ChannelTopic(channel));
+    }
+
+    @Override
+    public void publish(InvalidationMessage message) {
+        redisTemplate.convertAndSend(channel, message);
+    }
+
+    @Override
+    public void subscribe(Consumer<InvalidationMessage> subscriber) {
+        subscribers.add(subscriber);
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        Object body = redisTemplate.getValueSerializer().deserialize(message.getBody());
+        if (!(body instanceof InvalidationMessage invalidationMessage)) {
+            log.warn("忽略无法识别的缓存失效消息: {}", body);
+            return;
+        }
+        for (Consumer<InvalidationMessage> subscriber : subscribers) {
+            subscriber.accept(invalidationMessage);
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package com.ince.gigalike.manage.cache;
+
+/**
+ * HeavyKeeper 使用的哈希函数
+ * <p>
+ * 每个 key 只做一次 64 位 MurmurHash64A（直接读取 String 的字符，不分配 byte[]），
+ * 再用每行不同的种子对结果做 fmix64 混淆得到该行的桶下标，使各行的碰撞相互独立。
+ * 指纹取哈希值的低 32 位。
+ */
+final class SketchHash {
+
+    private static final long SEED = 0x5bd1e9955bd1e995L;
+    private static final long M = 0xc6a4a7935bd1e995L;
+    private static final int R = 47;
+    // 每行种子为 (row + 1) * 黄金分割常数
+    private static final long ROW_SEED_STEP = 0x9e3779b97f4a7c15L;
+
+    private SketchHash() {
+    }
+
+    /**
+     * 对 key 的 UTF-16 字符计算 MurmurHash64A，每 4 个字符组成一个 64 位块
+     */
+    static long hash64(String key) {
+        int length = key.length();
+        long h = SEED ^ (length * M);
+        int i = 0;
+        for (; i + 4 <= length; i += 4) {
+            long k = key.charAt(i)
+                    | (long) key.charAt(i + 1) << 16
+                    | (long) key.charAt(i + 2) << 32
+                    | (long) key.charAt(i + 3) << 48;
+            k *= M;
+            k ^= k >>> R;
+            k *= M;
+            h ^= k;
+            h *= M;
+        }
+        if (i < length) {
+            long k = 0;
+            for (int shift = 0; i < length; i++, shift += 16) {
+                k |= (long) key.charAt(i) << shift;
+            }
+            h ^= k;
+            h *= M;
+        }
+        h ^= h >>> R;
+        h *= M;
+        h ^= h >>> R;
+        return h;
+    }
+
+    /**
+     * 指纹
+     */
+    static int fingerprint(long hash) {
+        return (int) hash;
+    }
+
+    /**
+     * 第 row 行的桶下标，范围 [0, width)
+     */
+    static int bucket(long hash, int row, int width) {
+        long mixed = fmix64(hash + (row + 1) * ROW_SEED_STEP);
+        return (int) Long.remainderUnsigned(mixed, width);
+    }
+
+    private static long fmix64(long h) {
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
@@ -0,0 +1,19 @@
+package com.ince.gigalike.manage.lock;
+
+import java.util.function.Supplier;
+
+/**
+ * 按 key 互斥执行的锁，替代 synchronized (String.intern())
+ * 相同 key 的操作串行执行，不同 key 之间尽量并行
+ */
+public interface KeyedLock {
+
+    /**
+     * 持有 key 对应的锁执行 action，action 结束（包括抛出异常）后释放锁
+     *
+     * @param key    加锁的业务 key，如用户 ID
+     * @param action 临界区逻辑
+     * @return action 的返回值
+     */
+    <T> T executeWithLock(Object key, Supplier<T> action);
+}
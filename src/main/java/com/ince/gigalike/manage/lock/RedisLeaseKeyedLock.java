@@ -0,0 +1,80 @@
+package com.ince.gigalike.manage.lock;
+
+import com.ince.gigalike.constant.RedisLuaScriptConstant;
+import com.ince.gigalike.enums.ErrorCode;
+import com.ince.gigalike.exception.BusinessException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.core.RedisTemplate;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Supplier;
+
+/**
+ * 基于 Redis 租约的分布式锁，用于多节点部署
+ * <p>
+ * 先获取本地分段锁，同一节点内的竞争不会打到 Redis；再用 SET NX PX 获取带过期时间的租约，
+ * 释放时通过 Lua 脚本比较令牌后删除，避免误删其他节点在租约过期后拿到的锁。
+ * 租约不会自动续期，临界区耗时需要明显小于 leaseTime。
+ */
+@Slf4j
+public class RedisLeaseKeyedLock implements KeyedLock {
+
+    private static final String LOCK_KEY_PREFIX = "lock:";
+
+    private final RedisTemplate<String, Object> redisTemplate;
+    private final KeyedLock localLock;
+    private final String name;
+    private final Duration leaseTime;
+    private final Duration waitTime;
+
+    public RedisLeaseKeyedLock(RedisTemplate<String, Object> redisTemplate, KeyedLock localLock,
+                               String name, Duration leaseTime, Duration waitTime) {
+        this.redisTemplate = redisTemplate;
+        this.localLock = localLock;
+        this.name = name;
+        this.leaseTime = leaseTime;
+        this.waitTime = waitTime;
+    }
+
+    @Override
+    public <T> T executeWithLock(Object key, Supplier<T> action) {
+        return localLock.executeWithLock(key, () -> {
+            String lockKey = LOCK_KEY_PREFIX + name + ":" + key;
+            String token = UUID.randomUUID().toString();
+            acquire(lockKey, token);
+            try {
+                return action.get();
+            } finally {
+                release(lockKey, token);
+            }
+        });
+    }
+
+    private void acquire(String lockKey, String token) {
+        long deadline = System.nanoTime() + waitTime.toNanos();
+        long backoffMillis = 1;
+        while (true) {
+            Boolean acquired = redisTemplate.opsForValue().setIfAbsent(lockKey, token, leaseTime);
+            if (Boolean.TRUE.equals(acquired)) {
+                return;
+            }
+            if (System.nanoTime() >= deadline) {
+                throw new BusinessException(ErrorCode.OPERATION_ERROR, "操作太频繁，请稍后重试");
+            }
+            // 指数退避加随机抖动，最多 50ms
+            LockSupport.parkNanos(Duration.ofMillis(ThreadLocalRandom.current().nextLong(backoffMillis) + 1).toNanos());
+            backoffMillis = Math.min(backoffMillis * 2, 50);
+        }
+    }
+
+    private void release(String lockKey, String token) {
+        Long released = redisTemplate.execute(RedisLuaScriptConstant.UNLOCK_SCRIPT, List.of(lockKey), token);
+        if (released == null || released == 0) {
+            log.warn("释放分布式锁时租约已过期: {}", lockKey);
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package com.ince.gigalike.manage.lock;
+
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * 单机分段锁：固定数量的 ReentrantLock，key 按哈希映射到其中一把
+ * <p>
+ * 与 synchronized (String.intern()) 相比：
+ * 1. ReentrantLock 阻塞时不会钉住虚拟线程的载体线程；
+ * 2. 锁数量固定，加锁过程不分配对象，也不会让字符串常量池无限增长；
+ * 不同 key 可能映射到同一把锁，只会降低并行度，不影响正确性。
+ */
+public class StripedKeyedLock implements KeyedLock {
+
+    private final ReentrantLock[] locks;
+    private final int mask;
+
+    /**
+     * @param stripes 锁数量，向上取整为 2 的幂
+     */
+    public StripedKeyedLock(int stripes) {
+        if (stripes <= 0) {
+            throw new IllegalArgumentException("stripes must be positive");
+        }
+        int size = stripes == 1 ? 1 : Integer.highestOneBit(stripes - 1) << 1;
+        this.locks = new ReentrantLock[size];
+        for (int i = 0; i < size; i++) {
+            locks[i] = new ReentrantLock();
+        }
+        this.mask = size - 1;
+    }
+
+    @Override
+    public <T> T executeWithLock(Object key, Supplier<T> action) {
+        ReentrantLock lock = lockFor(key);
+        lock.lock();
+        try {
+            return action.get();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * key 对应的锁
+     */
+    ReentrantLock lockFor(Object key) {
+        int h = key.hashCode();
+        // 与 HashMap 相同的扰动，避免连续 ID 只落在低位
+        h ^= (h >>> 16);
+        h *= 0x9E3779B9;
+        return locks[(h ^ (h >>> 16)) & mask];
+    }
+
+    public int stripes() {
+        return locks.length;
+    }
+}
@@ -0,0 +1,126 @@
+package com.ince.gigalike.manage.mq;
+
+import org.apache.pulsar.client.api.MessageId;
+import org.apache.pulsar.client.api.MessageIdAdv;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.DoubleAdder;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 生产者发送统计：发送延迟分布、客户端批次大小、每条消息携带的事件数
+ * <p>
+ * 批次大小从发送结果的 MessageId 读取：同一批次的 n 条消息各自记录 1/n，累加即为批次数。
+ */
+public class ProducerMetrics {
+
+    /**
+     * 延迟分布的桶上界（毫秒），最后一个桶为无穷大
+     */
+    private static final long[] LATENCY_BUCKETS_MS = {1, 2, 5, 10, 20, 50, 100, 200, 500, 1000};
+
+    private final String name;
+    private final LongAdder messages = new LongAdder();
+    private final LongAdder events = new LongAdder();
+    private final LongAdder failures = new LongAdder();
+    private final LongAdder latencyMicros = new LongAdder();
+    private final LongAccumulator maxLatencyMicros = new LongAccumulator(Math::max, 0);
+    private final LongAdder[] latencyBuckets = new LongAdder[LATENCY_BUCKETS_MS.length + 1];
+    private final DoubleAdder batches = new DoubleAdder();
+
+    public ProducerMetrics(String name) {
+        this.name = name;
+        for (int i = 0; i < latencyBuckets.length; i++) {
+            latencyBuckets[i] = new LongAdder();
+        }
+    }
+
+    /**
+     * 在发送结果上登记统计回调，返回原 future
+     *
+     * @param startNanos 调用发送时的 System.nanoTime()
+     * @param eventCount 消息携带的事件数，普通消息为 1
+     */
+    public CompletableFuture<MessageId> record(long startNanos, int eventCount, CompletableFuture<MessageId> future) {
+        future.whenComplete((messageId, ex) -> {
+            long micros = TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - startNanos);
+            if (ex != null) {
+                failures.increment();
+                return;
+            }
+            messages.increment();
+            events.add(eventCount);
+            latencyMicros.add(micros);
+            maxLatencyMicros.accumulate(micros);
+            latencyBuckets[bucketOf(micros)].increment();
+            batches.add(1.0 / batchSize(messageId));
+        });
+        return future;
+    }
+
+    /**
+     * 发送前同步失败（如生产者创建失败）
+     */
+    public void recordFailure() {
+        failures.increment();
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public Map<String, Object> getStats() {
+        long sent = messages.sum();
+        double batchCount = batches.sum();
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("messages", sent);
+        stats.put("events", events.sum());
+        stats.put("failures", failures.sum());
+        stats.put("avgEventsPerMessage", sent == 0 ? 0 : (double) events.sum() / sent);
+        stats.put("avgBatchSize", batchCount == 0 ? 0 : sent / batchCount);
+        stats.put("avgLatencyMs", sent == 0 ? 0 : latencyMicros.sum() / 1000.0 / sent);
+        stats.put("p50LatencyMs", percentileMs(sent, 0.5));
+        stats.put("p99LatencyMs", percentileMs(sent, 0.99));
+        stats.put("maxLatencyMs", maxLatencyMicros.get() / 1000.0);
+        return stats;
+    }
+
+    /**
+     * 按延迟分布估算分位数，返回所在桶的上界；落在最后一个桶时返回最大延迟
+     */
+    private double percentileMs(long total, double percentile) {
+        if (total == 0) {
+            return 0;
+        }
+        long target = (long) Math.ceil(total * percentile);
+        long seen = 0;
+        for (int i = 0; i < LATENCY_BUCKETS_MS.length; i++) {
+            seen += latencyBuckets[i].sum();
+            if (seen >= target) {
+                return LATENCY_BUCKETS_MS[i];
+            }
+        }
+        return maxLatencyMicros.get() / 1000.0;
+    }
+
+    private static int bucketOf(long micros) {
+        for (int i = 0; i < LATENCY_BUCKETS_MS.length; i++) {
+            if (micros <= LATENCY_BUCKETS_MS[i] * 1000) {
+                return i;
+            }
+        }
+        return LATENCY_BUCKETS_MS.length;
+    }
+
+    private static int batchSize(MessageId messageId) {
+        if (messageId instanceof MessageIdAdv messageIdAdv) {
+            // 不在批次中的消息 batchSize 为 0
+            return Math.max(1, messageIdAdv.getBatchSize());
+        }
+        return 1;
+    }
+}
@@ -0,0 +1,35 @@
+package com.ince.gigalike.manage.mq;
+
+import org.apache.pulsar.client.api.BatcherBuilder;
+import org.apache.pulsar.client.api.CompressionType;
+import org.springframework.pulsar.core.ProducerBuilderCustomizer;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 生产者批量发送与压缩配置
+ *
+ * @param batchingMaxPublishDelay 批次最长等待时间，越大批次越满、单条延迟越高
+ * @param batchingMaxMessages     每个批次最多消息数
+ * @param compressionType         批次压缩算法，LZ4 压缩快，ZSTD 压缩率高
+ * @param keyBasedBatching        是否按消息 key 分批，Key_Shared 订阅必须开启
+ */
+public record ProducerSettings(Duration batchingMaxPublishDelay, int batchingMaxMessages,
+                               CompressionType compressionType, boolean keyBasedBatching) {
+
+    /**
+     * 生成生产者定制器；生产者按定制器实例缓存，同一主题应复用同一个返回值
+     */
+    public <T> ProducerBuilderCustomizer<T> toCustomizer() {
+        return builder -> {
+            builder.enableBatching(true)
+                    .batchingMaxPublishDelay(batchingMaxPublishDelay.toMillis(), TimeUnit.MILLISECONDS)
+                    .batchingMaxMessages(batchingMaxMessages)
+                    .compressionType(compressionType);
+            if (keyBasedBatching) {
+                builder.batcherBuilder(BatcherBuilder.KEY_BASED);
+            }
+        };
+    }
+}
@@ -0,0 +1,171 @@
+package com.ince.gigalike.manage.notification;
+
+import com.ince.gigalike.enums.NotificationTypeEnum;
+import com.ince.gigalike.enums.RelatedTypeEnum;
+import com.ince.gigalike.listener.notification.msg.NotificationEvent;
+import com.ince.gigalike.manage.cache.MultiLevelCache;
+import com.ince.gigalike.model.entity.Blog;
+import com.ince.gigalike.service.NotificationService;
+import jakarta.annotation.PreDestroy;
+import jakarta.annotation.Resource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 点赞通知合并：同一博客的点赞通知在消费端按时间窗口合并，窗口结束时写入一次聚合通知
+ * <p>
+ * 事件进入窗口前从博客缓存解析接收者（博客作者），作者给自己点赞的事件直接丢弃，不进入窗口、不计数。
+ * 窗口从第一条事件开始计时，窗口内只记录去重后的点赞者与最近一条事件；到期后由
+ * {@link NotificationService#createAggregatedNotification} 按 (接收者, 博客, 类型) 合并到同一条通知上，
+ * 热门博客每个窗口只产生一次写库与一次推送。多个消费节点各自开窗口也没有问题，累加在数据库中完成。
+ * <p>
+ * 消息在进入窗口后即确认，节点宕机会丢失最近一个窗口的点赞通知；正常停机时写入全部窗口。
+ * 窗口数超过 max-windows 时新的点赞通知直接写入，不再合并。
+ */
+@Component
+@Slf4j
+public class NotificationAggregator {
+
+    @Resource
+    private NotificationService notificationService;
+
+    @Resource
+    private MultiLevelCache<Long, Blog> blogCache;
+
+    @Value("${notification.aggregate.enabled:true}")
+    private boolean enabled;
+
+    @Value("${notification.aggregate.window-ms:3000}")
+    private long windowMs;
+
+    @Value("${notification.aggregate.max-windows:100000}")
+    private int maxWindows;
+
+    private final ConcurrentHashMap<String, Window> windows = new ConcurrentHashMap<>();
+
+    private final LongAdder received = new LongAdder();
+    private final LongAdder selfLikes = new LongAdder();
+    private final LongAdder missingBlogs = new LongAdder();
+    private final LongAdder flushedWindows = new LongAdder();
+    private final LongAdder bypassed = new LongAdder();
+    private final LongAdder failedWindows = new LongAdder();
+
+    /**
+     * 一个合并窗口：窗口开始时间、去重后的点赞者与最近一条事件
+     */
+    private static class Window {
+        final long openedAt = System.currentTimeMillis();
+        final Set<Long> likerIds = new LinkedHashSet<>();
+        NotificationEvent latest;
+    }
+
+    /**
+     * 是否为需要合并的通知（点赞博客）
+     */
+    public boolean accepts(NotificationEvent event) {
+        return NotificationTypeEnum.LIKE.getCode().equals(event.getType())
+                && RelatedTypeEnum.BLOG.getCode().equals(event.getRelatedType())
+                && event.getRelatedId() != null;
+    }
+
+    /**
+     * 点赞博客的通知放入合并窗口并返回 true，其他通知返回 false 由调用方直接创建；
+     * 博客不存在或作者给自己点赞时丢弃并返回 true
+     */
+    public boolean offer(NotificationEvent event) {
+        if (!accepts(event)) {
+            return false;
+        }
+        received.increment();
+        Blog blog = blogCache.get(event.getRelatedId());
+        if (blog == null) {
+            missingBlogs.increment();
+            log.warn("博客不存在，跳过点赞通知：blogId={}", event.getRelatedId());
+            return true;
+        }
+        if (blog.getUserid().equals(event.getSenderId())) {
+            selfLikes.increment();
+            return true;
+        }
+        event.setUserId(blog.getUserid());
+        if (!enabled || windows.size() >= maxWindows) {
+            bypassed.increment();
+            notificationService.createAggregatedNotification(event, List.of(event.getSenderId()));
+            return true;
+        }
+        windows.compute(windowKey(event), (key, window) -> {
+            if (window == null) {
+                window = new Window();
+            }
+            window.likerIds.add(event.getSenderId());
+            window.latest = event;
+            return window;
+        });
+        return true;
+    }
+
+    /**
+     * 写入已到期的窗口
+     */
+    @Scheduled(fixedDelayString = "${notification.aggregate.flush-interval-ms:500}")
+    public void flush() {
+        flush(System.currentTimeMillis() - windowMs);
+    }
+
+    @PreDestroy
+    public void flushAll() {
+        flush(Long.MAX_VALUE);
+    }
+
+    private void flush(long openedBefore) {
+        for (Map.Entry<String, Window> entry : windows.entrySet()) {
+            Window window = entry.getValue();
+            if (window.openedAt > openedBefore || !windows.remove(entry.getKey(), window)) {
+                continue;
+            }
+            // compute 与 remove 对同一键互斥，移除后窗口不再被修改，之后的事件进入新窗口
+            try {
+                notificationService.createAggregatedNotification(window.latest, window.likerIds);
+                flushedWindows.increment();
+            } catch (Exception e) {
+                failedWindows.increment();
+                log.error("写入聚合点赞通知失败：key={}, likers={}", entry.getKey(), window.likerIds.size(), e);
+            }
+        }
+    }
+
+    /**
+     * 接收者由博客作者决定，发送端可能没有填写，窗口按博客与类型划分
+     */
+    private static String windowKey(NotificationEvent event) {
+        return event.getType() + ":" + event.getRelatedType() + ":" + event.getRelatedId();
+    }
+
+    /**
+     * 合并统计：收到的点赞通知数、丢弃的自己给自己点赞与博客不存在的通知数、写入的窗口数（即写库次数）、
+     * 未合并直接写入的通知数与写入失败的窗口数
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", enabled);
+        stats.put("windowMs", windowMs);
+        stats.put("openWindows", windows.size());
+        stats.put("received", received.sum());
+        stats.put("selfLikes", selfLikes.sum());
+        stats.put("missingBlogs", missingBlogs.sum());
+        stats.put("flushedWindows", flushedWindows.sum());
+        stats.put("bypassed", bypassed.sum());
+        stats.put("failedWindows", failedWindows.sum());
+        return stats;
+    }
+}
@@ -0,0 +1,43 @@
+package com.ince.gigalike.manage.notification;
+
+import com.ince.gigalike.listener.notification.msg.NotificationEvent;
+import com.ince.gigalike.manage.mq.ProducerMetrics;
+import org.apache.pulsar.client.api.MessageId;
+import org.apache.pulsar.client.api.PulsarClientException;
+import org.springframework.pulsar.core.ProducerBuilderCustomizer;
+import org.springframework.pulsar.core.PulsarTemplate;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * 通知事件发送，使用可配置的批量发送与压缩，并记录发送统计
+ */
+public class NotificationEventPublisher {
+
+    public static final String NOTIFICATION_TOPIC = "notification-topic";
+
+    private final PulsarTemplate<NotificationEvent> pulsarTemplate;
+    private final ProducerBuilderCustomizer<NotificationEvent> producerCustomizer;
+    private final ProducerMetrics metrics;
+
+    public NotificationEventPublisher(PulsarTemplate<NotificationEvent> pulsarTemplate,
+                                      ProducerBuilderCustomizer<NotificationEvent> producerCustomizer,
+                                      ProducerMetrics metrics) {
+        this.pulsarTemplate = pulsarTemplate;
+        this.producerCustomizer = producerCustomizer;
+        this.metrics = metrics;
+    }
+
+    public CompletableFuture<MessageId> publish(NotificationEvent event) throws PulsarClientException {
+        long start = System.nanoTime();
+        try {
+            return metrics.record(start, 1, pulsarTemplate.newMessage(event)
+                    .withTopic(NOTIFICATION_TOPIC)
+                    .withProducerCustomizer(producerCustomizer)
+                    .sendAsync());
+        } catch (PulsarClientException | RuntimeException e) {
+            metrics.recordFailure();
+            throw e;
+        }
+    }
+}
@@ -0,0 +1,117 @@
+package com.ince.gigalike.manage.notification;
+
+import com.ince.gigalike.websocket.NotificationWebSocketHandler;
+import jakarta.annotation.Resource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 按接收者限制 WebSocket 通知推送频率：同一用户两次推送至少间隔 min-interval-ms
+ * <p>
+ * 间隔内到达的推送只保留最新一条，到期后由定时任务补推；被替换的通知已经入库，客户端刷新列表即可看到。
+ * 推送只是提醒，通知列表与未读数以数据库为准。
+ */
+@Component
+@Slf4j
+public class NotificationPushThrottler {
+
+    @Resource
+    private NotificationWebSocketHandler webSocketHandler;
+
+    @Value("${notification.push.min-interval-ms:1000}")
+    private long minIntervalMs;
+
+    private final ConcurrentHashMap<Long, Slot> slots = new ConcurrentHashMap<>();
+
+    private final LongAdder pushed = new LongAdder();
+    private final LongAdder deferred = new LongAdder();
+    private final LongAdder coalesced = new LongAdder();
+
+    private static class Slot {
+        long lastPushAt;
+        Object pending;
+    }
+
+    /**
+     * 距上次推送超过间隔时立即推送，否则暂存为该用户待推送的最新通知
+     */
+    public void push(Long userId, Object notification) {
+        long now = System.currentTimeMillis();
+        boolean[] sendNow = new boolean[1];
+        slots.compute(userId, (id, slot) -> {
+            if (slot == null) {
+                slot = new Slot();
+            }
+            if (slot.pending == null && now - slot.lastPushAt >= minIntervalMs) {
+                slot.lastPushAt = now;
+                sendNow[0] = true;
+            } else {
+                if (slot.pending != null) {
+                    coalesced.increment();
+                }
+                slot.pending = notification;
+                deferred.increment();
+            }
+            return slot;
+        });
+        if (sendNow[0]) {
+            send(userId, notification);
+        }
+    }
+
+    /**
+     * 补推到期的暂存通知，并清理已过间隔且没有暂存通知的用户
+     */
+    @Scheduled(fixedDelayString = "${notification.push.flush-interval-ms:200}")
+    public void flush() {
+        long now = System.currentTimeMillis();
+        for (Long userId : slots.keySet()) {
+            Object[] due = new Object[1];
+            slots.computeIfPresent(userId, (id, slot) -> {
+                if (now - slot.lastPushAt < minIntervalMs) {
+                    return slot;
+                }
+                if (slot.pending == null) {
+                    return null;
+                }
+                due[0] = slot.pending;
+                slot.pending = null;
+                slot.lastPushAt = now;
+                return slot;
+            });
+            if (due[0] != null) {
+                send(userId, due[0]);
+            }
+        }
+    }
+
+    private void send(Long userId, Object notification) {
+        try {
+            webSocketHandler.sendNotificationToUser(userId, notification);
+            pushed.increment();
+        } catch (Exception e) {
+            // 推送失败不影响通知的保存
+            log.error("实时推送通知失败：userId={}", userId, e);
+        }
+    }
+
+    /**
+     * 推送统计：实际推送数、被延后的推送数、被后一条替换而未单独推送的通知数
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("minIntervalMs", minIntervalMs);
+        stats.put("trackedUsers", slots.size());
+        stats.put("pushed", pushed.sum());
+        stats.put("deferred", deferred.sum());
+        stats.put("coalesced", coalesced.sum());
+        return stats;
+    }
+}
@@ -0,0 +1,69 @@
+package com.ince.gigalike.manage.notification;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.ince.gigalike.model.entity.User;
+import com.ince.gigalike.model.vo.NotificationVO;
+import com.ince.gigalike.service.UserService;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 通知发送者资料的本地短时缓存：一页 / 一批通知的发送者去重后批量读取，未命中的用一次 IN 查询加载
+ * <p>
+ * 只缓存通知展示需要的用户名、显示名与头像，过期时间短，用户修改资料后最多 ttl-seconds 内仍显示旧资料。
+ * 不存在的用户不缓存，下次仍会查询。
+ */
+@Component
+public class NotificationSenderCache {
+
+    private final UserService userService;
+
+    private final Cache<Long, NotificationVO.SenderInfo> cache;
+
+    public NotificationSenderCache(UserService userService,
+                                   @Value("${notification.sender-cache.ttl-seconds:30}") long ttlSeconds,
+                                   @Value("${notification.sender-cache.max-size:10000}") long maxSize) {
+        this.userService = userService;
+        this.cache = Caffeine.newBuilder()
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .maximumSize(maxSize)
+                .build();
+    }
+
+    /**
+     * 批量读取发送者资料，忽略 null ID；返回结果不包含不存在的用户
+     */
+    public Map<Long, NotificationVO.SenderInfo> getAll(Collection<Long> senderIds) {
+        Set<Long> ids = new HashSet<>();
+        for (Long senderId : senderIds) {
+            if (senderId != null) {
+                ids.add(senderId);
+            }
+        }
+        if (ids.isEmpty()) {
+            return new HashMap<>();
+        }
+        return cache.getAll(ids, this::load);
+    }
+
+    private Map<Long, NotificationVO.SenderInfo> load(Set<? extends Long> ids) {
+        Map<Long, NotificationVO.SenderInfo> senders = new HashMap<>(ids.size() * 2);
+        for (User user : userService.listByIds(ids)) {
+            NotificationVO.SenderInfo senderInfo = new NotificationVO.SenderInfo();
+            senderInfo.setId(user.getId());
+            senderInfo.setUsername(user.getUsername());
+            senderInfo.setDisplayName(user.getDisplayName());
+            senderInfo.setAvatarUrl(user.getAvatarUrl());
+            senders.put(user.getId(), senderInfo);
+        }
+        return senders;
+    }
+}
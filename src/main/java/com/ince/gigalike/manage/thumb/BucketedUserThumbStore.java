@@ -0,0 +1,163 @@
+package com.ince.gigalike.manage.thumb;
+
+import com.ince.gigalike.constant.RedisLuaScriptConstant;
+import com.ince.gigalike.enums.LuaStatusEnum;
+import com.ince.gigalike.utils.RedisKeyUtil;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.data.redis.serializer.RedisSerializer;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 每个用户的点赞分散到多个小哈希 thumb:{userId}:{bucket}，field 为博客 ID，value 为 1
+ * <p>
+ * 博客 ID 是雪花 ID，按 blogId 高位分桶时每个桶几乎只有一条记录，因此按博客 ID 末 6 位做线性哈希：
+ * 平均每桶点赞数超过 maxLoad 时只分裂一个桶，桶数随点赞数平滑增长，每个桶保持在 listpack 编码
+ * （maxLoad 需明显小于 hash-max-listpack-entries）。取消点赞不合并桶。
+ * <p>
+ * 旧布局 thumb:{userId} 在该用户下一次点赞或取消点赞时整体迁移，读取时同时查询旧布局；
+ * 全量对账会读取每个用户的点赞数据，跑完一轮即完成全部迁移。
+ * 脚本内根据用户前缀拼接桶键，只适用于单机 Redis。
+ */
+public class BucketedUserThumbStore implements UserThumbStore {
+
+    private static final int PIPELINE_BUCKETS = 256;
+
+    private static final Set<String> META_FIELDS = Set.of("L", "p", "c");
+
+    private final RedisTemplate<String, Object> redisTemplate;
+
+    private final int maxLoad;
+
+    public BucketedUserThumbStore(RedisTemplate<String, Object> redisTemplate, int maxLoad) {
+        this.redisTemplate = redisTemplate;
+        this.maxLoad = maxLoad;
+    }
+
+    @Override
+    public boolean add(long userId, long blogId, ThumbOutboxRecord outbox) {
+        return execute(RedisLuaScriptConstant.BUCKETED_THUMB_SCRIPT, userId, blogId, outbox);
+    }
+
+    @Override
+    public boolean remove(long userId, long blogId, ThumbOutboxRecord outbox) {
+        return execute(RedisLuaScriptConstant.BUCKETED_UNTHUMB_SCRIPT, userId, blogId, outbox);
+    }
+
+    private boolean execute(RedisScript<Long> script, long userId, long blogId, ThumbOutboxRecord outbox) {
+        String prefix = RedisKeyUtil.getUserThumbKey(userId);
+        String loadedKey = RedisKeyUtil.getThumbLoadedKey(userId);
+        Long result = outbox == null
+                ? redisTemplate.execute(script, List.of(prefix, loadedKey), maxLoad, blogId)
+                : redisTemplate.execute(script, List.of(prefix, loadedKey, outbox.stream()),
+                maxLoad, blogId, userId, outbox.eventId(), outbox.eventTime());
+        return result != null && result == LuaStatusEnum.SUCCESS.getValue();
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public Map<Long, Boolean> contains(long userId, Collection<Long> blogIds) {
+        Map<Long, Boolean> result = new HashMap<>(blogIds.size() * 2);
+        if (blogIds.isEmpty()) {
+            return result;
+        }
+        List<Object> found = redisTemplate.execute(RedisLuaScriptConstant.BUCKETED_THUMB_CONTAINS_SCRIPT,
+                List.of(RedisKeyUtil.getUserThumbKey(userId)), blogIds.toArray());
+        int i = 0;
+        for (Long blogId : blogIds) {
+            result.put(blogId, ((Number) found.get(i++)).longValue() == 1);
+        }
+        return result;
+    }
+
+    /**
+     * 先迁移旧布局，再按桶数分批流水线 HKEYS，桶都很小，一次取完
+     */
+    @Override
+    public long[] blogIds(long userId) {
+        String prefix = RedisKeyUtil.getUserThumbKey(userId);
+        Long buckets = redisTemplate.execute(RedisLuaScriptConstant.BUCKETED_THUMB_MIGRATE_SCRIPT, List.of(prefix), maxLoad);
+        long[] blogIds = new long[16];
+        int size = 0;
+        for (long from = 0; from < buckets; from += PIPELINE_BUCKETS) {
+            long to = Math.min(from + PIPELINE_BUCKETS, buckets);
+            List<Object> fieldSets = hkeys(prefix, from, to);
+            for (Object fields : fieldSets) {
+                for (Object field : (Collection<?>) fields) {
+                    if (META_FIELDS.contains(field.toString())) {
+                        continue;
+                    }
+                    if (size == blogIds.length) {
+                        blogIds = Arrays.copyOf(blogIds, size * 2);
+                    }
+                    blogIds[size++] = Long.parseLong(field.toString());
+                }
+            }
+        }
+        long[] result = Arrays.copyOf(blogIds, size);
+        Arrays.sort(result);
+        return result;
+    }
+
+    private List<Object> hkeys(String prefix, long from, long to) {
+        return redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            for (long bucket = from; bucket < to; bucket++) {
+                connection.hashCommands().hKeys((prefix + ":" + bucket).getBytes(StandardCharsets.UTF_8));
+            }
+            return null;
+        }, RedisSerializer.string());
+    }
+
+    @Override
+    public boolean[] exists(List<Long> userIds) {
+        List<Object> exists = redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            for (Long userId : userIds) {
+                String prefix = RedisKeyUtil.getUserThumbKey(userId);
+                connection.keyCommands().exists(prefix.getBytes(StandardCharsets.UTF_8),
+                        (prefix + ":0").getBytes(StandardCharsets.UTF_8));
+            }
+            return null;
+        });
+        boolean[] result = new boolean[userIds.size()];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = ((Number) exists.get(i)).longValue() > 0;
+        }
+        return result;
+    }
+
+    @Override
+    public boolean rehydrate(long userId, long[] blogIds) {
+        List<Object> args = new ArrayList<>(blogIds.length + 1);
+        args.add(maxLoad);
+        for (long blogId : blogIds) {
+            args.add(blogId);
+        }
+        Long rehydrated = redisTemplate.execute(RedisLuaScriptConstant.BUCKETED_THUMB_REHYDRATE_SCRIPT,
+                List.of(RedisKeyUtil.getUserThumbKey(userId), RedisKeyUtil.getThumbLoadedKey(userId)), args.toArray());
+        return rehydrated != null && rehydrated == 1;
+    }
+
+    /**
+     * 分裂出的新桶沿用 0 号桶的过期时间，这里统一刷新全部桶
+     */
+    @Override
+    public void expire(long userId, Duration ttl) {
+        redisTemplate.execute(RedisLuaScriptConstant.BUCKETED_THUMB_EXPIRE_SCRIPT,
+                List.of(RedisKeyUtil.getUserThumbKey(userId)), ttl.toMillis());
+    }
+
+    @Override
+    public boolean isLoaded(long userId) {
+        return Boolean.TRUE.equals(redisTemplate.hasKey(RedisKeyUtil.getThumbLoadedKey(userId)));
+    }
+}
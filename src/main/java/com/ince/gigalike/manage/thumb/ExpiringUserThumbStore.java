@@ -0,0 +1,152 @@
+package com.ince.gigalike.manage.thumb;
+
+import com.ince.gigalike.utils.RedisKeyUtil;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.core.RedisTemplate;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongFunction;
+
+/**
+ * 冷用户点赞数据过期淘汰：用户点赞数据设置过期时间，访问时续期，过期后第一次访问从数据库重新加载
+ * <p>
+ * 已加载标记 thumb:loaded:{userId} 区分"未点赞"与"未加载"：标记存在时 Redis 中的点赞数据是完整的，
+ * 没有点赞记录的用户只有标记没有点赞数据。点赞数据的过期时间比标记长 1/10，标记总是先过期，
+ * 重新加载时点赞数据若仍存在则保留不覆盖。剩余时间不足一半时才续期，热点用户不会每次访问都写 Redis。
+ * <p>
+ * 同一节点内同一用户的加载只执行一次，并发请求等待其结果；多个节点同时加载时由重建脚本的存在性检查保证只写入一次。
+ * 加载读取的是数据库当前数据，冷用户过期前的点赞事件早已消费完毕，不会丢失在途事件。
+ * <p>
+ * 对账读取（{@link #blogIds}、{@link #exists}、{@link #peek}）不算访问，不续期也不触发加载，未加载的用户由对账跳过。
+ */
+@Slf4j
+public class ExpiringUserThumbStore implements UserThumbStore {
+
+    private final UserThumbStore delegate;
+
+    private final RedisTemplate<String, Object> redisTemplate;
+
+    private final LongFunction<List<Long>> loader;
+
+    private final Duration ttl;
+
+    private final Duration dataTtl;
+
+    private final ConcurrentHashMap<Long, CompletableFuture<Void>> loading = new ConcurrentHashMap<>();
+
+    /**
+     * @param loader 从数据库读取用户点赞的全部博客 ID
+     */
+    public ExpiringUserThumbStore(UserThumbStore delegate, RedisTemplate<String, Object> redisTemplate,
+                                  LongFunction<List<Long>> loader, Duration ttl) {
+        this.delegate = delegate;
+        this.redisTemplate = redisTemplate;
+        this.loader = loader;
+        this.ttl = ttl;
+        this.dataTtl = ttl.plus(ttl.dividedBy(10));
+    }
+
+    @Override
+    public boolean add(long userId, long blogId, ThumbOutboxRecord outbox) {
+        ensureLoaded(userId);
+        boolean added = delegate.add(userId, blogId, outbox);
+        if (added) {
+            // 写入可能新建了键（第一个点赞、分桶分裂），补上过期时间
+            delegate.expire(userId, dataTtl);
+        }
+        return added;
+    }
+
+    @Override
+    public boolean remove(long userId, long blogId, ThumbOutboxRecord outbox) {
+        ensureLoaded(userId);
+        return delegate.remove(userId, blogId, outbox);
+    }
+
+    @Override
+    public Map<Long, Boolean> contains(long userId, Collection<Long> blogIds) {
+        ensureLoaded(userId);
+        return delegate.contains(userId, blogIds);
+    }
+
+    @Override
+    public Map<Long, Boolean> peek(long userId, Collection<Long> blogIds) {
+        return delegate.peek(userId, blogIds);
+    }
+
+    @Override
+    public long[] blogIds(long userId) {
+        return delegate.blogIds(userId);
+    }
+
+    @Override
+    public boolean[] exists(List<Long> userIds) {
+        return delegate.exists(userIds);
+    }
+
+    @Override
+    public boolean rehydrate(long userId, long[] blogIds) {
+        return delegate.rehydrate(userId, blogIds);
+    }
+
+    @Override
+    public void expire(long userId, Duration ttl) {
+        delegate.expire(userId, ttl);
+    }
+
+    @Override
+    public boolean isLoaded(long userId) {
+        return delegate.isLoaded(userId);
+    }
+
+    @Override
+    public boolean evictsColdUsers() {
+        return true;
+    }
+
+    /**
+     * 标记剩余时间超过一半直接返回，不足一半续期，不存在时加载
+     */
+    private void ensureLoaded(long userId) {
+        String loadedKey = RedisKeyUtil.getThumbLoadedKey(userId);
+        Long remaining = redisTemplate.getExpire(loadedKey, TimeUnit.MILLISECONDS);
+        if (remaining != null && remaining > ttl.toMillis() / 2) {
+            return;
+        }
+        if (remaining != null && remaining > 0) {
+            delegate.expire(userId, dataTtl);
+            redisTemplate.expire(loadedKey, ttl);
+            return;
+        }
+        load(userId, loadedKey);
+    }
+
+    private void load(long userId, String loadedKey) {
+        CompletableFuture<Void> future = new CompletableFuture<>();
+        CompletableFuture<Void> existing = loading.putIfAbsent(userId, future);
+        if (existing != null) {
+            existing.join();
+            return;
+        }
+        try {
+            long[] blogIds = loader.apply(userId).stream().mapToLong(Long::longValue).toArray();
+            // 点赞数据仍存在（标记先过期）时不覆盖；取消点赞脚本补写了不带过期时间的标记时也不覆盖，下面重新设置过期时间
+            delegate.rehydrate(userId, blogIds);
+            delegate.expire(userId, dataTtl);
+            redisTemplate.opsForValue().set(loadedKey, 1, ttl);
+            log.debug("加载用户点赞数据: userId={}, thumbs={}", userId, blogIds.length);
+            future.complete(null);
+        } catch (RuntimeException e) {
+            future.completeExceptionally(e);
+            throw e;
+        } finally {
+            loading.remove(userId, future);
+        }
+    }
+}
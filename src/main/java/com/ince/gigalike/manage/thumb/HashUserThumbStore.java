@@ -0,0 +1,122 @@
+package com.ince.gigalike.manage.thumb;
+
+import com.ince.gigalike.constant.RedisLuaScriptConstant;
+import com.ince.gigalike.enums.LuaStatusEnum;
+import com.ince.gigalike.utils.RedisKeyUtil;
+import org.springframework.data.redis.core.Cursor;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.ScanOptions;
+import org.springframework.data.redis.core.script.RedisScript;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 每个用户一个哈希 thumb:{userId}，field 为博客 ID，value 为 1
+ * <p>
+ * 点赞数超过 hash-max-listpack-entries（默认 128）后哈希转为 hashtable 编码，每个点赞占用几十字节，
+ * 点赞多的用户可改用 {@link BucketedUserThumbStore}。
+ */
+public class HashUserThumbStore implements UserThumbStore {
+
+    private static final int HSCAN_COUNT = 1000;
+
+    private final RedisTemplate<String, Object> redisTemplate;
+
+    public HashUserThumbStore(RedisTemplate<String, Object> redisTemplate) {
+        this.redisTemplate = redisTemplate;
+    }
+
+    @Override
+    public boolean add(long userId, long blogId, ThumbOutboxRecord outbox) {
+        return execute(RedisLuaScriptConstant.THUMB_SCRIPT_MQ, userId, blogId, outbox);
+    }
+
+    @Override
+    public boolean remove(long userId, long blogId, ThumbOutboxRecord outbox) {
+        return execute(RedisLuaScriptConstant.UNTHUMB_SCRIPT_MQ, userId, blogId, outbox);
+    }
+
+    private boolean execute(RedisScript<Long> script, long userId, long blogId, ThumbOutboxRecord outbox) {
+        String userThumbKey = RedisKeyUtil.getUserThumbKey(userId);
+        String loadedKey = RedisKeyUtil.getThumbLoadedKey(userId);
+        Long result = outbox == null
+                ? redisTemplate.execute(script, List.of(userThumbKey, loadedKey), blogId)
+                : redisTemplate.execute(script, List.of(userThumbKey, loadedKey, outbox.stream()),
+                blogId, userId, outbox.eventId(), outbox.eventTime());
+        return result != null && result == LuaStatusEnum.SUCCESS.getValue();
+    }
+
+    @Override
+    public Map<Long, Boolean> contains(long userId, Collection<Long> blogIds) {
+        Map<Long, Boolean> result = new HashMap<>(blogIds.size() * 2);
+        if (blogIds.isEmpty()) {
+            return result;
+        }
+        List<Object> fields = blogIds.stream().map(blogId -> (Object) blogId.toString()).toList();
+        List<Object> values = redisTemplate.opsForHash().multiGet(RedisKeyUtil.getUserThumbKey(userId), fields);
+        int i = 0;
+        for (Long blogId : blogIds) {
+            result.put(blogId, values.get(i++) != null);
+        }
+        return result;
+    }
+
+    @Override
+    public long[] blogIds(long userId) {
+        long[] blogIds = new long[16];
+        int size = 0;
+        ScanOptions options = ScanOptions.scanOptions().count(HSCAN_COUNT).build();
+        try (Cursor<Map.Entry<Object, Object>> cursor =
+                     redisTemplate.opsForHash().scan(RedisKeyUtil.getUserThumbKey(userId), options)) {
+            while (cursor.hasNext()) {
+                if (size == blogIds.length) {
+                    blogIds = Arrays.copyOf(blogIds, size * 2);
+                }
+                blogIds[size++] = Long.parseLong(cursor.next().getKey().toString());
+            }
+        }
+        long[] result = Arrays.copyOf(blogIds, size);
+        Arrays.sort(result);
+        return result;
+    }
+
+    @Override
+    public boolean[] exists(List<Long> userIds) {
+        List<Object> exists = redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            for (Long userId : userIds) {
+                connection.keyCommands().exists(RedisKeyUtil.getUserThumbKey(userId).getBytes(StandardCharsets.UTF_8));
+            }
+            return null;
+        });
+        boolean[] result = new boolean[userIds.size()];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = Boolean.TRUE.equals(exists.get(i));
+        }
+        return result;
+    }
+
+    @Override
+    public boolean rehydrate(long userId, long[] blogIds) {
+        Object[] args = Arrays.stream(blogIds).boxed().toArray();
+        Long rehydrated = redisTemplate.execute(RedisLuaScriptConstant.THUMB_REHYDRATE_SCRIPT,
+                List.of(RedisKeyUtil.getUserThumbKey(userId), RedisKeyUtil.getThumbLoadedKey(userId)), args);
+        return rehydrated != null && rehydrated == 1;
+    }
+
+    @Override
+    public void expire(long userId, Duration ttl) {
+        redisTemplate.expire(RedisKeyUtil.getUserThumbKey(userId), ttl);
+    }
+
+    @Override
+    public boolean isLoaded(long userId) {
+        return Boolean.TRUE.equals(redisTemplate.hasKey(RedisKeyUtil.getThumbLoadedKey(userId)));
+    }
+}
@@ -0,0 +1,90 @@
+package com.ince.gigalike.manage.thumb;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * long -> long 的累加表，用于按博客累加点赞数变化
+ * 开放寻址的原始类型数组实现，累加过程不装箱；非线程安全
+ */
+public final class Long2LongAccumulator {
+
+    private long[] keys;
+    private long[] values;
+    private boolean[] used;
+    private int size;
+    private int mask;
+
+    public Long2LongAccumulator(int expectedSize) {
+        allocate(ThumbEventReducer.tableSizeFor(expectedSize));
+    }
+
+    public void add(long key, long delta) {
+        int slot = find(key);
+        if (!used[slot]) {
+            used[slot] = true;
+            keys[slot] = key;
+            values[slot] = delta;
+            if (++size > (used.length >> 1)) {
+                resize();
+            }
+            return;
+        }
+        values[slot] += delta;
+    }
+
+    /**
+     * 累加值，不存在时返回 0
+     */
+    public long get(long key) {
+        int slot = find(key);
+        return used[slot] ? values[slot] : 0;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * 转换为 Map，忽略累加结果为 0 的 key
+     */
+    public Map<Long, Long> toMap() {
+        Map<Long, Long> map = new HashMap<>(size * 2);
+        for (int i = 0; i < used.length; i++) {
+            if (used[i] && values[i] != 0) {
+                map.put(keys[i], values[i]);
+            }
+        }
+        return map;
+    }
+
+    private int find(long key) {
+        int slot = (int) ThumbEventReducer.mix(key, 0) & mask;
+        while (used[slot] && keys[slot] != key) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private void resize() {
+        long[] oldKeys = keys;
+        long[] oldValues = values;
+        boolean[] oldUsed = used;
+        allocate(oldUsed.length << 1);
+        for (int i = 0; i < oldUsed.length; i++) {
+            if (oldUsed[i]) {
+                int slot = find(oldKeys[i]);
+                used[slot] = true;
+                keys[slot] = oldKeys[i];
+                values[slot] = oldValues[i];
+            }
+        }
+    }
+
+    private void allocate(int capacity) {
+        keys = new long[capacity];
+        values = new long[capacity];
+        used = new boolean[capacity];
+        mask = capacity - 1;
+    }
+}
@@ -0,0 +1,59 @@
+package com.ince.gigalike.manage.thumb;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * long 值的布隆过滤器，线程安全，不装箱
+ * 使用双重哈希 h1 + i * h2 计算 k 个位置，按 long 运算后对位数取模，位数超过 2^32 时也能覆盖全部位
+ */
+public final class LongBloomFilter {
+
+    private final AtomicLongArray bits;
+    private final long bitCount;
+    private final int hashFunctions;
+
+    /**
+     * @param expectedInsertions 预计插入数量
+     * @param fpp                期望误判率
+     */
+    public LongBloomFilter(long expectedInsertions, double fpp) {
+        long bitsNeeded = (long) Math.ceil(-expectedInsertions * Math.log(fpp) / (Math.log(2) * Math.log(2)));
+        int words = (int) Math.max(1, (bitsNeeded + 63) >>> 6);
+        this.bits = new AtomicLongArray(words);
+        this.bitCount = (long) words << 6;
+        this.hashFunctions = Math.max(1, (int) Math.round((double) bitCount / expectedInsertions * Math.log(2)));
+    }
+
+    public void put(long value) {
+        long h1 = ThumbEventReducer.mix(value, 0x5DEECE66DL);
+        long h2 = secondHash(h1);
+        for (int i = 1; i <= hashFunctions; i++) {
+            long index = Math.floorMod(h1 + i * h2, bitCount);
+            int word = (int) (index >>> 6);
+            long mask = 1L << index;
+            long current;
+            while (((current = bits.get(word)) & mask) == 0 && !bits.compareAndSet(word, current, current | mask)) {
+                // 竞争失败时重试
+            }
+        }
+    }
+
+    public boolean mightContain(long value) {
+        long h1 = ThumbEventReducer.mix(value, 0x5DEECE66DL);
+        long h2 = secondHash(h1);
+        for (int i = 1; i <= hashFunctions; i++) {
+            long index = Math.floorMod(h1 + i * h2, bitCount);
+            if ((bits.get((int) (index >>> 6)) & (1L << index)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 步长取奇数，不会为 0
+     */
+    private static long secondHash(long h1) {
+        return ThumbEventReducer.mix(h1, 0x2545F4914F6CDD1DL) | 1;
+    }
+}
@@ -0,0 +1,17 @@
+package com.ince.gigalike.manage.thumb;
+
+/**
+ * 已处理事件 ID 的共享存储，所有消费者节点共用
+ */
+public interface ProcessedEventStore {
+
+    /**
+     * 批量查询事件是否已处理，返回值与 eventIds 一一对应
+     */
+    boolean[] contains(long[] eventIds);
+
+    /**
+     * 批量标记事件已处理，应在事件写库提交后调用
+     */
+    void add(long[] eventIds);
+}
@@ -0,0 +1,71 @@
+package com.ince.gigalike.manage.thumb;
+
+import com.ince.gigalike.constant.RedisLuaScriptConstant;
+import com.ince.gigalike.utils.RedisKeyUtil;
+import org.springframework.data.redis.core.RedisTemplate;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * 基于 Redis 集合的已处理事件存储
+ * <p>
+ * 按时间窗口分桶，每个窗口一个集合，过期时间为两个窗口；查询同时检查当前与上一个窗口，
+ * 因此一个事件 ID 至少在 window 时长内可查到，之后随集合过期自动清理。
+ */
+public class RedisProcessedEventStore implements ProcessedEventStore {
+
+    /**
+     * 单次脚本调用最多携带的 ID 数
+     */
+    private static final int CHUNK_SIZE = 1000;
+
+    private final RedisTemplate<String, Object> redisTemplate;
+    private final long windowMillis;
+
+    public RedisProcessedEventStore(RedisTemplate<String, Object> redisTemplate, Duration window) {
+        this.redisTemplate = redisTemplate;
+        this.windowMillis = window.toMillis();
+    }
+
+    @Override
+    public boolean[] contains(long[] eventIds) {
+        boolean[] result = new boolean[eventIds.length];
+        long window = currentWindow();
+        List<String> keys = List.of(RedisKeyUtil.getThumbEventSeenKey(window), RedisKeyUtil.getThumbEventSeenKey(window - 1));
+        for (int from = 0; from < eventIds.length; from += CHUNK_SIZE) {
+            int to = Math.min(from + CHUNK_SIZE, eventIds.length);
+            List<?> seen = redisTemplate.execute(RedisLuaScriptConstant.THUMB_EVENT_SEEN_SCRIPT, keys, args(eventIds, from, to, null));
+            for (int i = from; i < to; i++) {
+                result[i] = seen != null && ((Number) seen.get(i - from)).longValue() == 1;
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public void add(long[] eventIds) {
+        List<String> keys = List.of(RedisKeyUtil.getThumbEventSeenKey(currentWindow()));
+        long ttlSeconds = Math.max(1, windowMillis * 2 / 1000);
+        for (int from = 0; from < eventIds.length; from += CHUNK_SIZE) {
+            int to = Math.min(from + CHUNK_SIZE, eventIds.length);
+            redisTemplate.execute(RedisLuaScriptConstant.THUMB_EVENT_MARK_SCRIPT, keys, args(eventIds, from, to, ttlSeconds));
+        }
+    }
+
+    private long currentWindow() {
+        return System.currentTimeMillis() / windowMillis;
+    }
+
+    private static Object[] args(long[] eventIds, int from, int to, Long first) {
+        int offset = first == null ? 0 : 1;
+        Object[] args = new Object[to - from + offset];
+        if (first != null) {
+            args[0] = first;
+        }
+        for (int i = from; i < to; i++) {
+            args[i - from + offset] = eventIds[i];
+        }
+        return args;
+    }
+}
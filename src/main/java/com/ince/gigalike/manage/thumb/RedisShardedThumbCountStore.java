@@ -0,0 +1,129 @@
+package com.ince.gigalike.manage.thumb;
+
+import com.ince.gigalike.constant.RedisLuaScriptConstant;
+import com.ince.gigalike.constant.ThumbConstant;
+import com.ince.gigalike.utils.RedisKeyUtil;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * 基于 Redis 的分片计数：分片 blog:thumbcount:{id}:{shard}、待写回值 blog:thumbcount:{id}:pending、
+ * 归并 ID blog:thumbcount:{id}:fold，分片博客集合与租约各一个键
+ */
+@Component
+public class RedisShardedThumbCountStore implements ShardedThumbCountStore {
+
+    private final RedisTemplate<String, Object> redisTemplate;
+
+    private final int shards;
+
+    public RedisShardedThumbCountStore(RedisTemplate<String, Object> redisTemplate,
+                                       @Value("${thumb.counter.shards:16}") int shards) {
+        this.redisTemplate = redisTemplate;
+        this.shards = shards;
+    }
+
+    @Override
+    public void increment(long blogId, long delta) {
+        int shard = ThreadLocalRandom.current().nextInt(shards);
+        redisTemplate.execute(RedisLuaScriptConstant.THUMB_COUNT_SHARD_INCR_SCRIPT,
+                List.of(RedisKeyUtil.getBlogThumbCountShardKey(blogId, shard), ThumbConstant.BLOG_THUMB_COUNT_HOT_SET_KEY),
+                delta, blogId);
+    }
+
+    @Override
+    public Set<Long> shardedBlogIds() {
+        Set<Object> members = redisTemplate.opsForSet().members(ThumbConstant.BLOG_THUMB_COUNT_HOT_SET_KEY);
+        Set<Long> blogIds = new HashSet<>();
+        if (members != null) {
+            for (Object member : members) {
+                blogIds.add(Long.valueOf(member.toString()));
+            }
+        }
+        return blogIds;
+    }
+
+    /**
+     * 一次 MGET 取回所有分片与待写回值
+     */
+    @Override
+    public long[] unsyncedCounts(List<Long> blogIds) {
+        List<String> keys = new ArrayList<>(blogIds.size() * (shards + 1));
+        for (Long blogId : blogIds) {
+            keys.addAll(countKeys(blogId));
+        }
+        List<Object> values = redisTemplate.opsForValue().multiGet(keys);
+
+        long[] result = new long[blogIds.size()];
+        int perBlog = shards + 1;
+        for (int i = 0; i < result.length; i++) {
+            long sum = 0;
+            for (int j = i * perBlog; j < (i + 1) * perBlog; j++) {
+                Object value = values == null ? null : values.get(j);
+                if (value != null) {
+                    sum += Long.parseLong(value.toString());
+                }
+            }
+            result[i] = sum;
+        }
+        return result;
+    }
+
+    @Override
+    public String tryLease(Duration leaseTime) {
+        String token = UUID.randomUUID().toString();
+        Boolean acquired = redisTemplate.opsForValue()
+                .setIfAbsent(ThumbConstant.BLOG_THUMB_COUNT_LOCK_KEY, token, leaseTime);
+        return Boolean.TRUE.equals(acquired) ? token : null;
+    }
+
+    @Override
+    public void releaseLease(String token) {
+        redisTemplate.execute(RedisLuaScriptConstant.UNLOCK_SCRIPT, List.of(ThumbConstant.BLOG_THUMB_COUNT_LOCK_KEY), token);
+    }
+
+    /**
+     * 脚本只返回待写回值，上一次归并未确认时归并 ID 不是本次传入的，再读一次归并 ID 键
+     */
+    @Override
+    public ThumbCountFold fold(long blogId, long foldId) {
+        List<String> keys = countKeys(blogId);
+        keys.add(RedisKeyUtil.getBlogThumbCountFoldKey(blogId));
+        keys.add(ThumbConstant.BLOG_THUMB_COUNT_HOT_SET_KEY);
+        Long pending = redisTemplate.execute(RedisLuaScriptConstant.THUMB_COUNT_SHARD_FOLD_SCRIPT, keys, blogId, foldId);
+        if (pending == null || pending == 0) {
+            return null;
+        }
+        Object current = redisTemplate.opsForValue().get(RedisKeyUtil.getBlogThumbCountFoldKey(blogId));
+        return new ThumbCountFold(blogId, current == null ? foldId : Long.parseLong(current.toString()), pending);
+    }
+
+    @Override
+    public void ack(ThumbCountFold fold) {
+        redisTemplate.execute(RedisLuaScriptConstant.THUMB_COUNT_FOLD_ACK_SCRIPT,
+                List.of(RedisKeyUtil.getBlogThumbCountPendingKey(fold.blogId()),
+                        RedisKeyUtil.getBlogThumbCountFoldKey(fold.blogId())),
+                fold.foldId());
+    }
+
+    /**
+     * 博客的所有分片 key，最后一个为待写回 key
+     */
+    private List<String> countKeys(long blogId) {
+        List<String> keys = new ArrayList<>(shards + 3);
+        for (int shard = 0; shard < shards; shard++) {
+            keys.add(RedisKeyUtil.getBlogThumbCountShardKey(blogId, shard));
+        }
+        keys.add(RedisKeyUtil.getBlogThumbCountPendingKey(blogId));
+        return keys;
+    }
+}
@@ -0,0 +1,131 @@
+package com.ince.gigalike.manage.thumb;
+
+import com.ince.gigalike.constant.RedisLuaScriptConstant;
+import com.ince.gigalike.constant.ThumbConstant;
+import org.springframework.data.redis.core.RedisOperations;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.SessionCallback;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * 基于 Redis 的增量对账状态：变更集合 thumb:dirty:{user|blog}:{bucket}、水位线与租约各一个键
+ */
+@Component
+public class RedisThumbDirtyStore implements ThumbDirtyStore {
+
+    private final RedisTemplate<String, Object> redisTemplate;
+
+    public RedisThumbDirtyStore(RedisTemplate<String, Object> redisTemplate) {
+        this.redisTemplate = redisTemplate;
+    }
+
+    @Override
+    public String tryLease(Duration leaseTime) {
+        String token = UUID.randomUUID().toString();
+        Boolean acquired = redisTemplate.opsForValue()
+                .setIfAbsent(ThumbConstant.THUMB_DIRTY_LOCK_KEY, token, leaseTime);
+        return Boolean.TRUE.equals(acquired) ? token : null;
+    }
+
+    @Override
+    public boolean renewLease(String token, Duration leaseTime) {
+        Long renewed = redisTemplate.execute(RedisLuaScriptConstant.LEASE_RENEW_SCRIPT,
+                List.of(ThumbConstant.THUMB_DIRTY_LOCK_KEY), token, leaseTime.toMillis());
+        return renewed != null && renewed == 1;
+    }
+
+    @Override
+    public void releaseLease(String token) {
+        redisTemplate.execute(RedisLuaScriptConstant.UNLOCK_SCRIPT, List.of(ThumbConstant.THUMB_DIRTY_LOCK_KEY), token);
+    }
+
+    @Override
+    public Long watermark() {
+        Object watermark = redisTemplate.opsForValue().get(ThumbConstant.THUMB_DIRTY_WATERMARK_KEY);
+        return watermark == null ? null : Long.parseLong(watermark.toString());
+    }
+
+    @Override
+    public void saveWatermark(long bucket) {
+        redisTemplate.opsForValue().set(ThumbConstant.THUMB_DIRTY_WATERMARK_KEY, bucket);
+    }
+
+    @Override
+    public List<Long> peek(String key, int count) {
+        Set<Object> members = redisTemplate.opsForSet().distinctRandomMembers(key, count);
+        if (members == null || members.isEmpty()) {
+            return List.of();
+        }
+        List<Long> ids = new ArrayList<>(members.size());
+        for (Object member : members) {
+            ids.add(Long.valueOf(member.toString()));
+        }
+        return ids;
+    }
+
+    @Override
+    public void remove(String key, Collection<Long> ids) {
+        if (!ids.isEmpty()) {
+            redisTemplate.opsForSet().remove(key, ids.toArray());
+        }
+    }
+
+    @Override
+    public boolean exists(String key) {
+        return Boolean.TRUE.equals(redisTemplate.hasKey(key));
+    }
+
+    @Override
+    public Set<Long> presentInAny(List<String> keys, Collection<Long> ids) {
+        Set<Long> present = new HashSet<>();
+        if (keys.isEmpty() || ids.isEmpty()) {
+            return present;
+        }
+        List<Long> idList = new ArrayList<>(ids);
+        List<Object> found = redisTemplate.executePipelined(new SessionCallback<Object>() {
+            @Override
+            @SuppressWarnings("unchecked")
+            public Object execute(RedisOperations operations) {
+                for (String key : keys) {
+                    for (Long id : idList) {
+                        operations.opsForSet().isMember(key, id);
+                    }
+                }
+                return null;
+            }
+        });
+        for (int i = 0; i < found.size(); i++) {
+            if (Boolean.TRUE.equals(found.get(i))) {
+                present.add(idList.get(i % idList.size()));
+            }
+        }
+        return present;
+    }
+
+    @Override
+    public long[] sizes(List<String> keys) {
+        List<Object> sizes = redisTemplate.executePipelined(new SessionCallback<Object>() {
+            @Override
+            @SuppressWarnings("unchecked")
+            public Object execute(RedisOperations operations) {
+                for (String key : keys) {
+                    operations.opsForSet().size(key);
+                }
+                return null;
+            }
+        });
+        long[] result = new long[keys.size()];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = ((Number) sizes.get(i)).longValue();
+        }
+        return result;
+    }
+}
@@ -0,0 +1,116 @@
+package com.ince.gigalike.manage.thumb;
+
+import com.ince.gigalike.constant.RedisLuaScriptConstant;
+import com.ince.gigalike.constant.ThumbConstant;
+import com.ince.gigalike.utils.RedisKeyUtil;
+import org.springframework.data.redis.core.Cursor;
+import org.springframework.data.redis.core.RedisOperations;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.ScanOptions;
+import org.springframework.data.redis.core.SessionCallback;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+/**
+ * 基于 Redis 的时间片同步状态：时间片 thumb:temp:{slice}、水位线与租约各一个键，
+ * 用户当前点赞状态读取 thumbServiceRedis 写入的 thumb:{userId}
+ */
+@Component
+public class RedisThumbSliceStore implements ThumbSliceStore {
+
+    private static final int SCAN_COUNT = 1000;
+
+    private final RedisTemplate<String, Object> redisTemplate;
+
+    public RedisThumbSliceStore(RedisTemplate<String, Object> redisTemplate) {
+        this.redisTemplate = redisTemplate;
+    }
+
+    @Override
+    public String tryLease(Duration leaseTime) {
+        String token = UUID.randomUUID().toString();
+        Boolean acquired = redisTemplate.opsForValue()
+                .setIfAbsent(ThumbConstant.THUMB_SLICE_LOCK_KEY, token, leaseTime);
+        return Boolean.TRUE.equals(acquired) ? token : null;
+    }
+
+    @Override
+    public void releaseLease(String token) {
+        redisTemplate.execute(RedisLuaScriptConstant.UNLOCK_SCRIPT, List.of(ThumbConstant.THUMB_SLICE_LOCK_KEY), token);
+    }
+
+    @Override
+    public Long watermark() {
+        Object watermark = redisTemplate.opsForValue().get(ThumbConstant.THUMB_SLICE_WATERMARK_KEY);
+        return watermark == null ? null : Long.parseLong(watermark.toString());
+    }
+
+    @Override
+    public void saveWatermark(long slice) {
+        redisTemplate.opsForValue().set(ThumbConstant.THUMB_SLICE_WATERMARK_KEY, slice);
+    }
+
+    @Override
+    public List<String> sliceKeys() {
+        String prefix = ThumbConstant.TEMP_THUMB_KEY_PREFIX.formatted("");
+        ScanOptions options = ScanOptions.scanOptions().match(prefix + "*").count(SCAN_COUNT).build();
+        List<String> keys = new ArrayList<>();
+        try (Cursor<String> cursor = redisTemplate.scan(options)) {
+            cursor.forEachRemaining(keys::add);
+        }
+        return keys;
+    }
+
+    @Override
+    public Stream<ThumbSliceField> fields(String key, int count) {
+        ScanOptions options = ScanOptions.scanOptions().count(count).build();
+        Cursor<Map.Entry<Object, Object>> cursor = redisTemplate.opsForHash().scan(key, options);
+        return cursor.stream().map(entry -> {
+            String[] userIdAndBlogId = entry.getKey().toString().split(":");
+            return new ThumbSliceField(Long.parseLong(userIdAndBlogId[0]), Long.parseLong(userIdAndBlogId[1]),
+                    Long.parseLong(entry.getValue().toString()));
+        });
+    }
+
+    @Override
+    public long ack(String key, List<ThumbSliceField> fields) {
+        List<Object> args = new ArrayList<>(fields.size() * 3);
+        for (ThumbSliceField field : fields) {
+            args.add(field.userId());
+            args.add(field.blogId());
+            args.add(field.delta());
+        }
+        Long deleted = redisTemplate.execute(RedisLuaScriptConstant.THUMB_SLICE_ACK_SCRIPT, List.of(key), args.toArray());
+        return deleted == null ? 0 : deleted;
+    }
+
+    @Override
+    public boolean exists(String key) {
+        return Boolean.TRUE.equals(redisTemplate.hasKey(key));
+    }
+
+    @Override
+    public boolean[] liked(List<ThumbSliceField> fields) {
+        List<Object> found = redisTemplate.executePipelined(new SessionCallback<Object>() {
+            @Override
+            @SuppressWarnings("unchecked")
+            public Object execute(RedisOperations operations) {
+                for (ThumbSliceField field : fields) {
+                    operations.opsForHash().hasKey(RedisKeyUtil.getUserThumbKey(field.userId()), String.valueOf(field.blogId()));
+                }
+                return null;
+            }
+        });
+        boolean[] liked = new boolean[fields.size()];
+        for (int i = 0; i < liked.length; i++) {
+            liked[i] = Boolean.TRUE.equals(found.get(i));
+        }
+        return liked;
+    }
+}
@@ -0,0 +1,51 @@
+package com.ince.gigalike.manage.thumb;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * 热点博客分片计数的共享状态：分片计数、待写回值与归并 ID、分片博客集合与写回租约，所有节点共用
+ *
+ * @see RedisShardedThumbCountStore
+ */
+public interface ShardedThumbCountStore {
+
+    /**
+     * 累加到随机分片，并把博客加入分片博客集合
+     */
+    void increment(long blogId, long delta);
+
+    /**
+     * 存在分片计数的博客
+     */
+    Set<Long> shardedBlogIds();
+
+    /**
+     * 分片与待写回值之和，即尚未写回数据库的点赞数变化，与 blogIds 一一对应
+     */
+    long[] unsyncedCounts(List<Long> blogIds);
+
+    /**
+     * 获取写回租约
+     *
+     * @return 租约令牌；已被其他节点持有时返回 null
+     */
+    String tryLease(Duration leaseTime);
+
+    /**
+     * 令牌一致时释放租约
+     */
+    void releaseLease(String token);
+
+    /**
+     * 把分片归并到待写回值，记录归并 ID 为 foldId；上一次归并尚未确认时不归并新的分片，返回上一次的归并。
+     * 没有待写回值时返回 null，分片也没有任何变化时把博客移出分片博客集合
+     */
+    ThumbCountFold fold(long blogId, long foldId);
+
+    /**
+     * 写库成功后确认，归并 ID 一致才删除待写回值
+     */
+    void ack(ThumbCountFold fold);
+}
@@ -0,0 +1,168 @@
+package com.ince.gigalike.manage.thumb;
+
+import com.baomidou.mybatisplus.core.toolkit.IdWorker;
+import com.ince.gigalike.manage.cache.MultiLevelCache;
+import com.ince.gigalike.manage.cache.TopK;
+import com.ince.gigalike.mapper.BlogMapper;
+import com.ince.gigalike.model.entity.Blog;
+import jakarta.annotation.Resource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 热点博客点赞数分片计数
+ * <p>
+ * 被热 key 探测器判定为热点的博客，点赞数不再更新 blog 表的同一行，而是随机累加到 N 个 Redis 分片
+ * blog:thumbcount:{id}:{shard}，避免行锁成为吞吐上限。读取时用一次 MGET 取回分片与待写回值，
+ * 叠加到数据库中的点赞数上；后台任务定期把分片归并后写回 blog.thumbCount。
+ * <p>
+ * 写回按归并 ID 幂等：每次归并在 Redis 记录归并 ID，写库时在同一事务内插入 blog_thumb_fold 记录，
+ * 插入成功才更新点赞数；写库提交后、确认前宕机时，下一轮按原归并 ID 重试，记录已存在即跳过，不会重复累加。
+ */
+@Component
+@Slf4j
+public class ShardedThumbCounter {
+
+    private static final String HOT_KEY_PREFIX = "blog:thumbcount:";
+
+    /**
+     * 写回记录保留时间，远大于一次归并从写库到确认的间隔
+     */
+    private static final Duration FOLD_RETENTION = Duration.ofDays(1);
+
+    private static final int FOLD_CLEANUP_LIMIT = 1000;
+
+    @Resource
+    private ShardedThumbCountStore shardedThumbCountStore;
+
+    @Resource
+    private TopK hotKeyDetector;
+
+    @Resource
+    private BlogMapper blogMapper;
+
+    @Resource
+    private TransactionTemplate transactionTemplate;
+
+    @Resource
+    private MultiLevelCache<Long, Blog> blogCache;
+
+    @Value("${thumb.counter.reconcile-lease-ms:60000}")
+    private long reconcileLeaseMs;
+
+    /**
+     * 本节点已知存在分片计数的博客，定时从 Redis 刷新
+     */
+    private volatile Set<Long> shardedBlogIds = Set.of();
+
+    /**
+     * 记录一次点赞访问，返回该博客是否应使用分片计数
+     */
+    public boolean shouldShard(long blogId) {
+        return hotKeyDetector.add(HOT_KEY_PREFIX + blogId, 1).isHotKey();
+    }
+
+    /**
+     * 累加到随机分片，并把博客加入分片集合
+     */
+    public void increment(long blogId, long delta) {
+        shardedThumbCountStore.increment(blogId, delta);
+    }
+
+    /**
+     * 尚未写回数据库的点赞数变化，只查询存在分片计数的博客，一次 MGET 完成
+     *
+     * @return 博客 ID -> 点赞数变化，不包含没有分片计数的博客
+     */
+    public Map<Long, Long> getUnsyncedCounts(Collection<Long> blogIds) {
+        Set<Long> sharded = shardedBlogIds;
+        List<Long> targets = new ArrayList<>();
+        for (Long blogId : blogIds) {
+            if (sharded.contains(blogId)) {
+                targets.add(blogId);
+            }
+        }
+        if (targets.isEmpty()) {
+            return Map.of();
+        }
+
+        long[] counts = shardedThumbCountStore.unsyncedCounts(targets);
+        Map<Long, Long> result = new HashMap<>(targets.size() * 2);
+        for (int i = 0; i < targets.size(); i++) {
+            result.put(targets.get(i), counts[i]);
+        }
+        return result;
+    }
+
+    /**
+     * 刷新本节点的分片博客集合，读取时据此决定是否需要查询分片
+     */
+    @Scheduled(fixedRate = 1, timeUnit = TimeUnit.SECONDS)
+    public void refreshShardedBlogs() {
+        shardedBlogIds = Set.copyOf(shardedThumbCountStore.shardedBlogIds());
+    }
+
+    /**
+     * 把分片计数写回 blog.thumbCount
+     * 先用 Lua 把分片原子地归并到待写回值并记录归并 ID，写库成功后再按归并 ID 确认删除，
+     * 写库失败时待写回值保留到下一轮；多节点之间通过 Redis 租约保证同一时刻只有一个节点执行。
+     * 确认后删除这些博客的缓存，缓存中的旧点赞数加上已清零的待写回值会比实际少
+     */
+    public void reconcile() {
+        String token = shardedThumbCountStore.tryLease(Duration.ofMillis(reconcileLeaseMs));
+        if (token == null) {
+            return;
+        }
+        try {
+            List<ThumbCountFold> folds = new ArrayList<>();
+            for (Long blogId : shardedThumbCountStore.shardedBlogIds()) {
+                ThumbCountFold fold = shardedThumbCountStore.fold(blogId, IdWorker.getId());
+                if (fold != null) {
+                    folds.add(fold);
+                }
+            }
+            if (folds.isEmpty()) {
+                return;
+            }
+            Integer applied = transactionTemplate.execute(status -> apply(folds));
+            folds.forEach(shardedThumbCountStore::ack);
+            blogCache.evictAll(folds.stream().map(ThumbCountFold::blogId).toList());
+            blogMapper.deleteThumbFoldsBefore(new Date(System.currentTimeMillis() - FOLD_RETENTION.toMillis()),
+                    FOLD_CLEANUP_LIMIT);
+            log.info("热点博客分片点赞数写回完成，博客数: {}，已写回过的重试: {}", folds.size(), folds.size() - applied);
+        } finally {
+            shardedThumbCountStore.releaseLease(token);
+        }
+    }
+
+    /**
+     * 插入写回记录成功的归并才累加点赞数，记录已存在说明上一次已提交、只是没有确认
+     *
+     * @return 本次实际写回的归并数
+     */
+    private int apply(List<ThumbCountFold> folds) {
+        Map<Long, Long> countMap = new HashMap<>();
+        for (ThumbCountFold fold : folds) {
+            if (blogMapper.insertThumbFold(fold.foldId(), fold.blogId(), fold.delta()) > 0) {
+                countMap.put(fold.blogId(), fold.delta());
+            }
+        }
+        if (!countMap.isEmpty()) {
+            blogMapper.batchUpdateThumbCount(countMap);
+        }
+        return countMap.size();
+    }
+}
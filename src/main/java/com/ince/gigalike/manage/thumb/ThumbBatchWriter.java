@@ -0,0 +1,52 @@
+package com.ince.gigalike.manage.thumb;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.RecoverableDataAccessException;
+import org.springframework.dao.TransientDataAccessException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.CannotCreateTransactionException;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * 把一批点赞操作在一个事务内写入数据库：
+ * 删除取消的点赞记录、INSERT IGNORE 新的点赞记录，再按实际影响的行更新博客点赞数，提交后删除这些博客的缓存。
+ * 数据库里已有的记录（如 Redis 丢失状态后重新点赞）被跳过，不会因唯一索引冲突让整批失败
+ */
+@Component
+@Slf4j
+@RequiredArgsConstructor
+public class ThumbBatchWriter implements Consumer<List<ThumbWriteEvent>> {
+
+    private final ThumbRecordWriter thumbRecordWriter;
+
+    private final TransactionTemplate transactionTemplate;
+
+    @Override
+    public void accept(List<ThumbWriteEvent> events) {
+        ThumbWriteBatch batch = ThumbWriteBatch.of(events);
+        if (batch.isEmpty()) {
+            return;
+        }
+        Map<Long, Long> countDeltas = transactionTemplate.execute(
+                status -> thumbRecordWriter.apply(batch.getInserts(), batch.getRemovals()));
+        log.debug("点赞批量写入完成，事件 {} 条，插入 {} 条，删除 {} 条，点赞数变化的博客 {} 个",
+                events.size(), batch.getInserts().size(), batch.getRemovals().size(),
+                countDeltas == null ? 0 : countDeltas.size());
+    }
+
+    /**
+     * 数据库暂时不可用（连接失败、锁超时、死锁等）时整批重试；其他异常说明批内有无法写入的操作，由缓冲区拆分隔离
+     */
+    public static boolean isRetryable(Exception e) {
+        return e instanceof TransientDataAccessException
+                || e instanceof RecoverableDataAccessException
+                || e instanceof DataAccessResourceFailureException
+                || e instanceof CannotCreateTransactionException;
+    }
+}
@@ -0,0 +1,7 @@
+package com.ince.gigalike.manage.thumb;
+
+/**
+ * 一次分片计数归并：归并 ID 与待写回数据库的点赞数变化
+ */
+public record ThumbCountFold(long blogId, long foldId, long delta) {
+}
@@ -0,0 +1,225 @@
+package com.ince.gigalike.manage.thumb;
+
+import com.ince.gigalike.manage.cache.MultiLevelCache;
+import com.ince.gigalike.mapper.BlogMapper;
+import com.ince.gigalike.model.entity.Blog;
+import com.ince.gigalike.utils.RedisKeyUtil;
+import jakarta.annotation.Resource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.ToLongFunction;
+
+/**
+ * 增量点赞对账：只复查 {@link ThumbDirtyTracker} 记录的有变化的用户与博客
+ * <p>
+ * 按时间桶推进水位线，只处理已经结束并超过静置时间的桶，给在途的点赞事件留出消费时间。
+ * 每轮最多处理 maxEntitiesPerTick 个实体；桶内实体先随机读取（SRANDMEMBER），处理完再 SREM，
+ * 中途失败的实体留在集合里下一轮重试，桶清空后水位线前进。
+ * <ul>
+ *     <li>用户：Redis 点赞数据与 thumb 表比对，修复方式同 {@link ThumbReconciler}；
+ *     静置期内又有变化的用户可能还有在途事件，本桶跳过，由其所在的较新的桶复查</li>
+ *     <li>博客：blog.thumbCount 与 thumb 表记录数比对，不一致时修正为记录数；
+ *     存在分片计数的热点博客跳过，其点赞数尚未全部写回数据库</li>
+ * </ul>
+ * 多节点之间通过租约保证同一时刻只有一个节点执行，每推进一次水位线续期一次，续期失败即停止。
+ */
+@Component
+@Slf4j
+public class ThumbDirtyReconciler {
+
+    private static final int BATCH_SIZE = 500;
+
+    @Resource
+    private ThumbDirtyStore thumbDirtyStore;
+
+    @Resource
+    private ThumbDirtyTracker thumbDirtyTracker;
+
+    @Resource
+    private ThumbReconciler thumbReconciler;
+
+    @Resource
+    private ShardedThumbCounter shardedThumbCounter;
+
+    @Resource
+    private BlogMapper blogMapper;
+
+    @Resource
+    private MultiLevelCache<Long, Blog> blogCache;
+
+    @Value("${thumb.dirty.settle-buckets:5}")
+    private long settleBuckets;
+
+    @Value("${thumb.dirty.max-entities-per-tick:5000}")
+    private int maxEntitiesPerTick;
+
+    @Value("${thumb.dirty.lease-ms:120000}")
+    private long leaseMs;
+
+    private final LongAdder ticks = new LongAdder();
+    private final LongAdder checkedUsers = new LongAdder();
+    private final LongAdder checkedBlogs = new LongAdder();
+    private final LongAdder repairedThumbs = new LongAdder();
+    private final LongAdder repairedBlogs = new LongAdder();
+    private final LongAdder skippedHotBlogs = new LongAdder();
+    private final LongAdder skippedInFlightUsers = new LongAdder();
+    private volatile long lastTickMillis;
+
+    /**
+     * 执行一轮增量对账
+     */
+    public void tick() {
+        Duration leaseTime = Duration.ofMillis(leaseMs);
+        String token = thumbDirtyStore.tryLease(leaseTime);
+        if (token == null) {
+            return;
+        }
+        long start = System.currentTimeMillis();
+        try {
+            long currentBucket = thumbDirtyTracker.currentBucket();
+            long closedBucket = closedBucket(currentBucket, settleBuckets);
+            // 静置期内的桶：其中的用户最近仍有变化
+            List<String> unsettledUserKeys = new ArrayList<>();
+            for (long recent = closedBucket + 1; recent <= currentBucket; recent++) {
+                unsettledUserKeys.add(RedisKeyUtil.getThumbDirtyUserKey(recent));
+            }
+            long bucket = firstPendingBucket(currentBucket);
+            int budget = maxEntitiesPerTick;
+            while (bucket <= closedBucket && budget > 0) {
+                String userKey = RedisKeyUtil.getThumbDirtyUserKey(bucket);
+                String blogKey = RedisKeyUtil.getThumbDirtyBlogKey(bucket);
+                budget -= drain(userKey, budget, userIds -> reconcileUsers(userIds, unsettledUserKeys));
+                budget -= drain(blogKey, budget, this::reconcileBlogs);
+                if (thumbDirtyStore.exists(userKey) || thumbDirtyStore.exists(blogKey)) {
+                    break;
+                }
+                if (!thumbDirtyStore.renewLease(token, leaseTime)) {
+                    log.warn("增量对账租约已失效，停止本轮，桶: {}", bucket);
+                    break;
+                }
+                thumbDirtyStore.saveWatermark(bucket);
+                bucket++;
+            }
+        } finally {
+            thumbDirtyStore.releaseLease(token);
+            ticks.increment();
+            lastTickMillis = System.currentTimeMillis() - start;
+        }
+    }
+
+    /**
+     * 可以对账的最后一个桶：当前桶尚未结束，之前的 settleBuckets 个桶结束不足静置时间
+     */
+    static long closedBucket(long currentBucket, long settleBuckets) {
+        return currentBucket - 1 - settleBuckets;
+    }
+
+    /**
+     * 水位线之后的第一个桶；没有水位线或水位线早于保留时间时，从保留时间内最早的桶开始
+     */
+    private long firstPendingBucket(long currentBucket) {
+        long oldest = currentBucket - thumbDirtyTracker.getRetentionBuckets();
+        Long watermark = thumbDirtyStore.watermark();
+        if (watermark == null) {
+            return oldest;
+        }
+        return Math.max(watermark + 1, oldest);
+    }
+
+    /**
+     * 分批取出集合中的实体交给 handler，处理成功后才从集合移除
+     *
+     * @return 本次处理的实体数
+     */
+    private int drain(String key, int budget, ToLongFunction<List<Long>> handler) {
+        int processed = 0;
+        while (processed < budget) {
+            List<Long> ids = thumbDirtyStore.peek(key, Math.min(BATCH_SIZE, budget - processed));
+            if (ids.isEmpty()) {
+                break;
+            }
+            handler.applyAsLong(ids);
+            thumbDirtyStore.remove(key, ids);
+            processed += ids.size();
+        }
+        return processed;
+    }
+
+    /**
+     * 静置期内又有变化的用户不比对，之后的点赞事件可能仍在途；这些用户也在较新的桶里，随本桶一起移除
+     */
+    private long reconcileUsers(List<Long> userIds, List<String> unsettledUserKeys) {
+        Set<Long> inFlight = thumbDirtyStore.presentInAny(unsettledUserKeys, userIds);
+        List<Long> targets = userIds;
+        if (!inFlight.isEmpty()) {
+            targets = userIds.stream().filter(userId -> !inFlight.contains(userId)).toList();
+            skippedInFlightUsers.add(inFlight.size());
+        }
+        long repaired = thumbReconciler.reconcileUsers(targets);
+        checkedUsers.add(targets.size());
+        repairedThumbs.add(repaired);
+        return repaired;
+    }
+
+    private long reconcileBlogs(List<Long> blogIds) {
+        Set<Long> hotBlogIds = shardedThumbCounter.getUnsyncedCounts(blogIds).keySet();
+        List<Long> targets = blogIds;
+        if (!hotBlogIds.isEmpty()) {
+            targets = blogIds.stream().filter(blogId -> !hotBlogIds.contains(blogId)).toList();
+            skippedHotBlogs.add(hotBlogIds.size());
+        }
+        long repaired = targets.isEmpty() ? 0 : blogMapper.repairThumbCount(targets);
+        if (repaired > 0) {
+            log.warn("增量对账修正博客点赞数，博客数: {}", repaired);
+            blogCache.evictAll(targets);
+        }
+        checkedBlogs.add(blogIds.size());
+        repairedBlogs.add(repaired);
+        return repaired;
+    }
+
+    /**
+     * 对账进度与修复统计；lagSeconds 为最早一个未对账的桶距今的时间
+     */
+    public Map<String, Object> getStats() {
+        long currentBucket = thumbDirtyTracker.currentBucket();
+        long firstPending = firstPendingBucket(currentBucket);
+        List<String> keys = new ArrayList<>();
+        for (long bucket = firstPending; bucket <= currentBucket; bucket++) {
+            keys.add(RedisKeyUtil.getThumbDirtyUserKey(bucket));
+            keys.add(RedisKeyUtil.getThumbDirtyBlogKey(bucket));
+        }
+        long[] sizes = thumbDirtyStore.sizes(keys);
+        long pendingUsers = 0;
+        long pendingBlogs = 0;
+        for (int i = 0; i < sizes.length; i += 2) {
+            pendingUsers += sizes[i];
+            pendingBlogs += sizes[i + 1];
+        }
+
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("watermarkBucket", firstPending - 1);
+        stats.put("lagSeconds", System.currentTimeMillis() / 1000 - firstPending * thumbDirtyTracker.getBucketSeconds());
+        stats.put("pendingUsers", pendingUsers);
+        stats.put("pendingBlogs", pendingBlogs);
+        stats.put("ticks", ticks.sum());
+        stats.put("lastTickMillis", lastTickMillis);
+        stats.put("checkedUsers", checkedUsers.sum());
+        stats.put("checkedBlogs", checkedBlogs.sum());
+        stats.put("repairedThumbs", repairedThumbs.sum());
+        stats.put("repairedBlogs", repairedBlogs.sum());
+        stats.put("skippedHotBlogs", skippedHotBlogs.sum());
+        stats.put("skippedInFlightUsers", skippedInFlightUsers.sum());
+        stats.put("droppedMarks", thumbDirtyTracker.getDropped());
+        return stats;
+    }
+}
@@ -0,0 +1,59 @@
+package com.ince.gigalike.manage.thumb;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * 增量对账读写的共享状态：按时间桶记录的变更集合、水位线与租约，所有节点共用
+ *
+ * @see RedisThumbDirtyStore
+ */
+public interface ThumbDirtyStore {
+
+    /**
+     * 获取增量对账租约
+     *
+     * @return 租约令牌；已被其他节点持有时返回 null
+     */
+    String tryLease(Duration leaseTime);
+
+    /**
+     * 令牌一致时续期
+     *
+     * @return 租约已过期或被其他节点持有时返回 false
+     */
+    boolean renewLease(String token, Duration leaseTime);
+
+    /**
+     * 令牌一致时释放租约
+     */
+    void releaseLease(String token);
+
+    /**
+     * 已对账完成的最后一个桶，没有水位线时返回 null
+     */
+    Long watermark();
+
+    void saveWatermark(long bucket);
+
+    /**
+     * 随机读取集合中最多 count 个不同的 ID，不移除
+     */
+    List<Long> peek(String key, int count);
+
+    void remove(String key, Collection<Long> ids);
+
+    boolean exists(String key);
+
+    /**
+     * ids 中出现在任意一个集合里的 ID
+     */
+    Set<Long> presentInAny(List<String> keys, Collection<Long> ids);
+
+    /**
+     * 集合大小，与 keys 一一对应
+     */
+    long[] sizes(List<String> keys);
+}
@@ -0,0 +1,117 @@
+package com.ince.gigalike.manage.thumb;
+
+import com.ince.gigalike.utils.RedisKeyUtil;
+import jakarta.annotation.PreDestroy;
+import jakarta.annotation.Resource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.RedisOperations;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.SessionCallback;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 记录有点赞变化的用户与博客，供增量对账只复查这些实体
+ * <p>
+ * 写入时只放进本地集合，定时批量 SADD 到当前时间桶的 Redis 集合 thumb:dirty:{user|blog}:{bucket}，
+ * 同一用户 / 博客在一个刷新周期内多次变化只写一次。节点宕机会丢失最近一个周期的标记，由每日全量对账兜底。
+ * 用户与博客 ID 为雪花 ID，取值稀疏，因此使用集合而不是位图。
+ */
+@Component
+@Slf4j
+public class ThumbDirtyTracker {
+
+    @Resource
+    private RedisTemplate<String, Object> redisTemplate;
+
+    @Value("${thumb.dirty.bucket-seconds:60}")
+    private long bucketSeconds;
+
+    @Value("${thumb.dirty.retention-hours:24}")
+    private long retentionHours;
+
+    @Value("${thumb.dirty.max-buffered:100000}")
+    private int maxBuffered;
+
+    private final Set<Long> dirtyUsers = ConcurrentHashMap.newKeySet();
+    private final Set<Long> dirtyBlogs = ConcurrentHashMap.newKeySet();
+
+    private final LongAdder dropped = new LongAdder();
+
+    public void markDirty(long userId, long blogId) {
+        if (dirtyUsers.size() >= maxBuffered || dirtyBlogs.size() >= maxBuffered) {
+            dropped.increment();
+            return;
+        }
+        dirtyUsers.add(userId);
+        dirtyBlogs.add(blogId);
+    }
+
+    /**
+     * 当前时间所在的桶号
+     */
+    public long currentBucket() {
+        return System.currentTimeMillis() / 1000 / bucketSeconds;
+    }
+
+    public long getBucketSeconds() {
+        return bucketSeconds;
+    }
+
+    public long getRetentionBuckets() {
+        return Duration.ofHours(retentionHours).toSeconds() / bucketSeconds;
+    }
+
+    public long getDropped() {
+        return dropped.sum();
+    }
+
+    @Scheduled(fixedDelayString = "${thumb.dirty.flush-interval-ms:1000}")
+    @PreDestroy
+    public void flush() {
+        List<Long> users = drain(dirtyUsers);
+        List<Long> blogs = drain(dirtyBlogs);
+        if (users.isEmpty() && blogs.isEmpty()) {
+            return;
+        }
+        long bucket = currentBucket();
+        // 保留时间之外的桶不再对账，集合随之过期
+        Duration ttl = Duration.ofHours(retentionHours).plusSeconds(bucketSeconds);
+        try {
+            redisTemplate.executePipelined(new SessionCallback<Object>() {
+                @Override
+                @SuppressWarnings("unchecked")
+                public Object execute(RedisOperations operations) {
+                    add(operations, RedisKeyUtil.getThumbDirtyUserKey(bucket), users, ttl);
+                    add(operations, RedisKeyUtil.getThumbDirtyBlogKey(bucket), blogs, ttl);
+                    return null;
+                }
+            });
+        } catch (Exception e) {
+            dropped.add(users.size() + blogs.size());
+            log.error("写入点赞变更集合失败，用户数: {}，博客数: {}", users.size(), blogs.size(), e);
+        }
+    }
+
+    private static List<Long> drain(Set<Long> dirty) {
+        List<Long> ids = new ArrayList<>(dirty);
+        ids.forEach(dirty::remove);
+        return ids;
+    }
+
+    private static void add(RedisOperations<String, Object> operations, String key, List<Long> ids, Duration ttl) {
+        if (ids.isEmpty()) {
+            return;
+        }
+        operations.opsForSet().add(key, ids.toArray());
+        operations.expire(key, ttl);
+    }
+}
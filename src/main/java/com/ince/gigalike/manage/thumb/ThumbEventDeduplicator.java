@@ -0,0 +1,165 @@
+package com.ince.gigalike.manage.thumb;
+
+import com.ince.gigalike.listener.thumb.msg.ThumbEvent;
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 点赞事件去重窗口
+ * <p>
+ * 重投递（ack 超时、nack、死信前的重试）与对账任务补发都会让同一个事件被消费多次，
+ * 已被后续取消点赞覆盖的点赞事件如果再执行一次，会把点赞记录和点赞数改回旧值。
+ * 每个事件带全局唯一的 eventId，消费时先过滤掉窗口内已处理过的事件，写库提交后再把本批 ID 标记为已处理，
+ * 事务回滚的批次不会被标记，重投递时仍会正常处理。
+ * <p>
+ * 共享存储（Redis）是判断依据，所有消费者节点可见；本地布隆过滤器记录本节点处理过的 ID，
+ * 统计本地命中，并在共享存储不可用时降级使用（可能以极低概率误判丢弃事件）。
+ * 没有 eventId 的旧消息不参与去重。
+ */
+@Slf4j
+public class ThumbEventDeduplicator {
+
+    private final ProcessedEventStore store;
+    private final long expectedInsertions;
+    private final double fpp;
+    private final long windowNanos;
+
+    private volatile LongBloomFilter current;
+    private volatile LongBloomFilter previous;
+    private final AtomicLong currentInsertions = new AtomicLong();
+    private volatile long currentStartNanos = System.nanoTime();
+
+    private final LongAdder checkedEvents = new LongAdder();
+    private final LongAdder duplicateEvents = new LongAdder();
+    private final LongAdder bloomHits = new LongAdder();
+    private final LongAdder storeFailures = new LongAdder();
+
+    /**
+     * @param expectedInsertions 一个窗口内预计处理的事件数，决定布隆过滤器大小
+     * @param fpp                布隆过滤器误判率
+     * @param window             去重窗口
+     */
+    public ThumbEventDeduplicator(ProcessedEventStore store, long expectedInsertions, double fpp, Duration window) {
+        this.store = store;
+        this.expectedInsertions = expectedInsertions;
+        this.fpp = fpp;
+        this.windowNanos = window.toNanos();
+        this.current = new LongBloomFilter(expectedInsertions, fpp);
+        this.previous = new LongBloomFilter(expectedInsertions, fpp);
+    }
+
+    /**
+     * 过滤掉窗口内已处理的事件以及本批内重复的事件，保持原有顺序
+     */
+    public List<ThumbEvent> filterNew(List<ThumbEvent> events) {
+        long[] ids = new long[events.size()];
+        int idCount = 0;
+        for (ThumbEvent event : events) {
+            if (event != null && event.getEventId() != null) {
+                ids[idCount++] = event.getEventId();
+            }
+        }
+        if (idCount == 0) {
+            return events;
+        }
+        checkedEvents.add(idCount);
+        long[] checked = idCount == ids.length ? ids : Arrays.copyOf(ids, idCount);
+
+        boolean[] seen;
+        try {
+            seen = store.contains(checked);
+        } catch (Exception e) {
+            storeFailures.increment();
+            log.error("查询已处理点赞事件失败，使用本地布隆过滤器去重", e);
+            seen = null;
+        }
+
+        Set<Long> duplicates = new HashSet<>();
+        for (int i = 0; i < checked.length; i++) {
+            boolean local = mightContain(checked[i]);
+            if (local) {
+                bloomHits.increment();
+            }
+            if (seen == null ? local : seen[i]) {
+                duplicates.add(checked[i]);
+            }
+        }
+
+        List<ThumbEvent> result = new ArrayList<>(events.size());
+        Set<Long> accepted = new HashSet<>();
+        for (ThumbEvent event : events) {
+            if (event == null || event.getEventId() == null) {
+                result.add(event);
+            } else if (!duplicates.contains(event.getEventId()) && accepted.add(event.getEventId())) {
+                result.add(event);
+            } else {
+                duplicateEvents.increment();
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 标记事件已处理，在写库事务提交后调用；标记失败只会让重投递多执行一次，由行级幂等兜底
+     */
+    public void markProcessed(Collection<ThumbEvent> events) {
+        long[] ids = events.stream()
+                .filter(event -> event != null && event.getEventId() != null)
+                .mapToLong(ThumbEvent::getEventId)
+                .toArray();
+        if (ids.length == 0) {
+            return;
+        }
+        for (long id : ids) {
+            put(id);
+        }
+        try {
+            store.add(ids);
+        } catch (Exception e) {
+            storeFailures.increment();
+            log.error("标记已处理点赞事件失败，事件数: {}", ids.length, e);
+        }
+    }
+
+    private boolean mightContain(long id) {
+        return current.mightContain(id) || previous.mightContain(id);
+    }
+
+    private void put(long id) {
+        if (currentInsertions.incrementAndGet() > expectedInsertions
+                || System.nanoTime() - currentStartNanos > windowNanos) {
+            rotate();
+        }
+        current.put(id);
+    }
+
+    private synchronized void rotate() {
+        if (currentInsertions.get() <= expectedInsertions && System.nanoTime() - currentStartNanos <= windowNanos) {
+            return;
+        }
+        previous = current;
+        current = new LongBloomFilter(expectedInsertions, fpp);
+        currentInsertions.set(1);
+        currentStartNanos = System.nanoTime();
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("checkedEvents", checkedEvents.sum());
+        stats.put("duplicateEvents", duplicateEvents.sum());
+        stats.put("bloomHits", bloomHits.sum());
+        stats.put("storeFailures", storeFailures.sum());
+        return stats;
+    }
+}
@@ -0,0 +1,176 @@
+package com.ince.gigalike.manage.thumb;
+
+import com.ince.gigalike.listener.thumb.msg.ThumbEvent;
+import com.ince.gigalike.listener.thumb.msg.ThumbEventEnvelope;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.pulsar.client.api.MessageId;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 点赞事件信封缓冲区
+ * <p>
+ * 点赞事件先放入缓冲区，每隔 maxDelay 或积压达到 maxEvents 时，按 (userId, blogId) 哈希分桶，
+ * 每个桶打成一个 {@link ThumbEventEnvelope} 发送，消息 key 为桶号。同一组合总是落在同一个桶，
+ * 桶内保持发送顺序，因此 Key_Shared 订阅下仍然按组合有序；broker 与消费者处理的消息数降为原来的几百分之一。
+ * 每个事件的 future 在所属信封发送完成后完成，调用方据此回滚 Redis。
+ */
+@Slf4j
+public class ThumbEventEnvelopeBuffer implements AutoCloseable {
+
+    @FunctionalInterface
+    public interface EnvelopeSender {
+        CompletableFuture<MessageId> send(String key, ThumbEventEnvelope envelope) throws Exception;
+    }
+
+    private record PendingEvent(ThumbEvent event, CompletableFuture<MessageId> future) {
+    }
+
+    private final int maxEvents;
+    private final Duration maxDelay;
+    private final int buckets;
+    private final EnvelopeSender sender;
+
+    private final Object flushLock = new Object();
+    private final AtomicBoolean flushRequested = new AtomicBoolean();
+    private List<PendingEvent> pending = new ArrayList<>();
+    private boolean closed;
+    private volatile ScheduledExecutorService scheduler;
+
+    public ThumbEventEnvelopeBuffer(int maxEvents, Duration maxDelay, int buckets, EnvelopeSender sender) {
+        if (maxEvents <= 0 || buckets <= 0) {
+            throw new IllegalArgumentException("maxEvents and buckets must be positive");
+        }
+        this.maxEvents = maxEvents;
+        this.maxDelay = maxDelay;
+        this.buckets = buckets;
+        this.sender = sender;
+    }
+
+    public synchronized void start() {
+        if (scheduler != null) {
+            return;
+        }
+        scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "thumb-envelope-flusher");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long intervalMicros = maxDelay.toNanos() / 1000;
+        scheduler.scheduleWithFixedDelay(this::flushQuietly, intervalMicros, intervalMicros, TimeUnit.MICROSECONDS);
+    }
+
+    /**
+     * 放入一个事件，返回其所属信封的发送结果
+     */
+    public CompletableFuture<MessageId> add(ThumbEvent event) {
+        CompletableFuture<MessageId> future = new CompletableFuture<>();
+        int size;
+        synchronized (this) {
+            if (closed) {
+                throw new IllegalStateException("thumb envelope buffer is closed");
+            }
+            pending.add(new PendingEvent(event, future));
+            size = pending.size();
+        }
+        ScheduledExecutorService current = scheduler;
+        if (current != null && size >= maxEvents && flushRequested.compareAndSet(false, true)) {
+            current.execute(this::flushQuietly);
+        }
+        return future;
+    }
+
+    /**
+     * 立即发送所有积压事件；串行执行，保证同一个桶的信封按顺序交给生产者
+     */
+    public void flush() {
+        synchronized (flushLock) {
+            flushRequested.set(false);
+            List<PendingEvent> drained;
+            synchronized (this) {
+                if (pending.isEmpty()) {
+                    return;
+                }
+                drained = pending;
+                pending = new ArrayList<>();
+            }
+            Map<Integer, List<PendingEvent>> byBucket = new LinkedHashMap<>();
+            for (PendingEvent pendingEvent : drained) {
+                byBucket.computeIfAbsent(bucketOf(pendingEvent.event()), k -> new ArrayList<>()).add(pendingEvent);
+            }
+            byBucket.forEach((bucket, group) -> {
+                for (int from = 0; from < group.size(); from += maxEvents) {
+                    send(bucket, group.subList(from, Math.min(from + maxEvents, group.size())));
+                }
+            });
+        }
+    }
+
+    private void send(int bucket, List<PendingEvent> group) {
+        List<ThumbEvent> events = new ArrayList<>(group.size());
+        for (PendingEvent pendingEvent : group) {
+            events.add(pendingEvent.event());
+        }
+        CompletableFuture<MessageId> sent;
+        try {
+            sent = sender.send(String.valueOf(bucket), new ThumbEventEnvelope(events));
+        } catch (Exception e) {
+            sent = CompletableFuture.failedFuture(e);
+        }
+        sent.whenComplete((messageId, ex) -> {
+            if (ex != null) {
+                log.error("点赞事件信封发送失败，事件数: {}", group.size(), ex);
+                group.forEach(pendingEvent -> pendingEvent.future().completeExceptionally(ex));
+            } else {
+                group.forEach(pendingEvent -> pendingEvent.future().complete(messageId));
+            }
+        });
+    }
+
+    private int bucketOf(ThumbEvent event) {
+        return (int) Math.floorMod(ThumbEventReducer.mix(event.getUserId(), event.getBlogId()), (long) buckets);
+    }
+
+    private void flushQuietly() {
+        try {
+            flush();
+        } catch (Exception e) {
+            log.error("点赞事件信封发送线程异常", e);
+        }
+    }
+
+    public synchronized int pending() {
+        return pending.size();
+    }
+
+    /**
+     * 停止接收并发送剩余事件
+     */
+    @Override
+    public void close() {
+        ScheduledExecutorService current;
+        synchronized (this) {
+            closed = true;
+            current = scheduler;
+            scheduler = null;
+        }
+        if (current != null) {
+            current.shutdown();
+            try {
+                current.awaitTermination(1, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        flushQuietly();
+    }
+}
@@ -0,0 +1,74 @@
+package com.ince.gigalike.manage.thumb;
+
+import com.baomidou.mybatisplus.core.toolkit.IdWorker;
+import com.ince.gigalike.constant.ThumbConstant;
+import com.ince.gigalike.listener.thumb.msg.ThumbEvent;
+import com.ince.gigalike.manage.mq.ProducerMetrics;
+import org.apache.pulsar.client.api.MessageId;
+import org.apache.pulsar.client.api.PulsarClientException;
+import org.springframework.pulsar.core.ProducerBuilderCustomizer;
+import org.springframework.pulsar.core.PulsarTemplate;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 点赞事件发送
+ * <p>
+ * 每条消息以 {userId}:{blogId} 作为 key：分区主题按 key 哈希选择分区，消费端 Key_Shared 订阅按 key
+ * 把消息固定分配给一个消费者，同一用户对同一博客的点赞 / 取消点赞始终由同一个消费者按发送顺序处理，
+ * 消费者实例可以线性扩展。生产者使用按 key 分组的批量发送，避免不同 key 被打进同一个批次后整批投递给一个消费者。
+ * <p>
+ * 开启信封模式时，事件交给 {@link ThumbEventEnvelopeBuffer} 合并后发送到信封主题。
+ */
+public class ThumbEventPublisher {
+
+    private final PulsarTemplate<ThumbEvent> pulsarTemplate;
+    private final ProducerBuilderCustomizer<ThumbEvent> producerCustomizer;
+    private final ProducerMetrics metrics;
+    private final ThumbEventEnvelopeBuffer envelopeBuffer;
+    private final AtomicLong sequence = new AtomicLong();
+
+    /**
+     * @param envelopeBuffer 信封缓冲区，为 null 时逐条发送
+     */
+    public ThumbEventPublisher(PulsarTemplate<ThumbEvent> pulsarTemplate,
+                               ProducerBuilderCustomizer<ThumbEvent> producerCustomizer,
+                               ProducerMetrics metrics,
+                               ThumbEventEnvelopeBuffer envelopeBuffer) {
+        this.pulsarTemplate = pulsarTemplate;
+        this.producerCustomizer = producerCustomizer;
+        this.metrics = metrics;
+        this.envelopeBuffer = envelopeBuffer;
+    }
+
+    public CompletableFuture<MessageId> publish(ThumbEvent event) throws PulsarClientException {
+        if (event.getEventId() == null) {
+            event.setEventId(IdWorker.getId());
+        }
+        if (event.getSequence() == null) {
+            event.setSequence(sequence.incrementAndGet());
+        }
+        if (envelopeBuffer != null) {
+            return envelopeBuffer.add(event);
+        }
+        long start = System.nanoTime();
+        try {
+            return metrics.record(start, 1, pulsarTemplate.newMessage(event)
+                    .withTopic(ThumbConstant.THUMB_TOPIC)
+                    .withMessageCustomizer(message -> message.key(routingKey(event.getUserId(), event.getBlogId())))
+                    .withProducerCustomizer(producerCustomizer)
+                    .sendAsync());
+        } catch (PulsarClientException | RuntimeException e) {
+            metrics.recordFailure();
+            throw e;
+        }
+    }
+
+    /**
+     * 消息 key，同一 (userId, blogId) 的事件 key 相同
+     */
+    public static String routingKey(long userId, long blogId) {
+        return userId + ":" + blogId;
+    }
+}
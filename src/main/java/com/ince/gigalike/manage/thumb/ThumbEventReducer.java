@@ -0,0 +1,122 @@
+package com.ince.gigalike.manage.thumb;
+
+/**
+ * 按 (userId, blogId) 归并一批点赞事件，只保留每个组合的最后一次操作
+ * <p>
+ * 点赞（插入不存在的记录）与取消点赞（删除存在的记录）都是幂等的，按顺序执行一串操作后，
+ * 记录是否存在只取决于最后一次操作，与批次开始前的状态无关。因此按到达顺序覆盖写入即可，
+ * 不需要分组、排序或根据操作次数的奇偶推断。
+ * <p>
+ * 使用开放寻址的原始类型数组存储，每个事件不分配对象；非线程安全，每批新建一个实例。
+ */
+public final class ThumbEventReducer {
+
+    private static final byte EMPTY = 0;
+    private static final byte LIKE = 1;
+    private static final byte UNLIKE = 2;
+
+    private long[] userIds;
+    private long[] blogIds;
+    private byte[] actions;
+    private int[] lastIndexes;
+    private int size;
+    private int mask;
+
+    /**
+     * @param expectedSize 预计的 (userId, blogId) 组合数，通常取批次大小
+     */
+    public ThumbEventReducer(int expectedSize) {
+        allocate(tableSizeFor(expectedSize));
+    }
+
+    /**
+     * 记录一次操作，覆盖该组合之前的操作
+     *
+     * @param like  true 为点赞，false 为取消点赞
+     * @param index 事件在批次中的下标，遍历时原样返回，便于取回事件的其他字段
+     */
+    public void add(long userId, long blogId, boolean like, int index) {
+        int slot = find(userId, blogId);
+        boolean inserted = actions[slot] == EMPTY;
+        userIds[slot] = userId;
+        blogIds[slot] = blogId;
+        actions[slot] = like ? LIKE : UNLIKE;
+        lastIndexes[slot] = index;
+        if (inserted && ++size > (actions.length >> 1)) {
+            resize();
+        }
+    }
+
+    public boolean contains(long userId, long blogId) {
+        return actions[find(userId, blogId)] != EMPTY;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * 遍历每个组合的最终操作，顺序不固定
+     */
+    public void forEach(Visitor visitor) {
+        for (int i = 0; i < actions.length; i++) {
+            if (actions[i] != EMPTY) {
+                visitor.visit(userIds[i], blogIds[i], actions[i] == LIKE, lastIndexes[i]);
+            }
+        }
+    }
+
+    @FunctionalInterface
+    public interface Visitor {
+        void visit(long userId, long blogId, boolean like, int lastIndex);
+    }
+
+    private int find(long userId, long blogId) {
+        int slot = (int) mix(userId, blogId) & mask;
+        while (actions[slot] != EMPTY && (userIds[slot] != userId || blogIds[slot] != blogId)) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private void resize() {
+        long[] oldUserIds = userIds;
+        long[] oldBlogIds = blogIds;
+        byte[] oldActions = actions;
+        int[] oldLastIndexes = lastIndexes;
+        allocate(oldActions.length << 1);
+        for (int i = 0; i < oldActions.length; i++) {
+            if (oldActions[i] != EMPTY) {
+                int slot = find(oldUserIds[i], oldBlogIds[i]);
+                userIds[slot] = oldUserIds[i];
+                blogIds[slot] = oldBlogIds[i];
+                actions[slot] = oldActions[i];
+                lastIndexes[slot] = oldLastIndexes[i];
+            }
+        }
+    }
+
+    private void allocate(int capacity) {
+        userIds = new long[capacity];
+        blogIds = new long[capacity];
+        actions = new byte[capacity];
+        lastIndexes = new int[capacity];
+        mask = capacity - 1;
+    }
+
+    /**
+     * 负载因子不超过 0.5 的 2 的幂容量
+     */
+    static int tableSizeFor(int expectedSize) {
+        int capacity = Math.max(16, expectedSize * 2);
+        return capacity >= (1 << 30) ? (1 << 30) : Integer.highestOneBit(capacity - 1) << 1;
+    }
+
+    static long mix(long a, long b) {
+        long h = a * 0x9E3779B97F4A7C15L + b;
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        return h;
+    }
+}
@@ -0,0 +1,11 @@
+package com.ince.gigalike.manage.thumb;
+
+/**
+ * 随点赞状态在同一个 Lua 脚本内写入 outbox 流的点赞事件
+ *
+ * @param stream    outbox 流键
+ * @param eventId   事件 ID
+ * @param eventTime 事件时间（毫秒）
+ */
+public record ThumbOutboxRecord(String stream, long eventId, long eventTime) {
+}
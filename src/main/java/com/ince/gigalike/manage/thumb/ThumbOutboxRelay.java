@@ -0,0 +1,277 @@
+package com.ince.gigalike.manage.thumb;
+
+import com.baomidou.mybatisplus.core.toolkit.IdWorker;
+import com.ince.gigalike.constant.RedisLuaScriptConstant;
+import com.ince.gigalike.listener.thumb.msg.ThumbEvent;
+import com.ince.gigalike.utils.RedisKeyUtil;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.annotation.Resource;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.pulsar.client.api.MessageId;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.NestedExceptionUtils;
+import org.springframework.data.domain.Range;
+import org.springframework.data.redis.connection.Limit;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.connection.stream.Consumer;
+import org.springframework.data.redis.connection.stream.MapRecord;
+import org.springframework.data.redis.connection.stream.ReadOffset;
+import org.springframework.data.redis.connection.stream.StreamOffset;
+import org.springframework.data.redis.connection.stream.StreamReadOptions;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.serializer.GenericToStringSerializer;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 点赞事件 outbox 转发：点赞状态与点赞事件由同一个 Lua 脚本写入 Redis（事件写入 outbox 流），
+ * 本组件读取 outbox 流批量发送到 Pulsar，请求路径上不再调用生产者，也不再需要发送失败时回滚 Redis。
+ * <p>
+ * outbox 按用户 ID 分成多个流，同一 (userId, blogId) 的事件总在同一个流中。每个流通过 Redis 租约由一个节点独占转发，
+ * 按流内顺序发送，Pulsar 生产者保持同一 key 的发送顺序。所有节点使用同一个消费组与消费者名，
+ * 接手流的节点先重发上一个持有者已读取、未确认的事件，再读取新事件；一批事件全部发送成功后 XACK 并裁剪流。
+ * 重发可能产生重复事件，由消费端按事件 ID 去重。
+ */
+@Component
+@Slf4j
+public class ThumbOutboxRelay {
+
+    private static final String GROUP = "thumb-relay";
+
+    private static final String CONSUMER = "relay";
+
+    private static final RedisSerializer<Long> LONG_SERIALIZER = new GenericToStringSerializer<>(Long.class);
+
+    @Resource
+    private RedisTemplate<String, Object> redisTemplate;
+
+    @Resource
+    private ThumbEventPublisher thumbEventPublisher;
+
+    @Value("${thumb.outbox.enabled:false}")
+    private boolean enabled;
+
+    @Value("${thumb.outbox.streams:4}")
+    private int streams;
+
+    @Value("${thumb.outbox.batch-size:500}")
+    private int batchSize;
+
+    @Value("${thumb.outbox.poll-interval-ms:50}")
+    private long pollIntervalMs;
+
+    @Value("${thumb.outbox.lease-ms:15000}")
+    private long leaseMs;
+
+    @Value("${thumb.outbox.publish-timeout-ms:5000}")
+    private long publishTimeoutMs;
+
+    private volatile boolean running;
+
+    private final List<Thread> workers = new ArrayList<>();
+
+    private final LongAdder relayedEvents = new LongAdder();
+    private final LongAdder batches = new LongAdder();
+    private final LongAdder redeliveredEvents = new LongAdder();
+    private final LongAdder failedBatches = new LongAdder();
+    private final LongAdder malformedEvents = new LongAdder();
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * 为一次点赞 / 取消点赞生成 outbox 事件，按用户 ID 选择流
+     */
+    public ThumbOutboxRecord newRecord(long userId) {
+        return new ThumbOutboxRecord(RedisKeyUtil.getThumbOutboxKey((int) Math.floorMod(userId, (long) streams)),
+                IdWorker.getId(), System.currentTimeMillis());
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        running = true;
+        for (int shard = 0; shard < streams; shard++) {
+            createGroup(RedisKeyUtil.getThumbOutboxKey(shard));
+            int stream = shard;
+            workers.add(Thread.ofVirtual().name("thumb-outbox-" + shard).start(() -> relayLoop(stream)));
+        }
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        for (Thread worker : workers) {
+            worker.join(leaseMs);
+        }
+    }
+
+    private void createGroup(String stream) {
+        try {
+            redisTemplate.execute((RedisConnection connection) -> connection.streamCommands().xGroupCreate(
+                    stream.getBytes(StandardCharsets.UTF_8), GROUP, ReadOffset.from("0"), true));
+        } catch (RuntimeException e) {
+            // 消费组已存在
+            if (!String.valueOf(NestedExceptionUtils.getMostSpecificCause(e).getMessage()).contains("BUSYGROUP")) {
+                throw e;
+            }
+        }
+    }
+
+    /**
+     * 持有租约时循环转发一个流，没有新事件时短暂休眠；转发失败时重新读取未确认的事件
+     */
+    private void relayLoop(int shard) {
+        String stream = RedisKeyUtil.getThumbOutboxKey(shard);
+        String leaseKey = RedisKeyUtil.getThumbOutboxLeaseKey(shard);
+        String token = UUID.randomUUID().toString();
+        boolean leased = false;
+        boolean pendingFirst = true;
+        while (running) {
+            try {
+                if (!leased) {
+                    leased = Boolean.TRUE.equals(redisTemplate.opsForValue()
+                            .setIfAbsent(leaseKey, token, Duration.ofMillis(leaseMs)));
+                    if (!leased) {
+                        Thread.sleep(leaseMs / 3);
+                        continue;
+                    }
+                    pendingFirst = true;
+                } else if (!renewLease(leaseKey, token)) {
+                    leased = false;
+                    continue;
+                }
+
+                List<MapRecord<String, Object, Object>> records = read(stream,
+                        pendingFirst ? ReadOffset.from("0") : ReadOffset.lastConsumed());
+                if (records.isEmpty()) {
+                    if (pendingFirst) {
+                        pendingFirst = false;
+                    } else {
+                        Thread.sleep(pollIntervalMs);
+                    }
+                    continue;
+                }
+                if (pendingFirst) {
+                    redeliveredEvents.add(records.size());
+                }
+                relay(stream, records);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            } catch (Exception e) {
+                failedBatches.increment();
+                pendingFirst = true;
+                log.error("outbox 流 {} 转发失败，稍后重试", stream, e);
+                try {
+                    Thread.sleep(1000);
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                    break;
+                }
+            }
+        }
+        if (leased) {
+            redisTemplate.execute(RedisLuaScriptConstant.UNLOCK_SCRIPT, List.of(leaseKey), token);
+        }
+    }
+
+    private boolean renewLease(String leaseKey, String token) {
+        Long renewed = redisTemplate.execute(RedisLuaScriptConstant.LEASE_RENEW_SCRIPT, List.of(leaseKey), token, leaseMs);
+        return renewed != null && renewed == 1;
+    }
+
+    private List<MapRecord<String, Object, Object>> read(String stream, ReadOffset offset) {
+        List<MapRecord<String, Object, Object>> records = redisTemplate.opsForStream().read(
+                Consumer.from(GROUP, CONSUMER), StreamReadOptions.empty().count(batchSize), StreamOffset.create(stream, offset));
+        return records == null ? List.of() : records;
+    }
+
+    /**
+     * 一批事件并发交给生产者（由生产者合并为批次发送），全部成功后确认并裁剪
+     */
+    private void relay(String stream, List<MapRecord<String, Object, Object>> records) throws Exception {
+        List<CompletableFuture<MessageId>> futures = new ArrayList<>(records.size());
+        List<Object> ackArgs = new ArrayList<>(records.size() + 1);
+        ackArgs.add(GROUP);
+        for (MapRecord<String, Object, Object> record : records) {
+            ackArgs.add(record.getId().getValue());
+            ThumbEvent event = toEvent(record.getValue());
+            if (event == null) {
+                malformedEvents.increment();
+                log.error("outbox 事件格式错误，已跳过: stream={}, id={}, value={}", stream, record.getId(), record.getValue());
+                continue;
+            }
+            futures.add(thumbEventPublisher.publish(event));
+        }
+        CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).get(publishTimeoutMs, TimeUnit.MILLISECONDS);
+        redisTemplate.execute(RedisLuaScriptConstant.THUMB_OUTBOX_ACK_SCRIPT, RedisSerializer.string(), LONG_SERIALIZER,
+                List.of(stream), ackArgs.toArray());
+        relayedEvents.add(futures.size());
+        batches.increment();
+    }
+
+    private static ThumbEvent toEvent(Map<Object, Object> value) {
+        try {
+            return ThumbEvent.builder()
+                    .eventId(Long.parseLong(value.get("e").toString()))
+                    .userId(Long.parseLong(value.get("u").toString()))
+                    .blogId(Long.parseLong(value.get("b").toString()))
+                    .type("1".equals(value.get("t").toString()) ? ThumbEvent.EventType.INCR : ThumbEvent.EventType.DECR)
+                    .eventTime(LocalDateTime.ofInstant(
+                            Instant.ofEpochMilli(Long.parseLong(value.get("ts").toString())), ZoneId.systemDefault()))
+                    .build();
+        } catch (NullPointerException | NumberFormatException e) {
+            return null;
+        }
+    }
+
+    /**
+     * 转发统计；backlog 为各流中尚未确认的事件数，oldestAgeMs 为最早一条未确认事件距今的时间
+     */
+    public Map<String, Object> getStats() {
+        long backlog = 0;
+        long oldest = Long.MAX_VALUE;
+        if (enabled) {
+            for (int shard = 0; shard < streams; shard++) {
+                String stream = RedisKeyUtil.getThumbOutboxKey(shard);
+                Long size = redisTemplate.opsForStream().size(stream);
+                backlog += size == null ? 0 : size;
+                List<MapRecord<String, Object, Object>> first = redisTemplate.opsForStream()
+                        .range(stream, Range.unbounded(), Limit.limit().count(1));
+                if (first != null && !first.isEmpty()) {
+                    oldest = Math.min(oldest, first.get(0).getId().getTimestamp());
+                }
+            }
+        }
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", enabled);
+        stats.put("streams", streams);
+        stats.put("backlog", backlog);
+        stats.put("oldestAgeMs", oldest == Long.MAX_VALUE ? 0 : System.currentTimeMillis() - oldest);
+        stats.put("relayedEvents", relayedEvents.sum());
+        stats.put("batches", batches.sum());
+        stats.put("redeliveredEvents", redeliveredEvents.sum());
+        stats.put("failedBatches", failedBatches.sum());
+        stats.put("malformedEvents", malformedEvents.sum());
+        return stats;
+    }
+}
@@ -0,0 +1,118 @@
+package com.ince.gigalike.manage.thumb;
+
+import com.ince.gigalike.constant.RedisLuaScriptConstant;
+import com.ince.gigalike.utils.RedisKeyUtil;
+import org.springframework.data.redis.core.RedisTemplate;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+/**
+ * 点赞对账的分片计划、进度与租约，保存在 Redis 中
+ * <p>
+ * 每次对账以 runId 标识，哈希 thumb:reconcile:{runId} 保存：
+ * <pre>
+ * plan       分片边界，第一个节点写入后其他节点沿用
+ * shard:{i}  分片 i 已处理完的最后一个用户 ID
+ * done:{i}   分片 i 已完成
+ * </pre>
+ * 分片由持有租约的节点处理，节点宕机后租约过期，其他节点从 shard:{i} 记录的位置继续。
+ */
+public class ThumbReconcileCheckpoint {
+
+    private static final String PLAN_FIELD = "plan";
+    private static final String SHARD_FIELD_PREFIX = "shard:";
+    private static final String DONE_FIELD_PREFIX = "done:";
+
+    private final RedisTemplate<String, Object> redisTemplate;
+    private final Duration retention;
+
+    /**
+     * @param retention 对账进度的保留时间，超过后同一 runId 会重新开始
+     */
+    public ThumbReconcileCheckpoint(RedisTemplate<String, Object> redisTemplate, Duration retention) {
+        this.redisTemplate = redisTemplate;
+        this.retention = retention;
+    }
+
+    /**
+     * 写入分片计划，已存在时返回已有的计划，保证所有节点使用同一组边界
+     */
+    public long[] plan(String runId, long[] proposedBounds) {
+        String runKey = RedisKeyUtil.getThumbReconcileRunKey(runId);
+        String proposed = Arrays.stream(proposedBounds).mapToObj(Long::toString).collect(Collectors.joining(","));
+        if (Boolean.TRUE.equals(redisTemplate.opsForHash().putIfAbsent(runKey, PLAN_FIELD, proposed))) {
+            redisTemplate.expire(runKey, retention);
+            return proposedBounds;
+        }
+        Object stored = redisTemplate.opsForHash().get(runKey, PLAN_FIELD);
+        return Arrays.stream(stored.toString().split(",")).mapToLong(Long::parseLong).toArray();
+    }
+
+    /**
+     * 读取所有分片的进度
+     *
+     * @return 下标为分片号，null 表示尚未开始；已完成的分片为 {@link Long#MAX_VALUE}
+     */
+    public Long[] positions(String runId, int shards) {
+        Map<Object, Object> entries = redisTemplate.opsForHash().entries(RedisKeyUtil.getThumbReconcileRunKey(runId));
+        Long[] positions = new Long[shards];
+        for (int shard = 0; shard < shards; shard++) {
+            if (entries.containsKey(DONE_FIELD_PREFIX + shard)) {
+                positions[shard] = Long.MAX_VALUE;
+            } else {
+                Object position = entries.get(SHARD_FIELD_PREFIX + shard);
+                positions[shard] = position == null ? null : Long.valueOf(position.toString());
+            }
+        }
+        return positions;
+    }
+
+    /**
+     * 读取单个分片的进度，含义同 {@link #positions}
+     */
+    public Long position(String runId, int shard) {
+        List<Object> values = redisTemplate.opsForHash().multiGet(RedisKeyUtil.getThumbReconcileRunKey(runId),
+                List.<Object>of(DONE_FIELD_PREFIX + shard, SHARD_FIELD_PREFIX + shard));
+        if (values.get(0) != null) {
+            return Long.MAX_VALUE;
+        }
+        return values.get(1) == null ? null : Long.valueOf(values.get(1).toString());
+    }
+
+    public void savePosition(String runId, int shard, long lastUserId) {
+        redisTemplate.opsForHash().put(RedisKeyUtil.getThumbReconcileRunKey(runId), SHARD_FIELD_PREFIX + shard, lastUserId);
+    }
+
+    public void markDone(String runId, int shard) {
+        redisTemplate.opsForHash().put(RedisKeyUtil.getThumbReconcileRunKey(runId), DONE_FIELD_PREFIX + shard, 1);
+    }
+
+    /**
+     * @return 租约令牌，分片被其他节点持有时返回 null
+     */
+    public String tryLease(String runId, int shard, Duration leaseTime) {
+        String token = UUID.randomUUID().toString();
+        Boolean acquired = redisTemplate.opsForValue()
+                .setIfAbsent(RedisKeyUtil.getThumbReconcileLeaseKey(runId, shard), token, leaseTime);
+        return Boolean.TRUE.equals(acquired) ? token : null;
+    }
+
+    /**
+     * @return 续期失败说明租约已过期并可能被其他节点获取，调用方应停止处理该分片
+     */
+    public boolean renewLease(String runId, int shard, String token, Duration leaseTime) {
+        Long renewed = redisTemplate.execute(RedisLuaScriptConstant.LEASE_RENEW_SCRIPT,
+                List.of(RedisKeyUtil.getThumbReconcileLeaseKey(runId, shard)), token, leaseTime.toMillis());
+        return renewed != null && renewed == 1;
+    }
+
+    public void releaseLease(String runId, int shard, String token) {
+        redisTemplate.execute(RedisLuaScriptConstant.UNLOCK_SCRIPT,
+                List.of(RedisKeyUtil.getThumbReconcileLeaseKey(runId, shard)), token);
+    }
+}
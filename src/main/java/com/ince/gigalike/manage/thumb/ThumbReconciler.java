@@ -0,0 +1,471 @@
+package com.ince.gigalike.manage.thumb;
+
+import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
+import com.baomidou.mybatisplus.core.toolkit.IdWorker;
+import com.ince.gigalike.listener.thumb.msg.ThumbEvent;
+import com.ince.gigalike.mapper.ThumbMapper;
+import com.ince.gigalike.mapper.UserMapper;
+import com.ince.gigalike.model.entity.Thumb;
+import com.ince.gigalike.model.entity.User;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.Resource;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.ibatis.cursor.Cursor;
+import org.apache.pulsar.client.api.PulsarClientException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 点赞记录对账：Redis 用户点赞数据（{@link UserThumbStore}）与 thumb 表双向比对并修复
+ * <p>
+ * 用户 ID 空间切成若干区间分片，分片在虚拟线程上并行处理，并发数可配置。每个分片用 MyBatis 游标
+ * 按 userId 升序流式读取 users LEFT JOIN thumb，逐个用户读取其 Redis 点赞数据，排序后与数据库记录归并比较，
+ * 内存中只保留当前用户的数据。分片进度与租约保存在 Redis（{@link ThumbReconcileCheckpoint}），
+ * 多个节点同时执行时各自认领分片，节点中断后其他节点或下一次执行从检查点继续。
+ * <p>
+ * 修复规则（Redis 是 MQ 写入路径的权威数据）：
+ * <ul>
+ *     <li>只在 Redis 中存在：发送点赞补偿事件</li>
+ *     <li>只在数据库中存在：发送取消点赞补偿事件</li>
+ *     <li>用户的 Redis 点赞数据整体不存在而数据库有记录：已加载标记存在说明用户取消了全部点赞
+ *     （删除最后一个字段时哈希随之删除，取消点赞事件可能仍在途），按只在数据库中存在处理；
+ *     标记不存在时，冷数据已过期淘汰的用户跳过，下次访问时自动加载，不淘汰冷数据时视为 Redis 数据丢失，用数据库记录重建</li>
+ * </ul>
+ * 发送补偿事件前再查一次 Redis，跳过比对之后已被用户操作改变的记录。
+ */
+@Component
+@Slf4j
+public class ThumbReconciler {
+
+    /**
+     * 没有点赞记录的用户攒够后批量检查 Redis 点赞数据是否存在
+     */
+    private static final int EXISTS_BATCH_SIZE = 500;
+
+    private static final long[] EMPTY = new long[0];
+
+    @Resource
+    private RedisTemplate<String, Object> redisTemplate;
+
+    @Resource
+    private ThumbMapper thumbMapper;
+
+    @Resource
+    private UserMapper userMapper;
+
+    @Resource
+    private PlatformTransactionManager transactionManager;
+
+    @Resource
+    private ThumbEventPublisher thumbEventPublisher;
+
+    @Resource
+    private UserThumbStore userThumbStore;
+
+    @Value("${thumb.reconcile.shards:64}")
+    private int shards;
+
+    @Value("${thumb.reconcile.concurrency:4}")
+    private int concurrency;
+
+    @Value("${thumb.reconcile.lease-ms:60000}")
+    private long leaseMs;
+
+    @Value("${thumb.reconcile.checkpoint-users:1000}")
+    private int checkpointUsers;
+
+    @Value("${thumb.reconcile.max-duration-minutes:240}")
+    private long maxDurationMinutes;
+
+    @Value("${thumb.reconcile.retention-hours:48}")
+    private long retentionHours;
+
+    private ThumbReconcileCheckpoint checkpoint;
+
+    private TransactionTemplate readOnlyTransaction;
+
+    @PostConstruct
+    public void init() {
+        checkpoint = new ThumbReconcileCheckpoint(redisTemplate, Duration.ofHours(retentionHours));
+        readOnlyTransaction = new TransactionTemplate(transactionManager);
+        readOnlyTransaction.setReadOnly(true);
+    }
+
+    /**
+     * 执行一次对账，同一 runId 重复调用时从检查点继续
+     *
+     * @return 本节点的对账统计
+     */
+    public Map<String, Object> reconcile(String runId) {
+        Stats stats = new Stats();
+        long[] proposed = proposeBounds();
+        if (proposed == null) {
+            return stats.toMap();
+        }
+        long[] bounds = checkpoint.plan(runId, proposed);
+        int shardCount = bounds.length - 1;
+        long deadline = System.nanoTime() + Duration.ofMinutes(maxDurationMinutes).toNanos();
+
+        ExecutorService executor = Executors.newFixedThreadPool(concurrency,
+                Thread.ofVirtual().name("thumb-reconcile-", 0).factory());
+        try {
+            for (int round = 0; ; round++) {
+                List<Integer> pending = pendingShards(runId, shardCount);
+                if (pending.isEmpty()) {
+                    break;
+                }
+                if (round > 0) {
+                    if (System.nanoTime() - deadline > 0) {
+                        log.warn("点赞对账超过最长执行时间，剩余分片: {}，下次执行时继续", pending);
+                        break;
+                    }
+                    // 剩余分片由其他节点持有或处理失败，等待租约过期后重新认领
+                    Thread.sleep(leaseMs);
+                }
+                List<Future<?>> futures = new ArrayList<>(pending.size());
+                for (int shard : pending) {
+                    futures.add(executor.submit(() -> reconcileShard(runId, shard, bounds[shard], bounds[shard + 1], stats)));
+                }
+                for (int i = 0; i < futures.size(); i++) {
+                    try {
+                        futures.get(i).get();
+                    } catch (ExecutionException e) {
+                        stats.failedShards.increment();
+                        log.error("点赞对账分片 {} 处理失败", pending.get(i), e.getCause());
+                    }
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            log.warn("点赞对账被中断，下次执行时从检查点继续");
+        } finally {
+            executor.shutdownNow();
+        }
+        return stats.toMap();
+    }
+
+    /**
+     * 只比对修复给定的用户，供增量对账使用
+     *
+     * @return 修复的点赞记录数（补偿事件数 + 重建点赞数据的用户数）
+     */
+    public long reconcileUsers(Collection<Long> userIds) {
+        if (userIds.isEmpty()) {
+            return 0;
+        }
+        Map<Long, LongBuffer> rows = new HashMap<>(userIds.size() * 2);
+        for (Thumb thumb : thumbMapper.selectList(new LambdaQueryWrapper<Thumb>()
+                .select(Thumb::getUserId, Thumb::getBlogId)
+                .in(Thumb::getUserId, userIds))) {
+            rows.computeIfAbsent(thumb.getUserId(), k -> new LongBuffer()).add(thumb.getBlogId());
+        }
+        Stats stats = new Stats();
+        for (Long userId : userIds) {
+            LongBuffer blogIds = rows.get(userId);
+            if (blogIds == null) {
+                repair(userId, UserThumbDiff.of(userThumbStore.blogIds(userId), EMPTY), stats);
+            } else {
+                reconcileUser(userId, blogIds.toSortedArray(), stats);
+            }
+        }
+        return stats.repaired();
+    }
+
+    /**
+     * 按 users 表的 ID 范围等宽切分，最后一个分片不设上界，覆盖切分之后注册的用户
+     *
+     * @return 分片边界，分片 i 为 (bounds[i], bounds[i + 1]]；没有用户时返回 null
+     */
+    private long[] proposeBounds() {
+        List<Map<String, Object>> rows = userMapper.selectMaps(new QueryWrapper<User>()
+                .select("MIN(id) AS minId", "MAX(id) AS maxId"));
+        if (rows.isEmpty() || rows.get(0) == null || rows.get(0).get("minId") == null) {
+            return null;
+        }
+        return shardBounds(((Number) rows.get(0).get("minId")).longValue(),
+                ((Number) rows.get(0).get("maxId")).longValue(), shards);
+    }
+
+    static long[] shardBounds(long minUserId, long maxUserId, int shards) {
+        long span = maxUserId - minUserId + 1;
+        int count = (int) Math.max(1, Math.min(shards, span));
+        long step = span / count;
+        long[] bounds = new long[count + 1];
+        bounds[0] = minUserId - 1;
+        for (int i = 1; i < count; i++) {
+            bounds[i] = bounds[0] + step * i;
+        }
+        bounds[count] = Long.MAX_VALUE;
+        return bounds;
+    }
+
+    private List<Integer> pendingShards(String runId, int shardCount) {
+        Long[] positions = checkpoint.positions(runId, shardCount);
+        List<Integer> pending = new ArrayList<>();
+        for (int shard = 0; shard < shardCount; shard++) {
+            if (positions[shard] == null || positions[shard] != Long.MAX_VALUE) {
+                pending.add(shard);
+            }
+        }
+        return pending;
+    }
+
+    private void reconcileShard(String runId, int shard, long lowerBound, long upperBound, Stats stats) {
+        Duration leaseTime = Duration.ofMillis(leaseMs);
+        String token = checkpoint.tryLease(runId, shard, leaseTime);
+        if (token == null) {
+            return;
+        }
+        try {
+            Long position = checkpoint.position(runId, shard);
+            if (position != null && position == Long.MAX_VALUE) {
+                return;
+            }
+            ShardScan scan = new ShardScan(runId, shard, token, leaseTime, stats);
+            long afterUserId = position == null ? lowerBound : position;
+            readOnlyTransaction.executeWithoutResult(status -> scan.run(afterUserId, upperBound));
+            checkpoint.markDone(runId, shard);
+            stats.shards.increment();
+        } finally {
+            checkpoint.releaseLease(runId, shard, token);
+        }
+    }
+
+    /**
+     * 单个分片的流式扫描，游标按 userId 升序返回，用户切换时处理上一个用户
+     */
+    private class ShardScan {
+
+        private final String runId;
+        private final int shard;
+        private final String token;
+        private final Duration leaseTime;
+        private final Stats stats;
+
+        private Long currentUserId;
+        private final LongBuffer blogIds = new LongBuffer();
+        private final List<Long> emptyUsers = new ArrayList<>(EXISTS_BATCH_SIZE);
+        private int usersSinceCheckpoint;
+        private long lastCheckpointNanos = System.nanoTime();
+
+        ShardScan(String runId, int shard, String token, Duration leaseTime, Stats stats) {
+            this.runId = runId;
+            this.shard = shard;
+            this.token = token;
+            this.leaseTime = leaseTime;
+            this.stats = stats;
+        }
+
+        void run(long afterUserId, long upperBound) {
+            try (Cursor<Thumb> cursor = thumbMapper.streamUserThumbs(afterUserId, upperBound)) {
+                for (Thumb row : cursor) {
+                    if (currentUserId != null && !currentUserId.equals(row.getUserId())) {
+                        finishUser();
+                    }
+                    currentUserId = row.getUserId();
+                    if (row.getBlogId() != null) {
+                        blogIds.add(row.getBlogId());
+                    }
+                }
+                if (currentUserId != null) {
+                    finishUser();
+                    saveCheckpoint();
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        private void finishUser() {
+            if (blogIds.size() == 0) {
+                emptyUsers.add(currentUserId);
+                if (emptyUsers.size() >= EXISTS_BATCH_SIZE) {
+                    flushEmptyUsers();
+                }
+            } else {
+                long[] mysqlBlogIds = blogIds.toSortedArray();
+                blogIds.clear();
+                stats.users.increment();
+                stats.thumbs.add(mysqlBlogIds.length);
+                reconcileUser(currentUserId, mysqlBlogIds, stats);
+            }
+            if (++usersSinceCheckpoint >= checkpointUsers
+                    || System.nanoTime() - lastCheckpointNanos >= leaseTime.toNanos() / 3) {
+                saveCheckpoint();
+            }
+        }
+
+        /**
+         * 没有点赞记录的用户只需确认 Redis 中也没有点赞数据
+         */
+        private void flushEmptyUsers() {
+            if (emptyUsers.isEmpty()) {
+                return;
+            }
+            boolean[] exists = userThumbStore.exists(emptyUsers);
+            for (int i = 0; i < emptyUsers.size(); i++) {
+                if (exists[i]) {
+                    long userId = emptyUsers.get(i);
+                    repair(userId, UserThumbDiff.of(userThumbStore.blogIds(userId), EMPTY), stats);
+                }
+            }
+            stats.users.add(emptyUsers.size());
+            emptyUsers.clear();
+        }
+
+        /**
+         * 先处理缓冲中的用户再记录进度；租约续期失败说明分片已被其他节点接手，停止处理
+         */
+        private void saveCheckpoint() {
+            flushEmptyUsers();
+            if (!checkpoint.renewLease(runId, shard, token, leaseTime)) {
+                throw new IllegalStateException("点赞对账分片 " + shard + " 租约已失效");
+            }
+            checkpoint.savePosition(runId, shard, currentUserId);
+            usersSinceCheckpoint = 0;
+            lastCheckpointNanos = System.nanoTime();
+        }
+    }
+
+    private void reconcileUser(long userId, long[] mysqlBlogIds, Stats stats) {
+        long[] redisBlogIds = userThumbStore.blogIds(userId);
+        // 有已加载标记时 Redis 没有点赞数据即用户没有点赞，以 Redis 为准发送取消点赞补偿
+        if (redisBlogIds.length == 0 && !userThumbStore.isLoaded(userId)) {
+            if (userThumbStore.evictsColdUsers()) {
+                stats.unloadedUsers.increment();
+                return;
+            }
+            if (userThumbStore.rehydrate(userId, mysqlBlogIds)) {
+                stats.rehydratedUsers.increment();
+                return;
+            }
+            // 比对期间用户有了新的点赞或取消了全部点赞，按正常差异处理
+            redisBlogIds = userThumbStore.blogIds(userId);
+        }
+        repair(userId, UserThumbDiff.of(redisBlogIds, mysqlBlogIds), stats);
+    }
+
+    /**
+     * 按差异发送补偿事件，发送前重新读取 Redis，跳过比对之后已变化的记录。
+     * 重新读取不触发加载：分片事务内的流式游标仍占用连接，不能再执行加载查询
+     */
+    private void repair(long userId, UserThumbDiff diff, Stats stats) {
+        if (diff.isEmpty()) {
+            return;
+        }
+        List<Long> blogIds = new ArrayList<>(diff.redisOnly().length + diff.mysqlOnly().length);
+        for (long blogId : diff.redisOnly()) {
+            blogIds.add(blogId);
+        }
+        for (long blogId : diff.mysqlOnly()) {
+            blogIds.add(blogId);
+        }
+        Map<Long, Boolean> current = userThumbStore.peek(userId, blogIds);
+        for (long blogId : diff.redisOnly()) {
+            if (current.get(blogId)) {
+                stats.redisOnly.increment();
+                sendCompensationEvent(userId, blogId, ThumbEvent.EventType.INCR);
+            }
+        }
+        for (long blogId : diff.mysqlOnly()) {
+            if (!current.get(blogId)) {
+                stats.mysqlOnly.increment();
+                sendCompensationEvent(userId, blogId, ThumbEvent.EventType.DECR);
+            }
+        }
+    }
+
+    private void sendCompensationEvent(long userId, long blogId, ThumbEvent.EventType type) {
+        // 补偿事件是新的事件，使用新的 eventId
+        ThumbEvent thumbEvent = new ThumbEvent(IdWorker.getId(), userId, blogId, type, LocalDateTime.now(), null);
+        try {
+            thumbEventPublisher.publish(thumbEvent)
+                    .exceptionally(ex -> {
+                        log.error("补偿事件发送失败: userId={}, blogId={}, type={}", userId, blogId, type, ex);
+                        return null;
+                    });
+        } catch (PulsarClientException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * 可增长的 long 数组，避免装箱
+     */
+    private static class LongBuffer {
+
+        private long[] values = new long[16];
+        private int size;
+
+        void add(long value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+
+        int size() {
+            return size;
+        }
+
+        long[] toSortedArray() {
+            long[] result = Arrays.copyOf(values, size);
+            Arrays.sort(result);
+            return result;
+        }
+
+        void clear() {
+            size = 0;
+        }
+    }
+
+    private static class Stats {
+
+        private final LongAdder shards = new LongAdder();
+        private final LongAdder failedShards = new LongAdder();
+        private final LongAdder users = new LongAdder();
+        private final LongAdder thumbs = new LongAdder();
+        private final LongAdder redisOnly = new LongAdder();
+        private final LongAdder mysqlOnly = new LongAdder();
+        private final LongAdder rehydratedUsers = new LongAdder();
+        private final LongAdder unloadedUsers = new LongAdder();
+
+        long repaired() {
+            return redisOnly.sum() + mysqlOnly.sum() + rehydratedUsers.sum();
+        }
+
+        Map<String, Object> toMap() {
+            Map<String, Object> stats = new LinkedHashMap<>();
+            stats.put("shards", shards.sum());
+            stats.put("failedShards", failedShards.sum());
+            stats.put("users", users.sum());
+            stats.put("thumbs", thumbs.sum());
+            stats.put("redisOnly", redisOnly.sum());
+            stats.put("mysqlOnly", mysqlOnly.sum());
+            stats.put("rehydratedUsers", rehydratedUsers.sum());
+            stats.put("unloadedUsers", unloadedUsers.sum());
+            return stats;
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package com.ince.gigalike.manage.thumb;
+
+import cn.hutool.core.collection.ListUtil;
+import com.ince.gigalike.manage.cache.MultiLevelCache;
+import com.ince.gigalike.mapper.BlogMapper;
+import com.ince.gigalike.mapper.ThumbMapper;
+import com.ince.gigalike.model.entity.Blog;
+import com.ince.gigalike.model.entity.Thumb;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * 点赞记录与博客点赞数的批量写库，MQ 消费与时间片同步共用
+ * <p>
+ * 点赞数只按实际删除 / 插入的行计算，重复投递或重复同步同一批记录不会重复计数
+ */
+@Component
+@RequiredArgsConstructor
+public class ThumbRecordWriter {
+
+    /**
+     * 单条 SQL 最多包含的记录数
+     */
+    private static final int SQL_CHUNK_SIZE = 500;
+
+    private final BlogMapper blogMapper;
+    private final ThumbMapper thumbMapper;
+    private final MultiLevelCache<Long, Blog> blogCache;
+
+    /**
+     * 删除 removals、插入 inserts（id 由调用方生成），再按实际变化更新博客点赞数，需要在事务内调用；
+     * 点赞数有变化的博客在事务提交后删除博客缓存
+     *
+     * @return 点赞数有变化的博客及变化量
+     */
+    public Map<Long, Long> apply(List<Thumb> inserts, List<Thumb> removals) {
+        Long2LongAccumulator countDeltas = new Long2LongAccumulator(inserts.size() + removals.size());
+        deleteThumbs(removals, countDeltas);
+        insertThumbs(inserts, countDeltas);
+        Map<Long, Long> countMap = countDeltas.toMap();
+        if (!countMap.isEmpty()) {
+            blogMapper.batchUpdateThumbCount(countMap);
+            blogCache.evictAfterCommit(countMap.keySet());
+        }
+        return countMap;
+    }
+
+    /**
+     * 按博客分组删除，每条 DELETE 的影响行数即该博客点赞数的减少量，不需要先加锁查询哪些记录存在；
+     * 博客按 ID 升序处理，并发的写入方以相同顺序加锁
+     */
+    private void deleteThumbs(List<Thumb> removals, Long2LongAccumulator countDeltas) {
+        Map<Long, List<Long>> userIdsByBlog = new TreeMap<>();
+        for (Thumb thumb : removals) {
+            userIdsByBlog.computeIfAbsent(thumb.getBlogId(), blogId -> new ArrayList<>()).add(thumb.getUserId());
+        }
+        userIdsByBlog.forEach((blogId, userIds) -> {
+            for (List<Long> chunk : ListUtil.partition(userIds, SQL_CHUNK_SIZE)) {
+                int deleted = thumbMapper.deleteByBlogAndUsers(blogId, chunk);
+                if (deleted > 0) {
+                    countDeltas.add(blogId, -deleted);
+                }
+            }
+        });
+    }
+
+    /**
+     * 分批 INSERT IGNORE，已存在的记录被跳过，只有新插入的记录才让点赞数加一。
+     * 影响行数等于本批行数时全部插入；部分插入时按本批生成的主键查出实际插入的行（本事务可见自己的插入）
+     */
+    private void insertThumbs(List<Thumb> thumbs, Long2LongAccumulator countDeltas) {
+        List<Thumb> sorted = new ArrayList<>(thumbs);
+        // 按唯一索引 (userId, blogId) 的顺序插入，并发的写入方以相同顺序加锁
+        sorted.sort(Comparator.comparing(Thumb::getUserId).thenComparing(Thumb::getBlogId));
+        for (List<Thumb> chunk : ListUtil.partition(sorted, SQL_CHUNK_SIZE)) {
+            int inserted = thumbMapper.insertIgnoreBatch(chunk);
+            if (inserted == 0) {
+                continue;
+            }
+            if (inserted == chunk.size()) {
+                chunk.forEach(thumb -> countDeltas.add(thumb.getBlogId(), 1));
+                continue;
+            }
+            Set<Long> insertedIds = new HashSet<>(thumbMapper.selectIdsIn(chunk.stream().map(Thumb::getId).toList()));
+            chunk.stream()
+                    .filter(thumb -> insertedIds.contains(thumb.getId()))
+                    .forEach(thumb -> countDeltas.add(thumb.getBlogId(), 1));
+        }
+    }
+}
@@ -0,0 +1,7 @@
+package com.ince.gigalike.manage.thumb;
+
+/**
+ * 点赞增量时间片中的一个 field：userId:blogId -> 片内净变化
+ */
+public record ThumbSliceField(long userId, long blogId, long delta) {
+}
@@ -0,0 +1,56 @@
+package com.ince.gigalike.manage.thumb;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * 时间片同步读写的共享状态：点赞增量时间片、水位线与租约，以及补偿时用到的用户当前点赞状态，所有节点共用
+ *
+ * @see RedisThumbSliceStore
+ */
+public interface ThumbSliceStore {
+
+    /**
+     * 获取同步租约
+     *
+     * @return 租约令牌；已被其他节点持有时返回 null
+     */
+    String tryLease(Duration leaseTime);
+
+    /**
+     * 令牌一致时释放租约
+     */
+    void releaseLease(String token);
+
+    /**
+     * 已同步完成的最后一个时间片，没有水位线时返回 null
+     */
+    Long watermark();
+
+    void saveWatermark(long slice);
+
+    /**
+     * 全部时间片键，包括旧格式（HH:mm:ss）的键
+     */
+    List<String> sliceKeys();
+
+    /**
+     * 逐块读取时间片的 field，同一个 field 可能重复返回；流需要关闭
+     */
+    Stream<ThumbSliceField> fields(String key, int count);
+
+    /**
+     * 值仍与读取时一致的 field 才删除，读取之后新写入的增量保留
+     *
+     * @return 删除的 field 数
+     */
+    long ack(String key, List<ThumbSliceField> fields);
+
+    boolean exists(String key);
+
+    /**
+     * 用户当前是否点赞了博客，与 fields 一一对应
+     */
+    boolean[] liked(List<ThumbSliceField> fields);
+}
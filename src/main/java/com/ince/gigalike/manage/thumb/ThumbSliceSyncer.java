@@ -0,0 +1,311 @@
+package com.ince.gigalike.manage.thumb;
+
+import com.baomidou.mybatisplus.core.toolkit.IdWorker;
+import com.ince.gigalike.constant.ThumbConstant;
+import com.ince.gigalike.model.entity.Thumb;
+import com.ince.gigalike.utils.RedisKeyUtil;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.annotation.Resource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Stream;
+
+/**
+ * 把 thumbServiceRedis 写入的点赞增量时间片同步到数据库
+ * <p>
+ * 时间片键为 thumb:temp:{时间片起点的 epoch 秒}，field 为 userId:blogId，value 为片内净变化（1 / -1 / 0）。
+ * 时间片结束并超过 graceSeconds（容忍节点时钟偏差）后按时间顺序同步，水位线记录最后一个同步完的时间片。
+ * 同一 (userId, blogId) 可能出现在相邻时间片，时间片之间必须按顺序处理；时间片内每个 field 互不相关，
+ * HSCAN 逐块读取，每 chunkSize 个 field 交给工作线程在独立的小事务中写库，写库后按值比较删除这些 field。
+ * 写库只按实际删除 / 插入的行更新点赞数，同一块重复写入（写库成功但删除 field 前中断）不会重复计数。
+ * <p>
+ * 中途失败的时间片保留剩余 field，水位线不前进，下一轮重试。水位线之前残留的时间片（超出容忍时间的延迟写入、
+ * 没有水位线时回看范围之外的时间片）与旧格式（HH:mm:ss）的键由 {@link #compensate()} 处理：
+ * 更新的时间片可能已经写库，残留的增量不能再按顺序重放，改为按用户当前的点赞状态（thumb:{userId}）写库。
+ */
+@Component
+@Slf4j
+public class ThumbSliceSyncer {
+
+    @Resource
+    private ThumbSliceStore thumbSliceStore;
+
+    @Resource
+    private ThumbRecordWriter thumbRecordWriter;
+
+    @Resource
+    private TransactionTemplate transactionTemplate;
+
+    @Value("${thumb.slice.enabled:false}")
+    private boolean enabled;
+
+    @Value("${thumb.slice.seconds:10}")
+    private long sliceSeconds;
+
+    @Value("${thumb.slice.grace-seconds:2}")
+    private long graceSeconds;
+
+    @Value("${thumb.slice.chunk-size:500}")
+    private int chunkSize;
+
+    @Value("${thumb.slice.workers:4}")
+    private int workers;
+
+    @Value("${thumb.slice.max-slices-per-run:60}")
+    private int maxSlicesPerRun;
+
+    @Value("${thumb.slice.lookback-slices:360}")
+    private long lookbackSlices;
+
+    @Value("${thumb.slice.lease-ms:60000}")
+    private long leaseMs;
+
+    private ExecutorService executor;
+
+    /**
+     * 限制已提交未完成的块数，HSCAN 读取速度不会超过写库速度太多
+     */
+    private Semaphore inFlight;
+
+    private final LongAdder runs = new LongAdder();
+    private final LongAdder syncedSlices = new LongAdder();
+    private final LongAdder syncedFields = new LongAdder();
+    private final LongAdder chunks = new LongAdder();
+    private final LongAdder failedChunks = new LongAdder();
+    private final LongAdder compensatedKeys = new LongAdder();
+    private volatile long lastRunMillis;
+
+    @PostConstruct
+    public void init() {
+        executor = Executors.newFixedThreadPool(workers, Thread.ofVirtual().name("thumb-slice-", 0).factory());
+        inFlight = new Semaphore(workers * 2);
+    }
+
+    @PreDestroy
+    public void destroy() {
+        executor.shutdown();
+    }
+
+    /**
+     * 当前时间所在时间片的起点（epoch 秒）
+     */
+    public long currentSlice() {
+        long now = System.currentTimeMillis() / 1000;
+        return now - now % sliceSeconds;
+    }
+
+    /**
+     * 已结束并超过容忍时间的最后一个时间片
+     */
+    private long lastClosedSlice() {
+        long closed = System.currentTimeMillis() / 1000 - sliceSeconds - graceSeconds;
+        return closed - closed % sliceSeconds;
+    }
+
+    /**
+     * 水位线之后的第一个时间片；没有水位线时从 lookbackSlices 个时间片之前开始，更早的由补偿任务处理
+     */
+    private long firstPendingSlice() {
+        Long watermark = thumbSliceStore.watermark();
+        if (watermark == null) {
+            return lastClosedSlice() - lookbackSlices * sliceSeconds;
+        }
+        return watermark + sliceSeconds;
+    }
+
+    /**
+     * 按顺序同步已结束的时间片，每轮最多 maxSlicesPerRun 个
+     */
+    public void sync() {
+        if (!enabled) {
+            return;
+        }
+        runWithLease(() -> {
+            long lastClosed = lastClosedSlice();
+            long slice = firstPendingSlice();
+            for (int i = 0; i < maxSlicesPerRun && slice <= lastClosed; i++, slice += sliceSeconds) {
+                if (!drain(RedisKeyUtil.getTempThumbKey(slice), false)) {
+                    log.warn("时间片 {} 未同步完成，下一轮重试", slice);
+                    break;
+                }
+                thumbSliceStore.saveWatermark(slice);
+                syncedSlices.increment();
+            }
+        });
+    }
+
+    /**
+     * SCAN 找出水位线之前残留的时间片与旧格式的键，按用户当前的点赞状态写库后删除
+     */
+    public void compensate() {
+        if (!enabled) {
+            return;
+        }
+        runWithLease(() -> {
+            long firstPending = firstPendingSlice();
+            String prefix = ThumbConstant.TEMP_THUMB_KEY_PREFIX.formatted("");
+            List<String> leftovers = new ArrayList<>();
+            for (String key : thumbSliceStore.sliceKeys()) {
+                String suffix = key.substring(prefix.length());
+                // 数字后缀且不早于水位线的时间片由 sync 按顺序处理
+                if (!suffix.isEmpty() && suffix.chars().allMatch(Character::isDigit) && Long.parseLong(suffix) >= firstPending) {
+                    continue;
+                }
+                leftovers.add(key);
+            }
+            for (String key : leftovers) {
+                if (drain(key, true)) {
+                    compensatedKeys.increment();
+                }
+            }
+            if (!leftovers.isEmpty()) {
+                log.info("补偿同步残留时间片 {} 个", leftovers.size());
+            }
+        });
+    }
+
+    private void runWithLease(Runnable task) {
+        String token = thumbSliceStore.tryLease(Duration.ofMillis(leaseMs));
+        if (token == null) {
+            return;
+        }
+        long start = System.currentTimeMillis();
+        try {
+            task.run();
+        } finally {
+            thumbSliceStore.releaseLease(token);
+            runs.increment();
+            lastRunMillis = System.currentTimeMillis() - start;
+        }
+    }
+
+    /**
+     * HSCAN 逐块读取时间片，交给工作线程写库
+     *
+     * @param useCurrentState 按用户当前的点赞状态写库，而不是按 field 中的增量
+     * @return 时间片是否已清空
+     */
+    private boolean drain(String key, boolean useCurrentState) {
+        List<Future<?>> futures = new ArrayList<>();
+        // HSCAN 可能重复返回同一个 field
+        Set<ThumbSliceField> seen = new HashSet<>();
+        List<ThumbSliceField> chunk = new ArrayList<>(chunkSize);
+        try (Stream<ThumbSliceField> fields = thumbSliceStore.fields(key, chunkSize)) {
+            Iterator<ThumbSliceField> iterator = fields.iterator();
+            while (iterator.hasNext()) {
+                ThumbSliceField field = iterator.next();
+                if (!seen.add(field)) {
+                    continue;
+                }
+                chunk.add(field);
+                if (chunk.size() >= chunkSize) {
+                    futures.add(submit(key, chunk, useCurrentState));
+                    chunk = new ArrayList<>(chunkSize);
+                }
+            }
+            if (!chunk.isEmpty()) {
+                futures.add(submit(key, chunk, useCurrentState));
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        boolean completed = !Thread.currentThread().isInterrupted();
+        for (Future<?> future : futures) {
+            try {
+                future.get();
+            } catch (ExecutionException e) {
+                completed = false;
+                failedChunks.increment();
+                log.error("时间片 {} 写库失败", key, e.getCause());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+        }
+        return completed && !thumbSliceStore.exists(key);
+    }
+
+    private Future<?> submit(String key, List<ThumbSliceField> chunk, boolean useCurrentState) throws InterruptedException {
+        inFlight.acquire();
+        try {
+            return executor.submit(() -> {
+                try {
+                    applyChunk(key, chunk, useCurrentState);
+                } finally {
+                    inFlight.release();
+                }
+            });
+        } catch (RuntimeException e) {
+            inFlight.release();
+            throw e;
+        }
+    }
+
+    /**
+     * 一块 field 在一个事务内写库，提交后按值比较删除
+     */
+    private void applyChunk(String key, List<ThumbSliceField> chunk, boolean useCurrentState) {
+        boolean[] liked = useCurrentState ? thumbSliceStore.liked(chunk) : null;
+        List<Thumb> inserts = new ArrayList<>();
+        List<Thumb> removals = new ArrayList<>();
+        Date now = new Date();
+        for (int i = 0; i < chunk.size(); i++) {
+            ThumbSliceField field = chunk.get(i);
+            Thumb thumb = new Thumb();
+            thumb.setUserId(field.userId());
+            thumb.setBlogId(field.blogId());
+            if (liked != null ? liked[i] : field.delta() > 0) {
+                thumb.setId(IdWorker.getId());
+                thumb.setCreateTime(now);
+                inserts.add(thumb);
+            } else if (liked != null || field.delta() < 0) {
+                removals.add(thumb);
+            }
+        }
+        transactionTemplate.executeWithoutResult(status -> thumbRecordWriter.apply(inserts, removals));
+        thumbSliceStore.ack(key, chunk);
+        chunks.increment();
+        syncedFields.add(chunk.size());
+    }
+
+    /**
+     * 同步进度与统计；lagSeconds 为最早一个未同步的时间片距今的时间
+     */
+    public Map<String, Object> getStats() {
+        long firstPending = firstPendingSlice();
+        long lastClosed = lastClosedSlice();
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", enabled);
+        stats.put("watermarkSlice", firstPending - sliceSeconds);
+        stats.put("lagSeconds", System.currentTimeMillis() / 1000 - firstPending);
+        stats.put("pendingSlices", Math.max(0, (lastClosed - firstPending) / sliceSeconds + 1));
+        stats.put("runs", runs.sum());
+        stats.put("lastRunMillis", lastRunMillis);
+        stats.put("syncedSlices", syncedSlices.sum());
+        stats.put("syncedFields", syncedFields.sum());
+        stats.put("chunks", chunks.sum());
+        stats.put("failedChunks", failedChunks.sum());
+        stats.put("compensatedKeys", compensatedKeys.sum());
+        return stats;
+    }
+}
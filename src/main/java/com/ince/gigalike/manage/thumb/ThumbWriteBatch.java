@@ -0,0 +1,72 @@
+package com.ince.gigalike.manage.thumb;
+
+import com.ince.gigalike.model.entity.Thumb;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 一批点赞操作合并后的数据库变更
+ * <p>
+ * 同一用户对同一博客的操作在批内按顺序交替出现（点赞、取消、点赞……），只需看首尾两条：
+ * 第一条是取消点赞，说明批次开始前应有记录，需要删除该用户对该博客的记录；
+ * 最后一条是点赞，说明批次结束后应存在记录，需要插入最后一次点赞的记录；
+ * 中间的操作互相抵消。博客点赞数由写库时实际删除 / 插入的行数决定，见 {@link ThumbRecordWriter}。
+ */
+final class ThumbWriteBatch {
+
+    private final List<Thumb> inserts = new ArrayList<>();
+    private final List<Thumb> removals = new ArrayList<>();
+
+    private ThumbWriteBatch() {
+    }
+
+    static ThumbWriteBatch of(List<ThumbWriteEvent> events) {
+        Map<UserBlog, ThumbWriteEvent[]> firstAndLast = new LinkedHashMap<>();
+        for (ThumbWriteEvent event : events) {
+            ThumbWriteEvent[] pair = firstAndLast.computeIfAbsent(
+                    new UserBlog(event.userId(), event.blogId()), k -> new ThumbWriteEvent[]{event, null});
+            pair[1] = event;
+        }
+
+        ThumbWriteBatch batch = new ThumbWriteBatch();
+        for (ThumbWriteEvent[] pair : firstAndLast.values()) {
+            ThumbWriteEvent first = pair[0];
+            ThumbWriteEvent last = pair[1];
+            if (first.type() == ThumbWriteEvent.Type.UNLIKE) {
+                batch.removals.add(toThumb(first));
+            }
+            if (last.type() == ThumbWriteEvent.Type.LIKE) {
+                batch.inserts.add(toThumb(last));
+            }
+        }
+        return batch;
+    }
+
+    private static Thumb toThumb(ThumbWriteEvent event) {
+        Thumb thumb = new Thumb();
+        thumb.setId(event.thumbId());
+        thumb.setUserId(event.userId());
+        thumb.setBlogId(event.blogId());
+        thumb.setCreateTime(new Date(event.eventTime()));
+        return thumb;
+    }
+
+    List<Thumb> getInserts() {
+        return inserts;
+    }
+
+    List<Thumb> getRemovals() {
+        return removals;
+    }
+
+    boolean isEmpty() {
+        return inserts.isEmpty() && removals.isEmpty();
+    }
+
+    private record UserBlog(long userId, long blogId) {
+    }
+}
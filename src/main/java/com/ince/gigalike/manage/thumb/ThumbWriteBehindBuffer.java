@@ -0,0 +1,230 @@
+package com.ince.gigalike.manage.thumb;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+
+/**
+ * 点赞写入缓冲区（write-behind）
+ * <p>
+ * 请求线程只把操作放入有界环形队列，后台线程每隔 maxDelay 或积压达到 maxBatchSize 时批量交给 writer 写库。
+ * 队列按 CPU 核数分段，按用户 ID 选择分段，保证同一用户的操作顺序不变；分段写满时请求线程阻塞等待，形成背压。
+ * 写库失败时保留当前批次并重试，后续批次不会越过它：数据库暂时不可用时一直重试；其他异常重试 MAX_ATTEMPTS 次后
+ * 把批次拆成两半分别写入，隔离出无法写入的单条操作并丢弃，避免一条坏数据卡住整个缓冲区、写满分段后阻塞请求线程。
+ * 关闭时先停止接收，再把剩余操作全部写入。
+ */
+@Slf4j
+public class ThumbWriteBehindBuffer implements AutoCloseable {
+
+    /**
+     * 关闭时写库失败的最大重试次数
+     */
+    private static final int SHUTDOWN_MAX_RETRIES = 3;
+
+    /**
+     * 不可重试的异常下，同一批次拆分前最多尝试的次数
+     */
+    private static final int MAX_ATTEMPTS = 3;
+
+    private static final long RETRY_BACKOFF_MAX_NANOS = TimeUnit.SECONDS.toNanos(5);
+
+    private final ArrayBlockingQueue<ThumbWriteEvent>[] stripes;
+    private final int maxBatchSize;
+    private final long maxDelayNanos;
+    private final Consumer<List<ThumbWriteEvent>> writer;
+    private final Predicate<Exception> retryable;
+
+    private final AtomicInteger pending = new AtomicInteger();
+    private volatile boolean accepting = true;
+    private volatile boolean running = true;
+    private final Thread flusher;
+
+    private final LongAdder offeredEvents = new LongAdder();
+    private final LongAdder writtenEvents = new LongAdder();
+    private final LongAdder writtenBatches = new LongAdder();
+    private final LongAdder writeFailures = new LongAdder();
+    private final LongAdder droppedEvents = new LongAdder();
+    private final LongAdder deadLetteredEvents = new LongAdder();
+
+    @SuppressWarnings("unchecked")
+    public ThumbWriteBehindBuffer(int stripeCount, int stripeCapacity, int maxBatchSize, Duration maxDelay,
+                                  Consumer<List<ThumbWriteEvent>> writer, Predicate<Exception> retryable) {
+        if (stripeCount <= 0 || stripeCapacity <= 0 || maxBatchSize <= 0) {
+            throw new IllegalArgumentException("stripeCount, stripeCapacity and maxBatchSize must be positive");
+        }
+        this.stripes = new ArrayBlockingQueue[stripeCount];
+        for (int i = 0; i < stripeCount; i++) {
+            stripes[i] = new ArrayBlockingQueue<>(stripeCapacity);
+        }
+        this.maxBatchSize = maxBatchSize;
+        this.maxDelayNanos = maxDelay.toNanos();
+        this.writer = writer;
+        this.retryable = retryable;
+        this.flusher = new Thread(this::runFlusher, "thumb-write-behind");
+        this.flusher.setDaemon(true);
+    }
+
+    public void start() {
+        flusher.start();
+    }
+
+    /**
+     * 放入一条操作，分段已满时阻塞直到后台线程腾出空间
+     */
+    public void offer(ThumbWriteEvent event) {
+        if (!accepting) {
+            throw new IllegalStateException("thumb write-behind buffer is closed");
+        }
+        ArrayBlockingQueue<ThumbWriteEvent> stripe = stripes[Math.floorMod(Long.hashCode(event.userId()), stripes.length)];
+        // 先计数再入队，保证后台线程看到 pending 为 0 时队列一定为空
+        if (pending.incrementAndGet() >= maxBatchSize) {
+            LockSupport.unpark(flusher);
+        }
+        if (!stripe.offer(event)) {
+            LockSupport.unpark(flusher);
+            try {
+                stripe.put(event);
+            } catch (InterruptedException e) {
+                pending.decrementAndGet();
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("interrupted while waiting for thumb write-behind buffer", e);
+            }
+        }
+        offeredEvents.increment();
+    }
+
+    private void runFlusher() {
+        while (running || pending.get() > 0) {
+            if (running && pending.get() < maxBatchSize) {
+                LockSupport.parkNanos(this, maxDelayNanos);
+            }
+            List<ThumbWriteEvent> batch;
+            while (!(batch = drainBatch()).isEmpty()) {
+                if (!writeWithRetry(batch)) {
+                    break;
+                }
+            }
+        }
+    }
+
+    /**
+     * 从各分段轮流取出最多 maxBatchSize 条操作
+     */
+    private List<ThumbWriteEvent> drainBatch() {
+        List<ThumbWriteEvent> batch = new ArrayList<>(Math.min(pending.get(), maxBatchSize));
+        boolean drained = true;
+        while (batch.size() < maxBatchSize && drained) {
+            drained = false;
+            for (ArrayBlockingQueue<ThumbWriteEvent> stripe : stripes) {
+                int before = batch.size();
+                stripe.drainTo(batch, maxBatchSize - before);
+                drained |= batch.size() > before;
+                if (batch.size() >= maxBatchSize) {
+                    break;
+                }
+            }
+        }
+        pending.addAndGet(-batch.size());
+        return batch;
+    }
+
+    /**
+     * 写库直到成功；不可重试的异常连续出现 MAX_ATTEMPTS 次时拆分批次隔离；
+     * 关闭阶段最多重试 SHUTDOWN_MAX_RETRIES 次，仍失败则丢弃并返回 false
+     */
+    private boolean writeWithRetry(List<ThumbWriteEvent> batch) {
+        long backoffNanos = TimeUnit.MILLISECONDS.toNanos(100);
+        int attempts = 0;
+        int shutdownRetries = 0;
+        while (true) {
+            try {
+                writer.accept(batch);
+                writtenEvents.add(batch.size());
+                writtenBatches.increment();
+                return true;
+            } catch (Exception e) {
+                writeFailures.increment();
+                if (!retryable.test(e) && ++attempts >= MAX_ATTEMPTS) {
+                    log.error("点赞批量写库失败且不可重试，拆分隔离，事件数: {}", batch.size(), e);
+                    return isolate(batch);
+                }
+                log.error("点赞批量写库失败，事件数: {}，稍后重试", batch.size(), e);
+                if (!running && ++shutdownRetries > SHUTDOWN_MAX_RETRIES) {
+                    droppedEvents.add(batch.size());
+                    log.error("关闭时点赞批量写库仍失败，丢弃 {} 条操作，需要对账任务修复", batch.size());
+                    return false;
+                }
+                LockSupport.parkNanos(this, backoffNanos);
+                backoffNanos = Math.min(backoffNanos * 2, RETRY_BACKOFF_MAX_NANOS);
+            }
+        }
+    }
+
+    /**
+     * 把批次拆成前后两半依次写入，同一用户的操作顺序不变；拆到单条仍无法写入时丢弃该操作，由对账任务按 Redis 修复
+     */
+    private boolean isolate(List<ThumbWriteEvent> batch) {
+        if (batch.size() == 1) {
+            deadLetteredEvents.increment();
+            log.error("点赞操作无法写库，丢弃，需要对账任务修复: {}", batch.get(0));
+            return true;
+        }
+        int mid = batch.size() / 2;
+        boolean head = writeWithRetry(batch.subList(0, mid));
+        boolean tail = writeWithRetry(batch.subList(mid, batch.size()));
+        return head && tail;
+    }
+
+    /**
+     * 积压的操作数
+     */
+    public int pending() {
+        return pending.get();
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("pending", pending.get());
+        stats.put("offeredEvents", offeredEvents.sum());
+        stats.put("writtenEvents", writtenEvents.sum());
+        stats.put("writtenBatches", writtenBatches.sum());
+        stats.put("writeFailures", writeFailures.sum());
+        stats.put("droppedEvents", droppedEvents.sum());
+        stats.put("deadLetteredEvents", deadLetteredEvents.sum());
+        return stats;
+    }
+
+    /**
+     * 停止接收并写完剩余操作
+     */
+    @Override
+    public void close() {
+        accepting = false;
+        running = false;
+        LockSupport.unpark(flusher);
+        try {
+            flusher.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        // 关闭过程中仍在入队的操作由当前线程写入
+        List<ThumbWriteEvent> batch;
+        while (!(batch = drainBatch()).isEmpty()) {
+            writeWithRetry(batch);
+        }
+        if (pending.get() > 0) {
+            log.error("点赞写入缓冲区关闭时仍有 {} 条操作未写入", pending.get());
+        }
+    }
+}
@@ -0,0 +1,26 @@
+package com.ince.gigalike.manage.thumb;
+
+/**
+ * 待写入数据库的点赞 / 取消点赞操作
+ *
+ * @param type      操作类型
+ * @param thumbId   点赞记录 ID，点赞时为新生成的 ID，取消点赞时为要删除的记录 ID
+ * @param userId    用户 ID
+ * @param blogId    博客 ID
+ * @param eventTime 操作时间（毫秒）
+ */
+public record ThumbWriteEvent(Type type, long thumbId, long userId, long blogId, long eventTime) {
+
+    public enum Type {
+        LIKE,
+        UNLIKE
+    }
+
+    public static ThumbWriteEvent like(long thumbId, long userId, long blogId) {
+        return new ThumbWriteEvent(Type.LIKE, thumbId, userId, blogId, System.currentTimeMillis());
+    }
+
+    public static ThumbWriteEvent unlike(long thumbId, long userId, long blogId) {
+        return new ThumbWriteEvent(Type.UNLIKE, thumbId, userId, blogId, System.currentTimeMillis());
+    }
+}
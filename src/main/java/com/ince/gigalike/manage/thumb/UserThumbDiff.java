@@ -0,0 +1,58 @@
+package com.ince.gigalike.manage.thumb;
+
+import java.util.Arrays;
+
+/**
+ * 单个用户在 Redis 与数据库中的点赞差异
+ *
+ * @param redisOnly 只在 Redis 中存在的博客 ID，升序
+ * @param mysqlOnly 只在数据库中存在的博客 ID，升序
+ */
+public record UserThumbDiff(long[] redisOnly, long[] mysqlOnly) {
+
+    private static final long[] EMPTY = new long[0];
+
+    public boolean isEmpty() {
+        return redisOnly.length == 0 && mysqlOnly.length == 0;
+    }
+
+    /**
+     * 对两个升序、无重复的博客 ID 数组做一次线性归并
+     */
+    public static UserThumbDiff of(long[] redisBlogIds, long[] mysqlBlogIds) {
+        long[] redisOnly = new long[redisBlogIds.length];
+        long[] mysqlOnly = new long[mysqlBlogIds.length];
+        int redisOnlyCount = 0;
+        int mysqlOnlyCount = 0;
+        int i = 0;
+        int j = 0;
+        while (i < redisBlogIds.length && j < mysqlBlogIds.length) {
+            long redisBlogId = redisBlogIds[i];
+            long mysqlBlogId = mysqlBlogIds[j];
+            if (redisBlogId == mysqlBlogId) {
+                i++;
+                j++;
+            } else if (redisBlogId < mysqlBlogId) {
+                redisOnly[redisOnlyCount++] = redisBlogId;
+                i++;
+            } else {
+                mysqlOnly[mysqlOnlyCount++] = mysqlBlogId;
+                j++;
+            }
+        }
+        while (i < redisBlogIds.length) {
+            redisOnly[redisOnlyCount++] = redisBlogIds[i++];
+        }
+        while (j < mysqlBlogIds.length) {
+            mysqlOnly[mysqlOnlyCount++] = mysqlBlogIds[j++];
+        }
+        return new UserThumbDiff(trim(redisOnly, redisOnlyCount), trim(mysqlOnly, mysqlOnlyCount));
+    }
+
+    private static long[] trim(long[] values, int length) {
+        if (length == 0) {
+            return EMPTY;
+        }
+        return length == values.length ? values : Arrays.copyOf(values, length);
+    }
+}
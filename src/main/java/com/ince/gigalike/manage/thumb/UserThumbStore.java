@@ -0,0 +1,95 @@
+package com.ince.gigalike.manage.thumb;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 用户点赞状态在 Redis 中的存储，MQ 写入路径与对账任务通过它读写，屏蔽具体的键布局
+ *
+ * @see HashUserThumbStore
+ * @see BucketedUserThumbStore
+ * @see ExpiringUserThumbStore
+ */
+public interface UserThumbStore {
+
+    /**
+     * 记录点赞
+     *
+     * @return 已点赞时返回 false
+     */
+    default boolean add(long userId, long blogId) {
+        return add(userId, blogId, null);
+    }
+
+    /**
+     * 记录点赞，outbox 不为空时在同一个脚本内把点赞事件写入 outbox 流
+     *
+     * @return 已点赞时返回 false，不写 outbox
+     */
+    boolean add(long userId, long blogId, ThumbOutboxRecord outbox);
+
+    /**
+     * 删除点赞
+     *
+     * @return 未点赞时返回 false
+     */
+    default boolean remove(long userId, long blogId) {
+        return remove(userId, blogId, null);
+    }
+
+    /**
+     * 删除点赞，outbox 不为空时在同一个脚本内把取消点赞事件写入 outbox 流
+     *
+     * @return 未点赞时返回 false，不写 outbox
+     */
+    boolean remove(long userId, long blogId, ThumbOutboxRecord outbox);
+
+    /**
+     * 批量查询是否点赞
+     */
+    Map<Long, Boolean> contains(long userId, Collection<Long> blogIds);
+
+    /**
+     * 批量查询是否点赞，只读 Redis 当前的点赞数据，不续期也不触发加载，供对账使用
+     */
+    default Map<Long, Boolean> peek(long userId, Collection<Long> blogIds) {
+        return contains(userId, blogIds);
+    }
+
+    /**
+     * 用户点赞的全部博客 ID，升序
+     */
+    long[] blogIds(long userId);
+
+    /**
+     * 用户是否存在点赞数据，与 userIds 一一对应
+     */
+    boolean[] exists(List<Long> userIds);
+
+    /**
+     * 用数据库中的点赞记录重建用户点赞数据，已存在点赞数据或已加载标记时不写入
+     *
+     * @return 是否写入
+     */
+    boolean rehydrate(long userId, long[] blogIds);
+
+    /**
+     * 设置用户全部点赞数据的过期时间
+     */
+    void expire(long userId, Duration ttl);
+
+    /**
+     * 已加载标记 thumb:loaded:{userId} 是否存在，存在时 Redis 中的点赞数据是完整的，没有点赞数据即用户没有点赞。
+     * 冷数据淘汰时标记随加载写入；不淘汰时由取消点赞脚本在删除最后一条点赞时写入，常驻不过期
+     */
+    boolean isLoaded(long userId);
+
+    /**
+     * 是否淘汰冷用户的点赞数据；淘汰时没有标记也没有点赞数据的用户只是未加载，不淘汰时说明 Redis 数据丢失
+     */
+    default boolean evictsColdUsers() {
+        return false;
+    }
+}
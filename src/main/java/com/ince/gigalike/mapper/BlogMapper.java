@@ -5,6 +5,8 @@ import com.baomidou.mybatisplus.core.mapper.BaseMapper;
 import org.apache.ibatis.annotations.Param;
 import org.apache.ibatis.annotations.Select;
 
+import java.util.Collection;
+import java.util.Date;
 import java.util.List;
 import java.util.Map;
 
@@ -18,6 +20,25 @@ public interface BlogMapper extends BaseMapper<Blog> {
 
     void batchUpdateThumbCount(@Param("countMap") Map<Long, Long> countMap);
 
+    /**
+     * 把点赞数与 thumb 表记录数不一致的博客修正为记录数
+     *
+     * @return 被修正的博客数
+     */
+    int repairThumbCount(@Param("blogIds") Collection<Long> blogIds);
+
+    /**
+     * 记录一次分片计数写回，归并 ID 已存在时忽略
+     *
+     * @return 插入的行数，0 表示该归并已写回过
+     */
+    int insertThumbFold(@Param("foldId") long foldId, @Param("blogId") long blogId, @Param("delta") long delta);
+
+    /**
+     * 删除早于 before 的写回记录，每次最多 limit 条
+     */
+    int deleteThumbFoldsBefore(@Param("before") Date before, @Param("limit") int limit);
+
     /**
      * 根据话题ID查询博客列表
      */
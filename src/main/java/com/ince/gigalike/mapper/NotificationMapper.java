@@ -6,8 +6,12 @@ import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
 import com.ince.gigalike.model.entity.Notification;
 import org.apache.ibatis.annotations.Mapper;
 import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.ResultMap;
+import org.apache.ibatis.annotations.Select;
 import org.apache.ibatis.annotations.Update;
 
+import java.util.List;
+
 /**
  * 通知Mapper接口
  */
@@ -15,9 +19,9 @@ import org.apache.ibatis.annotations.Update;
 public interface NotificationMapper extends BaseMapper<Notification> {
     
     /**
-     * 分页查询用户通知（包含发送者信息）
+     * 分页查询用户通知，发送者资料由调用方按页批量读取
      */
-    IPage<Notification> selectNotificationPageWithSender(
+    IPage<Notification> selectNotificationPage(
             Page<Notification> page,
             @Param("userId") Long userId,
             @Param("isRead") Integer isRead,
@@ -30,6 +34,26 @@ public interface NotificationMapper extends BaseMapper<Notification> {
     @Update("UPDATE notifications SET is_read = 1, read_time = NOW() WHERE user_id = #{userId} AND is_read = 0")
     int markAllAsRead(@Param("userId") Long userId);
     
+    /**
+     * 多行插入一批通知，调用方控制每批的行数
+     */
+    int insertBatch(@Param("notifications") List<Notification> notifications);
+    
+    /**
+     * 按聚合键插入或更新聚合通知，点赞者数取已有值与新值中较大的一个（多个节点并发写入时不会变小），
+     * content 按更新后的点赞者数重新生成：{senderName}[ 和其他 N 人]{action}
+     */
+    int upsertAggregated(@Param("n") Notification notification,
+                         @Param("senderName") String senderName,
+                         @Param("action") String action);
+    
+    /**
+     * 按聚合键查询聚合通知
+     */
+    @Select("SELECT * FROM notifications WHERE aggregate_key = #{aggregateKey}")
+    @ResultMap("BaseResultMap")
+    Notification selectByAggregateKey(@Param("aggregateKey") String aggregateKey);
+    
     /**
      * 获取用户未读通知数量
      */
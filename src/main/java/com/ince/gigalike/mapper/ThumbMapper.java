@@ -2,6 +2,10 @@ package com.ince.gigalike.mapper;
 
 import com.ince.gigalike.model.entity.Thumb;
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.cursor.Cursor;
+
+import java.util.List;
 
 /**
 * @author inceCheng
@@ -11,6 +15,42 @@ import com.baomidou.mybatisplus.core.mapper.BaseMapper;
 */
 public interface ThumbMapper extends BaseMapper<Thumb> {
 
+    /**
+     * 多行插入点赞记录，id 由调用方生成
+     */
+    int batchInsert(@Param("thumbs") List<Thumb> thumbs);
+
+    /**
+     * 多行插入点赞记录，已存在的 (userId, blogId) 被忽略，id 由调用方生成
+     *
+     * @return 实际插入的行数
+     */
+    int insertIgnoreBatch(@Param("thumbs") List<Thumb> thumbs);
+
+    /**
+     * 给定主键中实际存在的主键，用于确认 INSERT IGNORE 插入了哪些行；普通的一致性读，不加锁
+     */
+    List<Long> selectIdsIn(@Param("ids") List<Long> ids);
+
+    /**
+     * 删除一篇博客下指定用户的点赞记录
+     *
+     * @return 实际删除的行数，即该博客点赞数的减少量
+     */
+    int deleteByBlogAndUsers(@Param("blogId") long blogId, @Param("userIds") List<Long> userIds);
+
+    /**
+     * 按用户 ID 升序流式读取 (afterUserId, maxUserId] 内的用户及其点赞记录，
+     * 每条记录只有 userId、blogId，没有点赞的用户返回一行 blogId 为空的记录；
+     * 需要在事务内遍历，遍历期间占用一个数据库连接
+     */
+    Cursor<Thumb> streamUserThumbs(@Param("afterUserId") long afterUserId, @Param("maxUserId") long maxUserId);
+
+    /**
+     * 用户点赞的全部博客 ID，只走 (userId, blogId) 唯一索引
+     */
+    List<Long> selectBlogIdsByUserId(@Param("userId") long userId);
+
 }
 
 
@@ -81,6 +81,18 @@ public class Notification {
     @TableField(value = "extra_data", typeHandler = JacksonTypeHandler.class)
     private Map<String, Object> extraData;
 
+    /**
+     * 聚合键（如点赞通知按接收者、博客聚合为一条），非聚合通知为 null
+     */
+    @TableField("aggregate_key")
+    private String aggregateKey;
+
+    /**
+     * 聚合通知去重后的触发者数（近似值），非聚合通知为 1
+     */
+    @TableField("actor_count")
+    private Integer actorCount;
+
     /**
      * 创建时间
      */
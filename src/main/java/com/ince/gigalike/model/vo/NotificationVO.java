@@ -56,6 +56,11 @@ public class NotificationVO {
      */
     private Map<String, Object> extraData;
     
+    /**
+     * 聚合通知去重后的触发者数（如点赞人数，近似值），非聚合通知为 1
+     */
+    private Integer actorCount;
+    
     /**
      * 创建时间
      */
@@ -6,9 +6,10 @@ import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
 import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
 import com.ince.gigalike.common.PageRequest;
-import com.ince.gigalike.constant.ThumbConstant;
 import com.ince.gigalike.enums.ErrorCode;
 import com.ince.gigalike.exception.BusinessException;
+import com.ince.gigalike.manage.cache.MultiLevelCache;
+import com.ince.gigalike.manage.thumb.ShardedThumbCounter;
 import com.ince.gigalike.mapper.BlogTopicMapper;
 import com.ince.gigalike.model.dto.BlogCreateRequest;
 import com.ince.gigalike.model.dto.BlogSearchRequest;
@@ -33,7 +34,6 @@ import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.lang3.StringUtils;
 import org.springframework.beans.BeanUtils;
 import org.springframework.context.annotation.Lazy;
-import org.springframework.data.redis.core.RedisTemplate;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -64,10 +64,19 @@ public class BlogServiceImpl extends ServiceImpl<BlogMapper, Blog>
     private BlogTopicMapper blogTopicMapper;
 
     @Resource
-    private RedisTemplate<String, Object> redisTemplate;
+    private FileUploadService fileUploadService;
 
     @Resource
-    private FileUploadService fileUploadService;
+    private MultiLevelCache<Long, Blog> blogCache;
+
+    @Resource
+    private MultiLevelCache<Long, UserVO> userVOCache;
+
+    @Resource
+    private MultiLevelCache<Long, List<Topic>> blogTopicsCache;
+
+    @Resource
+    private ShardedThumbCounter shardedThumbCounter;
 
     @Override
     @Transactional(rollbackFor = Exception.class)
@@ -138,7 +147,7 @@ public class BlogServiceImpl extends ServiceImpl<BlogMapper, Blog>
 
     @Override
     public BlogVO getBlogVOById(long blogId, HttpServletRequest request) {
-        Blog blog = this.getById(blogId);
+        Blog blog = blogCache.get(blogId);
         if (blog == null) {
             throw new BusinessException(ErrorCode.NOT_FOUND_ERROR, "博客不存在");
         }
@@ -166,22 +175,13 @@ public class BlogServiceImpl extends ServiceImpl<BlogMapper, Blog>
             // 用户未登录，忽略
         }
 
-        // 获取点赞状态
-        Map<Long, Boolean> blogIdHasThumbMap = new HashMap<>();
-        if (loginUser != null) {
-            List<Object> blogIdList = blogList.stream()
-                    .map(blog -> blog.getId().toString())
-                    .collect(Collectors.toList());
-            
-            List<Object> thumbList = redisTemplate.opsForHash()
-                    .multiGet(ThumbConstant.USER_THUMB_KEY_PREFIX + loginUser.getId(), blogIdList);
-            
-            for (int i = 0; i < thumbList.size(); i++) {
-                if (thumbList.get(i) != null) {
-                    blogIdHasThumbMap.put(Long.valueOf(blogIdList.get(i).toString()), true);
-                }
-            }
-        }
+        // 获取点赞状态，先查本地缓存，未命中的一次 HMGET
+        List<Long> blogIdList = blogList.stream()
+                .map(Blog::getId)
+                .collect(Collectors.toList());
+        Map<Long, Boolean> blogIdHasThumbMap = loginUser == null
+                ? Map.of()
+                : thumbService.hasThumbBatch(loginUser.getId(), blogIdList);
 
         // 批量获取作者信息
         Set<Long> userIds = blogList.stream()
@@ -193,15 +193,19 @@ public class BlogServiceImpl extends ServiceImpl<BlogMapper, Blog>
         // 批量获取话题信息
         Map<Long, List<TopicVO>> blogTopicsMap = new HashMap<>();
         for (Blog blog : blogList) {
-            List<TopicVO> topics = topicService.getTopicsByBlogId(blog.getId(), request);
+            List<TopicVO> topics = topicService.getTopicVOList(blogTopicsCache.get(blog.getId()), request);
             blogTopicsMap.put(blog.getId(), topics);
         }
 
+        // 热点博客尚未写回数据库的点赞数
+        Map<Long, Long> unsyncedThumbCounts = shardedThumbCounter.getUnsyncedCounts(blogIdList);
+
         // 转换为VO
         return blogList.stream()
                 .map(blog -> {
                     BlogVO blogVO = new BlogVO();
                     BeanUtils.copyProperties(blog, blogVO);
+                    addUnsyncedThumbCount(blogVO, unsyncedThumbCounts.get(blog.getId()));
                     
                     // 设置点赞状态
                     blogVO.setHasThumb(blogIdHasThumbMap.getOrDefault(blog.getId(), false));
@@ -266,6 +270,7 @@ public class BlogServiceImpl extends ServiceImpl<BlogMapper, Blog>
             }
         }
 
+        blogTopicsCache.evictAfterCommit(List.of(blogId));
         return true;
     }
 
@@ -280,17 +285,13 @@ public class BlogServiceImpl extends ServiceImpl<BlogMapper, Blog>
     private BlogVO getBlogVO(Blog blog, User loginUser, HttpServletRequest request) {
         BlogVO blogVO = new BlogVO();
         BeanUtils.copyProperties(blog, blogVO);
+        addUnsyncedThumbCount(blogVO, shardedThumbCounter.getUnsyncedCounts(List.of(blog.getId())).get(blog.getId()));
 
         // 设置作者信息
-        User author = userService.getById(blog.getUserid());
-        if (author != null) {
-            UserVO authorVO = new UserVO();
-            BeanUtils.copyProperties(author, authorVO);
-            blogVO.setAuthor(authorVO);
-        }
+        blogVO.setAuthor(userVOCache.get(blog.getUserid()));
 
         // 设置话题信息
-        List<TopicVO> topics = topicService.getTopicsByBlogId(blog.getId(), request);
+        List<TopicVO> topics = topicService.getTopicVOList(blogTopicsCache.get(blog.getId()), request);
         blogVO.setTopics(topics);
 
         // 设置点赞状态
@@ -304,6 +305,17 @@ public class BlogServiceImpl extends ServiceImpl<BlogMapper, Blog>
         return blogVO;
     }
 
+    /**
+     * 叠加热点博客在 Redis 分片中尚未写回数据库的点赞数
+     */
+    private void addUnsyncedThumbCount(BlogVO blogVO, Long unsynced) {
+        if (unsynced == null || unsynced == 0) {
+            return;
+        }
+        int thumbCount = blogVO.getThumbCount() == null ? 0 : blogVO.getThumbCount();
+        blogVO.setThumbCount((int) Math.max(0, thumbCount + unsynced));
+    }
+
     /**
      * 更新图片路径中的blogId（从临时路径更新为正式路径）
      */
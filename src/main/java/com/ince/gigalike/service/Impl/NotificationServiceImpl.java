@@ -1,27 +1,38 @@
 package com.ince.gigalike.service.Impl;
 
+import cn.hutool.core.collection.ListUtil;
 import com.baomidou.mybatisplus.core.metadata.IPage;
+import com.baomidou.mybatisplus.core.toolkit.IdWorker;
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
 import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
 import com.ince.gigalike.enums.ErrorCode;
 import com.ince.gigalike.exception.BusinessException;
 import com.ince.gigalike.listener.notification.msg.NotificationEvent;
+import com.ince.gigalike.manage.cache.MultiLevelCache;
+import com.ince.gigalike.manage.notification.NotificationLikerCounter;
+import com.ince.gigalike.manage.notification.NotificationPushThrottler;
+import com.ince.gigalike.manage.notification.NotificationSenderCache;
 import com.ince.gigalike.mapper.NotificationMapper;
 import com.ince.gigalike.model.dto.NotificationQueryRequest;
+import com.ince.gigalike.model.entity.Blog;
 import com.ince.gigalike.model.entity.Notification;
-import com.ince.gigalike.model.entity.User;
 import com.ince.gigalike.model.vo.NotificationVO;
 import com.ince.gigalike.service.NotificationService;
-import com.ince.gigalike.service.UserService;
-import com.ince.gigalike.websocket.NotificationWebSocketHandler;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.BeanUtils;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
 import java.util.Map;
 
 /**
@@ -32,50 +43,151 @@ import java.util.Map;
 @Slf4j
 public class NotificationServiceImpl extends ServiceImpl<NotificationMapper, Notification> implements NotificationService {
 
-    private final UserService userService;
-    private final NotificationWebSocketHandler webSocketHandler;
+    /**
+     * 单条多行 INSERT 最多包含的通知数
+     */
+    private static final int INSERT_CHUNK_SIZE = 500;
+
+    private final NotificationPushThrottler pushThrottler;
+    private final MultiLevelCache<Long, Blog> blogCache;
+    private final NotificationSenderCache senderCache;
+    private final NotificationLikerCounter likerCounter;
 
     @Override
     @Transactional(rollbackFor = Exception.class)
     public void createNotification(NotificationEvent event) {
+        createNotifications(List.of(event));
+    }
+
+    @Override
+    @Transactional(rollbackFor = Exception.class)
+    public void createNotifications(List<NotificationEvent> events) {
         // 1. 防止自己给自己发通知
-        if (event.getSenderId() != null && event.getSenderId().equals(event.getUserId())) {
-            log.debug("跳过自己给自己的通知：userId={}, senderId={}", event.getUserId(), event.getSenderId());
+        List<NotificationEvent> valid = new ArrayList<>(events.size());
+        for (NotificationEvent event : events) {
+            if (event.getSenderId() != null && event.getSenderId().equals(event.getUserId())) {
+                log.debug("跳过自己给自己的通知：userId={}, senderId={}", event.getUserId(), event.getSenderId());
+                continue;
+            }
+            valid.add(event);
+        }
+        if (valid.isEmpty()) {
             return;
         }
 
-        // 2. 生成通知内容
-        Map<String, String> notificationContent = generateNotificationContent(event);
+        // 2. 批量读取本批全部发送者
+        Map<Long, NotificationVO.SenderInfo> senders = senderCache.getAll(
+                valid.stream().map(NotificationEvent::getSenderId).toList());
+
+        // 3. 生成通知记录
+        Date now = new Date();
+        List<Notification> notifications = new ArrayList<>(valid.size());
+        for (NotificationEvent event : valid) {
+            Map<String, String> notificationContent =
+                    generateNotificationContent(event, senders.get(event.getSenderId()));
+            Notification notification = new Notification();
+            notification.setId(IdWorker.getId());
+            notification.setUserId(event.getUserId());
+            notification.setSenderId(event.getSenderId());
+            notification.setType(event.getType());
+            notification.setTitle(notificationContent.get("title"));
+            notification.setContent(notificationContent.get("content"));
+            notification.setRelatedId(event.getRelatedId());
+            notification.setRelatedType(event.getRelatedType());
+            notification.setIsRead(0);
+            notification.setExtraData(event.getExtraData());
+            notification.setActorCount(1);
+            notification.setCreateTime(now);
+            notification.setUpdateTime(now);
+            notifications.add(notification);
+        }
 
-        // 3. 创建通知记录
-        Notification notification = new Notification();
-        notification.setUserId(event.getUserId());
-        notification.setSenderId(event.getSenderId());
-        notification.setType(event.getType());
-        notification.setTitle(notificationContent.get("title"));
-        notification.setContent(notificationContent.get("content"));
-        notification.setRelatedId(event.getRelatedId());
-        notification.setRelatedType(event.getRelatedType());
-        notification.setIsRead(0);
-        notification.setExtraData(event.getExtraData());
-        notification.setCreateTime(new Date());
-        notification.setUpdateTime(new Date());
+        // 4. 多行插入保存通知
+        for (List<Notification> chunk : ListUtil.partition(notifications, INSERT_CHUNK_SIZE)) {
+            baseMapper.insertBatch(chunk);
+        }
+
+        // 5. 事务提交后实时推送通知给用户，按接收者限频
+        List<NotificationVO> notificationVOs = new ArrayList<>(notifications.size());
+        for (Notification notification : notifications) {
+            notificationVOs.add(convertToVO(notification, senders.get(notification.getSenderId())));
+        }
+        Runnable push = () -> {
+            for (int i = 0; i < notifications.size(); i++) {
+                pushThrottler.push(notifications.get(i).getUserId(), notificationVOs.get(i));
+            }
+        };
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    push.run();
+                }
+            });
+        } else {
+            push.run();
+        }
+
+        log.info("创建通知成功：{} 条", notifications.size());
+    }
+
+    @Override
+    public void createAggregatedNotification(NotificationEvent latest, Collection<Long> likerIds) {
+        // 1. 从缓存读取博客，确定接收者与博客标题
+        Blog blog = blogCache.get(latest.getRelatedId());
+        if (blog == null) {
+            log.warn("博客不存在，跳过点赞通知：blogId={}", latest.getRelatedId());
+            return;
+        }
+        Long authorId = blog.getUserid();
+        // 合并窗口已在事件进入前过滤作者给自己的点赞，这里只防御直接调用
+        if (authorId.equals(latest.getSenderId())) {
+            return;
+        }
+
+        // 2. 点赞者去重计数：同一用户反复点赞 / 取消点赞只计一次
+        String aggregateKey = latest.getType() + ":" + latest.getRelatedType() + ":"
+                + latest.getRelatedId() + ":" + authorId;
+        int count = (int) Math.min(likerCounter.addAndCount(aggregateKey, likerIds), Integer.MAX_VALUE);
+
+        // 3. 生成内容：{点赞者}[ 和其他 N 人] 点赞了你的文章《标题》
+        Map<Long, NotificationVO.SenderInfo> senders =
+                senderCache.getAll(Collections.singletonList(latest.getSenderId()));
+        String senderName = senderName(senders.get(latest.getSenderId()));
+        String action = " 点赞了你的文章《" + blog.getTitle() + "》";
+        String others = count > 1 ? String.format(Locale.ROOT, " 和其他 %,d 人", count - 1) : "";
 
-        // 4. 保存通知
-        this.save(notification);
+        Map<String, Object> extraData = new HashMap<>();
+        extraData.put("blogTitle", blog.getTitle());
+        extraData.put("blogId", blog.getId());
 
-        // 5. 实时推送通知给用户
-        try {
-            NotificationVO notificationVO = convertToVO(notification);
-            webSocketHandler.sendNotificationToUser(event.getUserId(), notificationVO);
-            log.debug("实时推送通知成功：userId={}, type={}", event.getUserId(), event.getType());
-        } catch (Exception e) {
-            log.error("实时推送通知失败：userId={}, type={}", event.getUserId(), event.getType(), e);
-            // 推送失败不影响通知的保存
+        Date now = new Date();
+        Notification notification = new Notification();
+        notification.setId(IdWorker.getId());
+        notification.setUserId(authorId);
+        notification.setSenderId(latest.getSenderId());
+        notification.setType(latest.getType());
+        notification.setTitle("收到新的点赞");
+        notification.setContent(senderName + others + action);
+        notification.setRelatedId(latest.getRelatedId());
+        notification.setRelatedType(latest.getRelatedType());
+        notification.setExtraData(extraData);
+        notification.setAggregateKey(aggregateKey);
+        notification.setActorCount(count);
+        notification.setCreateTime(now);
+        notification.setUpdateTime(now);
+
+        // 4. 插入或更新已有的聚合通知（点赞者数只增不减），再读取更新后的通知推送
+        baseMapper.upsertAggregated(notification, senderName, action);
+        Notification aggregated = baseMapper.selectByAggregateKey(notification.getAggregateKey());
+        if (aggregated != null) {
+            // 其他节点可能已写入更新的点赞者
+            NotificationVO.SenderInfo sender = senderCache.getAll(Collections.singletonList(aggregated.getSenderId()))
+                    .get(aggregated.getSenderId());
+            pushThrottler.push(authorId, convertToVO(aggregated, sender));
         }
 
-        log.info("创建通知成功：userId={}, type={}, relatedId={}",
-                event.getUserId(), event.getType(), event.getRelatedId());
+        log.debug("写入聚合点赞通知：userId={}, blogId={}, count={}", authorId, latest.getRelatedId(), count);
     }
 
     @Override
@@ -91,12 +203,15 @@ public class NotificationServiceImpl extends ServiceImpl<NotificationMapper, Not
         // 创建分页对象
         Page<Notification> page = new Page<>(request.getCurrent(), request.getPageSize());
 
-        // 查询通知（包含发送者信息）
-        IPage<Notification> notificationPage = baseMapper.selectNotificationPageWithSender(
+        // 查询通知
+        IPage<Notification> notificationPage = baseMapper.selectNotificationPage(
                 page, userId, request.getIsRead(), request.getType());
 
-        // 转换为VO
-        return notificationPage.convert(this::convertToVO);
+        // 转换为VO，本页发送者去重后一次批量读取
+        Map<Long, NotificationVO.SenderInfo> senders = senderCache.getAll(
+                notificationPage.getRecords().stream().map(Notification::getSenderId).toList());
+        return notificationPage.convert(notification ->
+                convertToVO(notification, senders.get(notification.getSenderId())));
     }
 
     @Override
@@ -167,19 +282,12 @@ public class NotificationServiceImpl extends ServiceImpl<NotificationMapper, Not
     }
 
     /**
-     * 生成通知内容
+     * 生成通知内容，发送者已由调用方批量查询
      */
-    private Map<String, String> generateNotificationContent(NotificationEvent event) {
+    private Map<String, String> generateNotificationContent(NotificationEvent event, NotificationVO.SenderInfo sender) {
         Map<String, String> result = new HashMap<>();
 
-        // 获取发送者信息
-        String senderName = "系统";
-        if (event.getSenderId() != null) {
-            User sender = userService.getById(event.getSenderId());
-            if (sender != null) {
-                senderName = sender.getDisplayName() != null ? sender.getDisplayName() : sender.getUsername();
-            }
-        }
+        String senderName = senderName(sender);
 
         // 根据通知类型生成内容
         switch (event.getType()) {
@@ -209,25 +317,22 @@ public class NotificationServiceImpl extends ServiceImpl<NotificationMapper, Not
         return result;
     }
 
+    private static String senderName(NotificationVO.SenderInfo sender) {
+        if (sender == null) {
+            return "系统";
+        }
+        return sender.getDisplayName() != null ? sender.getDisplayName() : sender.getUsername();
+    }
+
     /**
-     * 转换为VO对象
+     * 转换为VO对象，发送者资料由调用方批量读取
      */
-    private NotificationVO convertToVO(Notification notification) {
+    private NotificationVO convertToVO(Notification notification, NotificationVO.SenderInfo sender) {
         NotificationVO vo = new NotificationVO();
         BeanUtils.copyProperties(notification, vo);
 
         // 设置发送者信息
-        if (notification.getSenderId() != null) {
-            User sender = userService.getById(notification.getSenderId());
-            if (sender != null) {
-                NotificationVO.SenderInfo senderInfo = new NotificationVO.SenderInfo();
-                senderInfo.setId(sender.getId());
-                senderInfo.setUsername(sender.getUsername());
-                senderInfo.setDisplayName(sender.getDisplayName());
-                senderInfo.setAvatarUrl(sender.getAvatarUrl());
-                vo.setSender(senderInfo);
-            }
-        }
+        vo.setSender(sender);
 
         return vo;
     }
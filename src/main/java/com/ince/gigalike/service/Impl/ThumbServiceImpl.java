@@ -1,10 +1,16 @@
 package com.ince.gigalike.service.Impl;
 
+import com.baomidou.mybatisplus.core.toolkit.IdWorker;
 import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
 import com.ince.gigalike.constant.ThumbConstant;
 import com.ince.gigalike.enums.ErrorCode;
 import com.ince.gigalike.exception.BusinessException;
 import com.ince.gigalike.manage.cache.CacheManager;
+import com.ince.gigalike.manage.cache.MultiLevelCache;
+import com.ince.gigalike.manage.lock.KeyedLock;
+import com.ince.gigalike.manage.thumb.ShardedThumbCounter;
+import com.ince.gigalike.manage.thumb.ThumbWriteBehindBuffer;
+import com.ince.gigalike.manage.thumb.ThumbWriteEvent;
 import com.ince.gigalike.model.dto.DoThumbRequest;
 import com.ince.gigalike.model.entity.Blog;
 import com.ince.gigalike.model.entity.Thumb;
@@ -17,10 +23,17 @@ import com.ince.gigalike.utils.RedisKeyUtil;
 import jakarta.servlet.http.HttpServletRequest;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.redis.core.RedisTemplate;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.support.TransactionTemplate;
 
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
 /**
  * @author inceCheng
  * @description 针对表【thumb】的数据库操作Service实现
@@ -41,6 +54,23 @@ public class ThumbServiceImpl extends ServiceImpl<ThumbMapper, Thumb> implements
 
     private final CacheManager cacheManager;
 
+    private final KeyedLock thumbUserLock;
+
+    /**
+     * 只在 write-behind 模式下存在
+     */
+    private final ObjectProvider<ThumbWriteBehindBuffer> thumbWriteBehindBuffer;
+
+    private final MultiLevelCache<Long, Blog> blogCache;
+
+    private final ShardedThumbCounter shardedThumbCounter;
+
+    /**
+     * 写库模式：sync 请求内同步写库，write-behind 由缓冲区批量异步写库
+     */
+    @Value("${thumb.write-mode:sync}")
+    private String writeMode;
+
     /**
      * 点赞
      *
@@ -54,18 +84,23 @@ public class ThumbServiceImpl extends ServiceImpl<ThumbMapper, Thumb> implements
             throw new BusinessException(ErrorCode.PARAMS_ERROR);
         }
         User loginUser = userService.getLoginUser(request);
+        if (isWriteBehind()) {
+            return thumbUserLock.executeWithLock(loginUser.getId(),
+                    () -> doThumbWriteBehind(doThumbRequest.getBlogId(), loginUser));
+        }
         // 加锁 保证同一个用户只能点赞一次
-        synchronized (loginUser.getId().toString().intern()) {
+        return thumbUserLock.executeWithLock(loginUser.getId(), () ->
             // 编程式事务
-            return transactionTemplate.execute(status -> {
+            transactionTemplate.execute(status -> {
                 Long blogId = doThumbRequest.getBlogId();
                 // 判断是否点过赞(Redis)
                 Boolean exists = this.hasThumb(blogId, loginUser.getId());
                 if (exists) {
                     throw new BusinessException(ErrorCode.PARAMS_ERROR, "已经点过赞了");
                 }
-                // 点赞数加一
-                boolean update = blogService.lambdaUpdate()
+                // 点赞数加一，热点博客改为累加 Redis 分片，避免热点行锁
+                boolean sharded = shardedThumbCounter.shouldShard(blogId);
+                boolean update = sharded || blogService.lambdaUpdate()
                         .eq(Blog::getId, blogId)
                         .setSql("thumbCount = thumbCount + 1")
                         .update();
@@ -82,10 +117,14 @@ public class ThumbServiceImpl extends ServiceImpl<ThumbMapper, Thumb> implements
                     Long realThumbId = thumb.getId();
                     redisTemplate.opsForHash().put(hashKey, fieldKey, realThumbId);
                     cacheManager.putIfPresent(hashKey, fieldKey, realThumbId);
+                    if (sharded) {
+                        shardedThumbCounter.increment(blogId, 1);
+                    } else {
+                        blogCache.evictAfterCommit(List.of(blogId));
+                    }
                 }
                 return success;
-            });
-        }
+            }));
     }
 
     @Override
@@ -94,11 +133,14 @@ public class ThumbServiceImpl extends ServiceImpl<ThumbMapper, Thumb> implements
             throw new BusinessException(ErrorCode.PARAMS_ERROR);
         }
         User loginUser = userService.getLoginUser(request);
+        if (isWriteBehind()) {
+            return thumbUserLock.executeWithLock(loginUser.getId(),
+                    () -> undoThumbWriteBehind(doThumbRequest.getBlogId(), loginUser));
+        }
         // 加锁
-        synchronized (loginUser.getId().toString().intern()) {
-
+        return thumbUserLock.executeWithLock(loginUser.getId(), () ->
             // 编程式事务
-            return transactionTemplate.execute(status -> {
+            transactionTemplate.execute(status -> {
                 Long blogId = doThumbRequest.getBlogId();
                 // 判断是否点过赞(Redis)
                 Object thumbIdObj = cacheManager.get(ThumbConstant.USER_THUMB_KEY_PREFIX + loginUser.getId(), blogId.toString());
@@ -108,7 +150,8 @@ public class ThumbServiceImpl extends ServiceImpl<ThumbMapper, Thumb> implements
                 // 点过赞，则获取到点赞记录id
                 Long thumbId = Long.parseLong(thumbIdObj.toString());
                 // 点赞数减一
-                boolean update = blogService.lambdaUpdate()
+                boolean sharded = shardedThumbCounter.shouldShard(blogId);
+                boolean update = sharded || blogService.lambdaUpdate()
                         .eq(Blog::getId, blogId)
                         .setSql("thumbCount = thumbCount - 1")
                         .update();
@@ -119,12 +162,56 @@ public class ThumbServiceImpl extends ServiceImpl<ThumbMapper, Thumb> implements
                     String fieldKey = blogId.toString();
                     redisTemplate.opsForHash().delete(hashKey, fieldKey);
                     cacheManager.putIfPresent(hashKey, fieldKey, ThumbConstant.UN_THUMB_CONSTANT);
+                    if (sharded) {
+                        shardedThumbCounter.increment(blogId, -1);
+                    } else {
+                        blogCache.evictAfterCommit(List.of(blogId));
+                    }
                 }
                 return success;
-            });
+            }));
+    }
+
+    private boolean isWriteBehind() {
+        return "write-behind".equals(writeMode);
+    }
+
+    /**
+     * 异步写库模式的点赞：Redis 立即生效，点赞记录与点赞数由缓冲区批量写库
+     * 记录 ID 在此处生成并写入 Redis，取消点赞时按该 ID 删除
+     */
+    private Boolean doThumbWriteBehind(Long blogId, User loginUser) {
+        if (this.hasThumb(blogId, loginUser.getId())) {
+            throw new BusinessException(ErrorCode.PARAMS_ERROR, "已经点过赞了");
+        }
+        if (blogCache.get(blogId) == null) {
+            throw new BusinessException(ErrorCode.NOT_FOUND_ERROR, "博客不存在");
         }
+        long thumbId = IdWorker.getId();
+        String hashKey = ThumbConstant.USER_THUMB_KEY_PREFIX + loginUser.getId();
+        String fieldKey = blogId.toString();
+        redisTemplate.opsForHash().put(hashKey, fieldKey, thumbId);
+        cacheManager.putIfPresent(hashKey, fieldKey, thumbId);
+        thumbWriteBehindBuffer.getObject().offer(ThumbWriteEvent.like(thumbId, loginUser.getId(), blogId));
+        return true;
     }
 
+    /**
+     * 异步写库模式的取消点赞
+     */
+    private Boolean undoThumbWriteBehind(Long blogId, User loginUser) {
+        String hashKey = ThumbConstant.USER_THUMB_KEY_PREFIX + loginUser.getId();
+        String fieldKey = blogId.toString();
+        Object thumbIdObj = cacheManager.get(hashKey, fieldKey);
+        if (thumbIdObj == null || thumbIdObj.equals(ThumbConstant.UN_THUMB_CONSTANT)) {
+            throw new BusinessException(ErrorCode.PARAMS_ERROR, "还没有点赞呢");
+        }
+        long thumbId = Long.parseLong(thumbIdObj.toString());
+        redisTemplate.opsForHash().delete(hashKey, fieldKey);
+        cacheManager.putIfPresent(hashKey, fieldKey, ThumbConstant.UN_THUMB_CONSTANT);
+        thumbWriteBehindBuffer.getObject().offer(ThumbWriteEvent.unlike(thumbId, loginUser.getId(), blogId));
+        return true;
+    }
 
     /**
      * 是否点赞
@@ -136,6 +223,24 @@ public class ThumbServiceImpl extends ServiceImpl<ThumbMapper, Thumb> implements
     @Override
     public Boolean hasThumb(Long blogId, Long userId) {
         Object thumbIdObj = cacheManager.get(ThumbConstant.USER_THUMB_KEY_PREFIX + userId, blogId.toString());
+        return isThumbed(thumbIdObj, userId, blogId);
+    }
+
+    @Override
+    public Map<Long, Boolean> hasThumbBatch(Long userId, Collection<Long> blogIds) {
+        List<String> fieldKeys = blogIds.stream().map(String::valueOf).toList();
+        Map<String, Object> thumbIds = cacheManager.getAll(ThumbConstant.USER_THUMB_KEY_PREFIX + userId, fieldKeys);
+        Map<Long, Boolean> result = new HashMap<>(blogIds.size() * 2);
+        for (Long blogId : blogIds) {
+            result.put(blogId, isThumbed(thumbIds.get(blogId.toString()), userId, blogId));
+        }
+        return result;
+    }
+
+    /**
+     * 缓存中的点赞记录 ID 是否表示已点赞
+     */
+    private boolean isThumbed(Object thumbIdObj, Long userId, Long blogId) {
         if (thumbIdObj == null) {
             return false;
         }
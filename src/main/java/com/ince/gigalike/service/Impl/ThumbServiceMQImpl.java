@@ -1,32 +1,32 @@
 package com.ince.gigalike.service.Impl;
 
+import com.baomidou.mybatisplus.core.toolkit.IdWorker;
 import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
-import com.ince.gigalike.constant.RedisLuaScriptConstant;
-import com.ince.gigalike.enums.LuaStatusEnum;
 import com.ince.gigalike.enums.NotificationTypeEnum;
 import com.ince.gigalike.enums.RelatedTypeEnum;
 import com.ince.gigalike.listener.notification.msg.NotificationEvent;
 import com.ince.gigalike.listener.thumb.msg.ThumbEvent;
+import com.ince.gigalike.manage.notification.NotificationEventPublisher;
+import com.ince.gigalike.manage.thumb.ThumbDirtyTracker;
+import com.ince.gigalike.manage.thumb.ThumbEventPublisher;
+import com.ince.gigalike.manage.thumb.ThumbOutboxRecord;
+import com.ince.gigalike.manage.thumb.ThumbOutboxRelay;
+import com.ince.gigalike.manage.thumb.UserThumbStore;
 import com.ince.gigalike.mapper.ThumbMapper;
 import com.ince.gigalike.model.dto.DoThumbRequest;
-import com.ince.gigalike.model.entity.Blog;
 import com.ince.gigalike.model.entity.Thumb;
 import com.ince.gigalike.model.entity.User;
-import com.ince.gigalike.service.BlogService;
 import com.ince.gigalike.service.ThumbService;
 import com.ince.gigalike.service.UserService;
-import com.ince.gigalike.utils.RedisKeyUtil;
 import jakarta.servlet.http.HttpServletRequest;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.pulsar.client.api.PulsarClientException;
-import org.springframework.data.redis.core.RedisTemplate;
-import org.springframework.pulsar.core.PulsarTemplate;
 import org.springframework.stereotype.Service;
 
 import java.time.LocalDateTime;
-import java.util.Arrays;
-import java.util.HashMap;
+import java.util.Collection;
+import java.util.List;
 import java.util.Map;
 
 /**
@@ -40,10 +40,11 @@ import java.util.Map;
 public class ThumbServiceMQImpl extends ServiceImpl<ThumbMapper, Thumb> implements ThumbService {
 
     private final UserService userService;
-    private final BlogService blogService;
-    private final RedisTemplate<String, Object> redisTemplate;
-    private final PulsarTemplate<ThumbEvent> pulsarTemplate;
-    private final PulsarTemplate<NotificationEvent> notificationPulsarTemplate;
+    private final UserThumbStore userThumbStore;
+    private final ThumbEventPublisher thumbEventPublisher;
+    private final NotificationEventPublisher notificationEventPublisher;
+    private final ThumbDirtyTracker thumbDirtyTracker;
+    private final ThumbOutboxRelay thumbOutboxRelay;
 
     @Override
     public Boolean doThumb(DoThumbRequest doThumbRequest, HttpServletRequest request) throws PulsarClientException {
@@ -53,30 +54,29 @@ public class ThumbServiceMQImpl extends ServiceImpl<ThumbMapper, Thumb> implemen
         User loginUser = userService.getLoginUser(request);
         Long loginUserId = loginUser.getId();
         Long blogId = doThumbRequest.getBlogId();
-        String userThumbKey = RedisKeyUtil.getUserThumbKey(loginUserId);
         
-        // 执行 Lua 脚本，点赞存入 Redis
-        long result = redisTemplate.execute(
-                RedisLuaScriptConstant.THUMB_SCRIPT_MQ,
-                Arrays.asList(userThumbKey),
-                blogId
-        );
-        if (LuaStatusEnum.FAIL.getValue() == result) {
+        // 点赞存入 Redis，开启 outbox 时点赞事件随点赞状态一起写入 outbox 流，由转发组件发送
+        ThumbOutboxRecord outbox = thumbOutboxRelay.isEnabled() ? thumbOutboxRelay.newRecord(loginUserId) : null;
+        if (!userThumbStore.add(loginUserId, blogId, outbox)) {
             throw new RuntimeException("用户已点赞");
         }
+        thumbDirtyTracker.markDirty(loginUserId, blogId);
 
         // 发送点赞事件
-        ThumbEvent thumbEvent = ThumbEvent.builder()
-                .blogId(blogId)
-                .userId(loginUserId)
-                .type(ThumbEvent.EventType.INCR)
-                .eventTime(LocalDateTime.now())
-                .build();
-        pulsarTemplate.sendAsync("thumb-topic", thumbEvent).exceptionally(ex -> {
-            redisTemplate.opsForHash().delete(userThumbKey, blogId.toString(), true);
-            log.error("点赞事件发送失败: userId={}, blogId={}", loginUserId, blogId, ex);
-            return null;
-        });
+        if (outbox == null) {
+            ThumbEvent thumbEvent = ThumbEvent.builder()
+                    .eventId(IdWorker.getId())
+                    .blogId(blogId)
+                    .userId(loginUserId)
+                    .type(ThumbEvent.EventType.INCR)
+                    .eventTime(LocalDateTime.now())
+                    .build();
+            thumbEventPublisher.publish(thumbEvent).exceptionally(ex -> {
+                userThumbStore.remove(loginUserId, blogId);
+                log.error("点赞事件发送失败: userId={}, blogId={}", loginUserId, blogId, ex);
+                return null;
+            });
+        }
 
         // 发送通知事件
         sendLikeNotification(loginUserId, blogId);
@@ -92,85 +92,61 @@ public class ThumbServiceMQImpl extends ServiceImpl<ThumbMapper, Thumb> implemen
         User loginUser = userService.getLoginUser(request);
         Long loginUserId = loginUser.getId();
         Long blogId = doThumbRequest.getBlogId();
-        String userThumbKey = RedisKeyUtil.getUserThumbKey(loginUserId);
         
-        // 执行 Lua 脚本，点赞记录从 Redis 删除
-        long result = redisTemplate.execute(
-                RedisLuaScriptConstant.UNTHUMB_SCRIPT_MQ,
-                Arrays.asList(userThumbKey),
-                blogId
-        );
-        if (LuaStatusEnum.FAIL.getValue() == result) {
+        // 点赞记录从 Redis 删除
+        ThumbOutboxRecord outbox = thumbOutboxRelay.isEnabled() ? thumbOutboxRelay.newRecord(loginUserId) : null;
+        if (!userThumbStore.remove(loginUserId, blogId, outbox)) {
             throw new RuntimeException("用户未点赞");
         }
+        thumbDirtyTracker.markDirty(loginUserId, blogId);
         
-        ThumbEvent thumbEvent = ThumbEvent.builder()
-                .blogId(blogId)
-                .userId(loginUserId)
-                .type(ThumbEvent.EventType.DECR)
-                .eventTime(LocalDateTime.now())
-                .build();
-        pulsarTemplate.sendAsync("thumb-topic", thumbEvent).exceptionally(ex -> {
-            redisTemplate.opsForHash().put(userThumbKey, blogId.toString(), true);
-            log.error("取消点赞事件发送失败: userId={}, blogId={}", loginUserId, blogId, ex);
-            return null;
-        });
+        if (outbox == null) {
+            ThumbEvent thumbEvent = ThumbEvent.builder()
+                    .eventId(IdWorker.getId())
+                    .blogId(blogId)
+                    .userId(loginUserId)
+                    .type(ThumbEvent.EventType.DECR)
+                    .eventTime(LocalDateTime.now())
+                    .build();
+            thumbEventPublisher.publish(thumbEvent).exceptionally(ex -> {
+                userThumbStore.add(loginUserId, blogId);
+                log.error("取消点赞事件发送失败: userId={}, blogId={}", loginUserId, blogId, ex);
+                return null;
+            });
+        }
         
         return true;
     }
 
     @Override
     public Boolean hasThumb(Long blogId, Long userId) {
-        return redisTemplate.opsForHash().hasKey(RedisKeyUtil.getUserThumbKey(userId), blogId.toString());
+        return userThumbStore.contains(userId, List.of(blogId)).get(blogId);
+    }
+
+    @Override
+    public Map<Long, Boolean> hasThumbBatch(Long userId, Collection<Long> blogIds) {
+        return userThumbStore.contains(userId, blogIds);
     }
 
     /**
-     * 发送点赞通知
+     * 发送点赞通知，接收者（博客作者）与博客标题由通知消费端从缓存读取，请求线程不再查询博客；
+     * 作者给自己点赞的通知由消费端在进入合并窗口前丢弃
      */
     private void sendLikeNotification(Long likerId, Long blogId) {
         try {
-            // 获取博客信息
-            Blog blog = blogService.getById(blogId);
-            if (blog == null) {
-                log.warn("博客不存在，无法发送点赞通知：blogId={}", blogId);
-                return;
-            }
-            
-            // 获取博客作者ID
-            Long authorId = blog.getUserid();
-            
-            // 不给自己发通知
-            if (likerId.equals(authorId)) {
-                return;
-            }
-            
-            // 准备额外数据
-            Map<String, Object> extraData = new HashMap<>();
-            extraData.put("blogTitle", blog.getTitle());
-            extraData.put("blogId", blogId);
-            
-            // 创建通知事件
             NotificationEvent notificationEvent = NotificationEvent.builder()
-                    .userId(authorId)
                     .senderId(likerId)
                     .type(NotificationTypeEnum.LIKE.getCode())
                     .relatedId(blogId)
                     .relatedType(RelatedTypeEnum.BLOG.getCode())
-                    .extraData(extraData)
                     .eventTime(LocalDateTime.now())
                     .build();
             
-            // 发送通知事件
-            notificationPulsarTemplate.sendAsync("notification-topic", notificationEvent)
+            notificationEventPublisher.publish(notificationEvent)
                     .exceptionally(ex -> {
-                        log.error("发送点赞通知失败: likerId={}, blogId={}, authorId={}", 
-                                likerId, blogId, authorId, ex);
+                        log.error("发送点赞通知失败: likerId={}, blogId={}", likerId, blogId, ex);
                         return null;
                     });
-            
-            log.debug("发送点赞通知成功: likerId={}, blogId={}, authorId={}", 
-                    likerId, blogId, authorId);
-                    
         } catch (Exception e) {
             log.error("发送点赞通知异常: likerId={}, blogId={}", likerId, blogId, e);
         }
@@ -1,12 +1,12 @@
 package com.ince.gigalike.service.Impl;
 
-import cn.hutool.core.date.DateTime;
-import cn.hutool.core.date.DateUtil;
 import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
 import com.ince.gigalike.constant.RedisLuaScriptConstant;
 import com.ince.gigalike.enums.ErrorCode;
 import com.ince.gigalike.enums.LuaStatusEnum;
 import com.ince.gigalike.exception.BusinessException;
+import com.ince.gigalike.manage.thumb.ThumbDirtyTracker;
+import com.ince.gigalike.manage.thumb.ThumbSliceSyncer;
 import com.ince.gigalike.mapper.ThumbMapper;
 import com.ince.gigalike.model.dto.DoThumbRequest;
 import com.ince.gigalike.model.entity.Blog;
@@ -24,6 +24,10 @@ import org.springframework.stereotype.Service;
 import org.springframework.transaction.support.TransactionTemplate;
 
 import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 
 /**
  * @author inceCheng
@@ -39,6 +43,10 @@ public class ThumbServiceRedisImpl extends ServiceImpl<ThumbMapper, Thumb> imple
 
     private final RedisTemplate<String, Object> redisTemplate;
 
+    private final ThumbDirtyTracker thumbDirtyTracker;
+
+    private final ThumbSliceSyncer thumbSliceSyncer;
+
     @Override
     public Boolean doThumb(DoThumbRequest doThumbRequest, HttpServletRequest request) {
         if (doThumbRequest == null || doThumbRequest.getBlogId() == null) {
@@ -47,9 +55,8 @@ public class ThumbServiceRedisImpl extends ServiceImpl<ThumbMapper, Thumb> imple
         User loginUser = userService.getLoginUser(request);
         Long blogId = doThumbRequest.getBlogId();
 
-        String timeSlice = getTimeSlice();
         // Redis Key
-        String tempThumbKey = RedisKeyUtil.getTempThumbKey(timeSlice);
+        String tempThumbKey = RedisKeyUtil.getTempThumbKey(thumbSliceSyncer.currentSlice());
         String userThumbKey = RedisKeyUtil.getUserThumbKey(loginUser.getId());
 
         // 执行 Lua 脚本
@@ -63,6 +70,7 @@ public class ThumbServiceRedisImpl extends ServiceImpl<ThumbMapper, Thumb> imple
         if (LuaStatusEnum.FAIL.getValue() == result) {
             throw new BusinessException(ErrorCode.PARAMS_ERROR, "已经点过赞了");
         }
+        thumbDirtyTracker.markDirty(loginUser.getId(), blogId);
 
         // 更新成功才执行
         return LuaStatusEnum.SUCCESS.getValue() == result;
@@ -76,10 +84,8 @@ public class ThumbServiceRedisImpl extends ServiceImpl<ThumbMapper, Thumb> imple
         User loginUser = userService.getLoginUser(request);
 
         Long blogId = doThumbRequest.getBlogId();
-        // 计算时间片
-        String timeSlice = getTimeSlice();
         // Redis Key
-        String tempThumbKey = RedisKeyUtil.getTempThumbKey(timeSlice);
+        String tempThumbKey = RedisKeyUtil.getTempThumbKey(thumbSliceSyncer.currentSlice());
         String userThumbKey = RedisKeyUtil.getUserThumbKey(loginUser.getId());
 
         // 执行 Lua 脚本
@@ -93,19 +99,29 @@ public class ThumbServiceRedisImpl extends ServiceImpl<ThumbMapper, Thumb> imple
         if (result == LuaStatusEnum.FAIL.getValue()) {
             throw new BusinessException(ErrorCode.PARAMS_ERROR, "没有点过赞");
         }
+        thumbDirtyTracker.markDirty(loginUser.getId(), blogId);
         return LuaStatusEnum.SUCCESS.getValue() == result;
     }
 
-    private String getTimeSlice() {
-        DateTime nowDate = DateUtil.date();
-        // 获取到当前时间前最近的整数秒，比如当前 11:20:23 ，获取到 11:20:20
-        return DateUtil.format(nowDate, "HH:mm:") + (DateUtil.second(nowDate) / 10) * 10;
-    }
-
     @Override
     public Boolean hasThumb(Long blogId, Long userId) {
         return redisTemplate.opsForHash().hasKey(RedisKeyUtil.getUserThumbKey(userId), blogId.toString());
     }
+
+    @Override
+    public Map<Long, Boolean> hasThumbBatch(Long userId, Collection<Long> blogIds) {
+        Map<Long, Boolean> result = new HashMap<>(blogIds.size() * 2);
+        if (blogIds.isEmpty()) {
+            return result;
+        }
+        List<Object> fields = blogIds.stream().map(blogId -> (Object) blogId.toString()).toList();
+        List<Object> values = redisTemplate.opsForHash().multiGet(RedisKeyUtil.getUserThumbKey(userId), fields);
+        int i = 0;
+        for (Long blogId : blogIds) {
+            result.put(blogId, values.get(i++) != null);
+        }
+        return result;
+    }
 }
 
 
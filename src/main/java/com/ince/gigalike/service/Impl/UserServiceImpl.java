@@ -5,11 +5,13 @@ import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
 import com.ince.gigalike.constant.UserConstant;
 import com.ince.gigalike.enums.ErrorCode;
 import com.ince.gigalike.exception.BusinessException;
+import com.ince.gigalike.manage.cache.MultiLevelCache;
 import com.ince.gigalike.model.dto.UserLoginRequest;
 import com.ince.gigalike.model.dto.UserRegisterRequest;
 import com.ince.gigalike.model.dto.UserUpdatePasswordRequest;
 import com.ince.gigalike.model.dto.UserUpdateRequest;
 import com.ince.gigalike.model.entity.User;
+import com.ince.gigalike.model.vo.UserVO;
 import com.ince.gigalike.service.UserService;
 import com.ince.gigalike.service.CaptchaService;
 import com.ince.gigalike.service.EmailService;
@@ -18,13 +20,13 @@ import com.ince.gigalike.utils.IpUtils;
 import com.ince.gigalike.utils.DeviceUtils;
 import com.ince.gigalike.enums.NotificationTypeEnum;
 import com.ince.gigalike.listener.notification.msg.NotificationEvent;
+import com.ince.gigalike.manage.notification.NotificationEventPublisher;
 import jakarta.annotation.Resource;
 import jakarta.servlet.http.HttpServletRequest;
 import org.apache.commons.lang3.StringUtils;
 import org.springframework.beans.BeanUtils;
 import org.springframework.stereotype.Service;
 import org.springframework.util.DigestUtils;
-import org.springframework.pulsar.core.PulsarTemplate;
 import lombok.extern.slf4j.Slf4j;
 
 import java.nio.charset.StandardCharsets;
@@ -51,7 +53,10 @@ public class UserServiceImpl extends ServiceImpl<UserMapper, User>
     private EmailService emailService;
     
     @Resource
-    private PulsarTemplate<NotificationEvent> notificationPulsarTemplate;
+    private NotificationEventPublisher notificationEventPublisher;
+
+    @Resource
+    private MultiLevelCache<Long, UserVO> userVOCache;
 
     @Override
     public User userLogin(UserLoginRequest userLoginRequest, HttpServletRequest request) {
@@ -257,6 +262,7 @@ public class UserServiceImpl extends ServiceImpl<UserMapper, User>
         if (!updateResult) {
             throw new BusinessException(ErrorCode.SYSTEM_ERROR, "更新用户信息失败");
         }
+        userVOCache.evict(loginUser.getId());
         
         return loginUser;
     }
@@ -303,7 +309,7 @@ public class UserServiceImpl extends ServiceImpl<UserMapper, User>
                     .build();
             
             // 发送通知事件
-            notificationPulsarTemplate.sendAsync("notification-topic", notificationEvent)
+            notificationEventPublisher.publish(notificationEvent)
                     .exceptionally(ex -> {
                         log.error("发送登录成功通知失败: userId={}, username={}", 
                                 user.getId(), user.getUsername(), ex);
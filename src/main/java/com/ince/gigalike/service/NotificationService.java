@@ -7,6 +7,9 @@ import com.ince.gigalike.model.dto.NotificationQueryRequest;
 import com.ince.gigalike.model.entity.Notification;
 import com.ince.gigalike.model.vo.NotificationVO;
 
+import java.util.Collection;
+import java.util.List;
+
 /**
  * 通知服务接口
  */
@@ -17,6 +20,19 @@ public interface NotificationService extends IService<Notification> {
      */
     void createNotification(NotificationEvent event);
     
+    /**
+     * 批量创建通知：一次查询全部发送者、多行插入，事务提交后推送
+     */
+    void createNotifications(List<NotificationEvent> events);
+    
+    /**
+     * 创建或累加聚合通知（点赞博客），接收者与博客标题从缓存读取
+     *
+     * @param latest   窗口内最近一条事件，发送者显示为最近的点赞者
+     * @param likerIds 窗口内去重后的点赞者，与之前窗口的点赞者一起去重计数
+     */
+    void createAggregatedNotification(NotificationEvent latest, Collection<Long> likerIds);
+    
     /**
      * 分页查询用户通知
      */
@@ -1,121 +1,110 @@
 package com.ince.gigalike.service;
 
-import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.baomidou.mybatisplus.core.toolkit.IdWorker;
+import com.ince.gigalike.constant.ThumbConstant;
 import com.ince.gigalike.listener.thumb.msg.ThumbEvent;
-import com.ince.gigalike.mapper.BlogMapper;
+import com.ince.gigalike.manage.thumb.ThumbEventDeduplicator;
+import com.ince.gigalike.manage.thumb.ThumbEventReducer;
+import com.ince.gigalike.manage.thumb.ThumbRecordWriter;
 import com.ince.gigalike.model.entity.Thumb;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.pulsar.client.api.Message;
 import org.apache.pulsar.client.api.MessageId;
 import org.apache.pulsar.client.api.SubscriptionType;
-import org.apache.pulsar.common.schema.SchemaType;
-import org.apache.pulsar.shade.org.apache.commons.lang3.tuple.Pair;
 import org.springframework.pulsar.annotation.PulsarListener;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
+import java.time.LocalDateTime;
+import java.time.ZoneId;
 import java.util.*;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.atomic.AtomicReference;
-import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
 @Slf4j
 public class ThumbConsumer {
 
-    private final BlogMapper blogMapper;
-    private final ThumbService thumbService;
+    private final ThumbRecordWriter thumbRecordWriter;
+    private final ThumbEventDeduplicator thumbEventDeduplicator;
 
     // 批量处理配置  
     @PulsarListener(
             subscriptionName = "thumb-subscription",
-            topics = "thumb-topic",
-            schemaType = SchemaType.JSON,
+            topics = ThumbConstant.THUMB_TOPIC,
+            // 不指定 schemaType，由 SchemaResolver 使用 ThumbEventSchema，同时兼容 JSON 与二进制消息
             batch = true,
             // consumerCustomizer = "thumbConsumerConfig",
             // 引用 NACK 重试策略
             negativeAckRedeliveryBackoff = "negativeAckRedeliveryBackoff",
             // 引用 ACK 超时重试策略
             ackTimeoutRedeliveryBackoff = "ackTimeoutRedeliveryBackoff",
-            // 死信仅适用于 shared 类型
-            subscriptionType = SubscriptionType.Shared,
+            // 按消息 key（userId:blogId）分配消费者，同一组合的事件始终由同一个消费者按顺序处理
+            // 死信队列只支持 Shared / Key_Shared
+            subscriptionType = SubscriptionType.Key_Shared,
             // 引用死信队列策略
             deadLetterPolicy = "deadLetterPolicy"
     )
     @Transactional(rollbackFor = Exception.class)
     public void processBatch(List<Message<ThumbEvent>> messages) {
         log.info("ThumbConsumer processBatch: {}", messages.size());
+        List<ThumbEvent> events = new ArrayList<>(messages.size());
+        for (Message<ThumbEvent> message : messages) {
+            events.add(message.getValue());
+        }
+        applyEvents(events);
+    }
 
-        Map<Long, Long> countMap = new ConcurrentHashMap<>();
-        List<Thumb> thumbs = new ArrayList<>();
-
-        // 并行处理消息  
-        LambdaQueryWrapper<Thumb> wrapper = new LambdaQueryWrapper<>();
-        AtomicReference<Boolean> needRemove = new AtomicReference<>(false);
-
-        // 提取事件并过滤无效消息  
-        List<ThumbEvent> events = messages.stream()
-                .map(Message::getValue)
-                .filter(Objects::nonNull)
-                .toList();
-
-
-        // 按(userId, blogId)分组，并获取每个分组的最新事件  
-        Map<Pair<Long, Long>, ThumbEvent> latestEvents = events.stream()
-                .collect(Collectors.groupingBy(
-                        e -> Pair.of(e.getUserId(), e.getBlogId()),
-                        Collectors.collectingAndThen(
-                                Collectors.toList(),
-                                list -> {
-                                    // 按时间升序排序，取最后一个作为最新事件  
-                                    list.sort(Comparator.comparing(ThumbEvent::getEventTime));
-                                    if (list.size() % 2 == 0) {
-                                        return null;
-                                    }
-                                    return list.get(list.size() - 1);
-                                }
-                        )
-                ));
+    /**
+     * 去重、归并并写库，须在写库事务内调用，提交后才标记本批为已处理；
+     * 信封消息由 {@link ThumbEnvelopeConsumer} 展开后同样交给这里处理
+     */
+    public void applyEvents(List<ThumbEvent> batch) {
+        // 过滤去重窗口内已处理过的事件（重投递、补发），写库提交后再标记本批为已处理
+        List<ThumbEvent> fresh = thumbEventDeduplicator.filterNew(batch);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    thumbEventDeduplicator.markProcessed(fresh);
+                }
+            });
+        }
 
-        latestEvents.forEach((userBlogPair, event) -> {
-            if (event == null) {
-                return;
+        // 按到达顺序归并，每个 (userId, blogId) 只保留最后一次操作
+        ThumbEventReducer reducer = new ThumbEventReducer(fresh.size());
+        List<ThumbEvent> events = new ArrayList<>(fresh.size());
+        for (ThumbEvent event : fresh) {
+            if (event == null || event.getUserId() == null || event.getBlogId() == null || event.getType() == null) {
+                continue;
             }
-            ThumbEvent.EventType finalAction = event.getType();
+            reducer.add(event.getUserId(), event.getBlogId(), event.getType() == ThumbEvent.EventType.INCR, events.size());
+            events.add(event);
+        }
 
-            if (finalAction == ThumbEvent.EventType.INCR) {
-                countMap.merge(event.getBlogId(), 1L, Long::sum);
-                Thumb thumb = new Thumb();
-                thumb.setBlogId(event.getBlogId());
-                thumb.setUserId(event.getUserId());
+        List<Thumb> thumbs = new ArrayList<>();
+        List<Thumb> removals = new ArrayList<>();
+        reducer.forEach((userId, blogId, like, lastIndex) -> {
+            Thumb thumb = new Thumb();
+            thumb.setUserId(userId);
+            thumb.setBlogId(blogId);
+            if (like) {
+                LocalDateTime eventTime = events.get(lastIndex).getEventTime();
+                thumb.setId(IdWorker.getId());
+                thumb.setCreateTime(eventTime == null ? new Date()
+                        : Date.from(eventTime.atZone(ZoneId.systemDefault()).toInstant()));
                 thumbs.add(thumb);
             } else {
-                needRemove.set(true);
-                wrapper.or().eq(Thumb::getUserId, event.getUserId()).eq(Thumb::getBlogId, event.getBlogId());
-                countMap.merge(event.getBlogId(), -1L, Long::sum);
+                removals.add(thumb);
             }
         });
 
-        // 批量更新数据库  
-        if (needRemove.get()) {
-            thumbService.remove(wrapper);
-        }
-        batchUpdateBlogs(countMap);
-        batchInsertThumbs(thumbs);
-    }
-
-    public void batchUpdateBlogs(Map<Long, Long> countMap) {
-        if (!countMap.isEmpty()) {
-            blogMapper.batchUpdateThumbCount(countMap);
-        }
-    }
-
-    public void batchInsertThumbs(List<Thumb> thumbs) {
-        if (!thumbs.isEmpty()) {
-            // 分批次插入  
-            thumbService.saveBatch(thumbs, 500);
+        // 批量更新数据库，点赞数只按实际删除 / 插入的行计算，消息重复投递时不会重复计数
+        thumbRecordWriter.apply(thumbs, removals);
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            thumbEventDeduplicator.markProcessed(fresh);
         }
     }
 
@@ -0,0 +1,56 @@
+package com.ince.gigalike.service;
+
+import com.ince.gigalike.constant.ThumbConstant;
+import com.ince.gigalike.listener.thumb.msg.ThumbEvent;
+import com.ince.gigalike.listener.thumb.msg.ThumbEventEnvelope;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.pulsar.client.api.Message;
+import org.apache.pulsar.client.api.SubscriptionType;
+import org.apache.pulsar.common.schema.SchemaType;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.pulsar.annotation.PulsarListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 信封模式的点赞事件消费者，只在开启信封模式时注册，未开启时不订阅 thumb-envelope-topic
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+@ConditionalOnProperty(name = "thumb.mq.envelope.enabled", havingValue = "true")
+public class ThumbEnvelopeConsumer {
+
+    private final ThumbConsumer thumbConsumer;
+
+    /**
+     * 每条消息按发送顺序携带多个事件，展开后与单条事件走同样的处理
+     */
+    @PulsarListener(
+            subscriptionName = "thumb-envelope-subscription",
+            topics = ThumbConstant.THUMB_ENVELOPE_TOPIC,
+            schemaType = SchemaType.JSON,
+            batch = true,
+            negativeAckRedeliveryBackoff = "negativeAckRedeliveryBackoff",
+            ackTimeoutRedeliveryBackoff = "ackTimeoutRedeliveryBackoff",
+            // 消息 key 为 (userId, blogId) 的哈希桶号，同一组合的事件仍由同一个消费者按顺序处理
+            subscriptionType = SubscriptionType.Key_Shared,
+            deadLetterPolicy = "envelopeDeadLetterPolicy"
+    )
+    @Transactional(rollbackFor = Exception.class)
+    public void processEnvelopeBatch(List<Message<ThumbEventEnvelope>> messages) {
+        List<ThumbEvent> events = new ArrayList<>();
+        for (Message<ThumbEventEnvelope> message : messages) {
+            ThumbEventEnvelope envelope = message.getValue();
+            if (envelope != null && envelope.getEvents() != null) {
+                events.addAll(envelope.getEvents());
+            }
+        }
+        log.info("ThumbEnvelopeConsumer processEnvelopeBatch: {} envelopes, {} events", messages.size(), events.size());
+        thumbConsumer.applyEvents(events);
+    }
+}
@@ -6,6 +6,9 @@ import com.baomidou.mybatisplus.extension.service.IService;
 import jakarta.servlet.http.HttpServletRequest;
 import org.apache.pulsar.client.api.PulsarClientException;
 
+import java.util.Collection;
+import java.util.Map;
+
 /**
  * @author inceCheng
  * @description 针对表【thumb】的数据库操作Service
@@ -40,5 +43,14 @@ public interface ThumbService extends IService<Thumb> {
      */
     Boolean hasThumb(Long blogId, Long userId);
 
+    /**
+     * 批量查询是否点赞，用于列表渲染，一次 Redis 往返完成
+     *
+     * @param userId  用户id
+     * @param blogIds 博客id集合
+     * @return 博客id -> 是否点赞，包含所有传入的博客id
+     */
+    Map<Long, Boolean> hasThumbBatch(Long userId, Collection<Long> blogIds);
+
 
 }
@@ -11,8 +11,84 @@ public class RedisKeyUtil {
     /**  
      * 获取 临时点赞记录 key  
      */  
-    public static String getTempThumbKey(String time) {  
-        return ThumbConstant.TEMP_THUMB_KEY_PREFIX.formatted(time);  
+    public static String getTempThumbKey(long slice) {
+        return ThumbConstant.TEMP_THUMB_KEY_PREFIX.formatted(slice);
     }  
   
+    /**
+     * 获取 热点博客点赞数分片 key
+     */
+    public static String getBlogThumbCountShardKey(long blogId, int shard) {
+        return ThumbConstant.BLOG_THUMB_COUNT_SHARD_KEY.formatted(blogId, shard);
+    }
+
+    /**
+     * 获取 热点博客待写回点赞数 key
+     */
+    public static String getBlogThumbCountPendingKey(long blogId) {
+        return ThumbConstant.BLOG_THUMB_COUNT_PENDING_KEY.formatted(blogId);
+    }
+
+    /**
+     * 获取 热点博客待写回点赞数的归并 ID key
+     */
+    public static String getBlogThumbCountFoldKey(long blogId) {
+        return ThumbConstant.BLOG_THUMB_COUNT_FOLD_KEY.formatted(blogId);
+    }
+
+    /**
+     * 获取 已处理点赞事件 ID 集合 key
+     */
+    public static String getThumbEventSeenKey(long window) {
+        return ThumbConstant.THUMB_EVENT_SEEN_KEY.formatted(window);
+    }
+
+    /**
+     * 获取 点赞对账进度 key
+     */
+    public static String getThumbReconcileRunKey(String runId) {
+        return ThumbConstant.THUMB_RECONCILE_RUN_KEY.formatted(runId);
+    }
+
+    /**
+     * 获取 点赞对账分片租约 key
+     */
+    public static String getThumbReconcileLeaseKey(String runId, int shard) {
+        return ThumbConstant.THUMB_RECONCILE_LEASE_KEY.formatted(runId, shard);
+    }
+
+    /**
+     * 获取 时间桶内有点赞变化的用户集合 key
+     */
+    public static String getThumbDirtyUserKey(long bucket) {
+        return ThumbConstant.THUMB_DIRTY_USER_KEY.formatted(bucket);
+    }
+
+    /**
+     * 获取 时间桶内有点赞变化的博客集合 key
+     */
+    public static String getThumbDirtyBlogKey(long bucket) {
+        return ThumbConstant.THUMB_DIRTY_BLOG_KEY.formatted(bucket);
+    }
+
+    /**
+     * 获取 用户点赞数据已加载标记 key
+     */
+    public static String getThumbLoadedKey(long userId) {
+        return ThumbConstant.THUMB_LOADED_KEY.formatted(userId);
+    }
+
+    /**
+     * 获取 点赞事件 outbox 流 key
+     */
+    public static String getThumbOutboxKey(int shard) {
+        return ThumbConstant.THUMB_OUTBOX_KEY.formatted(shard);
+    }
+
+    /**
+     * 获取 outbox 流转发租约 key
+     */
+    public static String getThumbOutboxLeaseKey(int shard) {
+        return ThumbConstant.THUMB_OUTBOX_LEASE_KEY.formatted(shard);
+    }
 }
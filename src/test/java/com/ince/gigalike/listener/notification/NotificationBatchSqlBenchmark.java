@@ -0,0 +1,177 @@
+package com.ince.gigalike.listener.notification;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * NotificationConsumer 写库对比，每次调用处理一批 batchSize 条通知消息：
+ * single —— 逐条消息一个事务：查询发送者、单行 INSERT、转换 VO 时再查询一次发送者；
+ * batch  —— 整批一个事务：一次 IN 查询全部发送者、每 500 条一组的多行 INSERT
+ * <p>
+ * 吞吐量（条/秒）= batchSize / 每次调用耗时。不包含 Pulsar 收发与 WebSocket 推送，只比较数据库往返。
+ * 需要本地 MySQL，发送者取自 users 表，通知写入与 notifications 表结构相同的 notifications_bench 表，不影响业务数据。
+ * 运行方式：执行 main 方法，可通过 -Dbench.jdbc.url / -Dbench.jdbc.user / -Dbench.jdbc.password 指定数据库
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Thread)
+@Warmup(iterations = 2, time = 3)
+@Measurement(iterations = 5, time = 3)
+@Fork(1)
+public class NotificationBatchSqlBenchmark {
+
+    private static final int INSERT_CHUNK_SIZE = 500;
+
+    private static final String COLUMNS = "(id, user_id, sender_id, type, title, content, related_id, related_type, "
+            + "is_read, create_time, update_time)";
+
+    private static final String ROW = "(?, ?, ?, 'FOLLOW', '收到新的关注', ?, ?, 'USER', 0, ?, ?)";
+
+    @Param({"single", "batch"})
+    public String strategy;
+
+    /**
+     * 一批通知消息的数量
+     */
+    @Param({"100", "500"})
+    public int batchSize;
+
+    private Connection connection;
+
+    private long[] senderIds;
+
+    private long nextId = System.currentTimeMillis() * 1000;
+
+    @Setup(Level.Trial)
+    public void setUp() throws SQLException {
+        connection = DriverManager.getConnection(
+                System.getProperty("bench.jdbc.url", "jdbc:mysql://localhost:3306/gigalikedb?useSSL=false&allowPublicKeyRetrieval=true"),
+                System.getProperty("bench.jdbc.user", "root"),
+                System.getProperty("bench.jdbc.password", "123456"));
+        connection.setAutoCommit(false);
+        List<Long> ids = new ArrayList<>();
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("CREATE TABLE IF NOT EXISTS notifications_bench LIKE notifications");
+            statement.execute("TRUNCATE TABLE notifications_bench");
+            try (ResultSet resultSet = statement.executeQuery("SELECT id FROM users LIMIT 200")) {
+                while (resultSet.next()) {
+                    ids.add(resultSet.getLong(1));
+                }
+            }
+        }
+        connection.commit();
+        if (ids.isEmpty()) {
+            throw new IllegalStateException("users 表为空，先导入 sql/data.sql");
+        }
+        senderIds = ids.stream().mapToLong(Long::longValue).toArray();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws SQLException {
+        connection.close();
+    }
+
+    @Benchmark
+    public int processBatch() throws SQLException {
+        long base = nextId;
+        nextId += batchSize;
+        return "single".equals(strategy) ? single(base) : batch(base);
+    }
+
+    private int single(long base) throws SQLException {
+        int affected = 0;
+        Timestamp now = new Timestamp(System.currentTimeMillis());
+        for (int i = 0; i < batchSize; i++) {
+            long senderId = senderIds[i % senderIds.length];
+            String senderName = selectSenders(new long[]{senderId}).get(0);
+            try (PreparedStatement statement = connection.prepareStatement(
+                    "INSERT INTO notifications_bench " + COLUMNS + " VALUES " + ROW)) {
+                bind(statement, 0, base + i, senderId, senderName, now);
+                affected += statement.executeUpdate();
+            }
+            // convertToVO 再次查询发送者
+            selectSenders(new long[]{senderId});
+            connection.commit();
+        }
+        return affected;
+    }
+
+    private int batch(long base) throws SQLException {
+        int affected = 0;
+        Timestamp now = new Timestamp(System.currentTimeMillis());
+        long[] batchSenders = new long[Math.min(batchSize, senderIds.length)];
+        System.arraycopy(senderIds, 0, batchSenders, 0, batchSenders.length);
+        List<String> names = selectSenders(batchSenders);
+        for (int from = 0; from < batchSize; from += INSERT_CHUNK_SIZE) {
+            int size = Math.min(INSERT_CHUNK_SIZE, batchSize - from);
+            StringBuilder sql = new StringBuilder("INSERT INTO notifications_bench ").append(COLUMNS).append(" VALUES ");
+            for (int i = 0; i < size; i++) {
+                sql.append(i == 0 ? "" : ",").append(ROW);
+            }
+            try (PreparedStatement statement = connection.prepareStatement(sql.toString())) {
+                for (int i = 0; i < size; i++) {
+                    int index = from + i;
+                    bind(statement, i, base + index, senderIds[index % senderIds.length],
+                            names.get(index % names.size()), now);
+                }
+                affected += statement.executeUpdate();
+            }
+        }
+        connection.commit();
+        return affected;
+    }
+
+    private List<String> selectSenders(long[] ids) throws SQLException {
+        StringBuilder sql = new StringBuilder("SELECT id, username, display_name FROM users WHERE id IN (");
+        for (int i = 0; i < ids.length; i++) {
+            sql.append(i == 0 ? "?" : ",?");
+        }
+        sql.append(")");
+        List<String> names = new ArrayList<>(ids.length);
+        try (PreparedStatement statement = connection.prepareStatement(sql.toString())) {
+            for (int i = 0; i < ids.length; i++) {
+                statement.setLong(i + 1, ids[i]);
+            }
+            try (ResultSet resultSet = statement.executeQuery()) {
+                while (resultSet.next()) {
+                    String displayName = resultSet.getString(3);
+                    names.add(displayName != null ? displayName : resultSet.getString(2));
+                }
+            }
+        }
+        return names;
+    }
+
+    private static void bind(PreparedStatement statement, int row, long id, long senderId, String senderName,
+                             Timestamp now) throws SQLException {
+        int offset = row * 7;
+        statement.setLong(offset + 1, id);
+        statement.setLong(offset + 2, id);
+        statement.setLong(offset + 3, senderId);
+        statement.setString(offset + 4, senderName + " 关注了你");
+        statement.setLong(offset + 5, senderId);
+        statement.setTimestamp(offset + 6, now);
+        statement.setTimestamp(offset + 7, now);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(NotificationBatchSqlBenchmark.class.getSimpleName())
+                .build();
+        new Runner(options).run();
+    }
+}
@@ -0,0 +1,124 @@
+package com.ince.gigalike.listener.notification;
+
+import com.ince.gigalike.enums.NotificationTypeEnum;
+import com.ince.gigalike.enums.RelatedTypeEnum;
+import com.ince.gigalike.listener.notification.msg.NotificationEvent;
+import com.ince.gigalike.manage.notification.NotificationAggregator;
+import com.ince.gigalike.service.NotificationService;
+import org.apache.pulsar.client.api.Message;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.pulsar.listener.PulsarBatchListenerFailedException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.*;
+
+/**
+ * 通知批量消费：整批失败后逐条重试，失败的消息交给容器重投，点赞通知只在写库成功后进入合并窗口
+ */
+public class NotificationConsumerTest {
+
+    private NotificationService notificationService;
+
+    private NotificationAggregator notificationAggregator;
+
+    private NotificationConsumer consumer;
+
+    @BeforeEach
+    public void setUp() {
+        notificationService = mock(NotificationService.class);
+        notificationAggregator = mock(NotificationAggregator.class);
+        when(notificationAggregator.accepts(any()))
+                .thenAnswer(invocation -> NotificationTypeEnum.LIKE.getCode()
+                        .equals(invocation.<NotificationEvent>getArgument(0).getType()));
+        consumer = new NotificationConsumer(notificationService, notificationAggregator,
+                new TransactionTemplate(mock(PlatformTransactionManager.class)));
+    }
+
+    @Test
+    public void testBatchWrittenOnce() {
+        consumer.processNotifications(List.of(message(follow(1)), message(like(2)), message(follow(3))));
+
+        verify(notificationService).createNotifications(argThat(events -> events.size() == 2));
+        verify(notificationAggregator).offer(argThat(event -> event.getSenderId() == 2L));
+    }
+
+    /**
+     * 一条消息写库失败：整批回滚后逐条重试，失败的消息之前的消息已提交，
+     * 异常携带失败的消息，由容器确认之前的消息并重投其余消息
+     */
+    @Test
+    public void testFailedMessageIsReportedAfterPerMessageRetry() {
+        doAnswer(invocation -> {
+            List<NotificationEvent> events = invocation.getArgument(0);
+            if (events.stream().anyMatch(event -> event.getSenderId() == 3L)) {
+                throw new IllegalStateException("bad row");
+            }
+            return null;
+        }).when(notificationService).createNotifications(any());
+        Message<NotificationEvent> poison = message(follow(3));
+
+        PulsarBatchListenerFailedException e = assertThrows(PulsarBatchListenerFailedException.class,
+                () -> consumer.processNotifications(List.of(message(follow(1)), message(like(2)), poison,
+                        message(like(4)))));
+
+        assertSame(poison, e.getMessageInError());
+        verify(notificationService).createNotifications(List.of(follow(1)));
+        // 整批失败时没有点赞进入合并窗口，逐条重试时只有失败消息之前的点赞进入
+        verify(notificationAggregator).offer(argThat(event -> event.getSenderId() == 2L));
+        verify(notificationAggregator, never()).offer(argThat(event -> event.getSenderId() == 4L));
+    }
+
+    /**
+     * 事务提交后点赞通知进入合并窗口失败：不回退到逐条重试，直接通知不会重复写入，其他点赞照常进入
+     */
+    @Test
+    public void testOfferFailureDoesNotRetryCommittedBatch() {
+        when(notificationAggregator.offer(argThat(event -> event.getSenderId() == 2L)))
+                .thenThrow(new IllegalStateException("redis down"));
+
+        consumer.processNotifications(List.of(message(follow(1)), message(like(2)), message(like(4))));
+
+        verify(notificationService, times(1)).createNotifications(any());
+        verify(notificationAggregator, times(1)).offer(argThat(event -> event.getSenderId() == 2L));
+        verify(notificationAggregator, times(1)).offer(argThat(event -> event.getSenderId() == 4L));
+    }
+
+    @Test
+    public void testEmptyEventIsSkipped() {
+        consumer.processNotifications(List.of(message(null), message(follow(1))));
+        verify(notificationService).createNotifications(List.of(follow(1)));
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Message<NotificationEvent> message(NotificationEvent event) {
+        Message<NotificationEvent> message = mock(Message.class);
+        when(message.getValue()).thenReturn(event);
+        return message;
+    }
+
+    private static NotificationEvent follow(long senderId) {
+        return NotificationEvent.builder()
+                .userId(100L)
+                .senderId(senderId)
+                .type(NotificationTypeEnum.FOLLOW.getCode())
+                .relatedId(senderId)
+                .relatedType(RelatedTypeEnum.USER.getCode())
+                .build();
+    }
+
+    private static NotificationEvent like(long senderId) {
+        return NotificationEvent.builder()
+                .senderId(senderId)
+                .type(NotificationTypeEnum.LIKE.getCode())
+                .relatedId(200L)
+                .relatedType(RelatedTypeEnum.BLOG.getCode())
+                .build();
+    }
+}
@@ -0,0 +1,61 @@
+package com.ince.gigalike.listener.thumb.msg;
+
+import org.apache.pulsar.client.api.Schema;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * ThumbEvent 序列化压测：Pulsar JSON Schema 与定长二进制编码对比
+ * 启动时打印两种格式的消息大小
+ * <p>
+ * 运行方式：执行 main 方法
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ThumbEventSchemaBenchmark {
+
+    @Param({"json", "binary"})
+    public String format;
+
+    private Schema<ThumbEvent> schema;
+    private ThumbEvent event;
+    private byte[] encoded;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        schema = "json".equals(format)
+                ? Schema.JSON(ThumbEvent.class)
+                : new ThumbEventSchema(ThumbEventSchema.Format.BINARY);
+        event = new ThumbEvent(1_912_345_678_901_234_001L, 1_912_345_678_901_234_567L, 1_912_345_678_901_234_999L,
+                ThumbEvent.EventType.INCR, LocalDateTime.now(), 123_456L);
+        encoded = schema.encode(event);
+        System.out.println(format + " message size: " + encoded.length + " bytes");
+    }
+
+    @Benchmark
+    public byte[] encode() {
+        return schema.encode(event);
+    }
+
+    @Benchmark
+    public ThumbEvent decode() {
+        return schema.decode(encoded);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(ThumbEventSchemaBenchmark.class.getSimpleName())
+                .build();
+        new Runner(options).run();
+    }
+}
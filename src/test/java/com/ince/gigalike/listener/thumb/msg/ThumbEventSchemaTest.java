@@ -0,0 +1,79 @@
+package com.ince.gigalike.listener.thumb.msg;
+
+import org.apache.pulsar.client.api.Schema;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * ThumbEvent 二进制编码测试
+ */
+public class ThumbEventSchemaTest {
+
+    private final ThumbEventSchema binary = new ThumbEventSchema(ThumbEventSchema.Format.BINARY);
+
+    @Test
+    public void testBinaryRoundTrip() {
+        LocalDateTime time = LocalDateTime.now().truncatedTo(ChronoUnit.MICROS);
+        ThumbEvent event = new ThumbEvent(1_900_000_000_000_000_001L, 1234567890123L, 9876543210L, ThumbEvent.EventType.DECR, time, 42L);
+
+        byte[] bytes = binary.encode(event);
+
+        assertEquals(ThumbEventSchema.ENCODED_SIZE, bytes.length);
+        assertEquals(ThumbEventSchema.MAGIC, bytes[0]);
+        assertEquals(event, binary.decode(bytes));
+    }
+
+    @Test
+    public void testBinaryNullableFields() {
+        ThumbEvent event = new ThumbEvent(null, 1L, 2L, ThumbEvent.EventType.INCR, null, null);
+        assertEquals(event, binary.decode(binary.encode(event)));
+    }
+
+    @Test
+    public void testDecodesLegacyJson() {
+        // 迁移期间主题上仍有原来按 JSON Schema 发送的消息
+        ThumbEvent event = new ThumbEvent(1L, 2L, ThumbEvent.EventType.INCR,
+                LocalDateTime.now().truncatedTo(ChronoUnit.MILLIS));
+        byte[] json = Schema.JSON(ThumbEvent.class).encode(event);
+
+        assertEquals(event, binary.decode(json));
+        assertEquals(event, new ThumbEventSchema(ThumbEventSchema.Format.JSON).decode(json));
+    }
+
+    @Test
+    public void testJsonWriteFormat() {
+        ThumbEventSchema json = new ThumbEventSchema(ThumbEventSchema.Format.JSON);
+        ThumbEvent event = new ThumbEvent(5L, 1L, 2L, ThumbEvent.EventType.DECR, null, 7L);
+        byte[] bytes = json.encode(event);
+        assertEquals('{', bytes[0]);
+        assertEquals(event, binary.decode(bytes));
+    }
+
+    @Test
+    public void testDecodesVersion1() {
+        // 第一版二进制格式没有 eventId
+        byte[] v1 = ByteBuffer.allocate(ThumbEventSchema.ENCODED_SIZE_V1)
+                .put(ThumbEventSchema.MAGIC_V1)
+                .putLong(1L)
+                .putLong(2L)
+                .put((byte) 1)
+                .putLong(Long.MIN_VALUE)
+                .putLong(9L)
+                .array();
+        assertEquals(new ThumbEvent(null, 1L, 2L, ThumbEvent.EventType.INCR, null, 9L), binary.decode(v1));
+    }
+
+    @Test
+    public void testRejectsMissingFields() {
+        assertThrows(RuntimeException.class,
+                () -> binary.encode(new ThumbEvent(null, 2L, ThumbEvent.EventType.INCR, null)));
+        byte[] truncated = new byte[10];
+        truncated[0] = ThumbEventSchema.MAGIC;
+        assertThrows(RuntimeException.class, () -> binary.decode(truncated));
+    }
+}
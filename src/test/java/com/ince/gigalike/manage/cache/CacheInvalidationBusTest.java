@@ -0,0 +1,83 @@
+package com.ince.gigalike.manage.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 跨节点本地缓存失效测试，用进程内通道模拟两个节点
+ */
+public class CacheInvalidationBusTest {
+
+    @Test
+    public void testOtherNodeEvictsLocalCache() {
+        InProcessInvalidationTransport transport = new InProcessInvalidationTransport();
+        CacheInvalidationBus nodeA = new CacheInvalidationBus(transport, "A", 256, Duration.ofMillis(5));
+        CacheInvalidationBus nodeB = new CacheInvalidationBus(transport, "B", 256, Duration.ofMillis(5));
+        Cache<String, Object> cacheA = Caffeine.newBuilder().build();
+        Cache<String, Object> cacheB = Caffeine.newBuilder().build();
+        nodeA.addListener(cacheA::invalidateAll);
+        nodeB.addListener(cacheB::invalidateAll);
+
+        cacheA.put("thumb:1:100", 1L);
+        cacheB.put("thumb:1:100", 1L);
+
+        // 节点 A 写入：更新自己的本地缓存并广播失效
+        cacheA.put("thumb:1:100", 0L);
+        nodeA.invalidate("thumb:1:100");
+        nodeA.flush();
+
+        assertEquals(0L, cacheA.getIfPresent("thumb:1:100"), "发送节点忽略自己的消息");
+        assertNull(cacheB.getIfPresent("thumb:1:100"));
+    }
+
+    @Test
+    public void testCoalesceAndBatch() {
+        InProcessInvalidationTransport transport = new InProcessInvalidationTransport();
+        CacheInvalidationBus bus = new CacheInvalidationBus(transport, "A", 10, Duration.ofMillis(5));
+
+        for (int round = 0; round < 100; round++) {
+            for (int i = 0; i < 25; i++) {
+                bus.invalidate("key:" + i);
+            }
+        }
+        bus.flush();
+
+        List<InvalidationMessage> published = transport.getPublished();
+        assertEquals(3, published.size());
+        assertEquals(25, published.stream().mapToInt(m -> m.getKeys().size()).sum());
+        assertTrue(published.stream().allMatch(m -> m.getKeys().size() <= 10));
+        assertEquals(2475L, bus.getStats().get("coalescedKeys"));
+
+        bus.flush();
+        assertEquals(3, transport.getPublished().size(), "没有待发送的 key 时不发送消息");
+    }
+
+    @Test
+    public void testBackgroundFlush() throws InterruptedException {
+        InProcessInvalidationTransport transport = new InProcessInvalidationTransport();
+        CacheInvalidationBus nodeA = new CacheInvalidationBus(transport, "A", 256, Duration.ofMillis(5));
+        CacheInvalidationBus nodeB = new CacheInvalidationBus(transport, "B", 256, Duration.ofMillis(5));
+        Cache<String, Object> cacheB = Caffeine.newBuilder().build();
+        nodeB.addListener(cacheB::invalidateAll);
+        cacheB.put("thumb:2:200", 1L);
+
+        nodeA.start();
+        try {
+            nodeA.invalidate("thumb:2:200");
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(2);
+            while (cacheB.getIfPresent("thumb:2:200") != null && System.nanoTime() < deadline) {
+                Thread.sleep(1);
+            }
+            assertNull(cacheB.getIfPresent("thumb:2:200"));
+        } finally {
+            nodeA.close();
+        }
+    }
+}
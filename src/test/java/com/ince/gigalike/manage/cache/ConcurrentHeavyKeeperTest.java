@@ -0,0 +1,77 @@
+package com.ince.gigalike.manage.cache;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * ConcurrentHeavyKeeper 纪元推进与并发写入测试
+ */
+public class ConcurrentHeavyKeeperTest {
+
+    @Test
+    public void testBucketWithNewerEpochIsNotCleared() {
+        long bucket = ConcurrentHeavyKeeper.pack(0x123456, 8, 100);
+        // 读到已按新纪元规整的桶时，旧纪元不能被当成错过了 65535 个纪元
+        assertEquals(100, ConcurrentHeavyKeeper.fadedCount(bucket, 7));
+        assertEquals(100, ConcurrentHeavyKeeper.fadedCount(bucket, 8));
+        assertEquals(50, ConcurrentHeavyKeeper.fadedCount(bucket, 9));
+        assertEquals(0, ConcurrentHeavyKeeper.fadedCount(bucket, 8 + 24));
+    }
+
+    @Test
+    public void testBucketEpochWrapsAround() {
+        long bucket = ConcurrentHeavyKeeper.pack(0x123456, 0xFFFF, 100);
+        assertEquals(25, ConcurrentHeavyKeeper.fadedCount(bucket, 0x10001));
+        assertEquals(100, ConcurrentHeavyKeeper.fadedCount(bucket, 0x1FFFF));
+    }
+
+    @Test
+    public void testHotCountWithNewerEpochIsNotShiftedNegative() {
+        long hot = ConcurrentHeavyKeeper.packHot(8, 100);
+        assertEquals(100, ConcurrentHeavyKeeper.fadedHotCount(hot, 7));
+        assertEquals(25, ConcurrentHeavyKeeper.fadedHotCount(hot, 10));
+        assertEquals(0, ConcurrentHeavyKeeper.fadedHotCount(hot, 8 + Integer.SIZE));
+    }
+
+    /**
+     * 单个桶、单个 key：fading 与写入并发执行，相邻两次 fading 之间只有写入，计数不能减少；
+     * 每次 fading 规整该桶，计数最多减半。写入线程用旧纪元写回时计数会被清零或重复减半
+     */
+    @Test
+    public void testConcurrentFadingKeepsCounts() throws InterruptedException {
+        ConcurrentHeavyKeeper keeper = new ConcurrentHeavyKeeper(10, 1, 1, 0.92, 1);
+        AtomicBoolean stop = new AtomicBoolean();
+        List<Thread> writers = new ArrayList<>();
+        for (int t = 0; t < 4; t++) {
+            writers.add(Thread.ofPlatform().start(() -> {
+                while (!stop.get()) {
+                    keeper.add("hot", 1);
+                }
+            }));
+        }
+
+        try {
+            int previous = keeper.estimate("hot");
+            for (int round = 0; round < 2_000; round++) {
+                int beforeFading = keeper.estimate("hot");
+                assertTrue(beforeFading >= previous, "round " + round + ": " + previous + " -> " + beforeFading);
+                keeper.fading();
+                int afterFading = keeper.estimate("hot");
+                assertTrue(afterFading >= beforeFading >> 1, "round " + round + ": " + beforeFading + " -> " + afterFading);
+                previous = afterFading;
+                Thread.onSpinWait();
+            }
+        } finally {
+            stop.set(true);
+            for (Thread writer : writers) {
+                writer.join();
+            }
+        }
+        assertTrue(keeper.list().stream().anyMatch(item -> item.key().equals("hot")));
+    }
+}
@@ -0,0 +1,71 @@
+package com.ince.gigalike.manage.cache;
+
+import java.util.*;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+/**
+ * HeavyKeeper 精度矩阵
+ * 回放 Zipf 分布的访问序列，与精确计数比较 TopK 的准确率、召回率和计数相对误差，
+ * 输出不同 width / depth 组合下的结果，用于按数据选择 CacheManager 的参数。
+ * <p>
+ * 运行方式：执行 main 方法，可通过 -Dbench.keys / -Dbench.length / -Dbench.zipf 调整访问序列
+ */
+public class HeavyKeeperAccuracyBenchmark {
+
+    static final int K = 100;
+    static final double DECAY = 0.92;
+    static final int MIN_COUNT = 10;
+
+    public static void main(String[] args) {
+        int keys = Integer.getInteger("bench.keys", 100_000);
+        int length = Integer.getInteger("bench.length", 1_000_000);
+        double zipf = Double.parseDouble(System.getProperty("bench.zipf", "1.0"));
+        String[] stream = new ZipfianKeys(keys, zipf).stream(length, 20250514L);
+
+        System.out.printf("keys=%d, length=%d, zipf=%.2f, k=%d%n", keys, length, zipf, K);
+        System.out.printf("%-8s %-6s %-10s %-10s %-10s%n", "width", "depth", "precision", "recall", "rel.err");
+        for (int width : new int[]{1_000, 10_000, 100_000}) {
+            for (int depth : new int[]{1, 3, 5}) {
+                Accuracy accuracy = replay(() -> new ConcurrentHeavyKeeper(K, width, depth, DECAY, MIN_COUNT), stream);
+                System.out.printf("%-8d %-6d %-10.3f %-10.3f %-10.3f%n",
+                        width, depth, accuracy.precision(), accuracy.recall(), accuracy.meanRelativeError());
+            }
+        }
+    }
+
+    /**
+     * 回放访问序列，以精确计数的前 K 个 key 为准计算精度
+     */
+    static Accuracy replay(Supplier<TopK> factory, String[] stream) {
+        TopK topK = factory.get();
+        Map<String, Integer> exact = new HashMap<>();
+        for (String key : stream) {
+            topK.add(key, 1);
+            exact.merge(key, 1, Integer::sum);
+        }
+
+        Set<String> expected = exact.entrySet().stream()
+                .sorted(Map.Entry.<String, Integer>comparingByValue().reversed())
+                .limit(K)
+                .map(Map.Entry::getKey)
+                .collect(Collectors.toSet());
+        List<Item> reported = topK.list();
+
+        int hits = 0;
+        double relativeError = 0;
+        for (Item item : reported) {
+            if (expected.contains(item.key())) {
+                hits++;
+            }
+            int actual = exact.getOrDefault(item.key(), 0);
+            relativeError += Math.abs(item.count() - actual) / (double) Math.max(actual, 1);
+        }
+        double precision = reported.isEmpty() ? 0 : hits / (double) reported.size();
+        double recall = hits / (double) expected.size();
+        return new Accuracy(precision, recall, reported.isEmpty() ? 1 : relativeError / reported.size());
+    }
+
+    record Accuracy(double precision, double recall, double meanRelativeError) {
+    }
+}
@@ -0,0 +1,39 @@
+package com.ince.gigalike.manage.cache;
+
+import com.ince.gigalike.manage.cache.HeavyKeeperAccuracyBenchmark.Accuracy;
+import org.junit.jupiter.api.Test;
+
+import static com.ince.gigalike.manage.cache.HeavyKeeperAccuracyBenchmark.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * HeavyKeeper 精度测试
+ * 回放 Zipf 分布的访问序列，与精确计数比较 TopK 的召回率与计数误差。
+ * 不同 width / depth 组合的精度矩阵见 {@link HeavyKeeperAccuracyBenchmark}。
+ */
+public class HeavyKeeperAccuracyTest {
+
+    private static final int KEY_COUNT = 100_000;
+    private static final int STREAM_LENGTH = 1_000_000;
+
+    private static final String[] STREAM = new ZipfianKeys(KEY_COUNT, 1.0).stream(STREAM_LENGTH, 20250514L);
+
+    @Test
+    public void testDefaultConfigAccuracy() {
+        // CacheManager 默认参数：width = 100000, depth = 5
+        Accuracy heavyKeeper = replay(() -> new HeavyKeeper(K, 100_000, 5, DECAY, MIN_COUNT), STREAM);
+        Accuracy concurrent = replay(() -> new ConcurrentHeavyKeeper(K, 100_000, 5, DECAY, MIN_COUNT), STREAM);
+
+        assertTrue(heavyKeeper.recall() >= 0.95, heavyKeeper.toString());
+        assertTrue(concurrent.recall() >= 0.95, concurrent.toString());
+    }
+
+    @Test
+    public void testDepthImprovesSmallSketch() {
+        // 宽度较小时，各行独立哈希应让增加深度带来收益
+        Accuracy oneRow = replay(() -> new HeavyKeeper(K, 1_000, 1, DECAY, MIN_COUNT), STREAM);
+        Accuracy fiveRows = replay(() -> new HeavyKeeper(K, 1_000, 5, DECAY, MIN_COUNT), STREAM);
+        assertTrue(fiveRows.recall() >= oneRow.recall(), oneRow + " vs " + fiveRows);
+        assertTrue(fiveRows.meanRelativeError() < oneRow.meanRelativeError(), oneRow + " vs " + fiveRows);
+    }
+}
@@ -0,0 +1,34 @@
+package com.ince.gigalike.manage.cache;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * 进程内的失效消息通道，多个总线共用一个实例即可模拟多节点
+ * 发布时同步投递给所有订阅者，并记录发布过的消息便于断言
+ */
+public class InProcessInvalidationTransport implements InvalidationTransport {
+
+    private final List<Consumer<InvalidationMessage>> subscribers = new CopyOnWriteArrayList<>();
+    private final List<InvalidationMessage> published = new CopyOnWriteArrayList<>();
+
+    @Override
+    public void publish(InvalidationMessage message) {
+        InvalidationMessage copy = new InvalidationMessage(message.getNodeId(), new ArrayList<>(message.getKeys()));
+        published.add(copy);
+        for (Consumer<InvalidationMessage> subscriber : subscribers) {
+            subscriber.accept(copy);
+        }
+    }
+
+    @Override
+    public void subscribe(Consumer<InvalidationMessage> subscriber) {
+        subscribers.add(subscriber);
+    }
+
+    public List<InvalidationMessage> getPublished() {
+        return published;
+    }
+}
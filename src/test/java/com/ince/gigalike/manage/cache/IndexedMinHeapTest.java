@@ -0,0 +1,56 @@
+package com.ince.gigalike.manage.cache;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * IndexedMinHeap 测试类
+ */
+public class IndexedMinHeapTest {
+
+    @Test
+    public void testPutUpdatesExistingKey() {
+        IndexedMinHeap heap = new IndexedMinHeap(3);
+        heap.put("a", 5);
+        heap.put("b", 3);
+        heap.put("c", 7);
+        assertEquals(3, heap.minCount());
+
+        // 更新已存在的 key，不会新增节点
+        heap.put("b", 10);
+        assertEquals(3, heap.size());
+        assertEquals(5, heap.minCount());
+        assertEquals("a", heap.poll());
+        assertFalse(heap.contains("a"));
+        assertEquals(List.of(new Item("b", 10), new Item("c", 7)), heap.toList());
+    }
+
+    @Test
+    public void testRandomOperationsMatchReference() {
+        // 随机插入、更新、弹出，与 HashMap 参照（最小值线性扫描得出）的结果比对
+        Random random = new Random(7);
+        IndexedMinHeap heap = new IndexedMinHeap(64);
+        Map<String, Integer> reference = new HashMap<>();
+        for (int i = 0; i < 100_000; i++) {
+            String key = "k" + random.nextInt(200);
+            int count = random.nextInt(1000);
+            if (reference.containsKey(key) || reference.size() < 64) {
+                heap.put(key, count);
+                reference.put(key, count);
+            } else {
+                int min = reference.values().stream().min(Integer::compare).orElseThrow();
+                assertEquals(min, heap.minCount());
+                String polled = heap.poll();
+                assertEquals(min, reference.remove(polled).intValue());
+            }
+        }
+        heap.advanceEpoch();
+        List<Item> expected = new ArrayList<>();
+        reference.forEach((key, count) -> expected.add(new Item(key, count >> 1)));
+        expected.sort(Comparator.comparingInt(Item::count).reversed());
+        assertEquals(expected.stream().map(Item::count).toList(), heap.toList().stream().map(Item::count).toList());
+    }
+}
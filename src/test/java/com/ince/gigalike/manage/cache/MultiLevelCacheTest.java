@@ -0,0 +1,222 @@
+package com.ince.gigalike.manage.cache;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+/**
+ * 多级缓存的逐级回源、热 key 本地缓存、空值缓存、事务提交后删除与跨节点删除本地缓存
+ */
+public class MultiLevelCacheTest {
+
+    private static final Duration NULL_TTL = Duration.ofSeconds(30);
+
+    /**
+     * 模拟的 Redis 数据与写入时的过期时间
+     */
+    private final Map<String, Object> redis = new HashMap<>();
+    private final Map<String, Duration> ttls = new HashMap<>();
+
+    /**
+     * 模拟的数据源
+     */
+    private final Map<Long, String> database = new HashMap<>();
+    private final Map<Long, Integer> loads = new HashMap<>();
+
+    private ValueOperations<String, Object> valueOperations;
+
+    private RedisTemplate<String, Object> redisTemplate;
+
+    private TopK hotKeyDetector;
+
+    /**
+     * 多个节点共用的失效消息通道
+     */
+    private InProcessInvalidationTransport transport;
+
+    private boolean hot;
+
+    private MultiLevelCache<Long, String> cache;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    public void setUp() {
+        redisTemplate = mock(RedisTemplate.class);
+        valueOperations = mock(ValueOperations.class);
+        when(redisTemplate.opsForValue()).thenReturn(valueOperations);
+        when(valueOperations.get(anyString())).thenAnswer(invocation -> redis.get(invocation.<String>getArgument(0)));
+        doAnswer(invocation -> {
+            redis.put(invocation.getArgument(0), invocation.getArgument(1));
+            ttls.put(invocation.getArgument(0), invocation.getArgument(2));
+            return null;
+        }).when(valueOperations).set(anyString(), any(), any(Duration.class));
+        when(redisTemplate.delete(anyString()))
+                .thenAnswer(invocation -> redis.remove(invocation.<String>getArgument(0)) != null);
+        when(redisTemplate.delete(anyCollection())).thenAnswer(invocation -> invocation.<Collection<String>>getArgument(0)
+                .stream().filter(key -> redis.remove(key) != null).count());
+
+        hotKeyDetector = mock(TopK.class);
+        when(hotKeyDetector.add(anyString(), anyInt()))
+                .thenAnswer(invocation -> new AddResult(null, hot, invocation.getArgument(0)));
+
+        transport = new InProcessInvalidationTransport();
+        cache = node(new CacheInvalidationBus(transport, "A", 256, Duration.ofMillis(5)));
+    }
+
+    /**
+     * 一个节点上的缓存，各节点共用 Redis 与数据源
+     */
+    private MultiLevelCache<Long, String> node(CacheInvalidationBus bus) {
+        return new MultiLevelCache<>("test", 100, Duration.ofMinutes(1), Duration.ofMinutes(5), NULL_TTL,
+                redisTemplate, hotKeyDetector, bus, key -> {
+                    loads.merge(key, 1, Integer::sum);
+                    return database.get(key);
+                });
+    }
+
+    @AfterEach
+    public void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    public void testColdKeyIsServedFromRedis() {
+        database.put(1L, "blog-1");
+
+        assertEquals("blog-1", cache.get(1L));
+        assertEquals("blog-1", cache.get(1L));
+
+        assertEquals(1, loads.get(1L));
+        assertEquals(Duration.ofMinutes(5), ttls.get("cache:test:1"));
+        assertEquals(1L, cache.getStats().get("redisHits"));
+        assertEquals(0L, cache.getStats().get("localHits"));
+    }
+
+    @Test
+    public void testHotKeyIsServedFromLocal() {
+        hot = true;
+        database.put(1L, "blog-1");
+
+        assertEquals("blog-1", cache.get(1L));
+        assertEquals("blog-1", cache.get(1L));
+
+        verify(valueOperations, times(1)).get(anyString());
+        assertEquals(1L, cache.getStats().get("localHits"));
+    }
+
+    /**
+     * 不存在的 ID 在 Redis 中缓存空值，过期前不再查询数据源；数据写入后删除缓存即可读到
+     */
+    @Test
+    public void testMissingKeyIsCachedAsNull() {
+        hot = true;
+
+        assertNull(cache.get(404L));
+        assertNull(cache.get(404L));
+        assertNull(cache.get(404L));
+
+        assertEquals(1, loads.get(404L));
+        assertEquals(MultiLevelCache.NULL_VALUE, redis.get("cache:test:404"));
+        assertEquals(NULL_TTL, ttls.get("cache:test:404"));
+        assertEquals(2L, cache.getStats().get("nullHits"));
+
+        database.put(404L, "created");
+        cache.evict(404L);
+        assertEquals("created", cache.get(404L));
+        assertEquals(2, loads.get(404L));
+    }
+
+    @Test
+    public void testEvictAllClearsBothLevels() {
+        hot = true;
+        database.put(1L, "v1");
+        database.put(2L, "v1");
+        cache.get(1L);
+        cache.get(2L);
+
+        database.put(1L, "v2");
+        database.put(2L, "v2");
+        cache.evictAll(List.of(1L, 2L));
+
+        assertEquals("v2", cache.get(1L));
+        assertEquals("v2", cache.get(2L));
+        assertTrue(redis.keySet().containsAll(List.of("cache:test:1", "cache:test:2")));
+    }
+
+    /**
+     * 事务内删除等到提交后执行，提交前读到的仍是缓存中的旧值，提交后回源读到新值
+     */
+    @Test
+    public void testEvictAfterCommitWaitsForCommit() {
+        database.put(1L, "v1");
+        cache.get(1L);
+        database.put(1L, "v2");
+
+        TransactionSynchronizationManager.initSynchronization();
+        cache.evictAfterCommit(List.of(1L));
+        assertEquals("v1", cache.get(1L));
+
+        List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager.getSynchronizations();
+        TransactionSynchronizationManager.clearSynchronization();
+        synchronizations.forEach(TransactionSynchronization::afterCommit);
+        assertEquals("v2", cache.get(1L));
+    }
+
+    @Test
+    public void testEvictAfterCommitOutsideTransactionIsImmediate() {
+        database.put(1L, "v1");
+        cache.get(1L);
+        database.put(1L, "v2");
+
+        cache.evictAfterCommit(List.of(1L));
+        assertEquals("v2", cache.get(1L));
+    }
+
+    /**
+     * 节点 A 删除缓存后广播，节点 B 的本地缓存随之删除，不再返回旧值；其他缓存的 key 不受影响
+     */
+    @Test
+    public void testEvictionDropsOtherNodeLocalCache() {
+        hot = true;
+        CacheInvalidationBus busA = new CacheInvalidationBus(transport, "A", 256, Duration.ofMillis(5));
+        CacheInvalidationBus busB = new CacheInvalidationBus(transport, "B", 256, Duration.ofMillis(5));
+        MultiLevelCache<Long, String> nodeA = node(busA);
+        MultiLevelCache<Long, String> nodeB = node(busB);
+        database.put(1L, "v1");
+        database.put(2L, "v1");
+        nodeA.get(1L);
+        nodeB.get(1L);
+        nodeB.get(2L);
+
+        database.put(1L, "v2");
+        nodeA.evict(1L);
+        busA.flush();
+
+        assertEquals(1L, nodeB.getStats().get("localSize"), "只删除广播的 key");
+        assertEquals("v2", nodeB.get(1L));
+
+        assertEquals("v2", nodeA.get(1L));
+        busB.invalidate("cache:other:1");
+        busB.flush();
+        assertEquals(1L, nodeA.getStats().get("localSize"), "其他缓存的 key 不删除本缓存");
+    }
+}
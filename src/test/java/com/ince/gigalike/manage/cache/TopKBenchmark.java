@@ -0,0 +1,78 @@
+package com.ince.gigalike.manage.cache;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * HeavyKeeper 与 ConcurrentHeavyKeeper 的 add 吞吐对比
+ * 除 k 外参数与 CacheManager 中的热 key 探测器默认值一致，访问序列服从 Zipf 分布
+ * <p>
+ * 运行方式：执行 main 方法，分别以 1 / 8 / 32 个线程压测
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TopKBenchmark {
+
+    private static final int STREAM_SIZE = 1 << 16;
+
+    @Param({"HeavyKeeper", "ConcurrentHeavyKeeper"})
+    public String implementation;
+
+    /**
+     * TopK 容量，观察堆维护开销随 k 增长的变化
+     */
+    @Param({"100", "1000", "5000"})
+    public int k;
+
+    private TopK topK;
+
+    private String[] keys;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        topK = switch (implementation) {
+            case "HeavyKeeper" -> new HeavyKeeper(k, 100000, 5, 0.92, 10);
+            case "ConcurrentHeavyKeeper" -> new ConcurrentHeavyKeeper(k, 100000, 5, 0.92, 10);
+            default -> throw new IllegalArgumentException(implementation);
+        };
+        keys = new ZipfianKeys(100000, 1.0).stream(STREAM_SIZE, 42);
+    }
+
+    /**
+     * 每个线程从不同位置读取访问序列
+     */
+    @State(Scope.Thread)
+    public static class Cursor {
+        int next;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            next = ThreadLocalRandom.current().nextInt(STREAM_SIZE);
+        }
+    }
+
+    @Benchmark
+    public AddResult add(Cursor cursor) {
+        return topK.add(keys[cursor.next++ & (STREAM_SIZE - 1)], 1);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        for (int threads : new int[]{1, 8, 32}) {
+            Options options = new OptionsBuilder()
+                    .include(TopKBenchmark.class.getSimpleName())
+                    .threads(threads)
+                    .build();
+            new Runner(options).run();
+        }
+    }
+}
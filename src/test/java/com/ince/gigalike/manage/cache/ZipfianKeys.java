@@ -0,0 +1,41 @@
+package com.ince.gigalike.manage.cache;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * 按 Zipf 分布生成 key 序列，模拟热点访问
+ * 排名为 r 的 key 被访问的概率正比于 1 / r^exponent
+ */
+public class ZipfianKeys {
+
+    private final String[] keys;
+    private final double[] cumulative;
+
+    public ZipfianKeys(int keyCount, double exponent) {
+        this.keys = new String[keyCount];
+        this.cumulative = new double[keyCount];
+        double sum = 0;
+        for (int i = 0; i < keyCount; i++) {
+            keys[i] = "blog:" + i;
+            sum += 1.0 / Math.pow(i + 1, exponent);
+            cumulative[i] = sum;
+        }
+        for (int i = 0; i < keyCount; i++) {
+            cumulative[i] /= sum;
+        }
+    }
+
+    /**
+     * 生成长度为 length 的访问序列，相同 seed 生成的序列相同
+     */
+    public String[] stream(int length, long seed) {
+        Random random = new Random(seed);
+        String[] stream = new String[length];
+        for (int i = 0; i < length; i++) {
+            int index = Arrays.binarySearch(cumulative, random.nextDouble());
+            stream[i] = keys[index >= 0 ? index : Math.min(-index - 1, keys.length - 1)];
+        }
+        return stream;
+    }
+}
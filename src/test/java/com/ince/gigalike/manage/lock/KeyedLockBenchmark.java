@@ -0,0 +1,74 @@
+package com.ince.gigalike.manage.lock;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 点赞接口用户锁的竞争压测：synchronized (String.intern()) 与 StripedKeyedLock 对比
+ * 临界区用固定的 CPU 消耗模拟 ThumbServiceImpl.doThumb 中的事务逻辑；
+ * users 较小时大量请求落在同一用户上（竞争激烈），较大时接近无竞争
+ * <p>
+ * 运行方式：执行 main 方法，分别以 8 / 64 个线程压测
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class KeyedLockBenchmark {
+
+    @Param({"intern", "striped"})
+    public String lock;
+
+    /**
+     * 参与点赞的用户数
+     */
+    @Param({"16", "100000"})
+    public int users;
+
+    /**
+     * 临界区的 CPU 消耗
+     */
+    @Param({"200"})
+    public int work;
+
+    private KeyedLock keyedLock;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        keyedLock = new StripedKeyedLock(1024);
+    }
+
+    @Benchmark
+    public boolean like() {
+        Long userId = ThreadLocalRandom.current().nextLong(users);
+        if ("intern".equals(lock)) {
+            synchronized (userId.toString().intern()) {
+                Blackhole.consumeCPU(work);
+                return true;
+            }
+        }
+        return keyedLock.executeWithLock(userId, () -> {
+            Blackhole.consumeCPU(work);
+            return true;
+        });
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        for (int threads : new int[]{8, 64}) {
+            Options options = new OptionsBuilder()
+                    .include(KeyedLockBenchmark.class.getSimpleName())
+                    .threads(threads)
+                    .build();
+            new Runner(options).run();
+        }
+    }
+}
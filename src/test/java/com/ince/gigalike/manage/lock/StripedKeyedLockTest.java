@@ -0,0 +1,61 @@
+package com.ince.gigalike.manage.lock;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 分段锁测试
+ */
+public class StripedKeyedLockTest {
+
+    @Test
+    public void testStripesRoundUpToPowerOfTwo() {
+        assertEquals(1, new StripedKeyedLock(1).stripes());
+        assertEquals(16, new StripedKeyedLock(16).stripes());
+        assertEquals(1024, new StripedKeyedLock(1000).stripes());
+        assertThrows(IllegalArgumentException.class, () -> new StripedKeyedLock(0));
+    }
+
+    @Test
+    public void testSameKeyMutualExclusion() throws InterruptedException {
+        StripedKeyedLock lock = new StripedKeyedLock(64);
+        int[] counters = new int[8];
+        int threads = 16;
+        int rounds = 10_000;
+        CountDownLatch done = new CountDownLatch(threads);
+        // 虚拟线程下同样不能出现丢失更新
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int t = 0; t < threads; t++) {
+                executor.execute(() -> {
+                    for (int i = 0; i < rounds; i++) {
+                        long userId = i % counters.length;
+                        lock.executeWithLock(userId, () -> counters[(int) userId]++);
+                    }
+                    done.countDown();
+                });
+            }
+            assertTrue(done.await(30, TimeUnit.SECONDS));
+        }
+        for (int counter : counters) {
+            assertEquals(threads * rounds / counters.length, counter);
+        }
+    }
+
+    @Test
+    public void testReentrantAndReleasedOnException() {
+        StripedKeyedLock lock = new StripedKeyedLock(16);
+        int result = lock.executeWithLock(1L, () -> lock.executeWithLock(1L, () -> 42));
+        assertEquals(42, result);
+
+        assertThrows(IllegalStateException.class, () -> lock.executeWithLock(2L, () -> {
+            throw new IllegalStateException();
+        }));
+        assertFalse(lock.lockFor(2L).isLocked());
+    }
+}
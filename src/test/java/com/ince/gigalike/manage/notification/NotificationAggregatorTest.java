@@ -0,0 +1,175 @@
+package com.ince.gigalike.manage.notification;
+
+import com.ince.gigalike.enums.NotificationTypeEnum;
+import com.ince.gigalike.enums.RelatedTypeEnum;
+import com.ince.gigalike.listener.notification.msg.NotificationEvent;
+import com.ince.gigalike.manage.cache.MultiLevelCache;
+import com.ince.gigalike.model.entity.Blog;
+import com.ince.gigalike.service.NotificationService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.*;
+
+/**
+ * 点赞通知合并测试
+ */
+public class NotificationAggregatorTest {
+
+    /**
+     * 所有博客的作者
+     */
+    private static final long AUTHOR_ID = 1_000_000L;
+
+    private NotificationService notificationService;
+
+    private NotificationAggregator aggregator;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    public void setUp() {
+        notificationService = mock(NotificationService.class);
+        MultiLevelCache<Long, Blog> blogCache = mock(MultiLevelCache.class);
+        when(blogCache.get(anyLong())).thenAnswer(invocation -> {
+            Blog blog = new Blog();
+            blog.setId(invocation.getArgument(0));
+            blog.setUserid(AUTHOR_ID);
+            return blog;
+        });
+        aggregator = new NotificationAggregator();
+        ReflectionTestUtils.setField(aggregator, "notificationService", notificationService);
+        ReflectionTestUtils.setField(aggregator, "blogCache", blogCache);
+        ReflectionTestUtils.setField(aggregator, "enabled", true);
+        ReflectionTestUtils.setField(aggregator, "windowMs", 60_000L);
+        ReflectionTestUtils.setField(aggregator, "maxWindows", 100);
+    }
+
+    @Test
+    public void testConcurrentLikesCoalescePerBlog() throws InterruptedException {
+        int blogs = 3;
+        int likes = 3_000;
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        for (int i = 0; i < likes; i++) {
+            long senderId = i;
+            executor.execute(() -> assertTrue(aggregator.offer(like(senderId, senderId % blogs))));
+        }
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+
+        // 窗口未到期时不写入
+        aggregator.flush();
+        verify(notificationService, never()).createAggregatedNotification(any(), any());
+
+        aggregator.flushAll();
+        ArgumentCaptor<NotificationEvent> events = ArgumentCaptor.forClass(NotificationEvent.class);
+        ArgumentCaptor<Collection<Long>> likers = likersCaptor();
+        verify(notificationService, times(blogs)).createAggregatedNotification(events.capture(), likers.capture());
+
+        Map<Long, Integer> perBlog = new HashMap<>();
+        List<NotificationEvent> flushed = events.getAllValues();
+        for (int i = 0; i < flushed.size(); i++) {
+            perBlog.merge(flushed.get(i).getRelatedId(), likers.getAllValues().get(i).size(), Integer::sum);
+        }
+        assertEquals(Map.of(0L, likes / blogs, 1L, likes / blogs, 2L, likes / blogs), perBlog);
+    }
+
+    /**
+     * 作者自己的点赞是窗口内最后一条事件时，不能让整个窗口被丢弃
+     */
+    @Test
+    public void testSelfLikeLastKeepsOtherLikers() {
+        aggregator.offer(like(1, 100));
+        aggregator.offer(like(2, 100));
+        aggregator.offer(like(AUTHOR_ID, 100));
+
+        aggregator.flushAll();
+        ArgumentCaptor<NotificationEvent> latest = ArgumentCaptor.forClass(NotificationEvent.class);
+        verify(notificationService).createAggregatedNotification(latest.capture(), eq(Set.of(1L, 2L)));
+        assertEquals(2L, latest.getValue().getSenderId());
+        assertEquals(AUTHOR_ID, latest.getValue().getUserId());
+    }
+
+    /**
+     * 作者自己的点赞不是最后一条时也不计数；窗口里只有作者自己的点赞时不写入
+     */
+    @Test
+    public void testSelfLikeIsNotCounted() {
+        aggregator.offer(like(AUTHOR_ID, 100));
+        aggregator.offer(like(1, 100));
+        aggregator.offer(like(AUTHOR_ID, 200));
+
+        aggregator.flushAll();
+        verify(notificationService).createAggregatedNotification(any(), eq(Set.of(1L)));
+        verify(notificationService, times(1)).createAggregatedNotification(any(), any());
+        assertEquals(2L, aggregator.getStats().get("selfLikes"));
+    }
+
+    /**
+     * 同一用户在窗口内反复点赞（取消后再点赞、重复投递）只算一个点赞者
+     */
+    @Test
+    public void testRepeatedLikesCountOnce() {
+        aggregator.offer(like(1, 100));
+        aggregator.offer(like(2, 100));
+        aggregator.offer(like(1, 100));
+        aggregator.offer(like(1, 100));
+
+        aggregator.flushAll();
+        ArgumentCaptor<NotificationEvent> latest = ArgumentCaptor.forClass(NotificationEvent.class);
+        verify(notificationService).createAggregatedNotification(latest.capture(), eq(Set.of(1L, 2L)));
+        assertEquals(1L, latest.getValue().getSenderId());
+    }
+
+    @Test
+    public void testOtherNotificationsAreNotAggregated() {
+        NotificationEvent follow = NotificationEvent.builder()
+                .userId(1L)
+                .senderId(2L)
+                .type(NotificationTypeEnum.FOLLOW.getCode())
+                .relatedId(2L)
+                .relatedType(RelatedTypeEnum.USER.getCode())
+                .build();
+        assertFalse(aggregator.offer(follow));
+        aggregator.flushAll();
+        verifyNoInteractions(notificationService);
+    }
+
+    @Test
+    public void testBypassWhenTooManyWindows() {
+        ReflectionTestUtils.setField(aggregator, "maxWindows", 1);
+        aggregator.offer(like(1, 100));
+        aggregator.offer(like(2, 200));
+        verify(notificationService).createAggregatedNotification(any(), eq(List.of(2L)));
+
+        aggregator.flushAll();
+        verify(notificationService).createAggregatedNotification(any(), eq(Set.of(1L)));
+    }
+
+    @SuppressWarnings("unchecked")
+    private static ArgumentCaptor<Collection<Long>> likersCaptor() {
+        return ArgumentCaptor.forClass(Collection.class);
+    }
+
+    private static NotificationEvent like(long senderId, long blogId) {
+        return NotificationEvent.builder()
+                .senderId(senderId)
+                .type(NotificationTypeEnum.LIKE.getCode())
+                .relatedId(blogId)
+                .relatedType(RelatedTypeEnum.BLOG.getCode())
+                .build();
+    }
+}
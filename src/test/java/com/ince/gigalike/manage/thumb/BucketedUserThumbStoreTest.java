@@ -0,0 +1,210 @@
+package com.ince.gigalike.manage.thumb;
+
+import com.ince.gigalike.utils.RedisKeyUtil;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.core.RedisTemplate;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 分桶点赞布局的 Lua 脚本：多轮分裂后每条点赞都在线性哈希算出的桶里，分裂后与旧布局迁移后的点赞、取消点赞、查询
+ * <p>
+ * 需要本地 Redis（见 {@link LocalRedis}），只读写测试用户的键
+ */
+public class BucketedUserThumbStoreTest {
+
+    private static final int MAX_LOAD = 4;
+
+    private static final long USER_ID = 9_000_000_001L;
+
+    private static final long BLOG_ID_BASE = 1_900_000_000_000_000_000L;
+
+    private static LocalRedis redis;
+
+    private static RedisTemplate<String, Object> redisTemplate;
+
+    private final BucketedUserThumbStore store = new BucketedUserThumbStore(redisTemplate, MAX_LOAD);
+
+    @BeforeAll
+    public static void connect() {
+        redis = LocalRedis.connectOrSkip();
+        redisTemplate = redis.template();
+    }
+
+    @AfterAll
+    public static void disconnect() {
+        if (redis != null) {
+            redis.close();
+        }
+    }
+
+    @AfterEach
+    public void cleanUp() {
+        Set<String> keys = redisTemplate.keys(RedisKeyUtil.getUserThumbKey(USER_ID) + "*");
+        if (keys != null && !keys.isEmpty()) {
+            redisTemplate.delete(keys);
+        }
+        redisTemplate.delete(RedisKeyUtil.getThumbLoadedKey(USER_ID));
+    }
+
+    /**
+     * 200 条点赞、每桶平均不超过 4 条：经过多轮分裂（level >= 5），
+     * 桶数刚好满足负载上限，每条点赞都在按 level / p 算出的桶里
+     */
+    @Test
+    public void testSplitAcrossRounds() {
+        List<Long> blogIds = randomBlogIds(200, 1);
+        for (Long blogId : blogIds) {
+            assertTrue(store.add(USER_ID, blogId, null));
+        }
+
+        long[] state = state();
+        assertTrue(state[0] >= 5, "level=" + state[0]);
+        assertEquals(200, state[2]);
+        long buckets = (1L << state[0]) + state[1];
+        assertTrue(200 <= MAX_LOAD * buckets, "buckets=" + buckets);
+        assertTrue(200 > MAX_LOAD * (buckets - 1), "只在超过负载上限时分裂，buckets=" + buckets);
+        assertPlacement(new TreeSet<>(blogIds));
+        assertTrue(store.contains(USER_ID, blogIds).values().stream().allMatch(Boolean::booleanValue));
+    }
+
+    /**
+     * 分裂后取消点赞、重复点赞、再次点赞，计数 c 与查询结果一致
+     */
+    @Test
+    public void testAddRemoveContainsAfterSplit() {
+        List<Long> blogIds = randomBlogIds(100, 2);
+        blogIds.forEach(blogId -> store.add(USER_ID, blogId, null));
+        List<Long> removed = blogIds.subList(0, 50);
+        List<Long> kept = blogIds.subList(50, 100);
+
+        for (Long blogId : removed) {
+            assertTrue(store.remove(USER_ID, blogId, null));
+            assertFalse(store.remove(USER_ID, blogId, null), "未点赞时取消点赞失败");
+        }
+        for (Long blogId : kept) {
+            assertFalse(store.add(USER_ID, blogId, null), "已点赞时点赞失败");
+        }
+
+        assertEquals(50, state()[2]);
+        Map<Long, Boolean> found = store.contains(USER_ID, blogIds);
+        removed.forEach(blogId -> assertFalse(found.get(blogId)));
+        kept.forEach(blogId -> assertTrue(found.get(blogId)));
+        assertArrayEquals(sorted(kept), store.blogIds(USER_ID));
+        assertFalse(store.isLoaded(USER_ID), "分裂过的用户 0 号桶保存元数据，不写已加载标记");
+
+        assertTrue(store.add(USER_ID, removed.get(0), null));
+        assertTrue(store.contains(USER_ID, List.of(removed.get(0))).get(removed.get(0)));
+        assertEquals(51, state()[2]);
+        List<Long> expected = new ArrayList<>(kept);
+        expected.add(removed.get(0));
+        assertPlacement(new TreeSet<>(expected));
+    }
+
+    /**
+     * 旧布局 thumb:{userId}：迁移前查询同时读旧键；下一次写入时整体迁移到分桶，
+     * 旧键删除，过期时间带到全部桶，迁移过来的点赞可以取消
+     */
+    @Test
+    public void testLegacyMigration() {
+        List<Long> blogIds = randomBlogIds(60, 3);
+        HashUserThumbStore legacy = new HashUserThumbStore(redisTemplate);
+        blogIds.forEach(blogId -> legacy.add(USER_ID, blogId, null));
+        String prefix = RedisKeyUtil.getUserThumbKey(USER_ID);
+        redisTemplate.expire(prefix, Duration.ofMinutes(10));
+
+        assertTrue(store.contains(USER_ID, blogIds).values().stream().allMatch(Boolean::booleanValue));
+        assertFalse(store.add(USER_ID, blogIds.get(0), null), "旧布局中已点赞");
+
+        assertEquals(Boolean.FALSE, redisTemplate.hasKey(prefix));
+        long[] state = state();
+        assertEquals(60, state[2]);
+        assertPlacement(new TreeSet<>(blogIds));
+        long buckets = (1L << state[0]) + state[1];
+        for (long bucket = 0; bucket < buckets; bucket++) {
+            Long ttl = redisTemplate.getExpire(prefix + ":" + bucket, TimeUnit.SECONDS);
+            assertTrue(ttl != null && ttl > 0 && ttl <= 600, "bucket=" + bucket + ", ttl=" + ttl);
+        }
+
+        assertTrue(store.remove(USER_ID, blogIds.get(1), null));
+        assertFalse(store.contains(USER_ID, List.of(blogIds.get(1))).get(blogIds.get(1)));
+        List<Long> expected = new ArrayList<>(blogIds);
+        expected.remove(1);
+        assertArrayEquals(sorted(expected), store.blogIds(USER_ID));
+    }
+
+    /**
+     * 每条点赞都在脚本 bucketOf 算出的桶里，各桶之外没有多余的点赞
+     */
+    private void assertPlacement(TreeSet<Long> expected) {
+        long[] state = state();
+        long buckets = (1L << state[0]) + state[1];
+        String prefix = RedisKeyUtil.getUserThumbKey(USER_ID);
+        TreeSet<Long> actual = new TreeSet<>();
+        for (long bucket = 0; bucket < buckets; bucket++) {
+            for (Object field : redisTemplate.opsForHash().keys(prefix + ":" + bucket)) {
+                if (Set.of("L", "p", "c").contains(field.toString())) {
+                    continue;
+                }
+                long blogId = Long.parseLong(field.toString());
+                assertEquals(bucketOf(blogId, state[0], state[1]), bucket, "blogId=" + blogId);
+                actual.add(blogId);
+            }
+        }
+        assertEquals(expected, actual);
+        assertEquals(Boolean.FALSE, redisTemplate.hasKey(prefix + ":" + buckets), "不存在超出桶数的桶");
+    }
+
+    /**
+     * 线性哈希寻址：博客 ID 末 6 位对 2^level 取模，落在已分裂的桶（小于 p）时对 2^(level+1) 取模
+     */
+    private static long bucketOf(long blogId, long level, long split) {
+        long hash = blogId % 1_000_000;
+        long bucket = hash % (1L << level);
+        if (bucket < split) {
+            bucket = hash % (1L << (level + 1));
+        }
+        return bucket;
+    }
+
+    /**
+     * 0 号桶中的 level、p、c
+     */
+    private long[] state() {
+        List<Object> meta = redisTemplate.opsForHash().multiGet(RedisKeyUtil.getUserThumbKey(USER_ID) + ":0",
+                List.of("L", "p", "c"));
+        assertNotNull(meta.get(0), "尚未分裂");
+        return meta.stream().mapToLong(value -> Long.parseLong(value.toString())).toArray();
+    }
+
+    private static List<Long> randomBlogIds(int count, long seed) {
+        Random random = new Random(seed);
+        TreeSet<Long> blogIds = new TreeSet<>();
+        while (blogIds.size() < count) {
+            blogIds.add(BLOG_ID_BASE + random.nextLong(1L << 40));
+        }
+        List<Long> shuffled = new ArrayList<>(blogIds);
+        Collections.shuffle(shuffled, random);
+        return shuffled;
+    }
+
+    private static long[] sorted(List<Long> blogIds) {
+        long[] result = blogIds.stream().mapToLong(Long::longValue).toArray();
+        Arrays.sort(result);
+        return result;
+    }
+}
@@ -0,0 +1,191 @@
+package com.ince.gigalike.manage.thumb;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * 冷用户点赞数据过期淘汰：长尾访问下的键数上界、过期后从数据库重新加载、热点用户续期不重复加载
+ */
+public class ExpiringUserThumbStoreTest {
+
+    private static final Duration TTL = Duration.ofMinutes(10);
+
+    /**
+     * 点赞数据比标记多存活 1/10
+     */
+    private static final long DATA_TTL_SECONDS = TTL.toSeconds() * 11 / 10;
+
+    private static final int HEAD_USERS = 20;
+
+    private static final long BLOG_ID_BASE = 1_900_000_000_000_000_000L;
+
+    private final AtomicLong now = new AtomicLong(1_000_000L);
+
+    /**
+     * 模拟数据库中的点赞记录
+     */
+    private final Map<Long, List<Long>> database = new HashMap<>();
+
+    private final Map<Long, Integer> loads = new HashMap<>();
+
+    private InMemoryUserThumbStore redis;
+
+    @BeforeEach
+    public void setUp() {
+        redis = new InMemoryUserThumbStore(now::get);
+    }
+
+    /**
+     * 每秒一个头部用户和一个新的长尾用户，运行 6 个过期周期：
+     * 淘汰时键数不超过最近 DATA_TTL 内访问过的用户数的两倍（点赞哈希 + 标记），
+     * 不淘汰时键数随访问过的用户数线性增长
+     */
+    @Test
+    public void testKeysBoundedByRecentlyAccessedUsers() {
+        long seconds = TTL.toSeconds() * 6;
+        int evicting = runLongTail(store(TTL), seconds);
+
+        int bound = 2 * (HEAD_USERS + (int) DATA_TTL_SECONDS);
+        assertTrue(evicting <= bound, "keys=" + evicting + ", bound=" + bound);
+
+        setUp();
+        int resident = runLongTail(store(Duration.ofDays(1)), seconds);
+        assertTrue(resident > HEAD_USERS + seconds, "keys=" + resident);
+        assertTrue(evicting * 3 < resident, "evicting=" + evicting + ", resident=" + resident);
+    }
+
+    /**
+     * 点赞数据过期后第一次访问从数据库重新加载，加载前后点赞状态一致
+     */
+    @Test
+    public void testExpiredUserIsReloaded() {
+        UserThumbStore store = store(TTL);
+        long userId = 42L;
+        database.put(userId, new ArrayList<>());
+
+        assertTrue(store.add(userId, BLOG_ID_BASE + 1));
+        database.get(userId).add(BLOG_ID_BASE + 1);
+        assertEquals(1, loads.get(userId));
+
+        now.addAndGet(Duration.ofSeconds(DATA_TTL_SECONDS + 1).toMillis());
+        assertEquals(0, redis.keyCount());
+
+        assertTrue(store.contains(userId, List.of(BLOG_ID_BASE + 1)).get(BLOG_ID_BASE + 1));
+        assertFalse(store.contains(userId, List.of(BLOG_ID_BASE + 2)).get(BLOG_ID_BASE + 2));
+        assertEquals(2, loads.get(userId));
+        assertTrue(store.isLoaded(userId));
+        assertFalse(store.add(userId, BLOG_ID_BASE + 1));
+    }
+
+    /**
+     * 标记先过期、点赞数据仍在时重新加载不覆盖 Redis 中较新的数据
+     */
+    @Test
+    public void testReloadKeepsLiveData() {
+        UserThumbStore store = store(TTL);
+        long userId = 42L;
+        database.put(userId, List.of());
+        assertTrue(store.add(userId, BLOG_ID_BASE + 1));
+        // 点赞事件尚未写库，数据库里还没有这条记录
+        now.addAndGet(TTL.plusSeconds(1).toMillis());
+
+        assertTrue(store.contains(userId, List.of(BLOG_ID_BASE + 1)).get(BLOG_ID_BASE + 1));
+        assertEquals(2, loads.get(userId));
+    }
+
+    /**
+     * 对账读取：标记已过期、点赞数据仍在时直接读 Redis，不从数据库加载，也不补写标记
+     */
+    @Test
+    public void testPeekDoesNotLoad() {
+        UserThumbStore store = store(TTL);
+        long userId = 42L;
+        database.put(userId, List.of());
+        assertTrue(store.add(userId, BLOG_ID_BASE + 1));
+        now.addAndGet(TTL.plusSeconds(1).toMillis());
+
+        assertTrue(store.peek(userId, List.of(BLOG_ID_BASE + 1)).get(BLOG_ID_BASE + 1));
+        assertEquals(1, loads.get(userId));
+        assertFalse(store.isLoaded(userId));
+    }
+
+    /**
+     * 访问间隔小于过期时间的用户一直续期，只加载一次
+     */
+    @Test
+    public void testActiveUserIsRenewed() {
+        UserThumbStore store = store(TTL);
+        long userId = 42L;
+        for (int i = 0; i < 30; i++) {
+            store.contains(userId, List.of(BLOG_ID_BASE));
+            now.addAndGet(TTL.dividedBy(3).toMillis());
+        }
+        assertEquals(1, loads.get(userId));
+    }
+
+    private int runLongTail(UserThumbStore store, long seconds) {
+        Random random = new Random(7);
+        long tailUserId = HEAD_USERS + 1;
+        for (long second = 0; second < seconds; second++) {
+            long headUserId = 1 + random.nextInt(HEAD_USERS);
+            store.contains(headUserId, List.of(BLOG_ID_BASE + random.nextInt(1_000)));
+            store.contains(tailUserId++, List.of(BLOG_ID_BASE + random.nextInt(1_000)));
+            now.addAndGet(1_000);
+        }
+        return redis.keyCount();
+    }
+
+    private UserThumbStore store(Duration ttl) {
+        return new ExpiringUserThumbStore(redis, redisTemplate(), this::load, ttl);
+    }
+
+    /**
+     * 用户点赞记录：测试写入的记录，或按用户 ID 生成的固定随机记录（约一半用户没有点赞）
+     */
+    private List<Long> load(long userId) {
+        loads.merge(userId, 1, Integer::sum);
+        List<Long> blogIds = database.get(userId);
+        if (blogIds != null) {
+            return List.copyOf(blogIds);
+        }
+        Random random = new Random(userId);
+        List<Long> generated = new ArrayList<>();
+        while (random.nextBoolean()) {
+            generated.add(BLOG_ID_BASE + random.nextInt(1_000_000));
+        }
+        return generated;
+    }
+
+    @SuppressWarnings("unchecked")
+    private RedisTemplate<String, Object> redisTemplate() {
+        RedisTemplate<String, Object> redisTemplate = mock(RedisTemplate.class);
+        ValueOperations<String, Object> valueOperations = mock(ValueOperations.class);
+        when(redisTemplate.opsForValue()).thenReturn(valueOperations);
+        when(redisTemplate.getExpire(anyString(), eq(TimeUnit.MILLISECONDS)))
+                .thenAnswer(invocation -> redis.pttl(invocation.getArgument(0)));
+        when(redisTemplate.expire(anyString(), any(Duration.class)))
+                .thenAnswer(invocation -> redis.expireKey(invocation.getArgument(0), invocation.getArgument(1)));
+        doAnswer(invocation -> {
+            redis.setKey(invocation.getArgument(0), invocation.getArgument(2));
+            return null;
+        }).when(valueOperations).set(anyString(), any(), any(Duration.class));
+        return redisTemplate;
+    }
+}
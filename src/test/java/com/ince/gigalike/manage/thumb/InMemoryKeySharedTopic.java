@@ -0,0 +1,75 @@
+package com.ince.gigalike.manage.thumb;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * 分区主题 + 订阅的进程内替身，用于验证多消费者下的消息顺序
+ * <p>
+ * 发布时按 key 哈希选择分区；KEY_SHARED 模式下按 key 的哈希区间把消息固定分配给一个消费者
+ * （与 Pulsar Key_Shared 的 auto-split 哈希区间一致，区间 [0, 65536) 平均分给各消费者），
+ * SHARED 模式下按分区内到达顺序轮询分配，同一 key 的消息会落到不同消费者。
+ */
+public class InMemoryKeySharedTopic<T> {
+
+    public enum Mode {
+        SHARED,
+        KEY_SHARED
+    }
+
+    private static final int HASH_RANGE = 65536;
+
+    private final int partitions;
+    private final Mode mode;
+    private final List<ConcurrentLinkedQueue<T>> consumerQueues = new ArrayList<>();
+    private final int[] roundRobin;
+
+    public InMemoryKeySharedTopic(int partitions, int consumers, Mode mode) {
+        this.partitions = partitions;
+        this.mode = mode;
+        this.roundRobin = new int[partitions];
+        for (int i = 0; i < consumers; i++) {
+            consumerQueues.add(new ConcurrentLinkedQueue<>());
+        }
+    }
+
+    public void publish(String key, T value) {
+        int partition = Math.floorMod(key.hashCode(), partitions);
+        int consumer;
+        if (mode == Mode.KEY_SHARED) {
+            int slot = Math.floorMod(murmur(key), HASH_RANGE);
+            consumer = slot * consumerQueues.size() / HASH_RANGE;
+        } else {
+            consumer = roundRobin[partition]++ % consumerQueues.size();
+        }
+        consumerQueues.get(consumer).add(value);
+    }
+
+    /**
+     * 消费者取出最多 maxMessages 条消息，模拟 batchReceive
+     */
+    public List<T> receive(int consumer, int maxMessages) {
+        ConcurrentLinkedQueue<T> queue = consumerQueues.get(consumer);
+        List<T> batch = new ArrayList<>();
+        T value;
+        while (batch.size() < maxMessages && (value = queue.poll()) != null) {
+            batch.add(value);
+        }
+        return batch;
+    }
+
+    public int consumers() {
+        return consumerQueues.size();
+    }
+
+    private static int murmur(String key) {
+        int h = key.hashCode();
+        h ^= h >>> 16;
+        h *= 0x85ebca6b;
+        h ^= h >>> 13;
+        h *= 0xc2b2ae35;
+        h ^= h >>> 16;
+        return h;
+    }
+}
@@ -0,0 +1,37 @@
+package com.ince.gigalike.manage.thumb;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 进程内的已处理事件存储，可以让下一次查询失败，模拟 Redis 不可用
+ */
+public class InMemoryProcessedEventStore implements ProcessedEventStore {
+
+    private final Set<Long> ids = ConcurrentHashMap.newKeySet();
+    private volatile boolean failNext;
+
+    @Override
+    public boolean[] contains(long[] eventIds) {
+        if (failNext) {
+            failNext = false;
+            throw new IllegalStateException("store unavailable");
+        }
+        boolean[] result = new boolean[eventIds.length];
+        for (int i = 0; i < eventIds.length; i++) {
+            result[i] = ids.contains(eventIds[i]);
+        }
+        return result;
+    }
+
+    @Override
+    public void add(long[] eventIds) {
+        for (long id : eventIds) {
+            ids.add(id);
+        }
+    }
+
+    public void failNext() {
+        failNext = true;
+    }
+}
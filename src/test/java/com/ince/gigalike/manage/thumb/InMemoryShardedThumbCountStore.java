@@ -0,0 +1,102 @@
+package com.ince.gigalike.manage.thumb;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * 进程内的分片计数，所有分片合并为一个值；可以让下一次确认失败，模拟写库提交后、确认前宕机
+ */
+public class InMemoryShardedThumbCountStore implements ShardedThumbCountStore {
+
+    private final Map<Long, Long> shards = new HashMap<>();
+    private final Map<Long, Long> pending = new HashMap<>();
+    private final Map<Long, Long> foldIds = new HashMap<>();
+    private final Set<Long> hot = new LinkedHashSet<>();
+    private String leaseToken;
+    private boolean failNextAck;
+
+    public void failNextAck() {
+        failNextAck = true;
+    }
+
+    /**
+     * 模拟其他节点持有租约
+     */
+    public void stealLease() {
+        leaseToken = "other-node";
+    }
+
+    @Override
+    public void increment(long blogId, long delta) {
+        hot.add(blogId);
+        shards.merge(blogId, delta, Long::sum);
+    }
+
+    @Override
+    public Set<Long> shardedBlogIds() {
+        return Set.copyOf(hot);
+    }
+
+    @Override
+    public long[] unsyncedCounts(List<Long> blogIds) {
+        return blogIds.stream()
+                .mapToLong(blogId -> shards.getOrDefault(blogId, 0L) + pending.getOrDefault(blogId, 0L))
+                .toArray();
+    }
+
+    @Override
+    public String tryLease(Duration leaseTime) {
+        if (leaseToken != null) {
+            return null;
+        }
+        leaseToken = UUID.randomUUID().toString();
+        return leaseToken;
+    }
+
+    @Override
+    public void releaseLease(String token) {
+        if (token.equals(leaseToken)) {
+            leaseToken = null;
+        }
+    }
+
+    /**
+     * 同归并脚本
+     */
+    @Override
+    public ThumbCountFold fold(long blogId, long foldId) {
+        Long unacked = foldIds.get(blogId);
+        if (unacked != null) {
+            return new ThumbCountFold(blogId, unacked, pending.get(blogId));
+        }
+        Long moved = shards.remove(blogId);
+        long total = pending.getOrDefault(blogId, 0L) + (moved == null ? 0 : moved);
+        if (total == 0) {
+            pending.remove(blogId);
+            if (moved == null) {
+                hot.remove(blogId);
+            }
+            return null;
+        }
+        pending.put(blogId, total);
+        foldIds.put(blogId, foldId);
+        return new ThumbCountFold(blogId, foldId, total);
+    }
+
+    @Override
+    public void ack(ThumbCountFold fold) {
+        if (failNextAck) {
+            failNextAck = false;
+            throw new IllegalStateException("连接断开");
+        }
+        if (Long.valueOf(fold.foldId()).equals(foldIds.get(fold.blogId()))) {
+            foldIds.remove(fold.blogId());
+            pending.remove(fold.blogId());
+        }
+    }
+}
@@ -0,0 +1,118 @@
+package com.ince.gigalike.manage.thumb;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * 进程内的增量对账状态，租约可以由测试直接占用或夺走，模拟其他节点
+ */
+public class InMemoryThumbDirtyStore implements ThumbDirtyStore {
+
+    private final Map<String, Set<Long>> sets = new HashMap<>();
+    private String leaseToken;
+    private Long watermark;
+    private final List<Long> savedWatermarks = new ArrayList<>();
+
+    public void add(String key, Long... ids) {
+        sets.computeIfAbsent(key, k -> new LinkedHashSet<>()).addAll(List.of(ids));
+    }
+
+    public Set<Long> members(String key) {
+        return sets.getOrDefault(key, Set.of());
+    }
+
+    /**
+     * 模拟其他节点持有或接手租约
+     */
+    public void stealLease() {
+        leaseToken = "other-node";
+    }
+
+    public boolean isLeased() {
+        return leaseToken != null;
+    }
+
+    public List<Long> savedWatermarks() {
+        return savedWatermarks;
+    }
+
+    @Override
+    public String tryLease(Duration leaseTime) {
+        if (leaseToken != null) {
+            return null;
+        }
+        leaseToken = UUID.randomUUID().toString();
+        return leaseToken;
+    }
+
+    @Override
+    public boolean renewLease(String token, Duration leaseTime) {
+        return token.equals(leaseToken);
+    }
+
+    @Override
+    public void releaseLease(String token) {
+        if (token.equals(leaseToken)) {
+            leaseToken = null;
+        }
+    }
+
+    @Override
+    public Long watermark() {
+        return watermark;
+    }
+
+    @Override
+    public void saveWatermark(long bucket) {
+        watermark = bucket;
+        savedWatermarks.add(bucket);
+    }
+
+    @Override
+    public List<Long> peek(String key, int count) {
+        return members(key).stream().limit(count).toList();
+    }
+
+    @Override
+    public void remove(String key, Collection<Long> ids) {
+        Set<Long> members = sets.get(key);
+        if (members != null) {
+            members.removeAll(ids);
+            // 与 Redis 一致，集合清空后键不存在
+            if (members.isEmpty()) {
+                sets.remove(key);
+            }
+        }
+    }
+
+    @Override
+    public boolean exists(String key) {
+        return sets.containsKey(key);
+    }
+
+    @Override
+    public Set<Long> presentInAny(List<String> keys, Collection<Long> ids) {
+        Set<Long> present = new HashSet<>();
+        for (String key : keys) {
+            for (Long id : ids) {
+                if (members(key).contains(id)) {
+                    present.add(id);
+                }
+            }
+        }
+        return present;
+    }
+
+    @Override
+    public long[] sizes(List<String> keys) {
+        return keys.stream().mapToLong(key -> members(key).size()).toArray();
+    }
+}
@@ -0,0 +1,124 @@
+package com.ince.gigalike.manage.thumb;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.stream.Stream;
+
+/**
+ * 进程内的时间片同步状态，线程安全，工作线程写库期间测试可以并发写入新的增量；
+ * fields 把每个 field 返回两次，模拟 HSCAN 重复返回
+ */
+public class InMemoryThumbSliceStore implements ThumbSliceStore {
+
+    /**
+     * 时间片键 -> userId:blogId -> 增量
+     */
+    private final Map<String, Map<String, Long>> slices = new ConcurrentHashMap<>();
+    private final Set<String> likes = ConcurrentHashMap.newKeySet();
+    private volatile String leaseToken;
+    private volatile Long watermark;
+    private final List<Long> savedWatermarks = new CopyOnWriteArrayList<>();
+
+    public void put(String key, long userId, long blogId, long delta) {
+        slices.compute(key, (k, slice) -> {
+            Map<String, Long> fields = slice == null ? new ConcurrentHashMap<>() : slice;
+            fields.put(userId + ":" + blogId, delta);
+            return fields;
+        });
+    }
+
+    public Map<String, Long> slice(String key) {
+        return slices.getOrDefault(key, Map.of());
+    }
+
+    /**
+     * 用户当前已点赞
+     */
+    public void like(long userId, long blogId) {
+        likes.add(userId + ":" + blogId);
+    }
+
+    public void setWatermark(Long watermark) {
+        this.watermark = watermark;
+    }
+
+    public List<Long> savedWatermarks() {
+        return savedWatermarks;
+    }
+
+    @Override
+    public String tryLease(Duration leaseTime) {
+        if (leaseToken != null) {
+            return null;
+        }
+        leaseToken = UUID.randomUUID().toString();
+        return leaseToken;
+    }
+
+    @Override
+    public void releaseLease(String token) {
+        if (token.equals(leaseToken)) {
+            leaseToken = null;
+        }
+    }
+
+    @Override
+    public Long watermark() {
+        return watermark;
+    }
+
+    @Override
+    public void saveWatermark(long slice) {
+        watermark = slice;
+        savedWatermarks.add(slice);
+    }
+
+    @Override
+    public List<String> sliceKeys() {
+        return new ArrayList<>(slices.keySet());
+    }
+
+    @Override
+    public Stream<ThumbSliceField> fields(String key, int count) {
+        List<ThumbSliceField> fields = new ArrayList<>();
+        slice(key).forEach((field, delta) -> {
+            String[] userIdAndBlogId = field.split(":");
+            fields.add(new ThumbSliceField(Long.parseLong(userIdAndBlogId[0]), Long.parseLong(userIdAndBlogId[1]), delta));
+        });
+        return Stream.concat(fields.stream(), fields.stream());
+    }
+
+    @Override
+    public long ack(String key, List<ThumbSliceField> fields) {
+        long[] deleted = new long[1];
+        slices.computeIfPresent(key, (k, slice) -> {
+            for (ThumbSliceField field : fields) {
+                if (slice.remove(field.userId() + ":" + field.blogId(), field.delta())) {
+                    deleted[0]++;
+                }
+            }
+            return slice.isEmpty() ? null : slice;
+        });
+        return deleted[0];
+    }
+
+    @Override
+    public boolean exists(String key) {
+        return slices.containsKey(key);
+    }
+
+    @Override
+    public boolean[] liked(List<ThumbSliceField> fields) {
+        boolean[] liked = new boolean[fields.size()];
+        for (int i = 0; i < liked.length; i++) {
+            liked[i] = likes.contains(fields.get(i).userId() + ":" + fields.get(i).blogId());
+        }
+        return liked;
+    }
+}
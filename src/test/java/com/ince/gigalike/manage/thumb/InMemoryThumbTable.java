@@ -0,0 +1,80 @@
+package com.ince.gigalike.manage.thumb;
+
+import com.ince.gigalike.listener.thumb.msg.ThumbEvent;
+import com.ince.gigalike.model.entity.Thumb;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 内存中的点赞表与博客点赞数，apply 与 ThumbConsumer 的归并、计数方式一致：
+ * 按到达顺序归并后，点赞插入不存在的记录、取消点赞删除存在的记录，点赞数只按实际变化的记录累加
+ */
+public class InMemoryThumbTable {
+
+    final Set<String> rows = ConcurrentHashMap.newKeySet();
+    final Map<Long, Long> counts = new ConcurrentHashMap<>();
+
+    public void apply(List<ThumbEvent> batch) {
+        ThumbEventReducer reducer = new ThumbEventReducer(batch.size());
+        for (int i = 0; i < batch.size(); i++) {
+            ThumbEvent event = batch.get(i);
+            reducer.add(event.getUserId(), event.getBlogId(), event.getType() == ThumbEvent.EventType.INCR, i);
+        }
+        Long2LongAccumulator deltas = new Long2LongAccumulator(reducer.size());
+        reducer.forEach((userId, blogId, like, lastIndex) -> {
+            String row = userId + ":" + blogId;
+            if (like ? rows.add(row) : rows.remove(row)) {
+                deltas.add(blogId, like ? 1 : -1);
+            }
+        });
+        deltas.toMap().forEach((blogId, delta) -> counts.merge(blogId, delta, Long::sum));
+    }
+
+    /**
+     * 同 ThumbRecordWriter：插入不存在的记录、删除存在的记录，点赞数只按实际变化的记录累加
+     */
+    public void apply(List<Thumb> inserts, List<Thumb> removals) {
+        for (Thumb thumb : removals) {
+            if (rows.remove(thumb.getUserId() + ":" + thumb.getBlogId())) {
+                counts.merge(thumb.getBlogId(), -1L, Long::sum);
+            }
+        }
+        for (Thumb thumb : inserts) {
+            if (rows.add(thumb.getUserId() + ":" + thumb.getBlogId())) {
+                counts.merge(thumb.getBlogId(), 1L, Long::sum);
+            }
+        }
+    }
+
+    /**
+     * 逐条执行，作为对照结果
+     */
+    public static InMemoryThumbTable sequential(List<ThumbEvent> events) {
+        InMemoryThumbTable table = new InMemoryThumbTable();
+        events.forEach(event -> table.apply(List.of(event)));
+        return table;
+    }
+
+    public Set<String> rows() {
+        return rows;
+    }
+
+    /**
+     * 非 0 的博客点赞数；同时校验点赞数与点赞记录数一致
+     */
+    public Map<Long, Long> nonZeroCounts() {
+        Map<Long, Long> result = new HashMap<>(counts);
+        result.values().removeIf(count -> count == 0);
+        for (Map.Entry<Long, Long> entry : result.entrySet()) {
+            long rowCount = rows.stream().filter(row -> row.endsWith(":" + entry.getKey())).count();
+            if (rowCount != entry.getValue()) {
+                throw new AssertionError("blog " + entry.getKey() + " count " + entry.getValue() + " but " + rowCount + " rows");
+            }
+        }
+        return result;
+    }
+}
@@ -0,0 +1,166 @@
+package com.ince.gigalike.manage.thumb;
+
+import com.ince.gigalike.utils.RedisKeyUtil;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.function.LongSupplier;
+
+/**
+ * 进程内的用户点赞状态，按单哈希布局保存，键带过期时间，时间由测试推进。
+ * 已加载标记与点赞哈希在同一个键空间里，{@link #pttl}、{@link #expireKey}、{@link #setKey}
+ * 供模拟的 RedisTemplate 读写标记
+ */
+public class InMemoryUserThumbStore implements UserThumbStore {
+
+    private static final long PERSIST = Long.MAX_VALUE;
+
+    private final LongSupplier clock;
+
+    private final Map<String, TreeSet<Long>> hashes = new HashMap<>();
+
+    private final Map<String, Long> deadlines = new HashMap<>();
+
+    public InMemoryUserThumbStore(LongSupplier clock) {
+        this.clock = clock;
+    }
+
+    /**
+     * 未过期的键数，包括点赞哈希与已加载标记
+     */
+    public int keyCount() {
+        purge();
+        return deadlines.size();
+    }
+
+    /**
+     * 未过期的点赞哈希字段数
+     */
+    public long fieldCount() {
+        purge();
+        return hashes.values().stream().mapToLong(Set::size).sum();
+    }
+
+    /**
+     * 同 PTTL：键不存在返回 -2，没有过期时间返回 -1
+     */
+    public long pttl(String key) {
+        if (!live(key)) {
+            return -2;
+        }
+        long deadline = deadlines.get(key);
+        return deadline == PERSIST ? -1 : deadline - clock.getAsLong();
+    }
+
+    public boolean expireKey(String key, Duration ttl) {
+        if (!live(key)) {
+            return false;
+        }
+        deadlines.put(key, clock.getAsLong() + ttl.toMillis());
+        return true;
+    }
+
+    /**
+     * 写入标记类的字符串键
+     */
+    public void setKey(String key, Duration ttl) {
+        hashes.remove(key);
+        deadlines.put(key, ttl == null ? PERSIST : clock.getAsLong() + ttl.toMillis());
+    }
+
+    @Override
+    public boolean add(long userId, long blogId, ThumbOutboxRecord outbox) {
+        String key = RedisKeyUtil.getUserThumbKey(userId);
+        if (!live(key)) {
+            deadlines.put(key, PERSIST);
+        }
+        return hashes.computeIfAbsent(key, k -> new TreeSet<>()).add(blogId);
+    }
+
+    @Override
+    public boolean remove(long userId, long blogId, ThumbOutboxRecord outbox) {
+        String key = RedisKeyUtil.getUserThumbKey(userId);
+        if (!live(key) || !hashes.get(key).remove(blogId)) {
+            return false;
+        }
+        if (hashes.get(key).isEmpty()) {
+            // 同取消点赞脚本：哈希清空时写入不过期的已加载标记，已存在时不改动
+            hashes.remove(key);
+            deadlines.remove(key);
+            String loadedKey = RedisKeyUtil.getThumbLoadedKey(userId);
+            if (!live(loadedKey)) {
+                setKey(loadedKey, null);
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public Map<Long, Boolean> contains(long userId, Collection<Long> blogIds) {
+        String key = RedisKeyUtil.getUserThumbKey(userId);
+        Set<Long> liked = live(key) ? hashes.get(key) : Set.of();
+        Map<Long, Boolean> result = new LinkedHashMap<>();
+        blogIds.forEach(blogId -> result.put(blogId, liked.contains(blogId)));
+        return result;
+    }
+
+    @Override
+    public long[] blogIds(long userId) {
+        String key = RedisKeyUtil.getUserThumbKey(userId);
+        return live(key) ? hashes.get(key).stream().mapToLong(Long::longValue).toArray() : new long[0];
+    }
+
+    @Override
+    public boolean[] exists(List<Long> userIds) {
+        boolean[] result = new boolean[userIds.size()];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = live(RedisKeyUtil.getUserThumbKey(userIds.get(i)));
+        }
+        return result;
+    }
+
+    @Override
+    public boolean rehydrate(long userId, long[] blogIds) {
+        String key = RedisKeyUtil.getUserThumbKey(userId);
+        if (live(key) || live(RedisKeyUtil.getThumbLoadedKey(userId))) {
+            return false;
+        }
+        for (long blogId : blogIds) {
+            add(userId, blogId, null);
+        }
+        return true;
+    }
+
+    @Override
+    public void expire(long userId, Duration ttl) {
+        expireKey(RedisKeyUtil.getUserThumbKey(userId), ttl);
+    }
+
+    @Override
+    public boolean isLoaded(long userId) {
+        return live(RedisKeyUtil.getThumbLoadedKey(userId));
+    }
+
+    private boolean live(String key) {
+        Long deadline = deadlines.get(key);
+        if (deadline == null) {
+            return false;
+        }
+        if (deadline <= clock.getAsLong()) {
+            deadlines.remove(key);
+            hashes.remove(key);
+            return false;
+        }
+        return true;
+    }
+
+    private void purge() {
+        List.copyOf(deadlines.keySet()).forEach(this::live);
+    }
+}
@@ -0,0 +1,150 @@
+package com.ince.gigalike.manage.thumb;
+
+import com.ince.gigalike.listener.thumb.msg.ThumbEvent;
+import com.ince.gigalike.manage.mq.ProducerMetrics;
+import org.apache.pulsar.client.api.TypedMessageBuilder;
+import org.junit.jupiter.api.Test;
+import org.mockito.stubbing.Answer;
+import org.springframework.pulsar.core.PulsarTemplate;
+import org.springframework.pulsar.core.TypedMessageBuilderCustomizer;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.BiConsumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+/**
+ * 多消费者消费点赞事件的顺序测试
+ * 由 ThumbEventPublisher 发送，以生产者实际设置的消息 key 发布到分区主题替身，多个消费者并发批量消费，
+ * 按 ThumbConsumer 的方式归并后写入内存中的点赞表，最终状态必须与按发送顺序逐条执行一致
+ */
+public class KeySharedOrderingTest {
+
+    private static final int PARTITIONS = 4;
+    private static final int USERS = 50;
+    private static final int BLOGS = 20;
+    private static final int EVENTS = 50_000;
+
+    @Test
+    public void testKeySharedKeepsPerPairOrderAcrossConsumers() throws Exception {
+        for (int consumers : new int[]{1, 2, 4, 8}) {
+            List<ThumbEvent> events = generateEvents(new Random(consumers));
+            InMemoryKeySharedTopic<ThumbEvent> topic =
+                    new InMemoryKeySharedTopic<>(PARTITIONS, consumers, InMemoryKeySharedTopic.Mode.KEY_SHARED);
+            ThumbEventPublisher publisher = publisher(topic::publish);
+            for (ThumbEvent event : events) {
+                publisher.publish(event);
+            }
+
+            InMemoryThumbTable table = new InMemoryThumbTable();
+            ExecutorService executor = Executors.newFixedThreadPool(consumers);
+            CountDownLatch done = new CountDownLatch(consumers);
+            for (int c = 0; c < consumers; c++) {
+                int consumer = c;
+                executor.execute(() -> {
+                    List<ThumbEvent> batch;
+                    while (!(batch = topic.receive(consumer, 1 + ThreadLocalRandom.current().nextInt(200))).isEmpty()) {
+                        table.apply(batch);
+                    }
+                    done.countDown();
+                });
+            }
+            assertTrue(done.await(30, TimeUnit.SECONDS));
+            executor.shutdown();
+
+            InMemoryThumbTable expected = InMemoryThumbTable.sequential(events);
+            assertEquals(expected.rows(), table.rows(), consumers + " consumers");
+            assertEquals(expected.nonZeroCounts(), table.nonZeroCounts(), consumers + " consumers");
+        }
+    }
+
+    @Test
+    public void testSharedSubscriptionReordersSamePair() throws Exception {
+        // 对照：Shared 订阅下同一组合的事件分散到不同消费者，后处理的消费者会覆盖较新的操作
+        List<ThumbEvent> events = generateEvents(new Random(1));
+        InMemoryKeySharedTopic<ThumbEvent> topic =
+                new InMemoryKeySharedTopic<>(PARTITIONS, 4, InMemoryKeySharedTopic.Mode.SHARED);
+        ThumbEventPublisher publisher = publisher(topic::publish);
+        for (ThumbEvent event : events) {
+            publisher.publish(event);
+        }
+
+        InMemoryThumbTable table = new InMemoryThumbTable();
+        for (int consumer = topic.consumers() - 1; consumer >= 0; consumer--) {
+            table.apply(topic.receive(consumer, Integer.MAX_VALUE));
+        }
+        assertNotEquals(InMemoryThumbTable.sequential(events).rows(), table.rows());
+    }
+
+    /**
+     * 生产者发送的消息都带 key，同一组合的 key 相同，不同组合的 key 不会因拼接而相同
+     */
+    @Test
+    public void testPublishedKeyIsStablePerPair() throws Exception {
+        List<String> keys = new ArrayList<>();
+        ThumbEventPublisher publisher = publisher((key, event) -> keys.add(key));
+        LocalDateTime now = LocalDateTime.now();
+        publisher.publish(new ThumbEvent(1L, 23L, ThumbEvent.EventType.INCR, now));
+        publisher.publish(new ThumbEvent(1L, 23L, ThumbEvent.EventType.DECR, now));
+        publisher.publish(new ThumbEvent(12L, 3L, ThumbEvent.EventType.INCR, now));
+
+        assertEquals(3, keys.size());
+        assertEquals(keys.get(0), keys.get(1));
+        assertNotEquals(keys.get(0), keys.get(2));
+    }
+
+    /**
+     * 逐条发送的 ThumbEventPublisher，PulsarTemplate 为模拟对象：
+     * 把生产者的消息定制应用到模拟的消息上，消息 key 连同事件交给 sink
+     */
+    @SuppressWarnings("unchecked")
+    private static ThumbEventPublisher publisher(BiConsumer<String, ThumbEvent> sink) {
+        AtomicReference<ThumbEvent> sending = new AtomicReference<>();
+        TypedMessageBuilder<ThumbEvent> message =
+                mock(TypedMessageBuilder.class, withSettings().stubOnly().defaultAnswer(RETURNS_SELF));
+        when(message.key(anyString())).thenAnswer(invocation -> {
+            sink.accept(invocation.getArgument(0), sending.get());
+            return message;
+        });
+
+        Answer<Object> sendMessageBuilder = invocation -> switch (invocation.getMethod().getName()) {
+            case "withMessageCustomizer" -> {
+                invocation.<TypedMessageBuilderCustomizer<ThumbEvent>>getArgument(0).customize(message);
+                yield invocation.getMock();
+            }
+            case "sendAsync" -> CompletableFuture.completedFuture(null);
+            default -> RETURNS_SELF.answer(invocation);
+        };
+        AtomicReference<Object> builder = new AtomicReference<>();
+        PulsarTemplate<ThumbEvent> pulsarTemplate = mock(PulsarTemplate.class, withSettings().stubOnly());
+        when(pulsarTemplate.newMessage(any())).thenAnswer(invocation -> {
+            sending.set(invocation.getArgument(0));
+            return builder.updateAndGet(current -> current != null ? current : mock(
+                    invocation.getMethod().getReturnType(), withSettings().stubOnly().defaultAnswer(sendMessageBuilder)));
+        });
+        return new ThumbEventPublisher(pulsarTemplate, null, new ProducerMetrics("thumb"), null);
+    }
+
+    private static List<ThumbEvent> generateEvents(Random random) {
+        LocalDateTime now = LocalDateTime.now();
+        List<ThumbEvent> events = new ArrayList<>(EVENTS);
+        for (int i = 0; i < EVENTS; i++) {
+            events.add(new ThumbEvent((long) random.nextInt(USERS), (long) random.nextInt(BLOGS),
+                    random.nextBoolean() ? ThumbEvent.EventType.INCR : ThumbEvent.EventType.DECR, now.plusNanos(i)));
+        }
+        return events;
+    }
+}
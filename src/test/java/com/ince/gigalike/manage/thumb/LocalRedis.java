@@ -0,0 +1,57 @@
+package com.ince.gigalike.manage.thumb;
+
+import com.ince.gigalike.config.RedisConfig;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
+import org.springframework.data.redis.connection.jedis.JedisConnectionFactory;
+import org.springframework.data.redis.core.RedisTemplate;
+
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * 测试 Lua 脚本用的本地 Redis 连接，默认 localhost:6379 的 15 号库，连不上时跳过测试。
+ * 可通过 -Dtest.redis.host / -Dtest.redis.port / -Dtest.redis.database 调整
+ */
+public class LocalRedis implements AutoCloseable {
+
+    private final JedisConnectionFactory connectionFactory;
+
+    private final RedisTemplate<String, Object> redisTemplate;
+
+    private LocalRedis(JedisConnectionFactory connectionFactory) {
+        this.connectionFactory = connectionFactory;
+        this.redisTemplate = new RedisConfig().redisTemplate(connectionFactory);
+    }
+
+    /**
+     * 连接本地 Redis，不可用时关闭连接并跳过当前测试
+     */
+    public static LocalRedis connectOrSkip() {
+        RedisStandaloneConfiguration configuration = new RedisStandaloneConfiguration(
+                System.getProperty("test.redis.host", "localhost"), Integer.getInteger("test.redis.port", 6379));
+        configuration.setDatabase(Integer.getInteger("test.redis.database", 15));
+        JedisConnectionFactory connectionFactory = new JedisConnectionFactory(configuration);
+        connectionFactory.afterPropertiesSet();
+        LocalRedis redis = new LocalRedis(connectionFactory);
+        boolean reachable;
+        try {
+            reachable = "PONG".equals(redis.redisTemplate.execute(RedisConnection::ping, true));
+        } catch (RuntimeException e) {
+            reachable = false;
+        }
+        if (!reachable) {
+            redis.close();
+        }
+        assumeTrue(reachable, "本地 Redis 不可用");
+        return redis;
+    }
+
+    public RedisTemplate<String, Object> template() {
+        return redisTemplate;
+    }
+
+    @Override
+    public void close() {
+        connectionFactory.destroy();
+    }
+}
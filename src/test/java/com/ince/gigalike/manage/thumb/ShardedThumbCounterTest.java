@@ -0,0 +1,149 @@
+package com.ince.gigalike.manage.thumb;
+
+import com.ince.gigalike.manage.cache.MultiLevelCache;
+import com.ince.gigalike.mapper.BlogMapper;
+import com.ince.gigalike.model.entity.Blog;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.*;
+
+/**
+ * 分片计数的未写回读取、归并写回、写库与确认之间失败时的幂等重试
+ */
+public class ShardedThumbCounterTest {
+
+    private static final long BLOG_ID = 7L;
+
+    private InMemoryShardedThumbCountStore store;
+
+    private BlogMapper blogMapper;
+
+    private MultiLevelCache<Long, Blog> blogCache;
+
+    private ShardedThumbCounter counter;
+
+    /**
+     * 模拟数据库：博客点赞数与已写回的归并 ID
+     */
+    private final Map<Long, Long> thumbCounts = new HashMap<>();
+    private final Set<Long> appliedFolds = new HashSet<>();
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    public void setUp() {
+        store = new InMemoryShardedThumbCountStore();
+        blogMapper = mock(BlogMapper.class);
+        when(blogMapper.insertThumbFold(anyLong(), anyLong(), anyLong()))
+                .thenAnswer(invocation -> appliedFolds.add(invocation.getArgument(0)) ? 1 : 0);
+        doAnswer(invocation -> {
+            invocation.<Map<Long, Long>>getArgument(0).forEach((blogId, delta) -> thumbCounts.merge(blogId, delta, Long::sum));
+            return null;
+        }).when(blogMapper).batchUpdateThumbCount(any());
+        blogCache = mock(MultiLevelCache.class);
+
+        counter = new ShardedThumbCounter();
+        ReflectionTestUtils.setField(counter, "shardedThumbCountStore", store);
+        ReflectionTestUtils.setField(counter, "blogMapper", blogMapper);
+        ReflectionTestUtils.setField(counter, "transactionTemplate",
+                new TransactionTemplate(mock(PlatformTransactionManager.class)));
+        ReflectionTestUtils.setField(counter, "blogCache", blogCache);
+        ReflectionTestUtils.setField(counter, "reconcileLeaseMs", 60_000L);
+    }
+
+    @Test
+    public void testUnsyncedCountsOnlyForShardedBlogs() {
+        counter.increment(BLOG_ID, 1);
+        counter.increment(BLOG_ID, 1);
+        counter.increment(BLOG_ID, -1);
+        assertEquals(Map.of(), counter.getUnsyncedCounts(List.of(BLOG_ID)));
+
+        counter.refreshShardedBlogs();
+        assertEquals(Map.of(BLOG_ID, 1L), counter.getUnsyncedCounts(List.of(BLOG_ID, 8L)));
+    }
+
+    @Test
+    public void testReconcileWritesBackOnceAndEvictsCache() {
+        counter.increment(BLOG_ID, 5);
+        counter.increment(BLOG_ID, -1);
+        counter.refreshShardedBlogs();
+
+        counter.reconcile();
+        assertEquals(4L, thumbCounts.get(BLOG_ID));
+        assertEquals(Map.of(BLOG_ID, 0L), counter.getUnsyncedCounts(List.of(BLOG_ID)));
+        verify(blogCache).evictAll(List.of(BLOG_ID));
+
+        // 没有新的变化：不写库，博客移出分片集合
+        counter.reconcile();
+        assertEquals(4L, thumbCounts.get(BLOG_ID));
+        verify(blogMapper, times(1)).batchUpdateThumbCount(any());
+        assertTrue(store.shardedBlogIds().isEmpty());
+    }
+
+    /**
+     * 写库已提交、确认失败：下一轮按原归并 ID 重试，写回记录已存在，点赞数不再累加；
+     * 期间新累加的分片留到确认之后的下一次归并
+     */
+    @Test
+    public void testLostAckDoesNotApplyTwice() {
+        counter.increment(BLOG_ID, 4);
+        store.failNextAck();
+        assertThrows(IllegalStateException.class, counter::reconcile);
+        assertEquals(4L, thumbCounts.get(BLOG_ID));
+
+        counter.increment(BLOG_ID, 2);
+        counter.reconcile();
+        assertEquals(4L, thumbCounts.get(BLOG_ID));
+
+        counter.reconcile();
+        assertEquals(6L, thumbCounts.get(BLOG_ID));
+        counter.refreshShardedBlogs();
+        assertEquals(Map.of(BLOG_ID, 0L), counter.getUnsyncedCounts(List.of(BLOG_ID)));
+    }
+
+    /**
+     * 写库失败：待写回值保留，下一轮写回一次
+     */
+    @Test
+    public void testFailedWriteIsRetried() {
+        counter.increment(BLOG_ID, 3);
+        doThrow(new IllegalStateException("数据库不可用"))
+                .doAnswer(invocation -> appliedFolds.add(invocation.getArgument(0)) ? 1 : 0)
+                .when(blogMapper).insertThumbFold(anyLong(), anyLong(), anyLong());
+
+        assertThrows(IllegalStateException.class, counter::reconcile);
+        assertNull(thumbCounts.get(BLOG_ID));
+        verify(blogCache, never()).evictAll(any());
+
+        counter.reconcile();
+        assertEquals(3L, thumbCounts.get(BLOG_ID));
+    }
+
+    @Test
+    public void testSkipsWhenLeaseHeldByOtherNode() {
+        counter.increment(BLOG_ID, 1);
+        store.stealLease();
+        counter.reconcile();
+        verifyNoInteractions(blogMapper);
+    }
+
+    @Test
+    public void testOldFoldRecordsAreCleanedUp() {
+        counter.increment(BLOG_ID, 1);
+        counter.reconcile();
+        verify(blogMapper).deleteThumbFoldsBefore(any(), anyInt());
+    }
+}
@@ -0,0 +1,217 @@
+package com.ince.gigalike.manage.thumb;
+
+import com.ince.gigalike.manage.cache.MultiLevelCache;
+import com.ince.gigalike.mapper.BlogMapper;
+import com.ince.gigalike.utils.RedisKeyUtil;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+/**
+ * 增量对账的静置桶计算、分批读取后移除、水位线推进、租约与在途用户跳过
+ */
+public class ThumbDirtyReconcilerTest {
+
+    private static final long CURRENT_BUCKET = 1_000;
+
+    private static final long SETTLE_BUCKETS = 2;
+
+    /**
+     * CURRENT_BUCKET - 1 - SETTLE_BUCKETS
+     */
+    private static final long CLOSED_BUCKET = 997;
+
+    private InMemoryThumbDirtyStore store;
+
+    private ThumbReconciler thumbReconciler;
+
+    private BlogMapper blogMapper;
+
+    private ThumbDirtyReconciler reconciler;
+
+    /**
+     * 每次调用 thumbReconciler.reconcileUsers 收到的用户
+     */
+    private final List<List<Long>> reconciledUsers = new ArrayList<>();
+
+    @BeforeEach
+    public void setUp() {
+        store = new InMemoryThumbDirtyStore();
+        ThumbDirtyTracker tracker = mock(ThumbDirtyTracker.class);
+        when(tracker.currentBucket()).thenReturn(CURRENT_BUCKET);
+        when(tracker.getRetentionBuckets()).thenReturn(100L);
+        when(tracker.getBucketSeconds()).thenReturn(60L);
+        thumbReconciler = mock(ThumbReconciler.class);
+        when(thumbReconciler.reconcileUsers(anyList())).thenAnswer(invocation -> {
+            reconciledUsers.add(List.copyOf(invocation.<List<Long>>getArgument(0)));
+            return 0L;
+        });
+        ShardedThumbCounter shardedThumbCounter = mock(ShardedThumbCounter.class);
+        when(shardedThumbCounter.getUnsyncedCounts(any())).thenReturn(Map.of());
+        blogMapper = mock(BlogMapper.class);
+
+        reconciler = new ThumbDirtyReconciler();
+        ReflectionTestUtils.setField(reconciler, "thumbDirtyStore", store);
+        ReflectionTestUtils.setField(reconciler, "thumbDirtyTracker", tracker);
+        ReflectionTestUtils.setField(reconciler, "thumbReconciler", thumbReconciler);
+        ReflectionTestUtils.setField(reconciler, "shardedThumbCounter", shardedThumbCounter);
+        ReflectionTestUtils.setField(reconciler, "blogMapper", blogMapper);
+        ReflectionTestUtils.setField(reconciler, "blogCache", mock(MultiLevelCache.class));
+        ReflectionTestUtils.setField(reconciler, "settleBuckets", SETTLE_BUCKETS);
+        ReflectionTestUtils.setField(reconciler, "maxEntitiesPerTick", 5000);
+        ReflectionTestUtils.setField(reconciler, "leaseMs", 120_000L);
+    }
+
+    /**
+     * 当前桶尚未结束；静置 2 个桶时，桶 997 结束已满 2 个桶，998 结束不足 2 个桶
+     */
+    @Test
+    public void testClosedBucketExcludesCurrentAndSettlingBuckets() {
+        assertEquals(CLOSED_BUCKET, ThumbDirtyReconciler.closedBucket(CURRENT_BUCKET, SETTLE_BUCKETS));
+        assertEquals(CURRENT_BUCKET - 1, ThumbDirtyReconciler.closedBucket(CURRENT_BUCKET, 0));
+    }
+
+    @Test
+    public void testDrainsClosedBucketsAndAdvancesWatermark() {
+        store.saveWatermark(994);
+        store.add(user(995), 1L, 2L);
+        store.add(blog(996), 10L);
+        store.add(user(997), 3L);
+        store.add(user(998), 4L);
+        store.add(user(1000), 5L);
+
+        reconciler.tick();
+
+        assertEquals(List.of(994L, 995L, 996L, 997L), store.savedWatermarks());
+        assertEquals(Set.of(1L, 2L, 3L), reconciledIds());
+        verify(blogMapper).repairThumbCount(List.of(10L));
+        assertFalse(store.exists(user(995)));
+        assertFalse(store.exists(blog(996)));
+        // 静置期内的桶不处理
+        assertEquals(Set.of(4L), store.members(user(998)));
+        assertEquals(Set.of(5L), store.members(user(1000)));
+        assertFalse(store.isLeased());
+    }
+
+    @Test
+    public void testStartsFromRetentionWhenWatermarkIsMissingOrTooOld() {
+        store.add(user(CURRENT_BUCKET - 101), 1L);
+        store.add(user(CURRENT_BUCKET - 100), 2L);
+
+        reconciler.tick();
+
+        assertEquals(Set.of(2L), reconciledIds());
+        assertEquals(CURRENT_BUCKET - 100, store.savedWatermarks().get(0));
+        assertEquals(CLOSED_BUCKET, store.watermark());
+    }
+
+    /**
+     * 每轮预算用完时桶内剩余实体留在集合中，水位线停在该桶之前，下一轮继续
+     */
+    @Test
+    public void testBudgetStopsBeforeBucketIsEmpty() {
+        ReflectionTestUtils.setField(reconciler, "maxEntitiesPerTick", 2);
+        store.saveWatermark(994);
+        store.add(user(995), 1L, 2L, 3L);
+
+        reconciler.tick();
+
+        assertEquals(994L, store.watermark());
+        assertEquals(Set.of(3L), store.members(user(995)));
+
+        reconciler.tick();
+
+        assertEquals(CLOSED_BUCKET, store.watermark());
+        assertEquals(Set.of(1L, 2L, 3L), reconciledIds());
+    }
+
+    /**
+     * 对账失败的实体不移除，水位线不前进
+     */
+    @Test
+    public void testFailedBatchStaysInBucket() {
+        store.saveWatermark(994);
+        store.add(user(995), 1L, 2L);
+        doThrow(new IllegalStateException("db down")).when(thumbReconciler).reconcileUsers(anyList());
+
+        assertThrows(IllegalStateException.class, () -> reconciler.tick());
+
+        assertEquals(Set.of(1L, 2L), store.members(user(995)));
+        assertEquals(994L, store.watermark());
+        assertFalse(store.isLeased());
+    }
+
+    /**
+     * 静置期内又有变化的用户不比对，从旧桶移除，留在较新的桶里
+     */
+    @Test
+    public void testSkipsUsersChangedWithinSettleWindow() {
+        store.saveWatermark(996);
+        store.add(user(997), 1L, 2L);
+        store.add(user(999), 2L);
+
+        reconciler.tick();
+
+        assertEquals(List.of(List.of(1L)), reconciledUsers);
+        assertFalse(store.exists(user(997)));
+        assertEquals(Set.of(2L), store.members(user(999)));
+        assertEquals(1L, reconciler.getStats().get("skippedInFlightUsers"));
+    }
+
+    @Test
+    public void testSkipsTickWhenLeaseIsHeldElsewhere() {
+        store.stealLease();
+        store.add(user(995), 1L);
+
+        reconciler.tick();
+
+        assertTrue(reconciledUsers.isEmpty());
+        assertTrue(store.savedWatermarks().isEmpty());
+        assertEquals(Set.of(1L), store.members(user(995)));
+    }
+
+    /**
+     * 租约被其他节点接手后不再推进水位线
+     */
+    @Test
+    public void testStopsWhenLeaseIsLost() {
+        store.saveWatermark(994);
+        store.add(user(995), 1L);
+        store.add(user(996), 2L);
+        doAnswer(invocation -> {
+            reconciledUsers.add(List.copyOf(invocation.<List<Long>>getArgument(0)));
+            store.stealLease();
+            return 0L;
+        }).when(thumbReconciler).reconcileUsers(anyList());
+
+        reconciler.tick();
+
+        assertEquals(List.of(994L), store.savedWatermarks());
+        assertEquals(Set.of(2L), store.members(user(996)));
+    }
+
+    private Set<Long> reconciledIds() {
+        Set<Long> ids = new HashSet<>();
+        reconciledUsers.forEach(ids::addAll);
+        return ids;
+    }
+
+    private static String user(long bucket) {
+        return RedisKeyUtil.getThumbDirtyUserKey(bucket);
+    }
+
+    private static String blog(long bucket) {
+        return RedisKeyUtil.getThumbDirtyBlogKey(bucket);
+    }
+}
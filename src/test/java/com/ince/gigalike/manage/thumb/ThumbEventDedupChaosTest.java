@@ -0,0 +1,184 @@
+package com.ince.gigalike.manage.thumb;
+
+import com.ince.gigalike.listener.thumb.msg.ThumbEvent;
+import com.ince.gigalike.model.entity.Thumb;
+import com.ince.gigalike.service.ThumbConsumer;
+import org.apache.pulsar.client.api.Message;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.TransientDataAccessResourceException;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+/**
+ * 点赞事件重投递混沌测试
+ * <p>
+ * 由 ThumbConsumer 批量消费，写库交给模拟的 ThumbRecordWriter，事务由测试模拟：
+ * 写库在提交时生效，提交后执行 afterCommit（标记事件已处理），回滚时丢弃写入且不执行 afterCommit。
+ * 随机注入：写库失败、事务回滚后立即重投递，提交后 ack 丢失导致整批在之后重投递
+ * （此时同一组合可能已有更新的操作），已处理事件被重新发布，去重存储查询失败。
+ * 开启去重时，最终的点赞记录与点赞数必须与每个事件恰好执行一次的结果一致。
+ */
+public class ThumbEventDedupChaosTest {
+
+    private static final int EVENTS = 20_000;
+
+    @AfterEach
+    public void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    public void testRedeliveredBatchesAreAppliedOnce() {
+        for (long seed = 1; seed <= 5; seed++) {
+            List<ThumbEvent> events = generateEvents(new Random(seed));
+            InMemoryProcessedEventStore store = new InMemoryProcessedEventStore();
+            ThumbEventDeduplicator deduplicator =
+                    new ThumbEventDeduplicator(store, EVENTS, 0.0001, Duration.ofHours(1));
+
+            InMemoryThumbTable table = consumeWithChaos(events, new Random(seed * 31), deduplicator, store);
+
+            InMemoryThumbTable expected = InMemoryThumbTable.sequential(events);
+            assertEquals(expected.rows(), table.rows(), "seed " + seed);
+            assertEquals(expected.nonZeroCounts(), table.nonZeroCounts(), "seed " + seed);
+            assertTrue((long) deduplicator.getStats().get("duplicateEvents") > 0);
+        }
+    }
+
+    @Test
+    public void testWithoutDedupStaleRedeliveryCorruptsState() {
+        // 对照：不去重时，较晚重投递的旧批次会覆盖之后的操作
+        List<ThumbEvent> events = generateEvents(new Random(1));
+        ThumbEventDeduplicator passThrough = mock(ThumbEventDeduplicator.class);
+        when(passThrough.filterNew(anyList())).thenAnswer(invocation -> invocation.getArgument(0));
+        InMemoryThumbTable table = consumeWithChaos(events, new Random(31), passThrough, null);
+        assertNotEquals(InMemoryThumbTable.sequential(events).rows(), table.rows());
+    }
+
+    @Test
+    public void testDuplicatesWithinBatchAreDropped() {
+        ThumbEventDeduplicator deduplicator =
+                new ThumbEventDeduplicator(new InMemoryProcessedEventStore(), 100, 0.001, Duration.ofHours(1));
+        ThumbEvent like = new ThumbEvent(1L, 1L, 2L, ThumbEvent.EventType.INCR, LocalDateTime.now(), null);
+        ThumbEvent unlike = new ThumbEvent(2L, 1L, 2L, ThumbEvent.EventType.DECR, LocalDateTime.now(), null);
+        ThumbEvent legacy = new ThumbEvent(1L, 2L, ThumbEvent.EventType.INCR, LocalDateTime.now());
+
+        List<ThumbEvent> fresh = deduplicator.filterNew(List.of(like, unlike, like, legacy));
+        assertEquals(List.of(like, unlike, legacy), fresh);
+
+        deduplicator.markProcessed(fresh);
+        assertEquals(List.of(legacy), deduplicator.filterNew(List.of(unlike, like, legacy)));
+    }
+
+    private static InMemoryThumbTable consumeWithChaos(List<ThumbEvent> events, Random random,
+                                                       ThumbEventDeduplicator deduplicator,
+                                                       InMemoryProcessedEventStore store) {
+        LinkedList<List<ThumbEvent>> queue = new LinkedList<>();
+        for (int from = 0; from < events.size(); ) {
+            int to = Math.min(events.size(), from + 1 + random.nextInt(100));
+            queue.add(new ArrayList<>(events.subList(from, to)));
+            from = to;
+        }
+
+        InMemoryThumbTable table = new InMemoryThumbTable();
+        List<Runnable> uncommitted = new ArrayList<>();
+        boolean[] failWrite = new boolean[1];
+        ThumbRecordWriter writer = mock(ThumbRecordWriter.class);
+        when(writer.apply(anyList(), anyList())).thenAnswer(invocation -> {
+            if (failWrite[0]) {
+                throw new TransientDataAccessResourceException("写库失败");
+            }
+            List<Thumb> inserts = invocation.getArgument(0);
+            List<Thumb> removals = invocation.getArgument(1);
+            uncommitted.add(() -> table.apply(inserts, removals));
+            return Map.of();
+        });
+        ThumbConsumer consumer = new ThumbConsumer(writer, deduplicator);
+        Map<ThumbEvent, Message<ThumbEvent>> messages = new IdentityHashMap<>();
+
+        int rollbacks = 0;
+        while (!queue.isEmpty()) {
+            List<ThumbEvent> batch = queue.poll();
+            if (store != null && random.nextInt(50) == 0) {
+                store.failNext();
+            }
+            // 写库失败，事务回滚，批次立即重投递（最多连续失败几次，避免死循环）
+            failWrite[0] = random.nextInt(10) == 0 && rollbacks < 3;
+            List<Message<ThumbEvent>> delivered = batch.stream()
+                    .map(event -> messages.computeIfAbsent(event, ThumbEventDedupChaosTest::message))
+                    .toList();
+            if (!consumeInTransaction(consumer, delivered, uncommitted)) {
+                rollbacks++;
+                queue.addFirst(batch);
+                continue;
+            }
+            rollbacks = 0;
+
+            // 提交后 ack 丢失，整批在若干批之后重投递
+            if (random.nextInt(10) == 0) {
+                queue.add(Math.min(queue.size(), random.nextInt(20)), batch);
+            }
+            // 已处理的事件被重新发布
+            if (random.nextInt(20) == 0) {
+                ThumbEvent replay = batch.get(random.nextInt(batch.size()));
+                queue.add(Math.min(queue.size(), random.nextInt(20)), List.of(replay));
+            }
+        }
+        return table;
+    }
+
+    /**
+     * 模拟 processBatch 的事务：成功时执行写入并调用 afterCommit，失败时丢弃写入
+     *
+     * @return 是否提交
+     */
+    private static boolean consumeInTransaction(ThumbConsumer consumer, List<Message<ThumbEvent>> messages,
+                                                List<Runnable> uncommitted) {
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            consumer.processBatch(messages);
+        } catch (TransientDataAccessResourceException e) {
+            uncommitted.clear();
+            TransactionSynchronizationManager.clearSynchronization();
+            return false;
+        }
+        uncommitted.forEach(Runnable::run);
+        uncommitted.clear();
+        List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager.getSynchronizations();
+        TransactionSynchronizationManager.clearSynchronization();
+        synchronizations.forEach(TransactionSynchronization::afterCommit);
+        return true;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Message<ThumbEvent> message(ThumbEvent event) {
+        Message<ThumbEvent> message = mock(Message.class, withSettings().stubOnly());
+        when(message.getValue()).thenReturn(event);
+        return message;
+    }
+
+    private static List<ThumbEvent> generateEvents(Random random) {
+        LocalDateTime now = LocalDateTime.now();
+        List<ThumbEvent> events = new ArrayList<>(EVENTS);
+        for (int i = 0; i < EVENTS; i++) {
+            events.add(new ThumbEvent((long) i + 1, (long) random.nextInt(30), (long) random.nextInt(10),
+                    random.nextBoolean() ? ThumbEvent.EventType.INCR : ThumbEvent.EventType.DECR, now.plusNanos(i), null));
+        }
+        return events;
+    }
+}
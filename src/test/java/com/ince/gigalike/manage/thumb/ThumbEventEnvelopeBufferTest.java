@@ -0,0 +1,107 @@
+package com.ince.gigalike.manage.thumb;
+
+import com.ince.gigalike.listener.thumb.msg.ThumbEvent;
+import com.ince.gigalike.listener.thumb.msg.ThumbEventEnvelope;
+import org.apache.pulsar.client.api.MessageId;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 点赞事件信封缓冲区测试
+ */
+public class ThumbEventEnvelopeBufferTest {
+
+    private record Sent(String key, ThumbEventEnvelope envelope) {
+    }
+
+    @Test
+    public void testSamePairStaysInOneBucketInOrder() {
+        List<Sent> sent = new CopyOnWriteArrayList<>();
+        ThumbEventEnvelopeBuffer buffer = new ThumbEventEnvelopeBuffer(100, Duration.ofSeconds(10), 8, (key, envelope) -> {
+            sent.add(new Sent(key, envelope));
+            return CompletableFuture.completedFuture(MessageId.earliest);
+        });
+
+        Random random = new Random(3);
+        List<ThumbEvent> events = new ArrayList<>();
+        for (int i = 0; i < 1_000; i++) {
+            ThumbEvent event = new ThumbEvent((long) random.nextInt(10), (long) random.nextInt(10),
+                    random.nextBoolean() ? ThumbEvent.EventType.INCR : ThumbEvent.EventType.DECR, LocalDateTime.now());
+            events.add(event);
+            buffer.add(event);
+            if (i % 300 == 299) {
+                buffer.flush();
+            }
+        }
+        buffer.close();
+
+        // 每个组合只出现在一个 key 下，并且按发送顺序排列
+        Map<String, String> pairToKey = new HashMap<>();
+        Map<String, List<ThumbEvent>> received = new HashMap<>();
+        int total = 0;
+        for (Sent message : sent) {
+            assertTrue(message.envelope().getEvents().size() <= 100);
+            for (ThumbEvent event : message.envelope().getEvents()) {
+                String pair = event.getUserId() + ":" + event.getBlogId();
+                assertEquals(pairToKey.computeIfAbsent(pair, k -> message.key()), message.key());
+                received.computeIfAbsent(pair, k -> new ArrayList<>()).add(event);
+                total++;
+            }
+        }
+        assertEquals(events.size(), total);
+        Map<String, List<ThumbEvent>> expected = new HashMap<>();
+        for (ThumbEvent event : events) {
+            expected.computeIfAbsent(event.getUserId() + ":" + event.getBlogId(), k -> new ArrayList<>()).add(event);
+        }
+        assertEquals(expected, received);
+    }
+
+    @Test
+    public void testFuturesFollowEnvelopeResult() throws Exception {
+        CompletableFuture<MessageId> envelopeResult = new CompletableFuture<>();
+        ThumbEventEnvelopeBuffer buffer = new ThumbEventEnvelopeBuffer(100, Duration.ofSeconds(10), 1,
+                (key, envelope) -> envelopeResult);
+        CompletableFuture<MessageId> first = buffer.add(new ThumbEvent(1L, 1L, ThumbEvent.EventType.INCR, LocalDateTime.now()));
+        CompletableFuture<MessageId> second = buffer.add(new ThumbEvent(2L, 1L, ThumbEvent.EventType.INCR, LocalDateTime.now()));
+        buffer.flush();
+        assertFalse(first.isDone());
+
+        envelopeResult.completeExceptionally(new IllegalStateException("broker unavailable"));
+        ExecutionException e = assertThrows(ExecutionException.class, () -> second.get(1, TimeUnit.SECONDS));
+        assertInstanceOf(IllegalStateException.class, e.getCause());
+        assertTrue(first.isCompletedExceptionally());
+    }
+
+    @Test
+    public void testFlushesWhenFull() throws Exception {
+        List<Sent> sent = new CopyOnWriteArrayList<>();
+        ThumbEventEnvelopeBuffer buffer = new ThumbEventEnvelopeBuffer(50, Duration.ofSeconds(10), 1, (key, envelope) -> {
+            sent.add(new Sent(key, envelope));
+            return CompletableFuture.completedFuture(MessageId.earliest);
+        });
+        buffer.start();
+        CompletableFuture<MessageId> last = null;
+        for (int i = 0; i < 50; i++) {
+            last = buffer.add(new ThumbEvent((long) i, 1L, ThumbEvent.EventType.INCR, LocalDateTime.now()));
+        }
+        assertEquals(MessageId.earliest, last.get(5, TimeUnit.SECONDS));
+        assertEquals(1, sent.size());
+        assertEquals(50, sent.get(0).envelope().getEvents().size());
+        buffer.close();
+        assertThrows(IllegalStateException.class,
+                () -> buffer.add(new ThumbEvent(1L, 1L, ThumbEvent.EventType.INCR, LocalDateTime.now())));
+    }
+}
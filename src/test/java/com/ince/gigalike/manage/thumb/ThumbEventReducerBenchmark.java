@@ -0,0 +1,98 @@
+package com.ince.gigalike.manage.thumb;
+
+import com.ince.gigalike.listener.thumb.msg.ThumbEvent;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.time.LocalDateTime;
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * ThumbConsumer 批量事件归并的压测：原来的 groupingBy + 排序与 ThumbEventReducer 对比
+ * 两者都产出每个 (userId, blogId) 的最终操作以及按博客累加的点赞数变化，不涉及数据库
+ * <p>
+ * 运行方式：执行 main 方法，可加 -prof gc 查看每批的内存分配
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ThumbEventReducerBenchmark {
+
+    /**
+     * 每批事件数
+     */
+    @Param({"1000", "10000"})
+    public int events;
+
+    private List<ThumbEvent> batch;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Random random = new Random(42);
+        LocalDateTime now = LocalDateTime.now();
+        batch = new ArrayList<>(events);
+        for (int i = 0; i < events; i++) {
+            ThumbEvent event = new ThumbEvent();
+            event.setUserId((long) random.nextInt(events / 2));
+            event.setBlogId((long) random.nextInt(200));
+            event.setType(random.nextBoolean() ? ThumbEvent.EventType.INCR : ThumbEvent.EventType.DECR);
+            event.setEventTime(now.plusNanos(i));
+            batch.add(event);
+        }
+    }
+
+    @Benchmark
+    public void groupingBy(Blackhole blackhole) {
+        Map<Map.Entry<Long, Long>, ThumbEvent> latestEvents = batch.stream()
+                .collect(Collectors.groupingBy(
+                        e -> new AbstractMap.SimpleImmutableEntry<>(e.getUserId(), e.getBlogId()),
+                        Collectors.collectingAndThen(
+                                Collectors.toList(),
+                                list -> {
+                                    list.sort(Comparator.comparing(ThumbEvent::getEventTime));
+                                    return list.get(list.size() - 1);
+                                }
+                        )
+                ));
+        Map<Long, Long> countMap = new HashMap<>();
+        latestEvents.forEach((pair, event) ->
+                countMap.merge(event.getBlogId(), event.getType() == ThumbEvent.EventType.INCR ? 1L : -1L, Long::sum));
+        blackhole.consume(latestEvents);
+        blackhole.consume(countMap);
+    }
+
+    @Benchmark
+    public void reducer(Blackhole blackhole) {
+        ThumbEventReducer reducer = new ThumbEventReducer(batch.size());
+        for (int i = 0; i < batch.size(); i++) {
+            ThumbEvent event = batch.get(i);
+            reducer.add(event.getUserId(), event.getBlogId(), event.getType() == ThumbEvent.EventType.INCR, i);
+        }
+        Long2LongAccumulator countDeltas = new Long2LongAccumulator(reducer.size());
+        reducer.forEach((userId, blogId, like, lastIndex) -> countDeltas.add(blogId, like ? 1 : -1));
+        blackhole.consume(reducer);
+        blackhole.consume(countDeltas);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(ThumbEventReducerBenchmark.class.getSimpleName())
+                .build();
+        new Runner(options).run();
+    }
+}
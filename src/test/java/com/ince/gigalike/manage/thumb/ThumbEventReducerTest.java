@@ -0,0 +1,124 @@
+package com.ince.gigalike.manage.thumb;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 点赞事件归并测试
+ * 随机生成初始点赞状态与事件序列，归并后再执行的结果必须与逐条执行完全一致
+ */
+public class ThumbEventReducerTest {
+
+    private static final int ROUNDS = 500;
+
+    @Test
+    public void testReducedStateMatchesSequentialApplication() {
+        Random random = new Random(42);
+        for (int round = 0; round < ROUNDS; round++) {
+            int users = 1 + random.nextInt(20);
+            int blogs = 1 + random.nextInt(20);
+            int events = random.nextInt(2_000);
+
+            Set<Long> initial = new HashSet<>();
+            for (int i = 0; i < users * blogs / 2; i++) {
+                initial.add(pairKey(random.nextInt(users), random.nextInt(blogs)));
+            }
+
+            // 逐条执行：点赞插入、取消点赞删除，都是幂等操作
+            Set<Long> expected = new HashSet<>(initial);
+            Map<Long, Long> expectedDeltas = new HashMap<>();
+            long[] userIds = new long[events];
+            long[] blogIds = new long[events];
+            boolean[] likes = new boolean[events];
+            for (int i = 0; i < events; i++) {
+                userIds[i] = random.nextInt(users);
+                blogIds[i] = random.nextInt(blogs);
+                likes[i] = random.nextBoolean();
+                long key = pairKey(userIds[i], blogIds[i]);
+                boolean changed = likes[i] ? expected.add(key) : expected.remove(key);
+                if (changed) {
+                    expectedDeltas.merge(blogIds[i], likes[i] ? 1L : -1L, Long::sum);
+                }
+            }
+            expectedDeltas.values().removeIf(delta -> delta == 0);
+
+            // 归并后按 ThumbConsumer 的方式执行：只对实际变化的记录计数
+            ThumbEventReducer reducer = new ThumbEventReducer(4);
+            for (int i = 0; i < events; i++) {
+                reducer.add(userIds[i], blogIds[i], likes[i], i);
+            }
+            Set<Long> actual = new HashSet<>(initial);
+            Long2LongAccumulator deltas = new Long2LongAccumulator(4);
+            int[] visited = {0};
+            reducer.forEach((userId, blogId, like, lastIndex) -> {
+                visited[0]++;
+                assertEquals(userId, userIds[lastIndex]);
+                assertEquals(blogId, blogIds[lastIndex]);
+                assertEquals(like, likes[lastIndex]);
+                long key = pairKey(userId, blogId);
+                boolean changed = like ? actual.add(key) : actual.remove(key);
+                if (changed) {
+                    deltas.add(blogId, like ? 1 : -1);
+                }
+            });
+
+            assertEquals(reducer.size(), visited[0]);
+            assertEquals(expected, actual, "round " + round);
+            assertEquals(expectedDeltas, deltas.toMap(), "round " + round);
+        }
+    }
+
+    @Test
+    public void testLastActionWins() {
+        ThumbEventReducer reducer = new ThumbEventReducer(16);
+        // 以取消点赞开头、偶数条事件的序列，旧实现按奇偶会直接丢弃
+        reducer.add(1, 100, false, 0);
+        reducer.add(1, 100, true, 1);
+        reducer.add(2, 100, true, 2);
+        reducer.add(2, 100, false, 3);
+
+        assertEquals(2, reducer.size());
+        assertTrue(reducer.contains(1, 100));
+        assertFalse(reducer.contains(3, 100));
+        Map<Long, Boolean> finalActions = new HashMap<>();
+        Map<Long, Integer> lastIndexes = new HashMap<>();
+        reducer.forEach((userId, blogId, like, lastIndex) -> {
+            finalActions.put(userId, like);
+            lastIndexes.put(userId, lastIndex);
+        });
+        assertEquals(Map.of(1L, true, 2L, false), finalActions);
+        assertEquals(Map.of(1L, 1, 2L, 3), lastIndexes);
+    }
+
+    @Test
+    public void testAccumulatorMatchesHashMap() {
+        Random random = new Random(7);
+        Long2LongAccumulator accumulator = new Long2LongAccumulator(1);
+        Map<Long, Long> expected = new HashMap<>();
+        for (int i = 0; i < 100_000; i++) {
+            // 包含负数与大数，覆盖扩容与哈希冲突
+            long key = random.nextBoolean() ? random.nextInt(5_000) - 2_500 : random.nextLong();
+            long delta = random.nextInt(3) - 1;
+            accumulator.add(key, delta);
+            expected.merge(key, delta, Long::sum);
+        }
+        for (Map.Entry<Long, Long> entry : expected.entrySet()) {
+            assertEquals(entry.getValue().longValue(), accumulator.get(entry.getKey()));
+        }
+        assertEquals(expected.size(), accumulator.size());
+        expected.values().removeIf(delta -> delta == 0);
+        assertEquals(expected, accumulator.toMap());
+        assertEquals(0, accumulator.get(Long.MIN_VALUE + 1));
+    }
+
+    private static long pairKey(long userId, long blogId) {
+        return userId << 32 | blogId;
+    }
+}
@@ -0,0 +1,305 @@
+package com.ince.gigalike.manage.thumb;
+
+import com.ince.gigalike.constant.RedisLuaScriptConstant;
+import com.ince.gigalike.listener.thumb.msg.ThumbEvent;
+import com.ince.gigalike.utils.RedisKeyUtil;
+import org.apache.pulsar.client.api.MessageId;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.connection.stream.Consumer;
+import org.springframework.data.redis.connection.stream.MapRecord;
+import org.springframework.data.redis.connection.stream.PendingMessagesSummary;
+import org.springframework.data.redis.connection.stream.ReadOffset;
+import org.springframework.data.redis.connection.stream.RecordId;
+import org.springframework.data.redis.connection.stream.StreamOffset;
+import org.springframework.data.redis.connection.stream.StreamReadOptions;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.StreamOperations;
+import org.springframework.data.redis.core.ValueOperations;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.data.redis.serializer.GenericToStringSerializer;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * outbox 转发：租约被其他节点接手后停止转发，接手的节点先从 0 重发未确认的事件，
+ * 确认脚本 XACK 并裁剪已转发的事件
+ * <p>
+ * 转发测试用进程内的流与租约模拟 Redis，多个转发节点共用；确认脚本测试需要本地 Redis（见 {@link LocalRedis}）
+ */
+public class ThumbOutboxRelayTest {
+
+    private static final String STREAM = RedisKeyUtil.getThumbOutboxKey(0);
+
+    private static final String LEASE_KEY = RedisKeyUtil.getThumbOutboxLeaseKey(0);
+
+    private static final String GROUP = "thumb-relay";
+
+    private static final long LEASE_MS = 300;
+
+    private final OutboxRedis redis = new OutboxRedis();
+
+    private RedisTemplate<String, Object> redisTemplate;
+
+    private final List<ThumbOutboxRelay> relays = new ArrayList<>();
+
+    @BeforeEach
+    public void setUp() {
+        redisTemplate = redis.template();
+    }
+
+    @AfterEach
+    public void tearDown() throws InterruptedException {
+        for (ThumbOutboxRelay relay : relays) {
+            relay.stop();
+        }
+    }
+
+    /**
+     * 节点 A 读取事件后发送超时，事件留在待确认列表中；租约过期被节点 B 接手后，
+     * B 从 0 读取并重发这些事件，全部发送成功后确认并裁剪流
+     */
+    @Test
+    public void testTakeoverResendsPendingEntries() throws Exception {
+        redis.add(1);
+        redis.add(2);
+        redis.add(3);
+        List<Long> sentByA = new CopyOnWriteArrayList<>();
+        ThumbOutboxRelay nodeA = relay(sentByA, false);
+        await(() -> sentByA.size() == 3);
+        assertEquals(3, redis.pendingCount());
+
+        // A 的租约过期，B 随后启动并取得租约
+        redis.expireLease();
+        List<Long> sentByB = new CopyOnWriteArrayList<>();
+        ThumbOutboxRelay nodeB = relay(sentByB, true);
+        await(() -> redis.size() == 0);
+
+        assertEquals(List.of(1L, 2L, 3L), sentByB);
+        assertEquals(0, redis.pendingCount());
+        assertEquals(3L, nodeB.getStats().get("redeliveredEvents"));
+        assertEquals(3L, nodeB.getStats().get("relayedEvents"));
+        assertEquals(0L, nodeA.getStats().get("relayedEvents"));
+    }
+
+    /**
+     * 续期失败（租约已被其他节点持有）时停止转发，新事件留在流中；租约释放后重新取得并转发
+     */
+    @Test
+    public void testLostLeaseStopsRelaying() throws Exception {
+        List<Long> sent = new CopyOnWriteArrayList<>();
+        ThumbOutboxRelay relay = relay(sent, true);
+        redis.add(1);
+        await(() -> sent.size() == 1 && redis.size() == 0);
+
+        redis.stealLease();
+        Thread.sleep(50);
+        redis.add(2);
+        Thread.sleep(LEASE_MS);
+        assertEquals(List.of(1L), sent);
+        assertEquals(1, redis.size());
+
+        redis.expireLease();
+        await(() -> redis.size() == 0);
+        assertEquals(List.of(1L, 2L), sent);
+        assertEquals(2L, relay.getStats().get("relayedEvents"));
+    }
+
+    /**
+     * 确认脚本：XACK 本批事件，删除本批最后一条及之前的事件，之后写入的事件保留
+     */
+    @Test
+    public void testAckScriptTrimsRelayedEntries() {
+        try (LocalRedis local = LocalRedis.connectOrSkip()) {
+            RedisTemplate<String, Object> template = local.template();
+            String stream = STREAM + ":test";
+            template.delete(stream);
+            try {
+                for (int i = 0; i < 5; i++) {
+                    template.opsForStream().add(MapRecord.create(stream, Map.of("e", String.valueOf(i))));
+                }
+                template.opsForStream().createGroup(stream, ReadOffset.from("0"), GROUP);
+                List<MapRecord<String, Object, Object>> batch = template.opsForStream().read(
+                        Consumer.from(GROUP, "relay"), StreamReadOptions.empty().count(3),
+                        StreamOffset.create(stream, ReadOffset.lastConsumed()));
+                assertEquals(3, batch.size());
+
+                List<Object> args = new ArrayList<>();
+                args.add(GROUP);
+                batch.forEach(record -> args.add(record.getId().getValue()));
+                Long acked = template.execute(RedisLuaScriptConstant.THUMB_OUTBOX_ACK_SCRIPT, RedisSerializer.string(),
+                        new GenericToStringSerializer<>(Long.class), List.of(stream), args.toArray());
+
+                assertEquals(3L, acked);
+                assertEquals(2L, template.opsForStream().size(stream));
+                PendingMessagesSummary pending = template.opsForStream().pending(stream, GROUP);
+                assertEquals(0, pending.getTotalPendingMessages());
+                List<MapRecord<String, Object, Object>> rest = template.opsForStream().read(
+                        Consumer.from(GROUP, "relay"), StreamReadOptions.empty().count(10),
+                        StreamOffset.create(stream, ReadOffset.lastConsumed()));
+                assertEquals(2, rest.size());
+            } finally {
+                template.delete(stream);
+            }
+        }
+    }
+
+    /**
+     * 启动一个单流转发节点；completes 为 false 时发送永不完成，转发超时失败
+     */
+    private ThumbOutboxRelay relay(List<Long> sent, boolean completes) throws Exception {
+        ThumbEventPublisher publisher = mock(ThumbEventPublisher.class);
+        when(publisher.publish(any())).thenAnswer(invocation -> {
+            sent.add(invocation.<ThumbEvent>getArgument(0).getEventId());
+            return completes ? CompletableFuture.<MessageId>completedFuture(null) : new CompletableFuture<MessageId>();
+        });
+        ThumbOutboxRelay relay = new ThumbOutboxRelay();
+        ReflectionTestUtils.setField(relay, "redisTemplate", redisTemplate);
+        ReflectionTestUtils.setField(relay, "thumbEventPublisher", publisher);
+        ReflectionTestUtils.setField(relay, "enabled", true);
+        ReflectionTestUtils.setField(relay, "streams", 1);
+        ReflectionTestUtils.setField(relay, "batchSize", 100);
+        ReflectionTestUtils.setField(relay, "pollIntervalMs", 5L);
+        ReflectionTestUtils.setField(relay, "leaseMs", LEASE_MS);
+        ReflectionTestUtils.setField(relay, "publishTimeoutMs", 100L);
+        relay.start();
+        relays.add(relay);
+        return relay;
+    }
+
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.currentTimeMillis() < deadline, "等待超时");
+            Thread.sleep(10);
+        }
+    }
+
+    /**
+     * 进程内的单个 outbox 流（一个消费组、一个消费者）与租约键，租约不计时，由测试模拟过期
+     */
+    private static class OutboxRedis {
+
+        private final TreeMap<Long, MapRecord<String, Object, Object>> entries = new TreeMap<>();
+
+        private final Set<Long> pending = new LinkedHashSet<>();
+
+        private final Map<String, String> leases = new HashMap<>();
+
+        private long lastId;
+
+        private long lastDelivered;
+
+        synchronized void add(long eventId) {
+            Map<Object, Object> value = Map.of("e", eventId, "u", 1L, "b", 2L, "t", 1, "ts", System.currentTimeMillis());
+            lastId++;
+            entries.put(lastId, MapRecord.create(STREAM, value).withId(RecordId.of(lastId, 0)));
+        }
+
+        synchronized int size() {
+            return entries.size();
+        }
+
+        synchronized int pendingCount() {
+            return pending.size();
+        }
+
+        synchronized void expireLease() {
+            leases.remove(LEASE_KEY);
+        }
+
+        synchronized void stealLease() {
+            leases.put(LEASE_KEY, "other-node");
+        }
+
+        /**
+         * 0：本消费者已读取未确认的事件；>：上次投递之后的新事件，读取后加入待确认列表
+         */
+        synchronized List<MapRecord<String, Object, Object>> read(StreamReadOptions options, StreamOffset<String> offset) {
+            int count = options.getCount().intValue();
+            List<MapRecord<String, Object, Object>> result = new ArrayList<>();
+            if ("0".equals(offset.getOffset().getOffset())) {
+                pending.stream().limit(count).forEach(id -> result.add(entries.get(id)));
+                return result;
+            }
+            for (MapRecord<String, Object, Object> record : entries.tailMap(lastDelivered, false).values()) {
+                if (result.size() == count) {
+                    break;
+                }
+                result.add(record);
+                lastDelivered = record.getId().getTimestamp();
+                pending.add(lastDelivered);
+            }
+            return result;
+        }
+
+        /**
+         * 同确认脚本：XACK 后删除最后一个 ID 及之前的事件
+         */
+        synchronized long ack(Object[] args) {
+            long acked = 0;
+            long last = 0;
+            for (int i = 1; i < args.length; i++) {
+                last = RecordId.of(args[i].toString()).getTimestamp();
+                acked += pending.remove(last) ? 1 : 0;
+            }
+            entries.headMap(last, true).clear();
+            return acked;
+        }
+
+        synchronized long lease(RedisScript<?> script, Object[] args) {
+            String token = args[0].toString();
+            if (!token.equals(leases.get(LEASE_KEY))) {
+                return 0;
+            }
+            if (script == RedisLuaScriptConstant.UNLOCK_SCRIPT) {
+                leases.remove(LEASE_KEY);
+            }
+            return 1;
+        }
+
+        synchronized boolean tryLease(String token) {
+            return leases.putIfAbsent(LEASE_KEY, token) == null;
+        }
+
+        @SuppressWarnings("unchecked")
+        RedisTemplate<String, Object> template() {
+            RedisTemplate<String, Object> redisTemplate = mock(RedisTemplate.class);
+            ValueOperations<String, Object> valueOperations = mock(ValueOperations.class);
+            StreamOperations<String, Object, Object> streamOperations = mock(StreamOperations.class);
+            when(redisTemplate.opsForValue()).thenReturn(valueOperations);
+            when(redisTemplate.<Object, Object>opsForStream()).thenReturn(streamOperations);
+            when(valueOperations.setIfAbsent(eq(LEASE_KEY), any(), any(Duration.class)))
+                    .thenAnswer(invocation -> tryLease(invocation.getArgument(1).toString()));
+            when(streamOperations.read(any(Consumer.class), any(StreamReadOptions.class), any(StreamOffset[].class)))
+                    .thenAnswer(invocation -> read(invocation.getArgument(1), invocation.getArgument(2)));
+            when(redisTemplate.execute(any(RedisScript.class), anyList(), any(Object[].class)))
+                    .thenAnswer(invocation -> lease(invocation.getArgument(0), (Object[]) invocation.getRawArguments()[2]));
+            when(redisTemplate.execute(eq(RedisLuaScriptConstant.THUMB_OUTBOX_ACK_SCRIPT), any(RedisSerializer.class),
+                    any(RedisSerializer.class), anyList(), any(Object[].class)))
+                    .thenAnswer(invocation -> ack((Object[]) invocation.getRawArguments()[4]));
+            when(streamOperations.size(anyString())).thenAnswer(invocation -> (long) size());
+            return redisTemplate;
+        }
+    }
+}
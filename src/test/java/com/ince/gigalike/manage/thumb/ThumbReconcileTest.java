@@ -0,0 +1,200 @@
+package com.ince.gigalike.manage.thumb;
+
+import com.baomidou.mybatisplus.core.MybatisConfiguration;
+import com.baomidou.mybatisplus.core.metadata.TableInfoHelper;
+import com.ince.gigalike.listener.thumb.msg.ThumbEvent;
+import com.ince.gigalike.mapper.ThumbMapper;
+import com.ince.gigalike.model.entity.Thumb;
+import org.apache.ibatis.builder.MapperBuilderAssistant;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeSet;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * 点赞对账的归并比较、分片切分与用户点赞数据整体缺失时的修复测试
+ */
+public class ThumbReconcileTest {
+
+    private static final long USER_ID = 42L;
+
+    @BeforeAll
+    public static void initTableInfo() {
+        // LambdaQueryWrapper 解析列名需要实体元数据
+        TableInfoHelper.initTableInfo(new MapperBuilderAssistant(new MybatisConfiguration(), ""), Thumb.class);
+    }
+
+    @Test
+    public void testDiffMatchesSetDifference() {
+        Random random = new Random(17);
+        for (int round = 0; round < 1_000; round++) {
+            TreeSet<Long> redis = new TreeSet<>();
+            TreeSet<Long> mysql = new TreeSet<>();
+            int size = random.nextInt(50);
+            for (int i = 0; i < size; i++) {
+                redis.add((long) random.nextInt(100));
+                mysql.add((long) random.nextInt(100));
+            }
+
+            UserThumbDiff diff = UserThumbDiff.of(toArray(redis), toArray(mysql));
+
+            TreeSet<Long> redisOnly = new TreeSet<>(redis);
+            redisOnly.removeAll(mysql);
+            TreeSet<Long> mysqlOnly = new TreeSet<>(mysql);
+            mysqlOnly.removeAll(redis);
+            assertArrayEquals(toArray(redisOnly), diff.redisOnly());
+            assertArrayEquals(toArray(mysqlOnly), diff.mysqlOnly());
+            assertEquals(redisOnly.isEmpty() && mysqlOnly.isEmpty(), diff.isEmpty());
+        }
+    }
+
+    @Test
+    public void testDiffWithOneSideEmpty() {
+        long[] blogIds = {1, 5, 9};
+        assertArrayEquals(blogIds, UserThumbDiff.of(blogIds, new long[0]).redisOnly());
+        assertArrayEquals(blogIds, UserThumbDiff.of(new long[0], blogIds).mysqlOnly());
+        assertTrue(UserThumbDiff.of(blogIds, blogIds).isEmpty());
+    }
+
+    @Test
+    public void testShardBoundsCoverAllUsers() {
+        long minUserId = 1_900_000_000_000_000_000L;
+        long maxUserId = minUserId + 123_456_789L;
+        long[] bounds = ThumbReconciler.shardBounds(minUserId, maxUserId, 64);
+        assertEquals(65, bounds.length);
+        assertEquals(minUserId - 1, bounds[0]);
+        assertEquals(Long.MAX_VALUE, bounds[64]);
+        for (int i = 1; i < bounds.length; i++) {
+            assertTrue(bounds[i] > bounds[i - 1]);
+        }
+        assertTrue(bounds[63] < maxUserId);
+    }
+
+    @Test
+    public void testShardBoundsWithFewUsers() {
+        long[] bounds = ThumbReconciler.shardBounds(10, 12, 64);
+        assertArrayEquals(new long[]{9, 10, 11, Long.MAX_VALUE}, bounds);
+
+        assertArrayEquals(new long[]{9, Long.MAX_VALUE}, ThumbReconciler.shardBounds(10, 10, 64));
+    }
+
+    /**
+     * 用户取消了最后一个点赞：哈希随最后一个字段删除，取消点赞事件仍在途，数据库还有记录。
+     * 已加载标记存在，不能重建，而是补发取消点赞事件
+     */
+    @Test
+    public void testLastLikeRemovedSendsDecrInsteadOfRehydrating() throws Exception {
+        UserThumbStore store = mock(UserThumbStore.class);
+        when(store.blogIds(USER_ID)).thenReturn(new long[0]);
+        when(store.isLoaded(USER_ID)).thenReturn(true);
+        when(store.peek(eq(USER_ID), any())).thenAnswer(invocation -> absent(invocation.getArgument(1)));
+        ThumbEventPublisher publisher = mockPublisher();
+
+        long repaired = reconciler(store, publisher, 7L).reconcileUsers(List.of(USER_ID));
+
+        assertEquals(1, repaired);
+        verify(store, never()).rehydrate(anyLong(), any());
+        ArgumentCaptor<ThumbEvent> events = ArgumentCaptor.forClass(ThumbEvent.class);
+        verify(publisher).publish(events.capture());
+        assertEquals(ThumbEvent.EventType.DECR, events.getValue().getType());
+        assertEquals(7L, events.getValue().getBlogId());
+    }
+
+    /**
+     * 不淘汰冷数据时，既没有点赞数据也没有标记说明 Redis 数据丢失，用数据库记录重建
+     */
+    @Test
+    public void testLostUserIsRehydrated() throws Exception {
+        UserThumbStore store = mock(UserThumbStore.class);
+        when(store.blogIds(USER_ID)).thenReturn(new long[0]);
+        when(store.isLoaded(USER_ID)).thenReturn(false);
+        when(store.rehydrate(eq(USER_ID), any())).thenReturn(true);
+        ThumbEventPublisher publisher = mockPublisher();
+
+        long repaired = reconciler(store, publisher, 3L, 7L).reconcileUsers(List.of(USER_ID));
+
+        assertEquals(1, repaired);
+        verify(store).rehydrate(USER_ID, new long[]{3L, 7L});
+        verify(publisher, never()).publish(any());
+    }
+
+    /**
+     * 重建时发现标记已被取消点赞脚本写入（比对之后用户取消了全部点赞），按差异补发取消点赞事件
+     */
+    @Test
+    public void testRehydrateRefusedFallsBackToDiff() throws Exception {
+        UserThumbStore store = mock(UserThumbStore.class);
+        when(store.blogIds(USER_ID)).thenReturn(new long[0]);
+        when(store.isLoaded(USER_ID)).thenReturn(false);
+        when(store.rehydrate(eq(USER_ID), any())).thenReturn(false);
+        when(store.peek(eq(USER_ID), any())).thenAnswer(invocation -> absent(invocation.getArgument(1)));
+        ThumbEventPublisher publisher = mockPublisher();
+
+        assertEquals(1, reconciler(store, publisher, 7L).reconcileUsers(List.of(USER_ID)));
+        verify(publisher).publish(argThat(event -> event.getType() == ThumbEvent.EventType.DECR));
+    }
+
+    /**
+     * 淘汰冷数据时没有标记的用户只是未加载，不修复
+     */
+    @Test
+    public void testUnloadedColdUserIsSkipped() throws Exception {
+        UserThumbStore store = mock(UserThumbStore.class);
+        when(store.blogIds(USER_ID)).thenReturn(new long[0]);
+        when(store.isLoaded(USER_ID)).thenReturn(false);
+        when(store.evictsColdUsers()).thenReturn(true);
+        ThumbEventPublisher publisher = mockPublisher();
+
+        assertEquals(0, reconciler(store, publisher, 7L).reconcileUsers(List.of(USER_ID)));
+        verify(store, never()).rehydrate(anyLong(), any());
+        verify(publisher, never()).publish(any());
+    }
+
+    private static ThumbReconciler reconciler(UserThumbStore store, ThumbEventPublisher publisher, long... mysqlBlogIds) {
+        ThumbMapper thumbMapper = mock(ThumbMapper.class);
+        List<Thumb> rows = new ArrayList<>();
+        for (long blogId : mysqlBlogIds) {
+            Thumb thumb = new Thumb();
+            thumb.setUserId(USER_ID);
+            thumb.setBlogId(blogId);
+            rows.add(thumb);
+        }
+        when(thumbMapper.selectList(any())).thenReturn(rows);
+        ThumbReconciler reconciler = new ThumbReconciler();
+        ReflectionTestUtils.setField(reconciler, "thumbMapper", thumbMapper);
+        ReflectionTestUtils.setField(reconciler, "userThumbStore", store);
+        ReflectionTestUtils.setField(reconciler, "thumbEventPublisher", publisher);
+        return reconciler;
+    }
+
+    private static ThumbEventPublisher mockPublisher() throws Exception {
+        ThumbEventPublisher publisher = mock(ThumbEventPublisher.class);
+        when(publisher.publish(any())).thenReturn(CompletableFuture.completedFuture(null));
+        return publisher;
+    }
+
+    private static Map<Long, Boolean> absent(Collection<Long> blogIds) {
+        Map<Long, Boolean> result = new HashMap<>();
+        blogIds.forEach(blogId -> result.put(blogId, false));
+        return result;
+    }
+
+    private static long[] toArray(TreeSet<Long> values) {
+        return values.stream().mapToLong(Long::longValue).toArray();
+    }
+}
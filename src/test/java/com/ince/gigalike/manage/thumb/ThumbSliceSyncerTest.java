@@ -0,0 +1,205 @@
+package com.ince.gigalike.manage.thumb;
+
+import com.ince.gigalike.constant.ThumbConstant;
+import com.ince.gigalike.model.entity.Thumb;
+import com.ince.gigalike.utils.RedisKeyUtil;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+/**
+ * 时间片同步的分块写库、按值比较删除、水位线推进与残留时间片补偿
+ */
+public class ThumbSliceSyncerTest {
+
+    private static final long SLICE_SECONDS = 10;
+
+    private static final int CHUNK_SIZE = 500;
+
+    private InMemoryThumbSliceStore store;
+
+    private ThumbRecordWriter thumbRecordWriter;
+
+    private ThumbSliceSyncer syncer;
+
+    /**
+     * 每次写库的插入与删除，元素为 userId:blogId
+     */
+    private final List<Write> writes = new CopyOnWriteArrayList<>();
+
+    /**
+     * 回看范围内、远早于当前时间的水位线，之后的时间片都已结束
+     */
+    private long watermark;
+
+    private record Write(Set<String> inserts, Set<String> removals) {
+    }
+
+    @BeforeEach
+    public void setUp() {
+        store = new InMemoryThumbSliceStore();
+        thumbRecordWriter = mock(ThumbRecordWriter.class);
+        when(thumbRecordWriter.apply(anyList(), anyList())).thenAnswer(invocation -> {
+            writes.add(new Write(pairs(invocation.getArgument(0)), pairs(invocation.getArgument(1))));
+            return Map.of();
+        });
+
+        syncer = new ThumbSliceSyncer();
+        ReflectionTestUtils.setField(syncer, "thumbSliceStore", store);
+        ReflectionTestUtils.setField(syncer, "thumbRecordWriter", thumbRecordWriter);
+        ReflectionTestUtils.setField(syncer, "transactionTemplate", new TransactionTemplate(mock(PlatformTransactionManager.class)));
+        ReflectionTestUtils.setField(syncer, "enabled", true);
+        ReflectionTestUtils.setField(syncer, "sliceSeconds", SLICE_SECONDS);
+        ReflectionTestUtils.setField(syncer, "graceSeconds", 2L);
+        ReflectionTestUtils.setField(syncer, "chunkSize", CHUNK_SIZE);
+        ReflectionTestUtils.setField(syncer, "workers", 4);
+        ReflectionTestUtils.setField(syncer, "maxSlicesPerRun", 1_000);
+        ReflectionTestUtils.setField(syncer, "lookbackSlices", 360L);
+        ReflectionTestUtils.setField(syncer, "leaseMs", 60_000L);
+        syncer.init();
+
+        watermark = syncer.currentSlice() - 100 * SLICE_SECONDS;
+        store.setWatermark(watermark);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        syncer.destroy();
+    }
+
+    @Test
+    public void testSlicesSyncedInOrderAndWatermarkAdvances() {
+        String first = RedisKeyUtil.getTempThumbKey(watermark + SLICE_SECONDS);
+        String second = RedisKeyUtil.getTempThumbKey(watermark + 2 * SLICE_SECONDS);
+        store.put(first, 1, 10, 1);
+        store.put(second, 1, 10, -1);
+        store.put(second, 2, 10, 1);
+        store.put(second, 3, 10, 0);
+
+        syncer.sync();
+
+        assertEquals(2, writes.size());
+        assertEquals(new Write(Set.of("1:10"), Set.of()), writes.get(0));
+        // 片内净变化为 0 的 field 不写库，但同样删除
+        assertEquals(new Write(Set.of("2:10"), Set.of("1:10")), writes.get(1));
+        assertFalse(store.exists(first));
+        assertFalse(store.exists(second));
+        // 已结束的时间片全部同步，水位线逐片前进
+        List<Long> saved = store.savedWatermarks();
+        assertEquals(watermark + SLICE_SECONDS, saved.get(0));
+        assertEquals(watermark + 2 * SLICE_SECONDS, saved.get(1));
+        assertTrue(saved.size() >= 97, "saved " + saved.size());
+        assertTrue(store.watermark() < syncer.currentSlice());
+    }
+
+    @Test
+    public void testSliceSplitIntoChunks() {
+        String key = RedisKeyUtil.getTempThumbKey(watermark + SLICE_SECONDS);
+        int fields = 2 * CHUNK_SIZE + 50;
+        for (int userId = 0; userId < fields; userId++) {
+            store.put(key, userId, 10, 1);
+        }
+
+        syncer.sync();
+
+        // 重复返回的 field 只写一次
+        assertEquals(3, writes.size());
+        int total = 0;
+        for (Write write : writes) {
+            assertTrue(write.inserts().size() <= CHUNK_SIZE);
+            total += write.inserts().size();
+        }
+        assertEquals(fields, total);
+        assertFalse(store.exists(key));
+    }
+
+    /**
+     * 写库期间同一 field 又有新的增量：按值比较删除时保留该 field，时间片未清空，水位线停在它之前，下一轮再同步
+     */
+    @Test
+    public void testFieldRewrittenDuringWriteIsKept() {
+        long slice = watermark + SLICE_SECONDS;
+        String key = RedisKeyUtil.getTempThumbKey(slice);
+        store.put(key, 1, 10, 1);
+        store.put(key, 2, 10, 1);
+        doAnswer(invocation -> {
+            writes.add(new Write(pairs(invocation.getArgument(0)), pairs(invocation.getArgument(1))));
+            // 用户 1 在写库期间取消点赞，片内净变化变为 0
+            store.put(key, 1, 10, 0);
+            return Map.of();
+        }).when(thumbRecordWriter).apply(anyList(), anyList());
+
+        syncer.sync();
+
+        assertEquals(Map.of("1:10", 0L), store.slice(key));
+        assertTrue(store.savedWatermarks().isEmpty());
+
+        doAnswer(invocation -> {
+            writes.add(new Write(pairs(invocation.getArgument(0)), pairs(invocation.getArgument(1))));
+            return Map.of();
+        }).when(thumbRecordWriter).apply(anyList(), anyList());
+        syncer.sync();
+
+        assertEquals(new Write(Set.of(), Set.of()), writes.get(1));
+        assertFalse(store.exists(key));
+        assertEquals(slice, store.savedWatermarks().get(0));
+    }
+
+    @Test
+    public void testFailedChunkHoldsWatermark() {
+        String key = RedisKeyUtil.getTempThumbKey(watermark + SLICE_SECONDS);
+        store.put(key, 1, 10, 1);
+        doThrow(new IllegalStateException("db down")).when(thumbRecordWriter).apply(anyList(), anyList());
+
+        syncer.sync();
+
+        assertEquals(Map.of("1:10", 1L), store.slice(key));
+        assertTrue(store.savedWatermarks().isEmpty());
+        assertEquals(watermark, store.watermark());
+    }
+
+    /**
+     * 水位线之前残留的时间片与旧格式的键不按增量重放（更新的时间片已经写库），而是按用户当前的点赞状态写库
+     */
+    @Test
+    public void testLeftoversResolvedToCurrentState() {
+        String stale = RedisKeyUtil.getTempThumbKey(watermark - 5 * SLICE_SECONDS);
+        String legacy = ThumbConstant.TEMP_THUMB_KEY_PREFIX.formatted("12:00:00");
+        String pending = RedisKeyUtil.getTempThumbKey(watermark + SLICE_SECONDS);
+        // 用户 1 点赞后在更新的时间片里取消了点赞
+        store.put(stale, 1, 10, 1);
+        // 用户 2 取消点赞后又点赞
+        store.put(legacy, 2, 10, -1);
+        store.like(2, 10);
+        store.put(pending, 3, 10, 1);
+
+        syncer.compensate();
+
+        Set<String> inserts = writes.stream().flatMap(write -> write.inserts().stream()).collect(Collectors.toSet());
+        Set<String> removals = writes.stream().flatMap(write -> write.removals().stream()).collect(Collectors.toSet());
+        assertEquals(Set.of("2:10"), inserts);
+        assertEquals(Set.of("1:10"), removals);
+        assertFalse(store.exists(stale));
+        assertFalse(store.exists(legacy));
+        // 水位线之后的时间片留给 sync 按顺序处理
+        assertEquals(Map.of("3:10", 1L), store.slice(pending));
+        assertTrue(store.savedWatermarks().isEmpty());
+    }
+
+    private static Set<String> pairs(List<Thumb> thumbs) {
+        return thumbs.stream().map(thumb -> thumb.getUserId() + ":" + thumb.getBlogId()).collect(Collectors.toSet());
+    }
+}
@@ -0,0 +1,132 @@
+package com.ince.gigalike.manage.thumb;
+
+import com.ince.gigalike.model.entity.Thumb;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 点赞写入缓冲区测试
+ */
+public class ThumbWriteBehindBufferTest {
+
+    @Test
+    public void testCloseDrainsAllEvents() throws InterruptedException {
+        List<List<ThumbWriteEvent>> batches = Collections.synchronizedList(new ArrayList<>());
+        ThumbWriteBehindBuffer buffer = new ThumbWriteBehindBuffer(4, 64, 100, Duration.ofSeconds(10), batches::add, e -> true);
+        buffer.start();
+
+        int threads = 8;
+        int perThread = 1_000;
+        CountDownLatch done = new CountDownLatch(threads);
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        for (int t = 0; t < threads; t++) {
+            long userId = t;
+            executor.execute(() -> {
+                for (int i = 0; i < perThread; i++) {
+                    buffer.offer(ThumbWriteEvent.like(userId * perThread + i, userId, i));
+                }
+                done.countDown();
+            });
+        }
+        assertTrue(done.await(30, TimeUnit.SECONDS));
+        executor.shutdown();
+        buffer.close();
+
+        assertEquals(0, buffer.pending());
+        assertEquals(threads * perThread, batches.stream().mapToInt(List::size).sum());
+        assertTrue(batches.stream().allMatch(batch -> batch.size() <= 100));
+        assertThrows(IllegalStateException.class, () -> buffer.offer(ThumbWriteEvent.like(1, 1, 1)));
+    }
+
+    @Test
+    public void testFlushAfterMaxDelay() throws InterruptedException {
+        CountDownLatch written = new CountDownLatch(1);
+        ThumbWriteBehindBuffer buffer = new ThumbWriteBehindBuffer(2, 64, 100, Duration.ofMillis(20), batch -> written.countDown(),
+                e -> true);
+        buffer.start();
+        try {
+            buffer.offer(ThumbWriteEvent.like(1, 1, 1));
+            assertTrue(written.await(5, TimeUnit.SECONDS), "未达到批量大小时也应在最长延迟后写库");
+        } finally {
+            buffer.close();
+        }
+    }
+
+    @Test
+    public void testRetryKeepsOrder() {
+        AtomicInteger failures = new AtomicInteger(2);
+        List<ThumbWriteEvent> written = Collections.synchronizedList(new ArrayList<>());
+        ThumbWriteBehindBuffer buffer = new ThumbWriteBehindBuffer(1, 64, 2, Duration.ofMillis(5), batch -> {
+            if (failures.getAndDecrement() > 0) {
+                throw new IllegalStateException("db down");
+            }
+            written.addAll(batch);
+        }, e -> true);
+        buffer.start();
+        for (int i = 0; i < 10; i++) {
+            buffer.offer(ThumbWriteEvent.like(i, 1, i));
+        }
+        buffer.close();
+
+        assertEquals(10, written.size());
+        for (int i = 0; i < 10; i++) {
+            assertEquals(i, written.get(i).thumbId());
+        }
+        assertEquals(2L, buffer.getStats().get("writeFailures"));
+    }
+
+    /**
+     * 一条操作始终无法写入（不可重试的异常）：批次拆分后只丢弃这一条，其余操作按顺序写入
+     */
+    @Test
+    public void testPoisonEventIsIsolated() {
+        List<ThumbWriteEvent> written = Collections.synchronizedList(new ArrayList<>());
+        ThumbWriteBehindBuffer buffer = new ThumbWriteBehindBuffer(1, 64, 8, Duration.ofMillis(5), batch -> {
+            if (batch.stream().anyMatch(event -> event.thumbId() == 5)) {
+                throw new IllegalArgumentException("bad row");
+            }
+            written.addAll(batch);
+        }, e -> !(e instanceof IllegalArgumentException));
+        for (int i = 0; i < 8; i++) {
+            buffer.offer(ThumbWriteEvent.like(i, 1, i));
+        }
+        buffer.start();
+        buffer.close();
+
+        assertEquals(List.of(0L, 1L, 2L, 3L, 4L, 6L, 7L), written.stream().map(ThumbWriteEvent::thumbId).toList());
+        assertEquals(1L, buffer.getStats().get("deadLetteredEvents"));
+        assertEquals(0L, buffer.getStats().get("droppedEvents"));
+    }
+
+    @Test
+    public void testBatchNetting() {
+        List<ThumbWriteEvent> events = List.of(
+                // 用户 1 点赞博客 10
+                ThumbWriteEvent.like(100, 1, 10),
+                // 用户 2 点赞后取消：抵消
+                ThumbWriteEvent.like(200, 2, 10),
+                ThumbWriteEvent.unlike(200, 2, 10),
+                // 用户 3 取消已有点赞后再次点赞：删除旧记录、插入新记录，点赞数不变
+                ThumbWriteEvent.unlike(300, 3, 20),
+                ThumbWriteEvent.like(301, 3, 20),
+                // 用户 4 取消已有点赞
+                ThumbWriteEvent.unlike(400, 4, 20)
+        );
+        ThumbWriteBatch batch = ThumbWriteBatch.of(events);
+
+        assertEquals(List.of(100L, 301L), batch.getInserts().stream().map(Thumb::getId).toList());
+        assertEquals(List.of(300L, 400L), batch.getRemovals().stream().map(Thumb::getId).toList());
+        assertEquals(List.of(3L, 4L), batch.getRemovals().stream().map(Thumb::getUserId).toList());
+    }
+}
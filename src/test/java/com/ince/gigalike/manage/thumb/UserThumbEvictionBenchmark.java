@@ -0,0 +1,113 @@
+package com.ince.gigalike.manage.thumb;
+
+import com.ince.gigalike.config.RedisConfig;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
+import org.springframework.data.redis.connection.jedis.JedisConnectionFactory;
+import org.springframework.data.redis.core.RedisTemplate;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * 冷用户点赞数据过期淘汰的内存对比：长尾用户群体持续访问，分别在不淘汰（过期时间远大于运行时间）
+ * 与短过期时间下运行，每隔一段时间输出 Redis 键数与 used_memory
+ * <p>
+ * 访问一半来自少量头部用户，一半来自海量长尾用户（几乎都是第一次访问）。不淘汰时内存随访问过的用户数线性增长，
+ * 淘汰时稳定在"过期时间内访问过的用户"的规模。用户点赞记录由随机数生成，不访问数据库。
+ * 需要本地 Redis，会清空 bench.redis.database 指定的库。
+ * 运行方式：执行 main 方法，可通过 -Dbench.redis.host / -Dbench.redis.port / -Dbench.redis.database /
+ * -Dbench.ttl-seconds / -Dbench.seconds / -Dbench.threads 调整参数。
+ * 键数上界的断言见 {@link ExpiringUserThumbStoreTest}
+ */
+public class UserThumbEvictionBenchmark {
+
+    private static final int HEAD_USERS = 10_000;
+
+    private static final long TAIL_USERS = 100_000_000L;
+
+    private static final long BLOG_ID_BASE = 1_900_000_000_000_000_000L;
+
+    public static void main(String[] args) throws InterruptedException {
+        long ttlSeconds = Long.getLong("bench.ttl-seconds", 10);
+        long seconds = Long.getLong("bench.seconds", 60);
+        int threads = Integer.getInteger("bench.threads", 8);
+
+        RedisStandaloneConfiguration configuration = new RedisStandaloneConfiguration(
+                System.getProperty("bench.redis.host", "localhost"), Integer.getInteger("bench.redis.port", 6379));
+        configuration.setDatabase(Integer.getInteger("bench.redis.database", 15));
+        JedisConnectionFactory connectionFactory = new JedisConnectionFactory(configuration);
+        connectionFactory.afterPropertiesSet();
+        RedisTemplate<String, Object> redisTemplate = new RedisConfig().redisTemplate(connectionFactory);
+
+        try {
+            run("no-eviction", Duration.ofDays(1), seconds, threads, redisTemplate);
+            run("ttl=" + ttlSeconds + "s", Duration.ofSeconds(ttlSeconds), seconds, threads, redisTemplate);
+        } finally {
+            flush(redisTemplate);
+            connectionFactory.destroy();
+        }
+    }
+
+    private static void run(String name, Duration ttl, long seconds, int threads,
+                            RedisTemplate<String, Object> redisTemplate) throws InterruptedException {
+        flush(redisTemplate);
+        long baseline = usedMemory(redisTemplate);
+        UserThumbStore store = new ExpiringUserThumbStore(new HashUserThumbStore(redisTemplate), redisTemplate,
+                UserThumbEvictionBenchmark::load, ttl);
+        long deadline = System.nanoTime() + Duration.ofSeconds(seconds).toNanos();
+
+        List<Thread> workers = new ArrayList<>(threads);
+        for (int t = 0; t < threads; t++) {
+            Random random = new Random(t);
+            workers.add(Thread.ofVirtual().start(() -> {
+                while (System.nanoTime() < deadline) {
+                    long userId = random.nextBoolean()
+                            ? 1 + (long) (HEAD_USERS * Math.pow(random.nextDouble(), 3))
+                            : HEAD_USERS + 1 + (long) (random.nextDouble() * TAIL_USERS);
+                    store.contains(userId, List.of(BLOG_ID_BASE + random.nextInt(1_000)));
+                }
+            }));
+        }
+
+        System.out.println(name);
+        long peak = 0;
+        for (long elapsed = 5; elapsed <= seconds; elapsed += 5) {
+            Thread.sleep(5_000);
+            long used = usedMemory(redisTemplate) - baseline;
+            peak = Math.max(peak, used);
+            Long keys = redisTemplate.execute((RedisConnection connection) -> connection.serverCommands().dbSize());
+            System.out.printf("  %3ds keys=%d, used_memory=%.1f MB%n", elapsed, keys, used / 1024.0 / 1024.0);
+        }
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        System.out.printf("  peak used_memory=%.1f MB%n", peak / 1024.0 / 1024.0);
+    }
+
+    /**
+     * 每个用户固定的随机点赞记录，点赞数服从几何分布，平均约 20 个
+     */
+    private static List<Long> load(long userId) {
+        Random random = new Random(userId);
+        List<Long> blogIds = new ArrayList<>();
+        while (random.nextInt(20) != 0) {
+            blogIds.add(BLOG_ID_BASE + random.nextInt(1_000_000));
+        }
+        return blogIds;
+    }
+
+    private static long usedMemory(RedisTemplate<String, Object> redisTemplate) {
+        return Long.parseLong(redisTemplate.execute((RedisConnection connection) ->
+                connection.serverCommands().info("memory")).getProperty("used_memory"));
+    }
+
+    private static void flush(RedisTemplate<String, Object> redisTemplate) {
+        redisTemplate.execute((RedisConnection connection) -> {
+            connection.serverCommands().flushDb();
+            return null;
+        });
+    }
+}
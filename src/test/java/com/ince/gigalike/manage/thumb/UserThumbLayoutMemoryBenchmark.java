@@ -0,0 +1,109 @@
+package com.ince.gigalike.manage.thumb;
+
+import com.ince.gigalike.config.RedisConfig;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
+import org.springframework.data.redis.connection.jedis.JedisConnectionFactory;
+import org.springframework.data.redis.core.RedisTemplate;
+
+import java.util.Arrays;
+import java.util.Properties;
+import java.util.Random;
+
+/**
+ * 用户点赞状态两种 Redis 布局的内存占用对比：hash（每用户一个哈希）与 bucketed（线性哈希分桶）
+ * <p>
+ * 按 Zipf 分布生成每个用户的点赞数（少数用户点赞很多），博客 ID 为雪花 ID 范围内的随机值，
+ * 分别用两种布局写入同一份数据，以 INFO memory 的 used_memory 差值计算每个点赞的字节数。
+ * 需要本地 Redis，会清空 bench.redis.database 指定的库。
+ * 运行方式：执行 main 方法，可通过 -Dbench.redis.host / -Dbench.redis.port / -Dbench.redis.database /
+ * -Dbench.likes / -Dbench.users / -Dbench.zipf 调整参数
+ */
+public class UserThumbLayoutMemoryBenchmark {
+
+    private static final long BLOG_ID_BASE = 1_900_000_000_000_000_000L;
+
+    private static final long BLOG_ID_RANGE = 1L << 40;
+
+    public static void main(String[] args) {
+        long likes = Long.getLong("bench.likes", 10_000_000L);
+        int users = Integer.getInteger("bench.users", 200_000);
+        double zipf = Double.parseDouble(System.getProperty("bench.zipf", "1.0"));
+        int maxLoad = Integer.getInteger("bench.bucket-max-load", 48);
+
+        RedisStandaloneConfiguration configuration = new RedisStandaloneConfiguration(
+                System.getProperty("bench.redis.host", "localhost"), Integer.getInteger("bench.redis.port", 6379));
+        configuration.setDatabase(Integer.getInteger("bench.redis.database", 15));
+        JedisConnectionFactory connectionFactory = new JedisConnectionFactory(configuration);
+        connectionFactory.afterPropertiesSet();
+        RedisTemplate<String, Object> redisTemplate = new RedisConfig().redisTemplate(connectionFactory);
+
+        int[] likesPerUser = zipfCounts(likes, users, zipf);
+        System.out.printf("users=%d, likes=%d, max likes per user=%d, hash-max-listpack-entries=%s%n",
+                users, Arrays.stream(likesPerUser).asLongStream().sum(), likesPerUser[0],
+                redisTemplate.execute((RedisConnection connection) ->
+                        connection.serverCommands().getConfig("hash-max-listpack-entries")));
+
+        try {
+            measure("hash", new HashUserThumbStore(redisTemplate), redisTemplate, likesPerUser);
+            measure("bucketed", new BucketedUserThumbStore(redisTemplate, maxLoad), redisTemplate, likesPerUser);
+        } finally {
+            flush(redisTemplate);
+            connectionFactory.destroy();
+        }
+    }
+
+    private static void measure(String layout, UserThumbStore store, RedisTemplate<String, Object> redisTemplate, int[] likesPerUser) {
+        flush(redisTemplate);
+        long before = usedMemory(redisTemplate);
+        // 同一随机种子，两种布局写入完全相同的数据
+        Random random = new Random(19);
+        long total = 0;
+        long start = System.currentTimeMillis();
+        for (int user = 0; user < likesPerUser.length; user++) {
+            long[] blogIds = randomBlogIds(random, likesPerUser[user]);
+            store.rehydrate(user + 1, blogIds);
+            total += blogIds.length;
+        }
+        long used = usedMemory(redisTemplate) - before;
+        Long keys = redisTemplate.execute((RedisConnection connection) -> connection.serverCommands().dbSize());
+        System.out.printf("%-8s keys=%d, used_memory=%.1f MB, bytes/like=%.1f, load=%d ms%n",
+                layout, keys, used / 1024.0 / 1024.0, (double) used / total, System.currentTimeMillis() - start);
+    }
+
+    /**
+     * 第 i 个用户的点赞数与 1 / i^s 成正比，每个用户至少一个点赞
+     */
+    private static int[] zipfCounts(long likes, int users, double s) {
+        double norm = 0;
+        for (int i = 1; i <= users; i++) {
+            norm += 1 / Math.pow(i, s);
+        }
+        int[] counts = new int[users];
+        for (int i = 0; i < users; i++) {
+            counts[i] = (int) Math.max(1, Math.round(likes / norm / Math.pow(i + 1, s)));
+        }
+        return counts;
+    }
+
+    private static long[] randomBlogIds(Random random, int count) {
+        long[] blogIds = new long[count];
+        for (int i = 0; i < count; i++) {
+            blogIds[i] = BLOG_ID_BASE + (random.nextLong() & (BLOG_ID_RANGE - 1));
+        }
+        Arrays.sort(blogIds);
+        return Arrays.stream(blogIds).distinct().toArray();
+    }
+
+    private static long usedMemory(RedisTemplate<String, Object> redisTemplate) {
+        Properties info = redisTemplate.execute((RedisConnection connection) -> connection.serverCommands().info("memory"));
+        return Long.parseLong(info.getProperty("used_memory"));
+    }
+
+    private static void flush(RedisTemplate<String, Object> redisTemplate) {
+        redisTemplate.execute((RedisConnection connection) -> {
+            connection.serverCommands().flushDb();
+            return null;
+        });
+    }
+}
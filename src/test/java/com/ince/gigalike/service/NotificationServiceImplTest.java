@@ -0,0 +1,174 @@
+package com.ince.gigalike.service;
+
+import com.baomidou.mybatisplus.core.metadata.IPage;
+import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
+import com.ince.gigalike.enums.NotificationTypeEnum;
+import com.ince.gigalike.enums.RelatedTypeEnum;
+import com.ince.gigalike.listener.notification.msg.NotificationEvent;
+import com.ince.gigalike.manage.cache.MultiLevelCache;
+import com.ince.gigalike.manage.notification.NotificationLikerCounter;
+import com.ince.gigalike.manage.notification.NotificationPushThrottler;
+import com.ince.gigalike.manage.notification.NotificationSenderCache;
+import com.ince.gigalike.mapper.NotificationMapper;
+import com.ince.gigalike.model.dto.NotificationQueryRequest;
+import com.ince.gigalike.model.entity.Blog;
+import com.ince.gigalike.model.entity.Notification;
+import com.ince.gigalike.model.entity.User;
+import com.ince.gigalike.model.vo.NotificationVO;
+import com.ince.gigalike.service.Impl.NotificationServiceImpl;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+/**
+ * 通知分页查询的发送者读取：每页只查询一次通知与一次发送者，不随通知条数增长；
+ * 聚合点赞通知的点赞者数取去重计数
+ */
+public class NotificationServiceImplTest {
+
+    private static final int PAGE_SIZE = 100;
+
+    private static final int SENDERS = 7;
+
+    private NotificationMapper notificationMapper;
+
+    private UserService userService;
+
+    private MultiLevelCache<Long, Blog> blogCache;
+
+    private NotificationLikerCounter likerCounter;
+
+    private NotificationServiceImpl notificationService;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    public void setUp() {
+        notificationMapper = mock(NotificationMapper.class);
+        userService = mock(UserService.class);
+        when(userService.listByIds(any())).thenAnswer(invocation -> {
+            List<User> users = new ArrayList<>();
+            for (Object id : (Collection<?>) invocation.getArgument(0)) {
+                User user = new User();
+                user.setId((Long) id);
+                user.setUsername("user" + id);
+                users.add(user);
+            }
+            return users;
+        });
+        when(notificationMapper.selectNotificationPage(any(), anyLong(), any(), any())).thenAnswer(invocation -> {
+            Page<Notification> page = invocation.getArgument(0);
+            List<Notification> records = new ArrayList<>();
+            for (int i = 0; i < PAGE_SIZE; i++) {
+                Notification notification = new Notification();
+                notification.setId((long) i);
+                notification.setUserId(1L);
+                // 每 10 条有一条系统通知，没有发送者
+                notification.setSenderId(i % 10 == 9 ? null : 100L + i % SENDERS);
+                records.add(notification);
+            }
+            page.setRecords(records);
+            return page;
+        });
+
+        blogCache = mock(MultiLevelCache.class);
+        likerCounter = mock(NotificationLikerCounter.class);
+        notificationService = new NotificationServiceImpl(mock(NotificationPushThrottler.class), blogCache,
+                new NotificationSenderCache(userService, 30, 1000), likerCounter);
+        ReflectionTestUtils.setField(notificationService, "baseMapper", notificationMapper);
+    }
+
+    @Test
+    public void testPageResolvesSendersWithOneQuery() {
+        IPage<NotificationVO> page = notificationService.getNotificationPage(pageRequest(), 1L);
+
+        assertEquals(PAGE_SIZE, page.getRecords().size());
+        verify(notificationMapper, times(1)).selectNotificationPage(any(), anyLong(), any(), any());
+        ArgumentCaptor<Collection<Long>> ids = idsCaptor();
+        verify(userService, times(1)).listByIds(ids.capture());
+        verify(userService, never()).getById(any());
+        assertEquals(SENDERS, ids.getValue().size());
+
+        for (NotificationVO vo : page.getRecords()) {
+            if (vo.getId() % 10 == 9) {
+                assertNull(vo.getSender());
+            } else {
+                assertEquals(100L + vo.getId() % SENDERS, vo.getSender().getId());
+            }
+        }
+    }
+
+    @Test
+    public void testSendersAreCachedAcrossPages() {
+        notificationService.getNotificationPage(pageRequest(), 1L);
+        notificationService.getNotificationPage(pageRequest(), 1L);
+
+        verify(notificationMapper, times(2)).selectNotificationPage(any(), anyLong(), any(), any());
+        verify(userService, times(1)).listByIds(any());
+    }
+
+    @Test
+    public void testOnlyMissingSendersAreLoaded() {
+        NotificationSenderCache senderCache = new NotificationSenderCache(userService, 30, 1000);
+        senderCache.getAll(List.of(100L, 101L));
+        senderCache.getAll(List.of(100L, 101L, 102L, 103L));
+
+        ArgumentCaptor<Collection<Long>> ids = idsCaptor();
+        verify(userService, times(2)).listByIds(ids.capture());
+        assertEquals(Set.of(102L, 103L), new HashSet<>(ids.getAllValues().get(1)));
+    }
+
+    /**
+     * 窗口内的点赞者与之前窗口的点赞者一起去重计数，写入的点赞者数与内容按去重后的人数生成
+     */
+    @Test
+    public void testAggregatedLikeUsesDistinctLikerCount() {
+        Blog blog = new Blog();
+        blog.setId(7L);
+        blog.setUserid(1L);
+        blog.setTitle("标题");
+        when(blogCache.get(7L)).thenReturn(blog);
+        when(likerCounter.addAndCount(anyString(), any())).thenReturn(5L);
+        NotificationEvent latest = NotificationEvent.builder()
+                .userId(1L)
+                .senderId(100L)
+                .type(NotificationTypeEnum.LIKE.getCode())
+                .relatedId(7L)
+                .relatedType(RelatedTypeEnum.BLOG.getCode())
+                .build();
+
+        notificationService.createAggregatedNotification(latest, Set.of(100L, 101L));
+
+        String aggregateKey = NotificationTypeEnum.LIKE.getCode() + ":" + RelatedTypeEnum.BLOG.getCode() + ":7:1";
+        verify(likerCounter).addAndCount(aggregateKey, Set.of(100L, 101L));
+        ArgumentCaptor<Notification> notification = ArgumentCaptor.forClass(Notification.class);
+        verify(notificationMapper).upsertAggregated(notification.capture(), eq("user100"), anyString());
+        assertEquals(5, notification.getValue().getActorCount());
+        assertEquals(aggregateKey, notification.getValue().getAggregateKey());
+        assertTrue(notification.getValue().getContent().startsWith("user100 和其他 4 人"));
+    }
+
+    private static NotificationQueryRequest pageRequest() {
+        NotificationQueryRequest request = new NotificationQueryRequest();
+        request.setCurrent(1);
+        request.setPageSize(PAGE_SIZE);
+        return request;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static ArgumentCaptor<Collection<Long>> idsCaptor() {
+        return ArgumentCaptor.forClass(Collection.class);
+    }
+}
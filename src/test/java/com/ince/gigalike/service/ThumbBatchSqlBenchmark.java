@@ -0,0 +1,223 @@
+package com.ince.gigalike.service;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * ThumbConsumer 批量写库 SQL 对比：
+ * legacy  —— 逐行 INSERT（saveBatch）+ 一条带大量 OR 分支的 DELETE；
+ * locking —— 每 500 条一组先 SELECT ... FOR UPDATE 查出已存在的记录，再多行 INSERT IGNORE / (userId, blogId) IN 元组 DELETE；
+ * tuple   —— 当前 ThumbConsumer 的写法：每 500 条一组的多行 INSERT IGNORE，按博客分组的 blogId = ? AND userId IN (...) DELETE，
+ * 点赞数变化量取自影响行数，不做加锁查询
+ * <p>
+ * 需要本地 MySQL，在与 thumb 表结构相同的 thumb_bench 表上执行，不影响业务数据。
+ * 运行方式：执行 main 方法，可通过 -Dbench.jdbc.url / -Dbench.jdbc.user / -Dbench.jdbc.password 指定数据库
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Thread)
+@Warmup(iterations = 2, time = 3)
+@Measurement(iterations = 5, time = 3)
+@Fork(1)
+public class ThumbBatchSqlBenchmark {
+
+    private static final int SQL_CHUNK_SIZE = 500;
+
+    @Param({"legacy", "locking", "tuple"})
+    public String strategy;
+
+    /**
+     * 一批消息中点赞与取消点赞的数量
+     */
+    @Param({"100", "1000", "5000"})
+    public int batchSize;
+
+    private Connection connection;
+
+    private long nextId;
+
+    @Setup(Level.Trial)
+    public void setUp() throws SQLException {
+        connection = DriverManager.getConnection(
+                System.getProperty("bench.jdbc.url", "jdbc:mysql://localhost:3306/gigalikedb?useSSL=false&allowPublicKeyRetrieval=true"),
+                System.getProperty("bench.jdbc.user", "root"),
+                System.getProperty("bench.jdbc.password", "123456"));
+        connection.setAutoCommit(false);
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("CREATE TABLE IF NOT EXISTS thumb_bench LIKE thumb");
+            statement.execute("TRUNCATE TABLE thumb_bench");
+        }
+        connection.commit();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws SQLException {
+        connection.close();
+    }
+
+    /**
+     * 插入一批点赞再全部删除，模拟一次点赞批次和一次取消点赞批次
+     */
+    @Benchmark
+    public int insertThenDelete() throws SQLException {
+        long userBase = nextId;
+        nextId += batchSize;
+        int affected = switch (strategy) {
+            case "legacy" -> legacyInsert(userBase) + legacyDelete(userBase);
+            case "locking" -> lockingInsert(userBase) + lockingDelete(userBase);
+            default -> tupleInsert(userBase) + tupleDelete(userBase);
+        };
+        connection.commit();
+        return affected;
+    }
+
+    private int legacyInsert(long userBase) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(
+                "INSERT INTO thumb_bench (userId, blogId) VALUES (?, ?)")) {
+            for (int i = 0; i < batchSize; i++) {
+                statement.setLong(1, userBase + i);
+                statement.setLong(2, i % 100);
+                statement.addBatch();
+            }
+            return statement.executeBatch().length;
+        }
+    }
+
+    private int legacyDelete(long userBase) throws SQLException {
+        StringBuilder sql = new StringBuilder("DELETE FROM thumb_bench WHERE ");
+        for (int i = 0; i < batchSize; i++) {
+            sql.append(i == 0 ? "" : " OR ").append("(userId = ? AND blogId = ?)");
+        }
+        try (PreparedStatement statement = connection.prepareStatement(sql.toString())) {
+            for (int i = 0; i < batchSize; i++) {
+                statement.setLong(2 * i + 1, userBase + i);
+                statement.setLong(2 * i + 2, i % 100);
+            }
+            return statement.executeUpdate();
+        }
+    }
+
+    private int lockingInsert(long userBase) throws SQLException {
+        int affected = 0;
+        for (int from = 0; from < batchSize; from += SQL_CHUNK_SIZE) {
+            int size = Math.min(SQL_CHUNK_SIZE, batchSize - from);
+            selectForUpdate(userBase, from, size);
+            affected += insertIgnore(userBase, from, size);
+        }
+        return affected;
+    }
+
+    private int lockingDelete(long userBase) throws SQLException {
+        int affected = 0;
+        for (int from = 0; from < batchSize; from += SQL_CHUNK_SIZE) {
+            int size = Math.min(SQL_CHUNK_SIZE, batchSize - from);
+            selectForUpdate(userBase, from, size);
+            String sql = "DELETE FROM thumb_bench WHERE (userId, blogId) IN (" + tuples(size) + ")";
+            try (PreparedStatement statement = connection.prepareStatement(sql)) {
+                bind(statement, userBase, from, size);
+                affected += statement.executeUpdate();
+            }
+        }
+        return affected;
+    }
+
+    private void selectForUpdate(long userBase, int from, int size) throws SQLException {
+        String sql = "SELECT id, userId, blogId FROM thumb_bench WHERE (userId, blogId) IN (" + tuples(size) + ") FOR UPDATE";
+        try (PreparedStatement statement = connection.prepareStatement(sql)) {
+            bind(statement, userBase, from, size);
+            try (ResultSet resultSet = statement.executeQuery()) {
+                while (resultSet.next()) {
+                    resultSet.getLong(1);
+                }
+            }
+        }
+    }
+
+    private int tupleInsert(long userBase) throws SQLException {
+        int affected = 0;
+        for (int from = 0; from < batchSize; from += SQL_CHUNK_SIZE) {
+            affected += insertIgnore(userBase, from, Math.min(SQL_CHUNK_SIZE, batchSize - from));
+        }
+        return affected;
+    }
+
+    /**
+     * 与 ThumbConsumer 相同：按博客分组，每篇博客一条 DELETE
+     */
+    private int tupleDelete(long userBase) throws SQLException {
+        Map<Long, List<Long>> userIdsByBlog = new TreeMap<>();
+        for (int i = 0; i < batchSize; i++) {
+            userIdsByBlog.computeIfAbsent((long) (i % 100), blogId -> new ArrayList<>()).add(userBase + i);
+        }
+        int affected = 0;
+        for (Map.Entry<Long, List<Long>> entry : userIdsByBlog.entrySet()) {
+            List<Long> userIds = entry.getValue();
+            for (int from = 0; from < userIds.size(); from += SQL_CHUNK_SIZE) {
+                List<Long> chunk = userIds.subList(from, Math.min(from + SQL_CHUNK_SIZE, userIds.size()));
+                String sql = "DELETE FROM thumb_bench WHERE blogId = ? AND userId IN ("
+                        + String.join(",", Collections.nCopies(chunk.size(), "?")) + ")";
+                try (PreparedStatement statement = connection.prepareStatement(sql)) {
+                    statement.setLong(1, entry.getKey());
+                    for (int i = 0; i < chunk.size(); i++) {
+                        statement.setLong(i + 2, chunk.get(i));
+                    }
+                    affected += statement.executeUpdate();
+                }
+            }
+        }
+        return affected;
+    }
+
+    private int insertIgnore(long userBase, int from, int size) throws SQLException {
+        StringBuilder sql = new StringBuilder("INSERT IGNORE INTO thumb_bench (id, userId, blogId) VALUES ");
+        for (int i = 0; i < size; i++) {
+            sql.append(i == 0 ? "" : ",").append("(?, ?, ?)");
+        }
+        try (PreparedStatement statement = connection.prepareStatement(sql.toString())) {
+            for (int i = 0; i < size; i++) {
+                statement.setLong(3 * i + 1, userBase + from + i);
+                statement.setLong(3 * i + 2, userBase + from + i);
+                statement.setLong(3 * i + 3, (from + i) % 100);
+            }
+            return statement.executeUpdate();
+        }
+    }
+
+    private static String tuples(int size) {
+        StringBuilder sql = new StringBuilder();
+        for (int i = 0; i < size; i++) {
+            sql.append(i == 0 ? "" : ",").append("(?, ?)");
+        }
+        return sql.toString();
+    }
+
+    private void bind(PreparedStatement statement, long userBase, int from, int size) throws SQLException {
+        for (int i = 0; i < size; i++) {
+            statement.setLong(2 * i + 1, userBase + from + i);
+            statement.setLong(2 * i + 2, (from + i) % 100);
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(ThumbBatchSqlBenchmark.class.getSimpleName())
+                .build();
+        new Runner(options).run();
+    }
+}